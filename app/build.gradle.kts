@@ -141,7 +141,16 @@ android {
         }
     }
 
+    sourceSets {
+        getByName("test").resources.srcDir("$rootDir/data/schemas")
+    }
+
     testOptions {
+        unitTests.all { test ->
+            listOf("migrationTasks", "migrationBudgetScale").forEach { key ->
+                project.findProperty(key)?.let { test.systemProperty(key, it) }
+            }
+        }
         managedDevices {
             localDevices {
                 create("pixel2api30") {
@@ -294,4 +303,5 @@ dependencies {
     testImplementation(libs.androidx.test.core)
     testImplementation(libs.mockito.core)
     testImplementation(libs.xpp3)
+    testImplementation(libs.androidx.sqlite.bundled.jvm)
 }
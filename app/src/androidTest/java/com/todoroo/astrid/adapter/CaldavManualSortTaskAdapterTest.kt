@@ -1,5 +1,6 @@
 package com.todoroo.astrid.adapter
 
+import androidx.room.withTransaction
 import com.natpryce.makeiteasy.MakeItEasy.with
 import com.natpryce.makeiteasy.PropertyValue
 import com.todoroo.astrid.api.CaldavFilter
@@ -20,6 +21,7 @@ import org.tasks.data.dao.CaldavDao
 import org.tasks.data.dao.GoogleTaskDao
 import org.tasks.data.TaskContainer
 import org.tasks.data.TaskListQuery.getQuery
+import org.tasks.data.db.Database
 import org.tasks.injection.InjectingTestCase
 import org.tasks.injection.ProductionModule
 import org.tasks.makers.CaldavTaskMaker.CALENDAR
@@ -30,6 +32,7 @@ import org.tasks.makers.TaskMaker.CREATION_TIME
 import org.tasks.makers.TaskMaker.PARENT
 import org.tasks.makers.TaskMaker.newTask
 import org.tasks.preferences.Preferences
+import org.tasks.tasklist.MoveSnapshot
 import org.tasks.time.DateTime
 import javax.inject.Inject
 
@@ -42,6 +45,7 @@ class CaldavManualSortTaskAdapterTest : InjectingTestCase() {
     @Inject lateinit var preferences: Preferences
     @Inject lateinit var localBroadcastManager: LocalBroadcastManager
     @Inject lateinit var taskMover: TaskMover
+    @Inject lateinit var database: Database
 
     private lateinit var adapter: CaldavManualSortTaskAdapter
     private val tasks = ArrayList<TaskContainer>()
@@ -217,6 +221,33 @@ class CaldavManualSortTaskAdapterTest : InjectingTestCase() {
         checkOrder(created.plusSeconds(6), 3)
     }
 
+    @Test
+    fun queuedDropUsesPositionsFromPreviousDrop() = runBlocking {
+        val created = DateTime(2020, 5, 17, 9, 53, 17)
+        val parent = addTask(with(CREATION_TIME, created))
+        val a = addTask(with(CREATION_TIME, created.plusSeconds(1)), with(PARENT, parent))
+        val b = addTask(with(CREATION_TIME, created.plusSeconds(2)), with(PARENT, parent))
+        val c = addTask(with(CREATION_TIME, created.plusSeconds(3)), with(PARENT, parent))
+        val (p, first, second, third) = taskDao.fetchTasks { getQuery(preferences, filter) }
+
+        // the second drop uses the optimistically reordered list, without reloading
+        drop(listOf(p, first, second, third), from = 3, to = 1, indent = 1)
+        drop(listOf(p, third, first, second), from = 3, to = 2, indent = 1)
+
+        assertEquals(
+            listOf(c, b, a),
+            taskDao.fetch(listOf(a, b, c)).sortedBy { it.order }.map { it.id }
+        )
+    }
+
+    private suspend fun drop(list: List<TaskContainer>, from: Int, to: Int, indent: Int) {
+        val snapshot = MoveSnapshot(list, manualSort = true)
+        database.withTransaction {
+            snapshot.refresh(database)
+            adapter.moved(snapshot, from, to, indent)
+        }
+    }
+
     private fun move(from: Int, to: Int, indent: Int = 0) = runBlocking {
         tasks.addAll(taskDao.fetchTasks { getQuery(preferences, filter) })
         val adjustedTo = if (from < to) to + 1 else to // match DragAndDropRecyclerAdapter behavior
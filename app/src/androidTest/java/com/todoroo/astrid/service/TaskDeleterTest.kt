@@ -4,10 +4,22 @@ import org.tasks.data.entity.Task
 import dagger.hilt.android.testing.HiltAndroidTest
 import dagger.hilt.android.testing.UninstallModules
 import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Test
+import org.tasks.data.dao.CaldavDao
+import org.tasks.data.dao.CaldavDao.Companion.LOCAL
+import org.tasks.data.dao.FilePurgeDao
+import org.tasks.data.dao.TaskAttachmentDao
 import org.tasks.data.dao.TaskDao
+import org.tasks.data.dao.UserActivityDao
+import org.tasks.data.entity.Attachment
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.CaldavTask
+import org.tasks.data.entity.TaskAttachment
+import org.tasks.data.entity.UserActivity
 import org.tasks.injection.InjectingTestCase
 import org.tasks.injection.ProductionModule
 import javax.inject.Inject
@@ -17,6 +29,10 @@ import javax.inject.Inject
 class TaskDeleterTest : InjectingTestCase() {
     @Inject lateinit var taskDao: TaskDao
     @Inject lateinit var taskDeleter: TaskDeleter
+    @Inject lateinit var userActivityDao: UserActivityDao
+    @Inject lateinit var taskAttachmentDao: TaskAttachmentDao
+    @Inject lateinit var filePurgeDao: FilePurgeDao
+    @Inject lateinit var caldavDao: CaldavDao
 
     @Test
     fun markTaskAsDeleted() = runBlocking {
@@ -39,4 +55,56 @@ class TaskDeleterTest : InjectingTestCase() {
 
         assertFalse(taskDao.fetch(task.id)!!.isDeleted)
     }
+
+    @Test
+    fun queueCommentPictures() = runBlocking {
+        val task = Task()
+        taskDao.createNew(task)
+        userActivityDao.createNew(
+            UserActivity(targetId = task.uuid, picture = "file:///comment.jpg")
+        )
+
+        taskDeleter.markDeleted(task)
+
+        assertTrue(userActivityDao.getComments().isEmpty())
+        assertEquals(listOf("file:///comment.jpg"), filePurgeDao.getQueued(10).map { it.uri })
+    }
+
+    @Test
+    fun keepSharedAttachments() = runBlocking {
+        val first = Task().apply { taskDao.createNew(this) }
+        val second = Task().apply { taskDao.createNew(this) }
+        taskAttachmentDao.insert(TaskAttachment(remoteId = "shared", name = "shared", uri = "file:///shared"))
+        taskAttachmentDao.insert(TaskAttachment(remoteId = "single", name = "single", uri = "file:///single"))
+        val shared = taskAttachmentDao.getAttachment("shared")!!
+        val single = taskAttachmentDao.getAttachment("single")!!
+        taskAttachmentDao.insert(
+            listOf(
+                Attachment(task = first.id, fileId = shared.id!!, attachmentUid = "shared"),
+                Attachment(task = second.id, fileId = shared.id!!, attachmentUid = "shared"),
+                Attachment(task = first.id, fileId = single.id!!, attachmentUid = "single"),
+            )
+        )
+
+        taskDeleter.delete(first)
+
+        assertEquals(listOf("file:///single"), filePurgeDao.getQueued(10).map { it.uri })
+        assertEquals(listOf("shared"), taskAttachmentDao.getAttachments().map { it.remoteId })
+    }
+
+    @Test
+    fun purgeAttachmentsForDeletedLocalTask() = runBlocking {
+        val task = Task().apply { taskDao.createNew(this) }
+        caldavDao.insert(CaldavCalendar(name = "", uuid = "1234", account = LOCAL))
+        caldavDao.insert(CaldavTask(task = task.id, calendar = "1234"))
+        taskAttachmentDao.insert(TaskAttachment(remoteId = "file", name = "file", uri = "file:///file"))
+        val file = taskAttachmentDao.getAttachment("file")!!
+        taskAttachmentDao.insert(listOf(Attachment(task = task.id, fileId = file.id!!, attachmentUid = "file")))
+
+        taskDeleter.markDeleted(task)
+
+        assertNull(taskDao.fetch(task.id))
+        assertEquals(listOf("file:///file"), filePurgeDao.getQueued(10).map { it.uri })
+        assertTrue(taskAttachmentDao.getAttachments().isEmpty())
+    }
 }
@@ -0,0 +1,196 @@
+package com.todoroo.astrid.service
+
+import com.natpryce.makeiteasy.MakeItEasy.with
+import com.todoroo.astrid.dao.TaskDao
+import dagger.hilt.android.testing.HiltAndroidTest
+import dagger.hilt.android.testing.UninstallModules
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.tasks.R
+import org.tasks.SuspendFreeze.Companion.freezeAt
+import org.tasks.data.dao.AlarmDao
+import org.tasks.data.dao.CaldavDao
+import org.tasks.data.dao.TagDao
+import org.tasks.data.dao.TagDataDao
+import org.tasks.data.entity.Alarm
+import org.tasks.data.entity.CaldavAccount
+import org.tasks.data.entity.CaldavAccount.Companion.TYPE_CALDAV
+import org.tasks.data.entity.CaldavAccount.Companion.TYPE_GOOGLE_TASKS
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.Tag
+import org.tasks.data.entity.TagData
+import org.tasks.injection.InjectingTestCase
+import org.tasks.injection.ProductionModule
+import org.tasks.makers.CaldavTaskMaker.CALENDAR
+import org.tasks.makers.CaldavTaskMaker.REMOTE_ID
+import org.tasks.makers.CaldavTaskMaker.REMOTE_PARENT
+import org.tasks.makers.CaldavTaskMaker.TASK
+import org.tasks.makers.CaldavTaskMaker.newCaldavTask
+import org.tasks.makers.TaskMaker.CREATION_TIME
+import org.tasks.makers.TaskMaker.ID
+import org.tasks.makers.TaskMaker.ORDER
+import org.tasks.makers.TaskMaker.PARENT
+import org.tasks.makers.TaskMaker.TITLE
+import org.tasks.makers.TaskMaker.newTask
+import org.tasks.preferences.Preferences
+import org.tasks.time.DateTime
+import javax.inject.Inject
+
+@UninstallModules(ProductionModule::class)
+@HiltAndroidTest
+class TaskDuplicatorTest : InjectingTestCase() {
+    @Inject lateinit var taskDao: TaskDao
+    @Inject lateinit var caldavDao: CaldavDao
+    @Inject lateinit var tagDao: TagDao
+    @Inject lateinit var tagDataDao: TagDataDao
+    @Inject lateinit var alarmDao: AlarmDao
+    @Inject lateinit var taskDuplicator: TaskDuplicator
+    @Inject lateinit var preferences: Preferences
+
+    @Test
+    fun duplicateSubtaskTree() = runBlocking {
+        taskDao.createNew(newTask(with(ID, 1L), with(TITLE, "parent")))
+        taskDao.createNew(newTask(with(ID, 2L), with(TITLE, "child"), with(PARENT, 1L)))
+        taskDao.createNew(newTask(with(ID, 3L), with(TITLE, "grandchild"), with(PARENT, 2L)))
+        taskDao.createNew(newTask(with(ID, 4L), with(TITLE, "sibling"), with(PARENT, 1L)))
+
+        val clone = taskDuplicator.duplicate(listOf(1L, 3L)).single()
+
+        val children = taskDao.fetch(taskDao.getChildren(clone.id))
+        assertEquals(listOf("child", "grandchild", "sibling"), children.map { it.title }.sorted())
+        val child = children.first { it.title == "child" }
+        assertEquals(clone.id, child.parent)
+        assertEquals(child.id, children.first { it.title == "grandchild" }.parent)
+    }
+
+    @Test
+    fun copyTagsAndAlarms() = runBlocking {
+        taskDao.createNew(newTask(with(ID, 1L)))
+        tagDataDao.insert(TagData(name = "tag", remoteId = "tag"))
+        tagDao.insert(Tag(task = 1, name = "tag", tagUid = "tag", taskUid = taskDao.fetch(1)!!.uuid))
+        alarmDao.insert(Alarm(task = 1, time = 1234, type = Alarm.TYPE_DATE_TIME))
+
+        val clone = taskDuplicator.duplicate(listOf(1L)).single()
+
+        assertEquals(listOf("tag"), tagDataDao.getTagDataForTask(clone.id).map { it.name })
+        assertEquals(listOf(1234L), alarmDao.getAlarms(clone.id).map { it.time })
+    }
+
+    @Test
+    fun copySubtasksToCaldavList() = runBlocking {
+        caldavDao.insert(CaldavCalendar(uuid = "calendar", account = "account"))
+        taskDao.createNew(newTask(with(ID, 1L)))
+        taskDao.createNew(newTask(with(ID, 2L), with(PARENT, 1L), with(ORDER, 5L)))
+        caldavDao.insert(newCaldavTask(with(TASK, 1L), with(CALENDAR, "calendar"), with(REMOTE_ID, "1")))
+        caldavDao.insert(newCaldavTask(with(TASK, 2L), with(CALENDAR, "calendar"), with(REMOTE_ID, "2")))
+
+        val clone = taskDuplicator.duplicate(listOf(1L)).single()
+
+        val parent = caldavDao.getTask(clone.id)!!
+        val child = taskDao.fetch(taskDao.getChildren(clone.id)).single()
+        assertEquals("calendar", parent.calendar)
+        assertEquals(parent.remoteId, caldavDao.getTask(child.id)!!.remoteParent)
+        assertEquals(5L, child.order)
+    }
+
+    @Test
+    fun caldavCopiesAtTopMatchIndividualCopies() = runBlocking {
+        preferences.setBoolean(R.string.p_add_to_top, true)
+        assertBatchMatchesIndividualCopies(TYPE_CALDAV)
+    }
+
+    @Test
+    fun caldavCopiesAtBottomMatchIndividualCopies() = runBlocking {
+        preferences.setBoolean(R.string.p_add_to_top, false)
+        assertBatchMatchesIndividualCopies(TYPE_CALDAV)
+    }
+
+    @Test
+    fun googleTaskCopiesAtTopMatchIndividualCopies() = runBlocking {
+        preferences.setBoolean(R.string.p_add_to_top, true)
+        assertBatchMatchesIndividualCopies(TYPE_GOOGLE_TASKS)
+    }
+
+    @Test
+    fun googleTaskCopiesAtBottomMatchIndividualCopies() = runBlocking {
+        preferences.setBoolean(R.string.p_add_to_top, false)
+        assertBatchMatchesIndividualCopies(TYPE_GOOGLE_TASKS)
+    }
+
+    /**
+     * Sets up the same list twice, duplicates the roots of one list in a single call and the
+     * roots of the other one at a time, then compares parents, orders and remote parents
+     */
+    private suspend fun assertBatchMatchesIndividualCopies(accountType: Int) {
+        val batch = createList("batch", accountType)
+        val individual = createList("individual", accountType)
+
+        freezeAt(DUPLICATED) {
+            taskDuplicator.duplicate(batch)
+            individual.forEach { taskDuplicator.duplicate(listOf(it)) }
+        }
+
+        assertEquals(getPositions("individual"), getPositions("batch"))
+    }
+
+    /** Creates a list with an existing task followed by two roots, the first with a subtask */
+    private suspend fun createList(calendar: String, accountType: Int): List<Long> {
+        caldavDao.insert(CaldavAccount(uuid = calendar, accountType = accountType))
+        caldavDao.insert(CaldavCalendar(uuid = calendar, account = calendar))
+        val google = accountType == TYPE_GOOGLE_TASKS
+        insert(calendar, "existing", 0, order = if (google) 0L else null)
+        val first = insert(calendar, "first", 1, order = if (google) 1L else null)
+        insert(calendar, "child", 2, parent = first, order = if (google) 0L else null)
+        val second = insert(calendar, "second", 3, order = if (google) 2L else null)
+        return listOf(first, second)
+    }
+
+    private suspend fun insert(
+        calendar: String,
+        title: String,
+        seconds: Int,
+        parent: Long = 0,
+        order: Long?,
+    ): Long {
+        val task = newTask(
+            with(TITLE, title),
+            with(PARENT, parent),
+            with(CREATION_TIME, CREATED.plusSeconds(seconds)),
+        ).apply { this.order = order }
+        taskDao.createNew(task)
+        caldavDao.insert(
+            newCaldavTask(
+                with(TASK, task.id),
+                with(CALENDAR, calendar),
+                with(REMOTE_ID, "$calendar-$title"),
+                with(REMOTE_PARENT, if (parent > 0) "$calendar-first" else null),
+            )
+        )
+        return task.id
+    }
+
+    private suspend fun getPositions(calendar: String): List<String> {
+        val tasks = taskDao.getAll()
+        val caldavTasks = caldavDao.getTasks(tasks.map { it.id }).associateBy { it.task }
+        val list = tasks.filter { caldavTasks[it.id]?.calendar == calendar }
+        val titles = list.associate { it.id to it.title }
+        val remoteTitles = list.associate { caldavTasks[it.id]!!.remoteId to it.title }
+        return list
+            .map {
+                listOf(
+                    it.title,
+                    it.creationDate == DUPLICATED.millis,
+                    titles[it.parent],
+                    it.order,
+                    caldavTasks[it.id]!!.remoteParent?.let { remote -> remoteTitles[remote] },
+                ).joinToString()
+            }
+            .sorted()
+    }
+
+    companion object {
+        private val CREATED = DateTime(2024, 5, 17, 9, 53, 17)
+        private val DUPLICATED = DateTime(2024, 5, 18, 14, 2, 51)
+    }
+}
@@ -0,0 +1,105 @@
+package com.todoroo.astrid.service
+
+import com.natpryce.makeiteasy.MakeItEasy.with
+import dagger.hilt.android.testing.HiltAndroidTest
+import dagger.hilt.android.testing.UninstallModules
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import org.tasks.R
+import org.tasks.caldav.VtodoCache
+import org.tasks.data.dao.CaldavDao
+import org.tasks.data.dao.TaskDao
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.injection.InjectingTestCase
+import org.tasks.injection.ProductionModule
+import org.tasks.makers.CaldavTaskMaker.CALENDAR
+import org.tasks.makers.CaldavTaskMaker.TASK
+import org.tasks.makers.CaldavTaskMaker.newCaldavTask
+import org.tasks.makers.TaskMaker.newTask
+import org.tasks.preferences.Preferences
+import javax.inject.Inject
+
+@UninstallModules(ProductionModule::class)
+@HiltAndroidTest
+class UpgraderTest : InjectingTestCase() {
+    @Inject lateinit var taskDao: TaskDao
+    @Inject lateinit var caldavDao: CaldavDao
+    @Inject lateinit var vtodoCache: VtodoCache
+    @Inject lateinit var preferences: Preferences
+    @Inject lateinit var upgrader: Upgrader
+
+    private val calendar = CaldavCalendar(uuid = "calendar")
+    private var first = 0L
+    private var second = 0L
+
+    @Before
+    override fun setUp() {
+        super.setUp()
+        runBlocking {
+            caldavDao.insert(calendar)
+            first = insertTask()
+            second = insertTask()
+        }
+    }
+
+    @Test
+    fun resumeFromCheckpoint() = runBlocking {
+        preferences.setInt(R.string.p_upgrade_migrated_version, Upgrader.V8_5)
+        preferences.setLong(R.string.p_upgrade_checkpoint, first)
+
+        upgrader.migrate { _, _ -> }
+
+        assertNull(taskDao.fetch(first)!!.order)
+        assertEquals(-27L, taskDao.fetch(second)!!.order)
+    }
+
+    @Test
+    fun skipCompletedMigrations() = runBlocking {
+        preferences.setInt(R.string.p_upgrade_migrated_version, Upgrader.V9_6)
+
+        upgrader.migrate { _, _ -> }
+
+        assertNull(taskDao.fetch(first)!!.order)
+        assertNull(taskDao.fetch(second)!!.order)
+    }
+
+    @Test
+    fun clearProgressWhenDone() = runBlocking {
+        preferences.setInt(R.string.p_upgrade_migrated_version, Upgrader.V8_5)
+        preferences.setLong(R.string.p_upgrade_checkpoint, first)
+
+        upgrader.migrate { _, _ -> }
+
+        assertFalse(upgrader.hasPendingMigrations)
+        assertEquals(0L, preferences.getLong(R.string.p_upgrade_checkpoint, 0L))
+    }
+
+    private suspend fun insertTask(): Long {
+        val taskId = taskDao.insert(newTask())
+        val caldavTask = newCaldavTask(with(TASK, taskId), with(CALENDAR, calendar.uuid))
+        caldavDao.insert(caldavTask)
+        vtodoCache.putVtodo(calendar, caldavTask, VTODO)
+        return taskId
+    }
+
+    companion object {
+        private val VTODO = """
+            BEGIN:VCALENDAR
+            VERSION:2.0
+            PRODID:+//IDN tasks.org//android-90300//EN
+            BEGIN:VTODO
+            DTSTAMP:20210121T153032Z
+            UID:4586964443060640060
+            CREATED:20210121T153000Z
+            LAST-MODIFIED:20210121T153029Z
+            SUMMARY:Test
+            X-APPLE-SORT-ORDER:-27
+            END:VTODO
+            END:VCALENDAR
+        """.trimIndent()
+    }
+}
@@ -57,7 +57,7 @@ class SubtasksMovingTest : SubtasksTestCase() {
 
     private fun whenTriggerMoveBefore(target: Task?, before: Task?) = runBlocking {
         val beforeId = before?.uuid ?: "-1"
-        updater.moveTo(TaskListMetadata(), filter, target!!.uuid, beforeId)
+        updater.moveTo(TaskListMetadata(), target!!.uuid, beforeId)
     }
 
     /* Starting State (see SubtasksTestCase):
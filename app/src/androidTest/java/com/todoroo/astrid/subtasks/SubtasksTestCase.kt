@@ -8,6 +8,7 @@ import org.tasks.data.entity.Task
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotNull
 import org.tasks.data.dao.TaskListMetadataDao
+import org.tasks.data.dao.TaskListOrderDao
 import org.tasks.injection.InjectingTestCase
 import org.tasks.preferences.Preferences
 import javax.inject.Inject
@@ -16,6 +17,7 @@ abstract class SubtasksTestCase : InjectingTestCase() {
     lateinit var updater: SubtasksFilterUpdater
     lateinit var filter: AstridOrderingFilter
     @Inject lateinit var taskListMetadataDao: TaskListMetadataDao
+    @Inject lateinit var taskListOrderDao: TaskListOrderDao
     @Inject lateinit var taskDao: TaskDao
     @Inject lateinit var preferences: Preferences
     
@@ -23,7 +25,7 @@ abstract class SubtasksTestCase : InjectingTestCase() {
         super.setUp()
         filter = BuiltInFilterExposer.getMyTasksFilter(InstrumentationRegistry.getTargetContext().resources)
         preferences.clear(SubtasksFilterUpdater.ACTIVE_TASKS_ORDER)
-        updater = SubtasksFilterUpdater(taskListMetadataDao, taskDao)
+        updater = SubtasksFilterUpdater(taskListMetadataDao, taskListOrderDao, taskDao)
     }
 
     fun expectParentAndPosition(task: Task, parent: Task?, positionInParent: Int) {
@@ -5,16 +5,19 @@
  */
 package org.tasks.data
 
+import androidx.room.withTransaction
 import com.natpryce.makeiteasy.MakeItEasy.with
 import org.tasks.data.entity.Task
 import com.todoroo.astrid.service.TaskDeleter
 import dagger.hilt.android.testing.HiltAndroidTest
 import dagger.hilt.android.testing.UninstallModules
 import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNull
 import org.junit.Test
 import org.tasks.data.dao.TaskDao
+import org.tasks.data.db.Database
 import org.tasks.injection.InjectingTestCase
 import org.tasks.injection.ProductionModule
 import org.tasks.makers.TaskMaker.PARENT
@@ -28,6 +31,7 @@ class TaskDaoTests : InjectingTestCase() {
 
     @Inject lateinit var taskDao: TaskDao
     @Inject lateinit var taskDeleter: TaskDeleter
+    @Inject lateinit var database: Database
 
     /** Test various task fetch conditions  */
     @Test
@@ -133,4 +137,36 @@ class TaskDaoTests : InjectingTestCase() {
         assertEquals(0, taskDao.fetch(parent)!!.parent)
         assertEquals(parent, taskDao.fetch(child)!!.parent)
     }
+
+    @Test
+    fun nestedTransactionCommitsWithOuterTransaction() = runBlocking {
+        val task = taskDao.createNew(newTask())
+
+        withTimeout(5_000) {
+            database.withTransaction {
+                taskDao.setLastNotified(mapOf(task to 1234L))
+                assertEquals(1234L, taskDao.fetch(task)!!.reminderLast)
+            }
+        }
+
+        assertEquals(1234L, taskDao.fetch(task)!!.reminderLast)
+    }
+
+    @Test
+    fun nestedTransactionRollsBackWithOuterTransaction() = runBlocking {
+        val task = taskDao.createNew(newTask())
+
+        withTimeout(5_000) {
+            try {
+                database.withTransaction {
+                    taskDao.setLastNotified(mapOf(task to 1234L))
+                    throw IllegalStateException()
+                }
+            } catch (e: IllegalStateException) {
+                // expected
+            }
+        }
+
+        assertEquals(0L, taskDao.fetch(task)!!.reminderLast)
+    }
 }
\ No newline at end of file
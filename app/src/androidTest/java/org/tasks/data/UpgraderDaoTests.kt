@@ -62,4 +62,15 @@ class UpgraderDaoTests : InjectingTestCase() {
         caldavDao.insert(CaldavTask(task = task.id, calendar = "calendar"))
         assertTrue(upgraderDao.tasksWithTags().isEmpty())
     }
+
+    @Test
+    fun pageCaldavTasksById() = runBlocking {
+        (1L..5L).forEach {
+            taskDao.createNew(TaskMaker.newTask(MakeItEasy.with(TaskMaker.ID, it)))
+            caldavDao.insert(CaldavTask(task = it, calendar = "calendar", deleted = if (it == 3L) 1L else 0L))
+        }
+        assertEquals(listOf(1L, 2L), upgraderDao.tasksWithVtodos(0, 2).map { it.id })
+        assertEquals(listOf(4L, 5L), upgraderDao.tasksWithVtodos(2, 2).map { it.id })
+        assertTrue(upgraderDao.tasksWithVtodos(5, 2).isEmpty())
+    }
 }
@@ -0,0 +1,180 @@
+package org.tasks.sync.microsoft
+
+import com.todoroo.astrid.dao.TaskDao
+import dagger.hilt.android.testing.HiltAndroidTest
+import dagger.hilt.android.testing.UninstallModules
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.tasks.data.UUIDHelper
+import org.tasks.data.dao.CaldavDao
+import org.tasks.data.entity.CaldavAccount
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.CaldavTask
+import org.tasks.data.entity.Task
+import org.tasks.injection.InjectingTestCase
+import org.tasks.injection.ProductionModule
+import org.tasks.time.DateTimeUtils2.currentTimeMillis
+import retrofit2.Retrofit
+import retrofit2.converter.moshi.MoshiConverterFactory
+import javax.inject.Inject
+
+@UninstallModules(ProductionModule::class)
+@HiltAndroidTest
+class MicrosoftSynchronizerTest : InjectingTestCase() {
+    @Inject lateinit var synchronizer: MicrosoftSynchronizer
+    @Inject lateinit var caldavDao: CaldavDao
+    @Inject lateinit var taskDao: TaskDao
+
+    private val server = MockWebServer()
+    private lateinit var service: MicrosoftService
+    private lateinit var account: CaldavAccount
+
+    @Before
+    override fun setUp() = runBlocking {
+        super.setUp()
+        server.start()
+        service = Retrofit.Builder()
+            .baseUrl(server.url("/"))
+            .addConverterFactory(MoshiConverterFactory.create())
+            .build()
+            .create(MicrosoftService::class.java)
+        account = CaldavAccount(
+            uuid = UUIDHelper.newUUID(),
+            accountType = CaldavAccount.TYPE_MICROSOFT,
+        ).let {
+            it.copy(id = caldavDao.insert(it))
+        }
+    }
+
+    @After
+    fun after() = server.shutdown()
+
+    @Test
+    fun initialSyncFollowsPagesAndStoresDeltaLink() = runBlocking {
+        enqueue("lists.json", "initial_page_1.json", "initial_page_2.json")
+
+        synchronizer.sync(account, service)
+
+        val calendar = caldavDao.getCalendarByUrl(account.uuid!!, "list-1")!!
+        assertEquals(
+            server.url("/v1.0/me/todo/lists/list-1/tasks/delta?\$deltatoken=token1").toString(),
+            calendar.ctag
+        )
+        assertEquals("First task", fetch("task-1").title)
+        assertEquals("Second task", fetch("task-2").title)
+    }
+
+    @Test
+    fun deltaAppliesChangedItems() = runBlocking {
+        val task = insertSyncedTask("task-1", etag = "W/\"etag-1\"")
+        enqueue("lists.json", "updated.json")
+
+        synchronizer.sync(account, service)
+
+        assertEquals("Renamed task", taskDao.fetch(task)!!.title)
+        assertEquals("W/\"etag-1-b\"", caldavDao.getTaskByRemoteId("list-1", "task-1")!!.etag)
+        assertTrue(server.takeRequest().path!!.endsWith("/lists"))
+        assertTrue(server.takeRequest().path!!.endsWith("deltatoken=token1"))
+    }
+
+    @Test
+    fun deltaAppliesRemovedItems() = runBlocking {
+        val task = insertSyncedTask("task-1")
+        enqueue("lists.json", "removed.json")
+
+        synchronizer.sync(account, service)
+
+        assertTrue(taskDao.fetch(task)?.isDeleted ?: true)
+    }
+
+    @Test
+    fun resyncWhenDeltaLinkIsGone() = runBlocking {
+        val stale = insertSyncedTask("stale-task")
+        server.enqueue(MockResponse().setBody(fixture("lists.json")))
+        server.enqueue(MockResponse().setResponseCode(410).setBody(fixture("gone.json")))
+        enqueue("initial_page_1.json", "initial_page_2.json")
+
+        synchronizer.sync(account, service)
+
+        assertNull(caldavDao.getTaskByRemoteId("list-1", "stale-task"))
+        assertTrue(taskDao.fetch(stale)?.isDeleted ?: true)
+        assertEquals("First task", fetch("task-1").title)
+        assertEquals(
+            server.url("/v1.0/me/todo/lists/list-1/tasks/delta?\$deltatoken=token1").toString(),
+            caldavDao.getCalendarByUrl(account.uuid!!, "list-1")!!.ctag
+        )
+    }
+
+    @Test
+    fun pushNewTaskInBatch() = runBlocking {
+        insertCalendar()
+        val task = Task(title = "Local task", modificationDate = currentTimeMillis())
+        taskDao.createNew(task)
+        caldavDao.insert(CaldavTask(task = task.id, calendar = "list-1"))
+        enqueue("lists.json", "batch_created.json", "empty_delta.json")
+
+        synchronizer.sync(account, service)
+
+        server.takeRequest()
+        val batch = server.takeRequest()
+        assertTrue(batch.path!!.endsWith("/\$batch"))
+        assertTrue(batch.body.readUtf8().contains("\"method\":\"POST\""))
+        val caldavTask = caldavDao.getTaskByRemoteId("list-1", "task-3")!!
+        assertEquals(task.id, caldavTask.task)
+        assertEquals("W/\"etag-3\"", caldavTask.etag)
+        assertFalse(caldavTask.lastSync == 0L)
+    }
+
+    private suspend fun insertCalendar() {
+        caldavDao.insert(
+            CaldavCalendar(
+                account = account.uuid,
+                uuid = "list-1",
+                url = "list-1",
+                name = "Tasks",
+                ctag = server.url("/v1.0/me/todo/lists/list-1/tasks/delta?\$deltatoken=token1").toString(),
+            )
+        )
+    }
+
+    private suspend fun insertSyncedTask(remoteId: String, etag: String? = null): Long {
+        insertCalendar()
+        val task = Task(title = "Original", modificationDate = currentTimeMillis() - 60_000)
+        taskDao.createNew(task)
+        caldavDao.insert(
+            CaldavTask(
+                task = task.id,
+                calendar = "list-1",
+                remoteId = remoteId,
+                etag = etag,
+                lastSync = task.modificationDate,
+            )
+        )
+        return task.id
+    }
+
+    private suspend fun fetch(remoteId: String): Task =
+        taskDao.fetch(caldavDao.getTaskByRemoteId("list-1", remoteId)!!.task)!!
+
+    private fun enqueue(vararg fixtures: String) {
+        fixtures.forEach {
+            server.enqueue(MockResponse().setBody(fixture(it)))
+        }
+        server.enqueue(MockResponse().setResponseCode(500))
+    }
+
+    private fun fixture(name: String): String =
+        javaClass.classLoader!!
+            .getResourceAsStream("microsoft/delta/$name")
+            .bufferedReader()
+            .readText()
+            .replace("{{server}}", server.url("/").toString().trimEnd('/'))
+}
@@ -20,6 +20,7 @@ import org.tasks.data.dao.LocationDao
 import org.tasks.data.dao.TagDataDao
 import org.tasks.data.dao.UserActivityDao
 import org.tasks.data.getLocation
+import org.tasks.events.ChangeEventBus
 import org.tasks.injection.InjectingTestCase
 import org.tasks.location.GeofenceApi
 import org.tasks.preferences.DefaultFilterProvider
@@ -45,6 +46,7 @@ open class BaseTaskEditViewModelTest : InjectingTestCase() {
     @Inject lateinit var tagDataDao: TagDataDao
     @Inject lateinit var alarmDao: AlarmDao
     @Inject lateinit var userActivityDao: UserActivityDao
+    @Inject lateinit var changeEventBus: ChangeEventBus
 
     protected lateinit var viewModel: TaskEditViewModel
 
@@ -79,6 +81,8 @@ open class BaseTaskEditViewModelTest : InjectingTestCase() {
             userActivityDao = userActivityDao,
             taskAttachmentDao = db.taskAttachmentDao(),
             alarmDao = db.alarmDao(),
+            database = db,
+            changeEventBus = changeEventBus,
         )
     }
 
@@ -19,6 +19,7 @@ import org.tasks.injection.InjectingTestCase
 import org.tasks.injection.ProductionModule
 import org.tasks.preferences.Preferences
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
+import org.tasks.ui.ChipListCache
 import org.tasks.ui.TaskListViewModel
 import javax.inject.Inject
 
@@ -33,6 +34,7 @@ class TaskListViewModelTest : InjectingTestCase() {
     @Inject lateinit var localBroadcastManager: LocalBroadcastManager
     @Inject lateinit var inventory: Inventory
     @Inject lateinit var firebase: Firebase
+    @Inject lateinit var chipListCache: ChipListCache
 
     @Before
     override fun setUp() {
@@ -46,6 +48,7 @@ class TaskListViewModelTest : InjectingTestCase() {
             localBroadcastManager = localBroadcastManager,
             inventory = inventory,
             firebase = firebase,
+            chipListCache = chipListCache,
         )
         viewModel.setFilter(BuiltInFilterExposer.getMyTasksFilter(context.resources))
     }
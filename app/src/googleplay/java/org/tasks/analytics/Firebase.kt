@@ -57,6 +57,7 @@ class Firebase @Inject constructor(
                 when (it.second::class) {
                     String::class -> putString(key, it.second as String)
                     Boolean::class -> putBoolean(key, it.second as Boolean)
+                    Long::class -> putLong(key, it.second as Long)
                     else -> Timber.e("Unhandled param: $it")
                 }
             }
@@ -108,6 +108,7 @@ import org.tasks.dialogs.FilterPicker.Companion.newFilterPicker
 import org.tasks.dialogs.FilterPicker.Companion.setFilterPickerResultListener
 import org.tasks.dialogs.PriorityPicker.Companion.newPriorityPicker
 import org.tasks.dialogs.SortSettingsActivity
+import org.tasks.events.ChangeEventBus
 import org.tasks.extensions.Context.openUri
 import org.tasks.extensions.Context.toast
 import org.tasks.extensions.Fragment.safeStartActivityForResult
@@ -167,6 +168,7 @@ class TaskListFragment : Fragment(), OnRefreshListener, Toolbar.OnMenuItemClickL
     @Inject lateinit var taskListEventBus: TaskListEventBus
     @Inject lateinit var taskEditEventBus: TaskEditEventBus
     @Inject lateinit var database: Database
+    @Inject lateinit var changeEventBus: ChangeEventBus
     @Inject lateinit var markdown: MarkdownProvider
     
     private val listViewModel: TaskListViewModel by viewModels()
@@ -375,6 +377,8 @@ class TaskListFragment : Fragment(), OnRefreshListener, Toolbar.OnMenuItemClickL
                         taskList = this,
                         tasks = tasks,
                         preferences = preferences,
+                        database = database,
+                        changeEventBus = changeEventBus,
                         toggleCollapsed = { listViewModel.toggleCollapsed(it) },
                     )
             )
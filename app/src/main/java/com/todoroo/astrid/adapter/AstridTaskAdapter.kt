@@ -1,6 +1,5 @@
 package com.todoroo.astrid.adapter
 
-import com.todoroo.astrid.api.AstridOrderingFilter
 import com.todoroo.astrid.dao.TaskDao
 import org.tasks.data.entity.Task
 import com.todoroo.astrid.service.TaskMover
@@ -19,7 +18,6 @@ import kotlin.math.abs
 @Deprecated("legacy astrid manual sorting")
 class AstridTaskAdapter internal constructor(
     private val list: TaskListMetadata,
-    private val filter: AstridOrderingFilter,
     private val updater: SubtasksFilterUpdater,
     googleTaskDao: GoogleTaskDao,
     caldavDao: CaldavDao,
@@ -41,20 +39,20 @@ class AstridTaskAdapter internal constructor(
 
     override fun supportsAstridSorting() = true
 
-    override suspend fun moved(from: Int, to: Int, indent: Int) {
-        val source = getTask(from)
+    override suspend fun moved(items: TaskAdapterDataSource, from: Int, to: Int, indent: Int) {
+        val source = items.getItem(from)!!
         val targetTaskId = source.uuid
         try {
-            if (to >= count) {
-                updater.moveTo(list, filter, targetTaskId, "-1") // $NON-NLS-1$
+            if (to >= items.getTaskCount()) {
+                updater.moveTo(list, targetTaskId, "-1") // $NON-NLS-1$
             } else {
-                val destinationTaskId = getItemUuid(to)
-                updater.moveTo(list, filter, targetTaskId, destinationTaskId)
+                val destinationTaskId = items.getItem(to)!!.uuid
+                updater.moveTo(list, targetTaskId, destinationTaskId)
             }
             val currentIndent = updater.getIndentForTask(targetTaskId)
             val delta = indent - currentIndent
             for (i in 0 until abs(delta)) {
-                updater.indent(list, filter, targetTaskId, delta)
+                updater.indent(list, targetTaskId, delta)
             }
             localBroadcastManager.broadcastRefresh()
         } catch (e: Exception) {
@@ -62,9 +60,9 @@ class AstridTaskAdapter internal constructor(
         }
     }
 
-    override suspend fun onTaskCreated(uuid: String) = updater.onCreateTask(list, filter, uuid)
+    override suspend fun onTaskCreated(uuid: String) = updater.onCreateTask(list, uuid)
 
-    override suspend fun onTaskDeleted(task: Task) = updater.onDeleteTask(list, filter, task.uuid)
+    override suspend fun onTaskDeleted(task: Task) = updater.onDeleteTask(list, task.uuid)
 
     override suspend fun onCompletedTask(uuid: String, newState: Boolean) {
         val completionDate = if (newState) currentTimeMillis() else 0
@@ -94,7 +92,7 @@ class AstridTaskAdapter internal constructor(
                 }
             }
             if (madeChanges) {
-                updater.writeSerialization(list, updater.serializeTree())
+                updater.writeOrder(list)
             }
             chainedCompletions[uuid] = chained
         }
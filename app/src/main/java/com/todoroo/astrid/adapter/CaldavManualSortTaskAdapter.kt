@@ -14,7 +14,7 @@ class CaldavManualSortTaskAdapter internal constructor(
     taskMover: TaskMover,
 ) : TaskAdapter(false, googleTaskDao, caldavDao, taskDao, localBroadcastManager, taskMover) {
 
-    override suspend fun moved(from: Int, to: Int, indent: Int) {
-        moveCaldavTask(from, to, indent)
+    override suspend fun moved(items: TaskAdapterDataSource, from: Int, to: Int, indent: Int) {
+        moveCaldavTask(items, from, to, indent)
     }
 }
\ No newline at end of file
@@ -14,7 +14,7 @@ class GoogleTaskManualSortAdapter internal constructor(
     taskMover: TaskMover,
 ) : TaskAdapter(false, googleTaskDao, caldavDao, taskDao, localBroadcastManager, taskMover) {
 
-    override suspend fun moved(from: Int, to: Int, indent: Int) {
-        moveGoogleTask(from, to, indent)
+    override suspend fun moved(items: TaskAdapterDataSource, from: Int, to: Int, indent: Int) {
+        moveGoogleTask(items, from, to, indent)
     }
 }
\ No newline at end of file
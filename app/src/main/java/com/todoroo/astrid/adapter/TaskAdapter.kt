@@ -118,17 +118,23 @@ open class TaskAdapter(
 
     open fun supportsAstridSorting(): Boolean = false
 
-    open suspend fun moved(from: Int, to: Int, indent: Int) {
-        val task = getTask(from)
-        val newParent = findParent(indent, to)
-        if ((newParent?.id ?: 0) == task.parent || (indent > 0 && dataSource.subtaskSortMode == SORT_MANUAL)) {
+    suspend fun moved(from: Int, to: Int, indent: Int) = moved(dataSource, from, to, indent)
+
+    /**
+     * Persists a drop. Positions refer to [items], a copy of the list taken when the task was
+     * dropped, so the visible list can be reordered without waiting for this to finish
+     */
+    open suspend fun moved(items: TaskAdapterDataSource, from: Int, to: Int, indent: Int) {
+        val task = items.task(from)
+        val newParent = findParent(items, indent, to)
+        if ((newParent?.id ?: 0) == task.parent || (indent > 0 && items.subtaskSortMode == SORT_MANUAL)) {
             if (indent == 0) {
-                changeSortGroup(task, if (from < to) to - 1 else to)
-            } else if (dataSource.subtaskSortMode == SORT_MANUAL) {
+                changeSortGroup(items, task, if (from < to) to - 1 else to)
+            } else if (items.subtaskSortMode == SORT_MANUAL) {
                 if (task.isGoogleTask) {
-                    moveGoogleTask(from, to, indent)
+                    moveGoogleTask(items, from, to, indent)
                 } else {
-                    moveCaldavTask(from, to, indent)
+                    moveCaldavTask(items, from, to, indent)
                 }
             }
             return
@@ -140,7 +146,7 @@ open class TaskAdapter(
         when {
             newParent == null -> {
                 moveToTopLevel(task)
-                changeSortGroup(task, if (from < to) to - 1 else to)
+                changeSortGroup(items, task, if (from < to) to - 1 else to)
             }
             newParent.isGoogleTask -> changeGoogleTaskParent(task, newParent)
             newParent.isCaldavTask() -> changeCaldavParent(task, newParent)
@@ -175,12 +181,14 @@ open class TaskAdapter(
         return false
     }
 
-    private fun findParent(indent: Int, to: Int): TaskContainer? {
+    private fun TaskAdapterDataSource.task(position: Int): TaskContainer = getItem(position)!!
+
+    private fun findParent(items: TaskAdapterDataSource, indent: Int, to: Int): TaskContainer? {
         if (indent == 0 || to == 0) {
             return null
         }
         for (i in to - 1 downTo 0) {
-            val previous = getTask(i)
+            val previous = items.task(i)
             if (indent > previous.indent) {
                 return previous
             }
@@ -188,17 +196,17 @@ open class TaskAdapter(
         return null
     }
 
-    private suspend fun changeSortGroup(task: TaskContainer, pos: Int) {
-        when(dataSource.sortMode) {
+    private suspend fun changeSortGroup(items: TaskAdapterDataSource, task: TaskContainer, pos: Int) {
+        when(items.sortMode) {
             SORT_IMPORTANCE -> {
-                val newPriority = dataSource.nearestHeader(if (pos == 0) 1 else pos).toInt()
+                val newPriority = items.nearestHeader(if (pos == 0) 1 else pos).toInt()
                 if (newPriority != task.priority) {
                     taskDao.save(task.task.copy(priority = newPriority))
                 }
             }
-            SORT_LIST -> taskMover.move(task.id, dataSource.nearestHeader(if (pos == 0) 1 else pos))
-            SORT_DUE -> applyDueDate(task.task, dataSource.nearestHeader(if (pos == 0) 1 else pos))
-            SORT_START -> applyStartDate(task.task, dataSource.nearestHeader(if (pos == 0) 1 else pos))
+            SORT_LIST -> taskMover.move(task.id, items.nearestHeader(if (pos == 0) 1 else pos))
+            SORT_DUE -> applyDueDate(task.task, items.nearestHeader(if (pos == 0) 1 else pos))
+            SORT_START -> applyStartDate(task.task, items.nearestHeader(if (pos == 0) 1 else pos))
         }
     }
 
@@ -299,11 +307,12 @@ open class TaskAdapter(
         localBroadcastManager.broadcastRefresh()
     }
 
-    protected suspend fun moveGoogleTask(from: Int, to: Int, indent: Int) {
-        val task = getTask(from)
+    protected suspend fun moveGoogleTask(items: TaskAdapterDataSource, from: Int, to: Int, indent: Int) {
+        val task = items.task(from)
         val googleTask = task.caldavTask ?: return
         val list = googleTask.calendar ?: return
-        val previous = if (to > 0) getTask(to - 1) else null
+        val count = items.getTaskCount()
+        val previous = if (to > 0) items.task(to - 1) else null
         if (previous == null) {
             googleTaskDao.move(
                 task = task.task,
@@ -381,24 +390,24 @@ open class TaskAdapter(
         }
     }
 
-    protected suspend fun moveCaldavTask(from: Int, to: Int, indent: Int) {
-        val task = getTask(from)
+    protected suspend fun moveCaldavTask(items: TaskAdapterDataSource, from: Int, to: Int, indent: Int) {
+        val task = items.task(from)
         val oldParent = task.parent
-        val newParent = changeCaldavParent(task, indent, to)
+        val newParent = changeCaldavParent(items, task, indent, to)
 
         if (oldParent == newParent && from == to) {
             return
         }
 
-        val previous = if (to > 0) getTask(to - 1) else null
-        val next = if (to < count) getTask(to) else null
+        val previous = if (to > 0) items.task(to - 1) else null
+        val next = if (to < items.getTaskCount()) items.task(to) else null
 
         val newPosition = when {
             previous == null -> next!!.caldavSortOrder - 1
             indent > previous.indent && next?.indent == indent -> next.caldavSortOrder - 1
             indent > previous.indent -> null
             indent == previous.indent -> previous.caldavSortOrder + 1
-            else -> getTask((to - 1 downTo 0).find { getTask(it).indent == indent }!!).caldavSortOrder + 1
+            else -> items.task((to - 1 downTo 0).find { items.task(it).indent == indent }!!).caldavSortOrder + 1
         }
         caldavDao.move(
             task = task,
@@ -410,8 +419,8 @@ open class TaskAdapter(
         localBroadcastManager.broadcastRefresh()
     }
 
-    private suspend fun changeCaldavParent(task: TaskContainer, indent: Int, to: Int): Long {
-        val newParent = findParent(indent, to)?.id ?: 0
+    private suspend fun changeCaldavParent(items: TaskAdapterDataSource, task: TaskContainer, indent: Int, to: Int): Long {
+        val newParent = findParent(items, indent, to)?.id ?: 0
         if (task.parent != newParent) {
             changeCaldavParent(task, newParent)
         }
@@ -20,6 +20,7 @@ import org.tasks.data.dao.CaldavDao
 import org.tasks.data.dao.GoogleTaskDao
 import org.tasks.data.entity.TaskListMetadata
 import org.tasks.data.dao.TaskListMetadataDao
+import org.tasks.data.dao.TaskListOrderDao
 import org.tasks.preferences.Preferences
 import javax.inject.Inject
 
@@ -27,6 +28,7 @@ class TaskAdapterProvider @Inject constructor(
     @param:ApplicationContext private val context: Context,
     private val preferences: Preferences,
     private val taskListMetadataDao: TaskListMetadataDao,
+    private val taskListOrderDao: TaskListOrderDao,
     private val taskDao: TaskDao,
     private val googleTaskDao: GoogleTaskDao,
     private val caldavDao: CaldavDao,
@@ -63,9 +65,9 @@ class TaskAdapterProvider @Inject constructor(
             list.tagUuid = tdId
             taskListMetadataDao.createNew(list)
         }
-        val updater = SubtasksFilterUpdater(taskListMetadataDao, taskDao)
+        val updater = SubtasksFilterUpdater(taskListMetadataDao, taskListOrderDao, taskDao)
         updater.initialize(list, filter)
-        AstridTaskAdapter(list!!, filter, updater, googleTaskDao, caldavDao, taskDao, localBroadcastManager, taskMover)
+        AstridTaskAdapter(list!!, updater, googleTaskDao, caldavDao, taskDao, localBroadcastManager, taskMover)
     }
 
     private fun createManualFilterTaskAdapter(filter: AstridOrderingFilter): TaskAdapter? = runBlocking {
@@ -93,8 +95,8 @@ class TaskAdapterProvider @Inject constructor(
             list.taskIds = defaultOrder
             taskListMetadataDao.createNew(list)
         }
-        val updater = SubtasksFilterUpdater(taskListMetadataDao, taskDao)
+        val updater = SubtasksFilterUpdater(taskListMetadataDao, taskListOrderDao, taskDao)
         updater.initialize(list, filter)
-        AstridTaskAdapter(list, filter, updater, googleTaskDao, caldavDao, taskDao, localBroadcastManager, taskMover)
+        AstridTaskAdapter(list, updater, googleTaskDao, caldavDao, taskDao, localBroadcastManager, taskMover)
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.tasks.LocalBroadcastManager
 import org.tasks.data.dao.AlarmDao
 import org.tasks.data.dao.TaskDao
 import org.tasks.data.db.DbUtils
+import org.tasks.data.db.SuspendDbUtils.chunkedMap
 import org.tasks.data.entity.Alarm
 import org.tasks.data.entity.Alarm.Companion.TYPE_SNOOZE
 import org.tasks.data.entity.Notification
@@ -41,7 +42,18 @@ class AlarmService @Inject constructor(
      *
      * @return true if data was changed
      */
-    suspend fun synchronizeAlarms(taskId: Long, alarms: MutableSet<Alarm>): Boolean {
+    suspend fun synchronizeAlarms(taskId: Long, alarms: MutableSet<Alarm>): Boolean =
+        replaceAlarms(taskId, alarms).also { changed ->
+            if (changed) {
+                localBroadcastManager.broadcastRefreshList()
+            }
+        }
+
+    /**
+     * Same as [synchronizeAlarms] without the refresh broadcast, for callers writing inside a
+     * transaction that refresh once it has committed
+     */
+    suspend fun replaceAlarms(taskId: Long, alarms: MutableSet<Alarm>): Boolean {
         var changed = false
         for (existing in alarmDao.getAlarms(taskId)) {
             if (!alarms.removeIf { it.same(existing)}) {
@@ -53,6 +65,40 @@ class AlarmService @Inject constructor(
         if (alarms.isNotEmpty()) {
             changed = true
         }
+        return changed
+    }
+
+    suspend fun getAlarms(taskIds: List<Long>): Map<Long, List<Alarm>> =
+        taskIds.chunkedMap { alarmDao.getAlarms(it) }.groupBy { it.task }
+
+    /**
+     * Same as [synchronizeAlarms] for several tasks, with a single delete, insert and refresh
+     *
+     * @param existing current alarms for each task, from [getAlarms]
+     * @return true if data was changed
+     */
+    suspend fun synchronizeAlarms(
+        alarms: Map<Long, Set<Alarm>>,
+        existing: Map<Long, List<Alarm>>,
+    ): Boolean {
+        val delete = ArrayList<Alarm>()
+        val insert = ArrayList<Alarm>()
+        alarms.forEach { (taskId, taskAlarms) ->
+            val remaining = taskAlarms.toMutableSet()
+            existing[taskId]?.forEach { alarm ->
+                if (!remaining.removeIf { it.same(alarm) }) {
+                    delete.add(alarm)
+                }
+            }
+            remaining.mapTo(insert) { it.copy(task = taskId) }
+        }
+        if (delete.isNotEmpty()) {
+            alarmDao.delete(delete)
+        }
+        if (insert.isNotEmpty()) {
+            alarmDao.insert(insert)
+        }
+        val changed = delete.isNotEmpty() || insert.isNotEmpty()
         if (changed) {
             localBroadcastManager.broadcastRefreshList()
         }
@@ -10,6 +10,9 @@ import static org.tasks.date.DateTimeUtils.newDateTime;
 import static org.tasks.time.DateTimeUtils2.currentTimeMillis;
 
 import com.todoroo.andlib.utility.DateUtilities;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.tasks.time.DateTime;
 
 /**
@@ -49,6 +52,67 @@ public final class PermaSql {
   /** value to be replaced by approximate noon next month as long */
   private static final String VALUE_NOON_NEXT_MONTH = "NOONM()"; // $NON-NLS-1$
 
+  private static final Pattern PLACEHOLDER =
+      Pattern.compile("\\b(NOW|EOD|EODY|EODT|EODTT|EODW|EODM|NOON|NOONY|NOONT|NOONTT|NOONW|NOONM)\\(\\)");
+
+  /**
+   * Replace placeholder strings with numbered bind parameters so that the SQL text stays the same
+   * from one day to the next. Each distinct placeholder is appended to placeholders in order of
+   * first appearance, and its value for ?n is given by {@link #getValue(String)}.
+   */
+  public static String replacePlaceholdersForBinding(String value, List<String> placeholders) {
+    Matcher matcher = PLACEHOLDER.matcher(value);
+    if (!matcher.find()) {
+      return value;
+    }
+    StringBuffer result = new StringBuffer();
+    do {
+      String placeholder = matcher.group();
+      int index = placeholders.indexOf(placeholder);
+      if (index < 0) {
+        placeholders.add(placeholder);
+        index = placeholders.size() - 1;
+      }
+      matcher.appendReplacement(result, "?" + (index + 1));
+    } while (matcher.find());
+    matcher.appendTail(result);
+    return result.toString();
+  }
+
+  /** Current value of a placeholder collected by {@link #replacePlaceholdersForBinding} */
+  public static long getValue(String placeholder) {
+    switch (placeholder) {
+      case VALUE_NOW:
+        return currentTimeMillis();
+      case VALUE_EOD_YESTERDAY:
+        return newDateTime().endOfDay().getMillis() - DateUtilities.ONE_DAY;
+      case VALUE_EOD:
+        return newDateTime().endOfDay().getMillis();
+      case VALUE_EOD_TOMORROW:
+        return newDateTime().endOfDay().getMillis() + DateUtilities.ONE_DAY;
+      case VALUE_EOD_DAY_AFTER:
+        return newDateTime().endOfDay().getMillis() + 2 * DateUtilities.ONE_DAY;
+      case VALUE_EOD_NEXT_WEEK:
+        return newDateTime().endOfDay().getMillis() + 7 * DateUtilities.ONE_DAY;
+      case VALUE_EOD_NEXT_MONTH:
+        return newDateTime().endOfDay().getMillis() + 30 * DateUtilities.ONE_DAY;
+      case VALUE_NOON_YESTERDAY:
+        return newDateTime().noon().getMillis() - DateUtilities.ONE_DAY;
+      case VALUE_NOON:
+        return newDateTime().noon().getMillis();
+      case VALUE_NOON_TOMORROW:
+        return newDateTime().noon().getMillis() + DateUtilities.ONE_DAY;
+      case VALUE_NOON_DAY_AFTER:
+        return newDateTime().noon().getMillis() + 2 * DateUtilities.ONE_DAY;
+      case VALUE_NOON_NEXT_WEEK:
+        return newDateTime().noon().getMillis() + 7 * DateUtilities.ONE_DAY;
+      case VALUE_NOON_NEXT_MONTH:
+        return newDateTime().noon().getMillis() + 30 * DateUtilities.ONE_DAY;
+      default:
+        throw new IllegalArgumentException(placeholder);
+    }
+  }
+
   /** Replace placeholder strings with actual */
   public static String replacePlaceholdersForQuery(String value) {
     if (value.contains(VALUE_NOW)) {
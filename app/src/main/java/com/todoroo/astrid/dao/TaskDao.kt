@@ -16,6 +16,7 @@ import org.tasks.data.fetchFiltered
 import org.tasks.data.fetchTasks
 import org.tasks.data.setCollapsed
 import org.tasks.date.DateTimeUtils.isAfterNow
+import org.tasks.events.ChangeEvent
 import org.tasks.jobs.WorkManager
 import org.tasks.location.GeofenceApi
 import org.tasks.notifications.NotificationManager
@@ -72,12 +73,14 @@ class TaskDao @Inject constructor(
 
     suspend fun getChildren(id: Long): List<Long> = taskDao.getChildren(id)
 
+    suspend fun fetchChildren(parents: List<Long>): List<Task> = taskDao.fetchChildren(parents)
+
     suspend fun getParents(parent: Long): List<Long> = taskDao.getParents(parent)
 
     suspend fun setCollapsed(id: Long, collapsed: Boolean) {
         taskDao.setCollapsed(listOf(id), collapsed)
         syncAdapters.sync()
-        localBroadcastManager.broadcastRefresh()
+        localBroadcastManager.broadcastRefresh(ChangeEvent.taskUpdated(id))
     }
 
     suspend fun setCollapsed(preferences: Preferences, filter: Filter, collapsed: Boolean) {
@@ -93,45 +96,78 @@ class TaskDao @Inject constructor(
      */
     suspend fun save(task: Task) = save(task, fetch(task.id))
 
+    /**
+     * Saves several tasks at once. Side effects are grouped by kind, so this results in a single
+     * notification cancel, geofence update, sync request and refresh regardless of list size.
+     */
     suspend fun save(tasks: List<Task>, originals: List<Task>) {
-        taskDao.updateInternal(tasks)
-        tasks.forEach { task -> afterUpdate(task, originals.find { it.id == task.id }) }
-    }
-
-    suspend fun save(task: Task, original: Task?) {
-        if (taskDao.update(task, original)) {
-            afterUpdate(task, original)
-            workManager.triggerNotifications()
-            workManager.scheduleRefresh()
+        if (tasks.isEmpty()) {
+            return
         }
+        val originalsById = originals.associateBy { it.id }
+        taskDao.update(tasks, originalsById)
+        afterSave(tasks, originalsById)
     }
 
-    private suspend fun afterUpdate(task: Task, original: Task?) {
-        val completionDateModified = task.completionDate != (original?.completionDate ?: 0)
-        val deletionDateModified = task.deletionDate != (original?.deletionDate ?: 0)
-        val justCompleted = completionDateModified && task.isCompleted
-        if (task.calendarURI?.isNotBlank() == true) {
-            workManager.updateCalendar(task)
+    /**
+     * Writes [task] without any side effects. Callers that save several rows in one transaction
+     * follow up with a single [afterSave] once it has committed.
+     */
+    suspend fun update(task: Task, original: Task?): Boolean = taskDao.update(task, original)
+
+    /**
+     * Side effects of [save] for tasks that have already been written
+     *
+     * @param originals tasks as they were before the change, or null for new tasks
+     */
+    suspend fun afterSave(tasks: List<Task>, originals: Map<Long, Task?>) {
+        if (tasks.isEmpty()) {
+            return
         }
-        if (justCompleted) {
-            if (task.timerStart > 0) {
+        val cancelNotifications = ArrayList<Long>()
+        val updateGeofences = ArrayList<Long>()
+        tasks.forEach { task ->
+            val original = originals[task.id]
+            val completionDateModified = task.completionDate != (original?.completionDate ?: 0)
+            val deletionDateModified = task.deletionDate != (original?.deletionDate ?: 0)
+            if (task.calendarURI?.isNotBlank() == true) {
+                workManager.updateCalendar(task)
+            }
+            if (completionDateModified && task.isCompleted && task.timerStart > 0) {
                 timerPlugin.stopTimer(task)
             }
+            if (task.dueDate != original?.dueDate && task.dueDate.isAfterNow()) {
+                cancelNotifications.add(task.id)
+            }
+            if (completionDateModified || deletionDateModified) {
+                updateGeofences.add(task.id)
+            }
         }
-        if (task.dueDate != original?.dueDate && task.dueDate.isAfterNow()) {
-            notificationManager.cancel(task.id)
+        if (cancelNotifications.isNotEmpty()) {
+            notificationManager.cancel(cancelNotifications)
         }
-        if (completionDateModified || deletionDateModified) {
-            geofenceApi.update(task.id)
+        if (updateGeofences.isNotEmpty()) {
+            geofenceApi.update(updateGeofences)
         }
-        if (!task.isSuppressRefresh()) {
-            localBroadcastManager.broadcastRefresh()
+        tasks
+            .filterNot { it.isSuppressRefresh() }
+            .takeIf { it.isNotEmpty() }
+            ?.let { localBroadcastManager.broadcastRefresh(ChangeEvent.tasksUpdated(it.map(Task::id))) }
+        syncAdapters.sync(tasks, originals)
+        workManager.triggerNotifications()
+        workManager.scheduleRefresh()
+    }
+
+    suspend fun save(task: Task, original: Task?) {
+        if (taskDao.update(task, original)) {
+            afterSave(listOf(task), mapOf(task.id to original))
         }
-        syncAdapters.sync(task, original)
     }
 
     suspend fun createNew(task: Task) = taskDao.createNew(task)
 
+    suspend fun createNew(tasks: List<Task>) = taskDao.createNew(tasks)
+
     suspend fun fetchFiltered(queryTemplate: String): List<Task> =
             taskDao.fetchFiltered(queryTemplate)
 
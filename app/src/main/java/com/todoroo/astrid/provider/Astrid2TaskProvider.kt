@@ -12,6 +12,7 @@ import android.content.UriMatcher
 import android.database.Cursor
 import android.database.MatrixCursor
 import android.net.Uri
+import android.util.LruCache
 import androidx.annotation.ColorRes
 import dagger.hilt.EntryPoint
 import dagger.hilt.InstallIn
@@ -21,6 +22,7 @@ import org.tasks.BuildConfig
 import org.tasks.R
 import org.tasks.analytics.Firebase
 import org.tasks.data.ContentProviderDaoBlocking
+import org.tasks.provider.ProviderQuery
 import timber.log.Timber
 import java.math.BigInteger
 import java.security.MessageDigest
@@ -68,6 +70,37 @@ class Astrid2TaskProvider : ContentProvider() {
         private const val URI_TASKS = 0
         private const val URI_TAGS = 1
         private const val TAG_SEPARATOR = "|"
+        private const val TASK_LIMIT = "100"
+        private const val TAG_ID_CACHE_SIZE = 256
+        private const val DEFAULT_TASK_ORDER = """(CASE
+                WHEN ($PREFERRED_DUE_DATE = 0) THEN
+                    (strftime('%s', 'now') * 1000) * 2
+                ELSE ((CASE WHEN ($PREFERRED_DUE_DATE / 1000) % 60 > 0 THEN $PREFERRED_DUE_DATE ELSE ($PREFERRED_DUE_DATE + 43140000) END)) END) +
+            172800000 * $IMPORTANCE
+            ASC"""
+
+        /** Active tasks with their tag names, one row per task */
+        private fun getTaskTable(context: Context) = """(
+            SELECT title AS $NAME,
+                   CASE
+                       WHEN importance <= 0 THEN ${getPriorityColor(context, 0)}
+                       WHEN importance = 1 THEN ${getPriorityColor(context, 1)}
+                       WHEN importance = 2 THEN ${getPriorityColor(context, 2)}
+                       ELSE ${getPriorityColor(context, 3)}
+                   END AS $IMPORTANCE_COLOR,
+                   dueDate AS $PREFERRED_DUE_DATE,
+                   dueDate AS $DEFINITE_DUE_DATE,
+                   importance AS $IMPORTANCE,
+                   _id AS $IDENTIFIER,
+                   COALESCE(group_concat(tag_names.name, '$TAG_SEPARATOR'), '') AS $TAGS_ID
+            FROM tasks
+              LEFT JOIN (SELECT task, name FROM tags ORDER BY UPPER(name) ASC) AS tag_names
+                ON tag_names.task = _id
+            WHERE completed = 0
+              AND deleted = 0
+              AND hideUntil < (strftime('%s', 'now') * 1000)
+            GROUP BY _id
+        )"""
 
         private fun getPriorityColor(context: Context?, priority: Int): Int {
             return context!!.getColor(getPriorityResId(priority))
@@ -102,23 +135,28 @@ class Astrid2TaskProvider : ContentProvider() {
                 context!!.applicationContext, Astrid2TaskProviderEntryPoint::class.java)
     }
 
+    private val tagIds = LruCache<String, Long>(TAG_ID_CACHE_SIZE)
+
     /**
      * Note: tag id is no longer a real column, so we pass in a UID generated from the tag string.
      *
      * @return two-column cursor: tag id (string) and tag name
      */
-    private val tags: Cursor
-        get() {
-            val tags = hilt().contentProviderDao.tagDataOrderedByName()
-            val ret = MatrixCursor(TAGS_FIELD_LIST)
-            for (tag in tags) {
-                val values = arrayOfNulls<Any>(2)
-                values[0] = tagNameToLong(tag.name)
-                values[1] = tag.name
-                ret.addRow(values)
-            }
-            return ret
+    private fun getTags(projection: Array<String>?): Cursor {
+        val columns = projection ?: TAGS_FIELD_LIST
+        val ret = MatrixCursor(columns)
+        for (tag in hilt().contentProviderDao.tagDataOrderedByName()) {
+            val name = tag.name!!
+            ret.addRow(columns.map {
+                when (it) {
+                    ID -> tagIds.get(name) ?: tagNameToLong(name).also { id -> tagIds.put(name, id) }
+                    NAME -> name
+                    else -> null
+                }
+            })
         }
+        return ret
+    }
 
     private fun tagNameToLong(tag: String?): Long {
         val m: MessageDigest = try {
@@ -144,28 +182,29 @@ class Astrid2TaskProvider : ContentProvider() {
      *  1. task tags, string tags separated by |
      *
      *
+     * Projection, selection and sort order refer to these columns. At most 100 tasks are returned.
+     *
      * @return cursor as described above
      */
-    private val tasks: Cursor
-        get() {
-            val hilt = hilt()
-            hilt.firebase.logEvent(R.string.event_astrid2taskprovider)
-            val tasks = hilt.contentProviderDao.getAstrid2TaskProviderTasks()
-            val ret = MatrixCursor(TASK_FIELD_LIST)
-            for (task in tasks) {
-                val taskTags = getTagsAsString(task.id, TAG_SEPARATOR)
-                val values = arrayOfNulls<Any>(7)
-                values[0] = task.title
-                values[1] = getPriorityColor(context, task.priority)
-                values[2] = task.dueDate
-                values[3] = task.dueDate
-                values[4] = task.priority
-                values[5] = task.id
-                values[6] = taskTags
-                ret.addRow(values)
-            }
-            return ret
-        }
+    private fun getTasks(
+            projection: Array<String>?,
+            selection: String?,
+            selectionArgs: Array<String>?,
+            sortOrder: String?
+    ): Cursor {
+        val hilt = hilt()
+        hilt.firebase.logEvent(R.string.event_astrid2taskprovider)
+        return hilt.contentProviderDao.rawQuery(
+                tasks.build(projection, selection, selectionArgs, sortOrder, TASK_LIMIT))
+    }
+
+    private val tasks by lazy {
+        ProviderQuery(
+                tables = getTaskTable(context!!),
+                columns = TASK_FIELD_LIST.associateWith { it },
+                defaultSortOrder = DEFAULT_TASK_ORDER,
+        )
+    }
 
     override fun query(
             uri: Uri,
@@ -175,8 +214,8 @@ class Astrid2TaskProvider : ContentProvider() {
             sortOrder: String?
     ): Cursor {
         return when (URI_MATCHER.match(uri)) {
-            URI_TASKS -> tasks
-            URI_TAGS -> tags
+            URI_TASKS -> getTasks(projection, selection, selectionArgs, sortOrder)
+            URI_TAGS -> getTags(projection)
             else -> throw IllegalStateException("Unrecognized URI:$uri")
         }
     }
@@ -185,12 +224,4 @@ class Astrid2TaskProvider : ContentProvider() {
             uri: Uri, values: ContentValues?, selection: String?, selectionArgs: Array<String>?): Int {
         throw UnsupportedOperationException("not supported")
     }
-
-    /**
-     * Return tags as a list of strings separated by given separator
-     *
-     * @return empty string if no tags, otherwise string
-     */
-    private fun getTagsAsString(taskId: Long, separator: String) =
-            hilt().contentProviderDao.getTagNames(taskId).joinToString(separator)
-}
\ No newline at end of file
+}
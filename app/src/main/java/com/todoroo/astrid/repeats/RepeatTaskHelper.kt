@@ -23,7 +23,6 @@ import org.tasks.repeats.RecurrenceUtils.newRecur
 import org.tasks.time.DateTime
 import timber.log.Timber
 import java.text.ParseException
-import java.util.*
 import javax.inject.Inject
 
 class RepeatTaskHelper @Inject constructor(
@@ -33,46 +32,93 @@ class RepeatTaskHelper @Inject constructor(
         private val localBroadcastManager: LocalBroadcastManager,
 ) {
     suspend fun handleRepeat(task: Task) {
+        val repeat = repeat(task, Rules()) ?: return
+        gcalHelper.rescheduleRepeatingTask(task)
+        taskDao.save(task)
+        rescheduleAlarms(task.id, repeat.previousDueDate, repeat.newDueDate)
+        broadcastCompletion(task, repeat.previousDueDate)
+    }
+
+    /**
+     * Same as [handleRepeat] for several tasks. Each RRULE is only parsed once, the tasks are
+     * saved together and their alarms are updated in a single pass.
+     *
+     * @return the tasks that were rescheduled
+     */
+    suspend fun handleRepeats(tasks: List<Task>): List<Task> {
+        val rules = Rules()
+        val originals = tasks.associate { it.id to it.copy() }
+        val repeats = tasks.mapNotNull { task -> repeat(task, rules)?.let { task to it } }
+        if (repeats.isEmpty()) {
+            return emptyList()
+        }
+        val repeated = repeats.map { it.first }
+        repeated.forEach { gcalHelper.rescheduleRepeatingTask(it) }
+        taskDao.save(repeated, repeated.mapNotNull { originals[it.id] })
+        repeats
+            .filter { (_, repeat) -> repeat.previousDueDate > 0 && repeat.newDueDate > 0 }
+            .takeIf { it.isNotEmpty() }
+            ?.let { rescheduled ->
+                val existing = alarmService.getAlarms(rescheduled.map { it.first.id })
+                alarmService.synchronizeAlarms(
+                    rescheduled.associate { (task, repeat) ->
+                        task.id to existing[task.id]
+                            .orEmpty()
+                            .shift(repeat.previousDueDate, repeat.newDueDate)
+                            .toSet()
+                    },
+                    existing,
+                )
+            }
+        repeats.forEach { (task, repeat) -> broadcastCompletion(task, repeat.previousDueDate) }
+        return repeated
+    }
+
+    private class Repeat(val previousDueDate: Long, val newDueDate: Long)
+
+    /**
+     * Moves [task] to its next occurrence, or broadcasts its completion if there is none
+     *
+     * @return null if the task was not rescheduled
+     */
+    private fun repeat(task: Task, rules: Rules): Repeat? {
         val recurrence = task.recurrence
         if (recurrence.isNullOrBlank()) {
-            return
+            return null
         }
         val repeatAfterCompletion = task.repeatAfterCompletion()
         val newDueDate: Long
-        val rrule: Recur
-        val count: Int
         try {
-            rrule = initRRule(recurrence)
-            count = rrule.count
+            val rrule = rules.get(recurrence, task.hasDueTime())
+            val count = rrule.count
             if (count == 1) {
                 broadcastCompletion(task)
-                return
+                return null
             }
-            newDueDate = computeNextDueDate(task, recurrence, repeatAfterCompletion)
+            newDueDate = computeNextDueDate(task, rrule, repeatAfterCompletion)
             if (newDueDate == -1L) {
                 broadcastCompletion(task)
-                return
+                return null
+            }
+            if (count > 1) {
+                // the cached rule may have a modified until date, serialize a fresh copy
+                val decremented = initRRule(recurrence)
+                decremented.count = count - 1
+                task.setRecurrence(decremented)
             }
         } catch (e: ParseException) {
             Timber.e(e)
-            return
-        }
-        if (count > 1) {
-            rrule.count = count - 1
-            task.setRecurrence(rrule)
+            return null
         }
         task.reminderLast = 0L
         task.completionDate = 0L
         val oldDueDate = task.dueDate
         task.setDueDateAdjustingHideUntil(newDueDate)
-        gcalHelper.rescheduleRepeatingTask(task)
-        taskDao.save(task)
         val previousDueDate =
                 oldDueDate
                         .takeIf { it > 0 }
-                        ?: (newDueDate - (computeNextDueDate(task, recurrence, repeatAfterCompletion) - newDueDate))
-        rescheduleAlarms(task.id, previousDueDate, newDueDate)
-        broadcastCompletion(task, previousDueDate)
+                        ?: (newDueDate - (computeNextDueDate(task, rules.get(recurrence, task.hasDueTime()), repeatAfterCompletion) - newDueDate))
+        return Repeat(previousDueDate, newDueDate)
     }
 
     private fun broadcastCompletion(task: Task, oldDueDate: Long = 0L) {
@@ -114,7 +160,12 @@ class RepeatTaskHelper @Inject constructor(
             return
         }
         alarmService.getAlarms(taskId)
-            .filter { it.type != TYPE_SNOOZE }
+            .shift(oldDueDate, newDueDate)
+            .let { alarmService.synchronizeAlarms(taskId, it.toMutableSet()) }
+    }
+
+    private fun List<Alarm>.shift(oldDueDate: Long, newDueDate: Long): List<Alarm> =
+        filter { it.type != TYPE_SNOOZE }
             .map {
                 if (it.type == Alarm.TYPE_DATE_TIME) {
                     it.copy(time = it.time + newDueDate - oldDueDate)
@@ -122,7 +173,14 @@ class RepeatTaskHelper @Inject constructor(
                     it
                 }
             }
-            .let { alarmService.synchronizeAlarms(taskId, it.toMutableSet()) }
+
+    /** Parsed rules by RRULE string. Only [computeNextDueDate] may read them, never modify them. */
+    private class Rules {
+        private val rules = HashMap<Pair<String, Boolean>, Recur>()
+
+        @Throws(ParseException::class)
+        fun get(recurrence: String, hasDueTime: Boolean): Recur =
+            rules.getOrPut(recurrence to hasDueTime) { prepare(recurrence, hasDueTime) }
     }
 
     companion object {
@@ -130,14 +188,21 @@ class RepeatTaskHelper @Inject constructor(
 
         /** Compute next due date  */
         @Throws(ParseException::class)
-        fun computeNextDueDate(task: Task, recurrence: String, repeatAfterCompletion: Boolean): Long {
+        fun computeNextDueDate(task: Task, recurrence: String, repeatAfterCompletion: Boolean): Long =
+            computeNextDueDate(task, prepare(recurrence, task.hasDueTime()), repeatAfterCompletion)
+
+        @Throws(ParseException::class)
+        private fun prepare(recurrence: String, hasDueTime: Boolean): Recur {
             val rrule = initRRule(recurrence)
-            if (rrule.until != null && rrule.until is Date && task.hasDueTime()) {
+            if (rrule.until != null && rrule.until is Date && hasDueTime) {
                 // Tasks lets you create tasks with due date-times, but recurrence until with due dates
                 // This violates the spec and should be fixed in the picker
                 rrule.until = DateTime.from(rrule.until).endOfDay().toDateTime()
             }
+            return rrule
+        }
 
+        private fun computeNextDueDate(task: Task, rrule: Recur, repeatAfterCompletion: Boolean): Long {
             // initialize startDateAsDV
             val original = setUpStartDate(task, repeatAfterCompletion, rrule.frequency)
             val startDateAsDV = setUpStartDateAsDV(task, original)
@@ -158,11 +223,11 @@ class RepeatTaskHelper @Inject constructor(
         @Deprecated("probably don't need this?")
         private fun handleWeeklyRepeatAfterComplete(
                 recur: Recur, original: DateTime, hasDueTime: Boolean): Long {
-            val byDay = recur.dayList
+            // recur may be cached, don't sort its day list in place
+            val byDay = recur.dayList.sortedWith(weekdayCompare)
             var newDate = original.millis
             newDate += DateUtilities.ONE_WEEK * (recur.interval.coerceAtLeast(1) - 1)
             var date = DateTime(newDate)
-            Collections.sort(byDay, weekdayCompare)
             val next = findNextWeekday(byDay, date)
             do {
                 date = date.plusDays(1)
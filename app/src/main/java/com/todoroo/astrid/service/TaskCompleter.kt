@@ -14,7 +14,6 @@ import org.tasks.LocalBroadcastManager
 import org.tasks.data.dao.CaldavDao
 import org.tasks.data.db.Database
 import org.tasks.data.entity.Task
-import org.tasks.jobs.WorkManager
 import org.tasks.notifications.NotificationManager
 import org.tasks.preferences.Preferences
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
@@ -31,7 +30,6 @@ class TaskCompleter @Inject internal constructor(
     private val repeatTaskHelper: RepeatTaskHelper,
     private val caldavDao: CaldavDao,
     private val gCalHelper: GCalHelper,
-    private val workManager: WorkManager,
 ) {
     suspend fun setComplete(taskId: Long) =
             taskDao
@@ -66,37 +64,29 @@ class TaskCompleter @Inject internal constructor(
         if (tasks.isEmpty()) {
             return
         }
-        tasks.forEach { notificationManager.cancel(it.id) }
+        notificationManager.cancel(tasks.map { it.id })
         val completed = completionDate > 0
         val modified = currentTimeMillis()
         database.withTransaction {
-            tasks
+            val recurring = tasks
                 .map {
                     it.copy(
                         completionDate = completionDate,
                         modificationDate = modified,
                     )
                 }
-                .also { completed ->
-                    completed.subList(0, completed.lastIndex).forEach { it.suppressRefresh() }
-                    taskDao.save(completed, tasks)
-                }
-                .forEach { task ->
-                    if (completed && task.isRecurring) {
-                        gCalHelper.updateEvent(task)
-
-                        if (caldavDao.getAccountForTask(task.id)?.isSuppressRepeatingTasks != true) {
-                            repeatTaskHelper.handleRepeat(task)
-                            if (task.completionDate == 0L) {
-                                // un-complete children
-                                setComplete(task, false)
-                            }
-                        }
-                    }
-                }
+                .also { taskDao.save(it, tasks) }
+                .filter { completed && it.isRecurring }
+            if (recurring.isNotEmpty()) {
+                recurring.forEach { gCalHelper.updateEvent(it) }
+                val suppressed =
+                    caldavDao.getTasksWithSuppressedRepeats(recurring.map { it.id }).toSet()
+                repeatTaskHelper
+                    .handleRepeats(recurring.filterNot { suppressed.contains(it.id) })
+                    // un-complete children
+                    .forEach { setComplete(it, false) }
+            }
         }
-        workManager.triggerNotifications()
-        workManager.scheduleRefresh()
         if (completed && notificationManager.currentInterruptionFilter == INTERRUPTION_FILTER_ALL) {
             preferences
                 .completionSound
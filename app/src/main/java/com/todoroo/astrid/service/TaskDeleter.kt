@@ -1,30 +1,32 @@
 package com.todoroo.astrid.service
 
-import android.content.Context
 import androidx.room.withTransaction
-import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.NonCancellable
 import kotlinx.coroutines.withContext
 import org.tasks.BuildConfig
 import org.tasks.LocalBroadcastManager
 import org.tasks.caldav.VtodoCache
 import org.tasks.data.dao.DeletionDao
+import org.tasks.data.dao.FilePurgeDao
 import org.tasks.data.dao.LocationDao
+import org.tasks.data.dao.TaskAttachmentDao
 import org.tasks.data.dao.TaskDao
 import org.tasks.data.dao.UserActivityDao
 import org.tasks.data.db.Database
 import org.tasks.data.db.SuspendDbUtils.chunkedMap
+import org.tasks.data.db.SuspendDbUtils.eachChunk
 import org.tasks.data.entity.CaldavAccount
 import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.Place
 import org.tasks.data.entity.Task
-import org.tasks.files.FileHelper
+import org.tasks.events.ChangeEvent
+import org.tasks.jobs.WorkManager
 import org.tasks.location.GeofenceApi
 import org.tasks.notifications.NotificationManager
 import org.tasks.sync.SyncAdapters
 import javax.inject.Inject
 
 class TaskDeleter @Inject constructor(
-    @ApplicationContext private val context: Context,
     private val database: Database,
     private val deletionDao: DeletionDao,
     private val taskDao: TaskDao,
@@ -35,6 +37,9 @@ class TaskDeleter @Inject constructor(
     private val geofenceApi: GeofenceApi,
     private val userActivityDao: UserActivityDao,
     private val locationDao: LocationDao,
+    private val taskAttachmentDao: TaskAttachmentDao,
+    private val filePurgeDao: FilePurgeDao,
+    private val workManager: WorkManager,
 ) {
 
     suspend fun markDeleted(item: Task) = markDeleted(listOf(item.id))
@@ -46,12 +51,13 @@ class TaskDeleter @Inject constructor(
             .let { taskDao.fetch(it.toList()) }
             .filterNot { it.readOnly }
             .map { it.id }
-        database.withTransaction {
+        val places = database.withTransaction {
             deletionDao.markDeleted(ids)
             cleanup(ids)
         }
+        afterCleanup(places)
         syncAdapters.sync()
-        localBroadcastManager.broadcastRefresh()
+        localBroadcastManager.broadcastRefresh(ChangeEvent.tasksDeleted(ids))
         taskDao.fetch(ids)
     }
 
@@ -60,47 +66,71 @@ class TaskDeleter @Inject constructor(
     suspend fun delete(task: Long) = delete(listOf(task))
 
     suspend fun delete(tasks: List<Long>) {
-        database.withTransaction {
-            deletionDao.delete(tasks)
-            cleanup(tasks)
+        val places = database.withTransaction {
+            cleanup(tasks) { deletionDao.delete(tasks) }
         }
-        localBroadcastManager.broadcastRefresh()
+        afterCleanup(places)
+        localBroadcastManager.broadcastRefresh(ChangeEvent.tasksDeleted(tasks))
     }
 
     suspend fun delete(list: CaldavCalendar) {
         vtodoCache.delete(list)
-        database.withTransaction {
-            val tasks = deletionDao.delete(list)
-            delete(tasks)
+        val (tasks, places) = database.withTransaction {
+            val tasks = deletionDao.getActiveCaldavTasks(list.uuid!!)
+            tasks to cleanup(tasks) { deletionDao.delete(list) }
         }
+        afterCleanup(places)
+        localBroadcastManager.broadcastRefresh(ChangeEvent.tasksDeleted(tasks))
         localBroadcastManager.broadcastRefreshList()
     }
 
     suspend fun delete(list: CaldavAccount) {
         vtodoCache.delete(list)
-        database.withTransaction {
-            val tasks = deletionDao.delete(list)
-            delete(tasks)
+        val (tasks, places) = database.withTransaction {
+            val tasks = deletionDao
+                .getCalendars(list.uuid!!)
+                .flatMap { deletionDao.getActiveCaldavTasks(it.uuid!!) }
+            tasks to cleanup(tasks) { deletionDao.delete(list) }
         }
+        afterCleanup(places)
+        localBroadcastManager.broadcastRefresh(ChangeEvent.tasksDeleted(tasks))
         localBroadcastManager.broadcastRefreshList()
     }
 
-    private suspend fun cleanup(tasks: List<Long>) {
+    /**
+     * Removes notifications, geofences and comments for [tasks] with a few statements per chunk.
+     * [delete] removes the task rows, after everything that needs them has been read. Deleted
+     * local tasks are purged before looking for attachments that are no longer referenced. Their
+     * files are queued for [FilePurgeDao] and deleted once the transaction has committed.
+     *
+     * @return places whose geofences need to be registered again
+     */
+    private suspend fun cleanup(tasks: List<Long>, delete: suspend () -> Unit = {}): List<Place> {
         if (BuildConfig.DEBUG && !database.inTransaction()) {
             throw IllegalStateException()
         }
-        tasks.forEach { task ->
-            notificationManager.cancel(task)
-            locationDao.getGeofencesForTask(task).forEach {
-                locationDao.delete(it)
-                geofenceApi.update(it.place!!)
-            }
-            userActivityDao.getComments(task).forEach {
-                FileHelper.delete(context, it.pictureUri)
-                userActivityDao.delete(it)
+        notificationManager.cancel(tasks)
+        val places = tasks.chunkedMap { locationDao.getPlacesForTasks(it) }
+        tasks.eachChunk { locationDao.deleteGeofencesForTasks(it) }
+        val files = tasks.chunkedMap { userActivityDao.getPictures(it) }.toMutableList()
+        tasks.eachChunk { userActivityDao.deleteComments(it) }
+        val attachments = tasks.chunkedMap { taskAttachmentDao.getAttachmentUids(it) }.distinct()
+        delete()
+        deletionDao.purgeDeleted()
+        attachments
+            .chunkedMap { taskAttachmentDao.getUnreferenced(it) }
+            .takeIf { it.isNotEmpty() }
+            ?.let {
+                files.addAll(it.map { attachment -> attachment.uri })
+                taskAttachmentDao.delete(it)
             }
-        }
+        filePurgeDao.enqueue(files)
         notificationManager.updateTimerNotification()
-        deletionDao.purgeDeleted()
+        return places.distinctBy { it.uid }
+    }
+
+    private suspend fun afterCleanup(places: List<Place>) {
+        places.forEach { geofenceApi.update(it) }
+        workManager.purgeFiles()
     }
 }
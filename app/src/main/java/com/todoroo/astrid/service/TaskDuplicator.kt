@@ -1,16 +1,19 @@
 package com.todoroo.astrid.service
 
+import androidx.room.withTransaction
 import com.todoroo.astrid.dao.TaskDao
 import com.todoroo.astrid.gcal.GCalHelper
 import org.tasks.LocalBroadcastManager
 import org.tasks.data.dao.AlarmDao
 import org.tasks.data.dao.CaldavDao
+import org.tasks.data.dao.CaldavDao.Companion.toAppleEpoch
 import org.tasks.data.dao.GoogleTaskDao
 import org.tasks.data.dao.LocationDao
 import org.tasks.data.dao.TagDao
-import org.tasks.data.dao.TagDataDao
 import org.tasks.data.dao.TaskAttachmentDao
+import org.tasks.data.db.Database
 import org.tasks.data.db.DbUtils.dbchunk
+import org.tasks.data.db.SuspendDbUtils.chunkedMap
 import org.tasks.data.entity.Alarm
 import org.tasks.data.entity.Attachment
 import org.tasks.data.entity.CaldavTask
@@ -21,13 +24,15 @@ import org.tasks.data.entity.Task.Companion.NO_ID
 import org.tasks.preferences.Preferences
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
 import javax.inject.Inject
+import kotlin.math.max
+import kotlin.math.min
 
 class TaskDuplicator @Inject constructor(
+    private val database: Database,
     private val gcalHelper: GCalHelper,
     private val taskDao: TaskDao,
     private val localBroadcastManager: LocalBroadcastManager,
     private val tagDao: TagDao,
-    private val tagDataDao: TagDataDao,
     private val googleTaskDao: GoogleTaskDao,
     private val caldavDao: CaldavDao,
     private val locationDao: LocationDao,
@@ -37,96 +42,201 @@ class TaskDuplicator @Inject constructor(
 ) {
 
     suspend fun duplicate(taskIds: List<Long>): List<Task> {
-        return taskIds
+        val roots = taskIds
             .dbchunk()
             .flatMap {
                 it.minus(taskDao.getChildren(it).toSet())
             }
             .let { taskDao.fetch(it) }
             .filterNot { it.readOnly }
-            .map { clone(it, it.parent) }
-            .also { localBroadcastManager.broadcastRefresh() }
+        val clones = database.withTransaction { clone(roots) }
+        clones.forEach { gcalHelper.createTaskEventIfEnabled(it) }
+        taskDao.save(clones, emptyList())
+        localBroadcastManager.broadcastRefresh()
+        return clones.take(roots.size)
     }
 
-    private suspend fun clone(task: Task, parentId: Long): Task {
-        val clone = task.copy(
-            id = NO_ID,
-            creationDate = currentTimeMillis(),
-            modificationDate = currentTimeMillis(),
-            reminderLast = 0,
-            completionDate = 0L,
-            calendarURI = "",
-            parent = parentId,
-            remoteId = Task.NO_UUID,
-        )
-        clone.suppressSync()
-        clone.suppressRefresh()
-        val newId = taskDao.createNew(clone)
-        val tags = tagDataDao.getTagDataForTask(task.id)
-        if (tags.isNotEmpty()) {
-            tagDao.insert(
-                tags.map {
-                    Tag(
-                        task = clone.id,
-                        taskUid = clone.uuid,
-                        name = it.name,
-                        tagUid = it.remoteId
+    /**
+     * Copies [roots] and their subtasks one level at a time, so the number of statements depends
+     * on the depth of the trees rather than the number of tasks. Returns the copies of [roots]
+     * followed by the copies of their subtasks.
+     */
+    private suspend fun clone(roots: List<Task>): List<Task> {
+        val now = currentTimeMillis()
+        val order = SiblingOrder(preferences.addTasksToTop(), now.toAppleEpoch())
+        val clones = ArrayList<Task>()
+        val cloneIds = HashSet<Long>()
+        val remoteIds = roots
+            .map { it.parent }
+            .filter { it > 0 }
+            .distinct()
+            .let { caldavDao.getTasks(it) }
+            .distinctBy { it.task }
+            .associate { it.task to it.remoteId }
+            .toMutableMap()
+        var level = roots.map { it to it.parent }
+        while (level.isNotEmpty()) {
+            val sources = level.map { it.first }
+            val ids = sources.map { it.id }
+            val copies = level.map { (task, parent) ->
+                task.copy(
+                    id = NO_ID,
+                    creationDate = now,
+                    modificationDate = now,
+                    reminderLast = 0,
+                    completionDate = 0L,
+                    calendarURI = "",
+                    parent = parent,
+                    remoteId = Task.NO_UUID,
+                ).apply {
+                    suppressSync()
+                    suppressRefresh()
+                }
+            }
+            val googleTasks = googleTaskDao.getByTaskIds(ids).distinctBy { it.task }.associateBy { it.task }
+            val caldavTasks = caldavDao.getTasks(ids).distinctBy { it.task }.associateBy { it.task }
+            val lists = sources.map { googleTasks[it.id] ?: caldavTasks[it.id] }
+            copies.forEachIndexed { index, copy ->
+                val list = lists[index] ?: return@forEachIndexed
+                val newParent = cloneIds.contains(copy.parent)
+                if (googleTasks.containsKey(sources[index].id)) {
+                    order.google(list.calendar!!, copy, newParent)
+                } else {
+                    order.caldav(list.calendar!!, copy, newParent)
+                }
+            }
+            order.shiftGoogleTasks()
+            taskDao.createNew(copies)
+            val cloneOf = HashMap<Long, Task>()
+            sources.forEachIndexed { index, source -> cloneOf[source.id] = copies[index] }
+            cloneIds.addAll(copies.map { it.id })
+            clones.addAll(copies)
+
+            copies
+                .mapIndexedNotNull { index, copy ->
+                    val list = lists[index] ?: return@mapIndexedNotNull null
+                    if (googleTasks.containsKey(sources[index].id)) {
+                        CaldavTask(task = copy.id, calendar = list.calendar, remoteId = null)
+                    } else {
+                        CaldavTask(task = copy.id, calendar = list.calendar).apply {
+                            if (copy.parent != 0L) {
+                                remoteParent = remoteIds[copy.parent]
+                            }
+                        }
+                    }
+                }
+                .takeIf { it.isNotEmpty() }
+                ?.let { davTasks ->
+                    davTasks.forEach { remoteIds[it.task] = it.remoteId }
+                    caldavDao.insert(davTasks)
+                }
+            tagDao
+                .getTagsForTasks(ids)
+                .map {
+                    val clone = cloneOf[it.task]!!
+                    Tag(task = clone.id, taskUid = clone.uuid, name = it.name, tagUid = it.tagUid)
+                }
+                .takeIf { it.isNotEmpty() }
+                ?.let { tagDao.insert(it) }
+            ids
+                .chunkedMap { locationDao.getGeofencesForTasks(it) }
+                .map { Geofence(cloneOf[it.task]!!.id, it.place, it.isArrival, it.isDeparture) }
+                .takeIf { it.isNotEmpty() }
+                ?.let { locationDao.insert(it) }
+            ids
+                .chunkedMap { alarmDao.getAlarms(it) }
+                .map { Alarm(task = cloneOf[it.task]!!.id, time = it.time, type = it.type) }
+                .takeIf { it.isNotEmpty() }
+                ?.let { alarmDao.insert(it) }
+            ids
+                .chunkedMap { taskAttachmentDao.getAttachmentsForTasks(it) }
+                .map {
+                    Attachment(
+                        task = cloneOf[it.task]!!.id,
+                        fileId = it.fileId,
+                        attachmentUid = it.attachmentUid
                     )
                 }
-            )
-        }
-        val googleTask = googleTaskDao.getByTaskId(task.id)
-        val caldavTask = caldavDao.getTask(task.id)
-        if (googleTask != null) {
-            googleTaskDao.insertAndShift(
-                clone,
-                CaldavTask(
-                    task = clone.id,
-                    calendar = googleTask.calendar,
-                    remoteId = null
-                ),
-                preferences.addTasksToTop()
-            )
-        } else if (caldavTask != null) {
-            val newDavTask = CaldavTask(
-                task = clone.id,
-                calendar = caldavTask.calendar
-            )
-            if (parentId != 0L) {
-                val remoteParent = caldavDao.getRemoteIdForTask(parentId)
-                newDavTask.remoteParent = remoteParent
+                .takeIf { it.isNotEmpty() }
+                ?.let { taskAttachmentDao.insert(it) }
+
+            val children = taskDao
+                .fetchChildren(ids)
+                .sortedBy { it.id }
+                .groupBy { it.parent }
+            level = sources.flatMap { source ->
+                children[source.id].orEmpty().map { it to cloneOf[source.id]!!.id }
             }
-            caldavDao.insert(clone, newDavTask, preferences.addTasksToTop())
         }
-        for (g in locationDao.getGeofencesForTask(task.id)) {
-            locationDao.insert(
-                    Geofence(clone.id, g.place, g.isArrival, g.isDeparture)
-            )
+        return clones
+    }
+
+    /**
+     * Positions copies among their siblings in a single pass, with the same result as inserting
+     * them one at a time with [GoogleTaskDao.insertAndShift] and [CaldavDao.insert]
+     */
+    private inner class SiblingOrder(
+        private val addToTop: Boolean,
+        private val created: Long,
+    ) {
+        private val caldavBounds = HashMap<Pair<String, Long>, Pair<Long?, Long?>>()
+        private val googleBottom = HashMap<Pair<String, Long>, Long>()
+        private val googleTop = LinkedHashMap<Pair<String, Long>, MutableList<Task>>()
+        private val existingParents = HashSet<Pair<String, Long>>()
+
+        suspend fun caldav(calendar: String, task: Task, newParent: Boolean) {
+            val key = calendar to task.parent
+            var (first, last) = caldavBounds[key]
+                ?: if (newParent) {
+                    Pair<Long?, Long?>(null, null)
+                } else {
+                    Pair(
+                        caldavDao.findFirstTask(calendar, task.parent),
+                        caldavDao.findLastTask(calendar, task.parent),
+                    )
+                }
+            if (task.order == null) {
+                task.order = if (addToTop) {
+                    first?.takeIf { created >= it }?.minus(1)
+                } else {
+                    last?.takeIf { created <= it }?.plus(1)
+                }
+            }
+            if (task.deletionDate == 0L) {
+                val value = task.order ?: created
+                first = first?.let { min(it, value) } ?: value
+                last = last?.let { max(it, value) } ?: value
+            }
+            caldavBounds[key] = first to last
         }
-        val alarms = alarmDao.getAlarms(task.id)
-        if (alarms.isNotEmpty()) {
-            alarmDao.insert(alarms.map { Alarm(task = clone.id, time = it.time, type = it.type) })
+
+        suspend fun google(calendar: String, task: Task, newParent: Boolean) {
+            val key = calendar to task.parent
+            if (addToTop) {
+                googleTop.getOrPut(key) { ArrayList() }.add(task)
+                if (!newParent) {
+                    existingParents.add(key)
+                }
+            } else {
+                val bottom = googleBottom[key]
+                    ?: if (newParent) 0 else googleTaskDao.getBottom(calendar, task.parent)
+                task.order = bottom
+                googleBottom[key] = bottom + 1
+            }
         }
-        gcalHelper.createTaskEventIfEnabled(clone)
-        taskDao.save(clone, null) // TODO: delete me
-        taskAttachmentDao
-            .getAttachmentsForTask(task.id)
-            .map {
-                Attachment(
-                    task = clone.id,
-                    fileId = it.fileId,
-                    attachmentUid = it.attachmentUid
-                )
+
+        /** Each copy inserted at the top pushes down the ones inserted before it */
+        suspend fun shiftGoogleTasks() {
+            googleTop.forEach { (key, tasks) ->
+                if (existingParents.contains(key)) {
+                    googleTaskDao.shiftDownBy(key.first, key.second, tasks.size)
+                }
+                tasks.forEachIndexed { index, task ->
+                    task.order = (tasks.size - 1 - index).toLong()
+                }
             }
-            .let { taskAttachmentDao.insert(it) }
-        getDirectChildren(task.id).forEach { subtask ->
-            clone(subtask, newId)
+            googleTop.clear()
+            existingParents.clear()
         }
-        return clone
     }
-
-    private suspend fun getDirectChildren(taskId: Long): List<Task> =
-        taskDao
-            .fetch(taskDao.getChildren(taskId))
-            .filter { it.parent == taskId }
-}
\ No newline at end of file
+}
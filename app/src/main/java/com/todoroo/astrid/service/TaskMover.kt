@@ -9,6 +9,7 @@ import org.tasks.BuildConfig
 import org.tasks.LocalBroadcastManager
 import org.tasks.caldav.VtodoCache
 import org.tasks.data.entity.CaldavAccount
+import org.tasks.data.entity.CaldavCalendar
 import org.tasks.data.dao.CaldavDao
 import org.tasks.data.entity.CaldavTask
 import org.tasks.data.dao.GoogleTaskDao
@@ -17,6 +18,7 @@ import org.tasks.data.entity.Task
 import org.tasks.data.dao.TaskDao
 import org.tasks.data.getLocalList
 import org.tasks.data.db.DbUtils.dbchunk
+import org.tasks.events.ChangeEvent
 import org.tasks.preferences.Preferences
 import org.tasks.sync.SyncAdapters
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
@@ -61,6 +63,22 @@ class TaskMover @Inject constructor(
     }
 
     suspend fun move(ids: List<Long>, selectedList: Filter) {
+        afterMove(moveTasks(ids, selectedList), selectedList)
+    }
+
+    /** Tasks moved by [moveTasks] and the cached VTODO files that still need to follow them */
+    class Moved internal constructor(
+        val taskIds: List<Long>,
+        internal val files: List<FileMove>,
+    )
+
+    internal class FileMove(val from: CaldavCalendar, val to: CaldavCalendar, val task: CaldavTask)
+
+    /**
+     * Moves tasks without broadcasting, syncing or moving files, so it can run as part of a larger
+     * transaction. The result is passed to [afterMove] once the transaction commits.
+     */
+    suspend fun moveTasks(ids: List<Long>, selectedList: Filter): Moved {
         val tasks = ids
             .dbchunk()
             .flatMap { taskDao.getChildren(it) }
@@ -68,14 +86,25 @@ class TaskMover @Inject constructor(
             .filterNot { it.readOnly }
         val taskIds = tasks.map { it.id }
         taskDao.setParent(0, ids.intersect(taskIds.toSet()).toList())
-        tasks.forEach { performMove(it, selectedList) }
+        val files = ArrayList<FileMove>()
+        tasks.forEach { performMove(it, selectedList, files) }
         if (selectedList is CaldavFilter) {
             caldavDao.updateParents(selectedList.uuid)
         }
         taskIds.dbchunk().forEach {
             taskDao.touch(it)
         }
-        localBroadcastManager.broadcastRefresh()
+        return Moved(taskIds, files)
+    }
+
+    suspend fun afterMove(moved: Moved, selectedList: Filter) {
+        moved.files.forEach { vtodoCache.move(it.from, it.to, it.task) }
+        val list = when (selectedList) {
+            is CaldavFilter -> selectedList.uuid
+            is GtasksFilter -> selectedList.remoteId
+            else -> null
+        }
+        localBroadcastManager.broadcastRefresh(ChangeEvent.tasksMoved(moved.taskIds, list))
         syncAdapters.sync()
     }
 
@@ -84,13 +113,19 @@ class TaskMover @Inject constructor(
         move(taskDao.getLocalTasks(), CaldavFilter(list))
     }
 
-    private suspend fun performMove(task: Task, selectedList: Filter) {
+    /** [migrateLocalTasks] without broadcasting or syncing, see [moveTasks] */
+    suspend fun moveLocalTasks(): Moved {
+        val list = caldavDao.getLocalList(context)
+        return moveTasks(taskDao.getLocalTasks(), CaldavFilter(list))
+    }
+
+    private suspend fun performMove(task: Task, selectedList: Filter, files: MutableList<FileMove>) {
         googleTaskDao.getByTaskId(task.id)?.let {
             moveGoogleTask(task, it, selectedList)
             return
         }
         caldavDao.getTask(task.id)?.let {
-            moveCaldavTask(task, it, selectedList)
+            moveCaldavTask(task, it, selectedList, files)
             return
         }
         moveLocalTask(task, selectedList)
@@ -145,7 +180,12 @@ class TaskMover @Inject constructor(
         }
     }
 
-    private suspend fun moveCaldavTask(task: Task, caldavTask: CaldavTask, selected: Filter) {
+    private suspend fun moveCaldavTask(
+        task: Task,
+        caldavTask: CaldavTask,
+        selected: Filter,
+        files: MutableList<FileMove>,
+    ) {
         if (selected is CaldavFilter
                 && caldavTask.calendar == selected.uuid) {
             return
@@ -170,7 +210,7 @@ class TaskMover @Inject constructor(
                     remoteId = caldavTask.remoteId,
                     obj = caldavTask.obj,
                 )
-                vtodoCache.move(from!!, selected.calendar, caldavTask)
+                files.add(FileMove(from!!, selected.calendar, caldavTask))
                 caldavDao.insert(task, newParent, preferences.addTasksToTop())
                 children.takeIf { it.isNotEmpty() }
                         ?.map {
@@ -180,7 +220,7 @@ class TaskMover @Inject constructor(
                                 remoteId = it.remoteId,
                                 obj = it.obj,
                             )
-                            vtodoCache.move(from, selected.calendar, it)
+                            files.add(FileMove(from, selected.calendar, it))
                             newChild.remoteParent = it.remoteParent
                             newChild
                         }
@@ -0,0 +1,69 @@
+package com.todoroo.astrid.service
+
+import androidx.room.withTransaction
+import at.bitfire.ical4android.Task
+import org.tasks.R
+import org.tasks.caldav.VtodoCache
+import org.tasks.caldav.iCalendar.Companion.fromVtodo
+import org.tasks.data.CaldavTaskContainer
+import org.tasks.data.dao.UpgraderDao
+import org.tasks.data.db.Database
+import org.tasks.preferences.Preferences
+import javax.inject.Inject
+
+/**
+ * Pages through CalDAV tasks for data migrations. Each batch is applied in its own transaction
+ * and the last task in the batch is saved as a checkpoint after the transaction commits, so an
+ * interrupted migration continues after the last committed batch.
+ *
+ * The checkpoint is not part of the transaction. A batch may be applied a second time if the
+ * process dies before its checkpoint is saved, so batches must be safe to apply again.
+ */
+class UpgradeBatches @Inject constructor(
+    private val database: Database,
+    private val preferences: Preferences,
+    private val upgraderDao: UpgraderDao,
+    private val vtodoCache: VtodoCache,
+) {
+    /** True while continuing a pass that was interrupted */
+    val resuming: Boolean
+        get() = preferences.getLong(R.string.p_upgrade_checkpoint, 0L) > 0
+
+    /**
+     * Calls [prepare] for [BATCH_SIZE] tasks at a time outside of a transaction, then [apply] with
+     * its result inside one. The checkpoint is cleared once every task has been processed.
+     */
+    suspend fun <T> forEachBatch(
+        prepare: suspend (List<CaldavTaskContainer>) -> T,
+        apply: suspend (T) -> Unit,
+    ) {
+        var after = preferences.getLong(R.string.p_upgrade_checkpoint, 0L)
+        while (true) {
+            val batch = upgraderDao.tasksWithVtodos(after, BATCH_SIZE)
+            if (batch.isEmpty()) {
+                break
+            }
+            val prepared = prepare(batch)
+            database.withTransaction { apply(prepared) }
+            after = batch.last().id
+            preferences.setLong(R.string.p_upgrade_checkpoint, after)
+        }
+        preferences.remove(R.string.p_upgrade_checkpoint)
+    }
+
+    /** [forEachBatch] with the cached VTODO of each task parsed */
+    suspend fun forEachVtodo(block: suspend (List<Pair<CaldavTaskContainer, Task>>) -> Unit) =
+        forEachBatch(
+            prepare = { batch ->
+                batch.mapNotNull { container -> getVtodo(container)?.let { container to it } }
+            },
+            apply = block,
+        )
+
+    suspend fun getVtodo(container: CaldavTaskContainer): Task? =
+        vtodoCache.getVtodo(container.caldavTask)?.let { fromVtodo(it) }
+
+    companion object {
+        private const val BATCH_SIZE = 500
+    }
+}
@@ -2,8 +2,6 @@
 
 package com.todoroo.astrid.service
 
-import org.tasks.caldav.VtodoCache
-import org.tasks.caldav.iCalendar
 import org.tasks.caldav.iCalendar.Companion.apply
 import org.tasks.data.OpenTaskDao
 import org.tasks.data.dao.TaskDao
@@ -14,24 +12,25 @@ class Upgrade_11_3 @Inject constructor(
     private val upgraderDao: UpgraderDao,
     private val openTaskDao: OpenTaskDao,
     private val taskDao: TaskDao,
-    private val vtodoCache: VtodoCache,
+    private val batches: UpgradeBatches,
 ) {
     internal suspend fun applyiCalendarStartDates() {
-        val (hasStartDate, noStartDate) =
-                upgraderDao.tasksWithVtodos().partition { it.startDate > 0 }
-        for (task in noStartDate) {
-            vtodoCache
-                .getVtodo(task.caldavTask)
-                ?.let { iCalendar.fromVtodo(it) }
-                ?.dtStart
-                ?.let {
-                    it.apply(task.task)
+        batches.forEachBatch(
+            prepare = { batch ->
+                val (hasStartDate, noStartDate) = batch.partition { it.startDate > 0 }
+                val startDates = noStartDate.mapNotNull { task ->
+                    batches.getVtodo(task)?.dtStart?.let { task to it }
+                }
+                hasStartDate.map { it.id } to startDates
+            },
+            apply = { (hasStartDate, startDates) ->
+                for ((task, dtStart) in startDates) {
+                    dtStart.apply(task.task)
                     upgraderDao.setStartDate(task.id, task.startDate)
                 }
-        }
-        hasStartDate
-                .map { it.id }
-                .let { taskDao.touch(it) }
+                taskDao.touch(hasStartDate)
+            },
+        )
     }
 
     internal suspend fun applyOpenTaskStartDates() {
@@ -3,6 +3,7 @@ package com.todoroo.astrid.service
 import android.content.Context
 import android.net.Uri
 import androidx.annotation.ColorRes
+import androidx.room.withTransaction
 import com.google.common.collect.ImmutableListMultimap
 import com.google.common.collect.ListMultimap
 import com.google.common.collect.Multimaps
@@ -13,12 +14,9 @@ import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.runBlocking
 import org.tasks.R
 import org.tasks.Strings.isNullOrEmpty
-import org.tasks.caldav.VtodoCache
 import org.tasks.caldav.iCalendar
-import org.tasks.caldav.iCalendar.Companion.fromVtodo
 import org.tasks.caldav.iCalendar.Companion.order
 import org.tasks.caldav.iCalendar.Companion.parent
-import org.tasks.data.CaldavTaskContainer
 import org.tasks.data.Location
 import org.tasks.data.dao.CaldavDao
 import org.tasks.data.dao.FilterDao
@@ -29,20 +27,23 @@ import org.tasks.data.dao.TagDataDao
 import org.tasks.data.dao.TaskAttachmentDao
 import org.tasks.data.dao.UpgraderDao
 import org.tasks.data.dao.UserActivityDao
-import org.tasks.data.entity.CaldavTask
+import org.tasks.data.db.Database
 import org.tasks.data.entity.Filter
 import org.tasks.data.entity.Tag
 import org.tasks.data.entity.TagData
+import org.tasks.data.convertPictureUri
 import org.tasks.preferences.DefaultFilterProvider
 import org.tasks.preferences.Preferences
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
 import org.tasks.widget.AppWidgetManager
 import org.tasks.widget.WidgetPreferences
+import timber.log.Timber
 import java.io.File
 import javax.inject.Inject
 
 class Upgrader @Inject constructor(
     @param:ApplicationContext private val context: Context,
+    private val database: Database,
     private val preferences: Preferences,
     private val tagDataDao: TagDataDao,
     private val tagDao: TagDao,
@@ -58,61 +59,43 @@ class Upgrader @Inject constructor(
     private val widgetManager: AppWidgetManager,
     private val taskMover: TaskMover,
     private val upgraderDao: UpgraderDao,
-    private val vtodoCache: VtodoCache,
+    private val batches: UpgradeBatches,
     private val upgrade_11_3: Lazy<Upgrade_11_3>,
     private val upgrade_11_12_3: Lazy<Upgrade_11_12_3>,
     private val upgrade_12_4: Lazy<Upgrade_12_4>,
     private val upgrade_13_2: Lazy<Upgrade_13_2>,
 ) {
 
+    /**
+     * Applies preference changes for versions after [from]. Steps that rewrite task data are
+     * deferred to [migrate], which runs in the background after startup.
+     */
     fun upgrade(from: Int, to: Int) {
         if (from > 0) {
-            run(from, V4_9_5) { removeDuplicateTags() }
-            run(from, V5_3_0) { migrateFilters() }
+            if (from < migrations.last().version && !hasPendingMigrations) {
+                preferences.setInt(R.string.p_upgrade_migrated_version, from)
+            }
             run(from, V6_0_beta_1) { migrateDefaultSyncList() }
-            run(from, V6_4) { migrateUris() }
-            run(from, V6_7) { this.migrateGoogleTaskFilters() }
-            run(from, V6_8_1) { this.migrateCaldavFilters() }
-            run(from, V6_9) { applyCaldavCategories() }
-            run(from, V7_0) { applyCaldavSubtasks() }
-            run(from, V8_2) { migrateColors() }
-            run(from, V8_5) { applyCaldavGeo() }
-            run(from, V8_8) { preferences.setBoolean(R.string.p_linkify_task_edit, true) }
-            run(from, V8_10) { migrateWidgets() }
-            run(from, V9_3) { applyCaldavOrder() }
-            run(from, V9_6) {
-                preferences.setBoolean(R.string.p_astrid_sort_enabled, true)
-                taskMover.migrateLocalTasks()
+            run(from, V6_4) {
+                migrateUriPreference(R.string.p_backup_dir)
+                migrateUriPreference(R.string.p_attachment_dir)
             }
-            run(from, V9_7) { caldavDao.resetOrders() }
-            run(from, V9_7_3) { caldavDao.updateParents() }
-            run(from, V10_0_2) {
-                filterDao.getFilters()
-                        .filter { it.dirtyHack.trim() == "WHERE" }
-                        .forEach { filterDao.delete(it) }
-            }
-            run(from, Upgrade_11_3.VERSION) {
-                with(upgrade_11_3.get()) {
-                    applyiCalendarStartDates()
-                    applyOpenTaskStartDates()
-                }
+            run(from, V8_2) {
+                preferences.setInt(
+                        R.string.p_theme_color, getAndroidColor(preferences.getInt(R.string.p_theme_color, 7)))
             }
+            run(from, V8_8) { preferences.setBoolean(R.string.p_linkify_task_edit, true) }
+            run(from, V8_10) { migrateWidgets() }
+            run(from, V9_6) { preferences.setBoolean(R.string.p_astrid_sort_enabled, true) }
             run(from, Upgrade_11_12_3.VERSION) {
                 upgrade_11_12_3.get().migrateDefaultReminderPreference()
             }
             run(from, V11_13) {
                 preferences.setString(R.string.p_completion_ringtone, "")
             }
-            run(from, Upgrade_12_4.VERSION) {
-                upgrade_12_4.get().syncExistingAlarms()
-            }
             run(from, V12_6) {
                 setInstallDetails(from)
             }
-            run(from, Upgrade_13_2.VERSION) {
-                caldavDao.updateParents()
-                upgrade_13_2.get().rebuildFilters()
-            }
             preferences.setBoolean(R.string.p_just_updated, true)
         } else {
             setInstallDetails(to)
@@ -121,6 +104,79 @@ class Upgrader @Inject constructor(
         preferences.setCurrentVersion(to)
     }
 
+    val hasPendingMigrations: Boolean
+        get() = preferences.getInt(R.string.p_upgrade_migrated_version, 0) > 0
+
+    /**
+     * Runs the data migrations deferred by [upgrade]. The last completed migration is saved after
+     * each step and batched steps save the last processed task, so an interrupted run continues
+     * where it stopped.
+     */
+    suspend fun migrate(onProgress: suspend (completed: Int, total: Int) -> Unit) {
+        val from = preferences.getInt(R.string.p_upgrade_migrated_version, 0)
+        if (from == 0) {
+            return
+        }
+        val pending = migrations.filter { from < it.version }
+        pending.forEachIndexed { index, migration ->
+            onProgress(index, pending.size)
+            Timber.d("Migrating data for ${migration.version}")
+            if (migration.batched) {
+                migration.block()
+            } else {
+                database.withTransaction { migration.block() }
+            }
+            preferences.setInt(R.string.p_upgrade_migrated_version, migration.version)
+            preferences.remove(R.string.p_upgrade_checkpoint)
+        }
+        preferences.remove(R.string.p_upgrade_migrated_version)
+        onProgress(pending.size, pending.size)
+    }
+
+    private val migrations = listOf(
+        Migration(V4_9_5) { removeDuplicateTags() },
+        Migration(V5_3_0) { migrateFilters() },
+        Migration(V6_4) { migrateUris() },
+        Migration(V6_7) { migrateGoogleTaskFilters() },
+        Migration(V6_8_1) { migrateCaldavFilters() },
+        Migration(V6_9, batched = true) { applyCaldavCategories() },
+        Migration(V7_0, batched = true) { applyCaldavSubtasks() },
+        Migration(V8_2) { migrateColors() },
+        Migration(V8_5, batched = true) { applyCaldavGeo() },
+        Migration(V9_3, batched = true) { applyCaldavOrder() },
+        Migration(V9_6) { taskMover.moveLocalTasks() },
+        Migration(V9_7) { caldavDao.resetOrders() },
+        Migration(V9_7_3) { caldavDao.updateParents() },
+        Migration(V10_0_2) {
+            filterDao.getFilters()
+                    .filter { it.dirtyHack.trim() == "WHERE" }
+                    .forEach { filterDao.delete(it) }
+        },
+        Migration(Upgrade_11_3.VERSION, batched = true) {
+            with(upgrade_11_3.get()) {
+                applyiCalendarStartDates()
+                database.withTransaction { applyOpenTaskStartDates() }
+            }
+        },
+        Migration(Upgrade_12_4.VERSION, batched = true) {
+            upgrade_12_4.get().syncExistingAlarms()
+        },
+        Migration(Upgrade_13_2.VERSION) {
+            caldavDao.updateParents()
+            upgrade_13_2.get().rebuildFilters()
+        },
+    )
+
+    /**
+     * A step that rewrites task data. Steps that aren't [batched] run in a single transaction,
+     * batched steps page through tasks with [UpgradeBatches] and commit their own transactions.
+     */
+    private class Migration(
+        val version: Int,
+        val batched: Boolean = false,
+        val block: suspend () -> Unit,
+    )
+
     private fun setInstallDetails(version: Int) {
         preferences.installVersion = version
         preferences.installDate = currentTimeMillis()
@@ -143,8 +199,6 @@ class Upgrader @Inject constructor(
     }
 
     private suspend fun migrateColors() {
-        preferences.setInt(
-                R.string.p_theme_color, getAndroidColor(preferences.getInt(R.string.p_theme_color, 7)))
         for (calendar in caldavDao.getCalendars()) {
             caldavDao.update(
                 calendar.copy(color = getAndroidColor(calendar.color))
@@ -169,50 +223,62 @@ class Upgrader @Inject constructor(
     }
 
     private suspend fun applyCaldavOrder() {
-        for (task in upgraderDao.tasksWithVtodos().map(CaldavTaskContainer::caldavTask)) {
-            val remoteTask = vtodoCache.getVtodo(task)?.let { fromVtodo(it) } ?: continue
-            val order: Long? = remoteTask.order
-            if (order != null) {
-                taskDao.setOrder(task.task, order)
+        batches.forEachVtodo { remoteTasks ->
+            for ((container, remoteTask) in remoteTasks) {
+                val order: Long? = remoteTask.order
+                if (order != null) {
+                    taskDao.setOrder(container.id, order)
+                }
             }
         }
     }
 
     private suspend fun applyCaldavGeo() {
-        val tasksWithLocations = locationDao.getActiveGeofences().map(Location::task)
-        for (task in upgraderDao.tasksWithVtodos().map(CaldavTaskContainer::caldavTask)) {
-            val taskId = task.task
-            if (tasksWithLocations.contains(taskId)) {
-                continue
+        val tasksWithLocations = locationDao.getActiveGeofences().map(Location::task).toHashSet()
+        if (!batches.resuming) {
+            taskDao.touch(tasksWithLocations.toList())
+        }
+        batches.forEachVtodo { remoteTasks ->
+            for ((container, remoteTask) in remoteTasks) {
+                val taskId = container.id
+                if (tasksWithLocations.contains(taskId)) {
+                    continue
+                }
+                val geo = remoteTask.geoPosition ?: continue
+                iCal.setPlace(taskId, geo)
             }
-            val remoteTask = vtodoCache.getVtodo(task)?.let { fromVtodo(it) } ?: continue
-            val geo = remoteTask.geoPosition ?: continue
-            iCal.setPlace(taskId, geo)
         }
-        taskDao.touch(tasksWithLocations)
     }
 
     private suspend fun applyCaldavSubtasks() {
-        val updated: MutableList<CaldavTask> = ArrayList()
-        for (task in upgraderDao.tasksWithVtodos().map(CaldavTaskContainer::caldavTask)) {
-            val remoteTask = vtodoCache.getVtodo(task)?.let { fromVtodo(it) } ?: continue
-            task.remoteParent = remoteTask.parent
-            if (!isNullOrEmpty(task.remoteParent)) {
-                updated.add(task)
+        batches.forEachVtodo { remoteTasks ->
+            for ((container, remoteTask) in remoteTasks) {
+                val remoteParent = remoteTask.parent
+                if (!isNullOrEmpty(remoteParent)) {
+                    // only write the parent, the rest of the row was read before this batch
+                    caldavDao.update(container.caldavTask.id, remoteParent)
+                }
             }
         }
-        caldavDao.update(updated)
         caldavDao.updateParents()
     }
 
     private suspend fun applyCaldavCategories() {
-        val tasksWithTags: List<Long> = upgraderDao.tasksWithTags()
-        for (container in upgraderDao.tasksWithVtodos()) {
-            val remoteTask =
-                vtodoCache.getVtodo(container.caldavTask)?.let { fromVtodo(it) } ?: continue
-            tagDao.insert(container.task, iCal.getTags(remoteTask.categories))
+        if (!batches.resuming) {
+            taskDao.touch(upgraderDao.tasksWithTags())
+        }
+        batches.forEachVtodo { remoteTasks ->
+            // skip tags that were added before an interruption
+            val existing = tagDao
+                .getTagsForTasks(remoteTasks.map { it.first.id })
+                .groupBy({ it.task }, { it.tagUid })
+            for ((container, remoteTask) in remoteTasks) {
+                val tags = existing[container.id].orEmpty()
+                iCal.getTags(remoteTask.categories)
+                    .filterNot { tags.contains(it.remoteId) }
+                    .let { tagDao.insert(container.task, it) }
+            }
         }
-        taskDao.touch(tasksWithTags)
     }
 
     private suspend fun removeDuplicateTags() {
@@ -273,8 +339,6 @@ class Upgrader @Inject constructor(
     }
 
     private suspend fun migrateUris() {
-        migrateUriPreference(R.string.p_backup_dir)
-        migrateUriPreference(R.string.p_attachment_dir)
         for (userActivity in userActivityDao.getComments()) {
             userActivity.convertPictureUri()
             userActivityDao.update(userActivity)
@@ -357,7 +421,7 @@ class Upgrader @Inject constructor(
         private const val V6_9 = 608
         private const val V7_0 = 617
         const val V8_2 = 675
-        private const val V8_5 = 700
+        const val V8_5 = 700
         private const val V8_8 = 717
         private const val V8_10 = 735
         private const val V9_3 = 90300
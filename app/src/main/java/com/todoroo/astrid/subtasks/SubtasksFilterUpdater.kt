@@ -4,52 +4,68 @@ import com.todoroo.astrid.api.AstridOrderingFilter
 import com.todoroo.astrid.dao.TaskDao
 import org.tasks.data.entity.Task
 import org.tasks.data.entity.Task.Companion.isValidUuid
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import org.json.JSONArray
 import org.json.JSONException
-import org.tasks.Strings.isNullOrEmpty
-import org.tasks.data.entity.TaskListMetadata
 import org.tasks.data.dao.TaskListMetadataDao
+import org.tasks.data.dao.TaskListOrderDao
+import org.tasks.data.entity.TaskListMetadata
+import org.tasks.data.entity.TaskListOrder
+import org.tasks.data.sql.Join
 import org.tasks.db.QueryUtils.showHiddenAndCompleted
 import timber.log.Timber
 import java.util.*
 import javax.inject.Inject
 
+/**
+ * The tree is not synchronized and must only be read and modified on the main thread. Changed
+ * rows are written to [TaskListOrderDao] in the order the changes were made.
+ */
 class SubtasksFilterUpdater @Inject constructor(
     private val taskListMetadataDao: TaskListMetadataDao,
+    private val taskListOrderDao: TaskListOrderDao,
     private val taskDao: TaskDao
 ) {
     private val idToNode = HashMap<String, Node?>()
     private var treeRoot: Node? = null
-    private fun getSerializedTree(list: TaskListMetadata?): String? {
-        if (list == null) {
-            return "[]" // $NON-NLS-1$
+    /** rows as they were last read from or written to [TaskListOrderDao] */
+    private val saved = HashMap<String, TaskListOrder>()
+    private val writes = Mutex()
+
+    /**
+     * Writes the rows that changed since the tree was loaded or last written. Rows that are still
+     * in order keep their position, so only moved, created and reparented rows are written.
+     */
+    suspend fun writeOrder(list: TaskListMetadata?) {
+        val listId = list?.id ?: return
+        val order = reorder(flatten(treeRoot, listId), saved)
+        val changed = order.filter { saved[it.task] != it }
+        val removed = saved.keys - order.mapTo(HashSet()) { it.task }
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return
         }
-        var order = list.taskIds
-        if (isNullOrEmpty(order) || "null" == order) // $NON-NLS-1$
-        {
-            order = "[]" // $NON-NLS-1$
-        }
-        return order
-    }
-
-    suspend fun writeSerialization(list: TaskListMetadata?, serialized: String?) {
-        if (list != null) {
-            list.taskIds = serialized
-            taskListMetadataDao.update(list)
+        // update saved before suspending, the next change is compared against these rows
+        saved.clear()
+        order.associateByTo(saved) { it.task }
+        writes.withLock {
+            taskListOrderDao.update(listId, removed.toList(), changed)
         }
     }
 
     suspend fun initialize(list: TaskListMetadata?, filter: AstridOrderingFilter) {
-        initializeFromSerializedTree(list, filter, getSerializedTree(list))
-        applyToFilter(filter)
+        val order = getOrder(taskListMetadataDao, taskListOrderDao, list)
+        idToNode.clear()
+        saved.clear()
+        order.associateByTo(saved) { it.task }
+        treeRoot = buildTreeModel(order) { node -> node?.let { idToNode[it.uuid] = it } }
+        verifyTreeModel(list, filter)
+        applyToFilter(list, filter)
     }
 
-    private fun applyToFilter(filter: AstridOrderingFilter) {
-        var query = filter.getSqlQuery()
-        query = query.replace("ORDER BY .*".toRegex(), "")
-        query += "ORDER BY $orderString"
-        query = showHiddenAndCompleted(query)
-        filter.filterOverride = query
+    /** The query only depends on the list, moving tasks doesn't change it */
+    private fun applyToFilter(list: TaskListMetadata?, filter: AstridOrderingFilter) {
+        filter.filterOverride = getOrderedQuery(filter.sql!!, list?.id ?: 0)
     }
 
     fun getIndentForTask(targetTaskId: String?): Int {
@@ -68,7 +84,7 @@ class SubtasksFilterUpdater @Inject constructor(
         val keySet: Set<String> = idToNode.keys
         val currentIds: MutableSet<String> = HashSet(keySet)
         val idsInQuery: MutableSet<String> = HashSet()
-        var sql = filter.getSqlQuery().replace("ORDER BY .*".toRegex(), "") // $NON-NLS-1$//$NON-NLS-2$
+        var sql = filter.sql!!.replace("ORDER BY .*".toRegex(), "") // $NON-NLS-1$//$NON-NLS-2$
         sql = "$sql ORDER BY created" // $NON-NLS-1$
         sql = showHiddenAndCompleted(sql)
         val tasks = taskDao.fetchFiltered(sql)
@@ -89,7 +105,7 @@ class SubtasksFilterUpdater @Inject constructor(
             changedThings = true
         }
         if (changedThings) {
-            writeSerialization(list, serializeTree())
+            writeOrder(list)
         }
     }
 
@@ -112,28 +128,6 @@ class SubtasksFilterUpdater @Inject constructor(
         return idToNode[taskId]
     }
 
-    private val orderedIds: List<String>
-        get() {
-            val ids = ArrayList<String>()
-            orderedIdHelper(treeRoot, ids)
-            return ids
-        }
-
-    private val orderString: String
-        get() {
-            val ids = orderedIds
-            return buildOrderString(ids)
-        }
-
-    private fun orderedIdHelper(node: Node?, ids: MutableList<String>) {
-        if (node !== treeRoot) {
-            ids.add(node!!.uuid)
-        }
-        for (child in node!!.children) {
-            orderedIdHelper(child, ids)
-        }
-    }
-
     suspend fun applyToDescendants(taskId: String?, visitor: suspend (Node) -> Unit) {
         val n = idToNode[taskId] ?: return
         applyToDescendantsHelper(n, visitor)
@@ -147,12 +141,12 @@ class SubtasksFilterUpdater @Inject constructor(
         }
     }
 
-    suspend fun indent(list: TaskListMetadata, filter: AstridOrderingFilter, targetTaskId: String?, delta: Int) {
+    suspend fun indent(list: TaskListMetadata, targetTaskId: String?, delta: Int) {
         val node = idToNode[targetTaskId]
-        indentHelper(list, filter, node, delta)
+        indentHelper(list, node, delta)
     }
 
-    private suspend fun indentHelper(list: TaskListMetadata, filter: AstridOrderingFilter, node: Node?, delta: Int) {
+    private suspend fun indentHelper(list: TaskListMetadata, node: Node?, delta: Int) {
         if (node == null) {
             return
         }
@@ -190,8 +184,7 @@ class SubtasksFilterUpdater @Inject constructor(
             setNodeIndent(node, newParent.indent + 1)
             newSiblings.add(insertAfter + 1, node)
         }
-        writeSerialization(list, serializeTree())
-        applyToFilter(filter)
+        writeOrder(list)
     }
 
     private fun setNodeIndent(node: Node, indent: Int) {
@@ -206,17 +199,17 @@ class SubtasksFilterUpdater @Inject constructor(
         }
     }
 
-    suspend fun moveTo(list: TaskListMetadata, filter: AstridOrderingFilter, targetTaskId: String?, beforeTaskId: String) {
+    suspend fun moveTo(list: TaskListMetadata, targetTaskId: String?, beforeTaskId: String) {
         val target = idToNode[targetTaskId] ?: return
         if ("-1" == beforeTaskId) { // $NON-NLS-1$
-            moveToEndOfList(list, filter, target)
+            moveToEndOfList(list, target)
             return
         }
         val before = idToNode[beforeTaskId] ?: return
         if (isDescendantOf(before, target)) {
             return
         }
-        moveHelper(list, filter, target, before)
+        moveHelper(list, target, before)
     }
 
     fun moveToParentOf(moveThis: String?, toParentOfThis: String?) {
@@ -230,7 +223,7 @@ class SubtasksFilterUpdater @Inject constructor(
         setNodeIndent(toMove, toMove.parent!!.indent + 1)
     }
 
-    private suspend fun moveHelper(list: TaskListMetadata, filter: AstridOrderingFilter, moveThis: Node, beforeThis: Node) {
+    private suspend fun moveHelper(list: TaskListMetadata, moveThis: Node, beforeThis: Node) {
         val oldParent = moveThis.parent
         val oldSiblings = oldParent!!.children
         val newParent = beforeThis.parent
@@ -250,8 +243,7 @@ class SubtasksFilterUpdater @Inject constructor(
             beforeIndex--
         }
         newSiblings.add(beforeIndex, moveThis)
-        writeSerialization(list, serializeTree())
-        applyToFilter(filter)
+        writeOrder(list)
     }
 
     fun isDescendantOf(desc: String?, parent: String?): Boolean {
@@ -270,28 +262,26 @@ class SubtasksFilterUpdater @Inject constructor(
         return false
     }
 
-    private suspend fun moveToEndOfList(list: TaskListMetadata, filter: AstridOrderingFilter, moveThis: Node) {
+    private suspend fun moveToEndOfList(list: TaskListMetadata, moveThis: Node) {
         val parent = moveThis.parent
         parent!!.children.remove(moveThis)
         treeRoot!!.children.add(moveThis)
         moveThis.parent = treeRoot
         setNodeIndent(moveThis, 0)
-        writeSerialization(list, serializeTree())
-        applyToFilter(filter)
+        writeOrder(list)
     }
 
-    suspend fun onCreateTask(list: TaskListMetadata?, filter: AstridOrderingFilter, uuid: String) {
+    suspend fun onCreateTask(list: TaskListMetadata?, uuid: String) {
         if (idToNode.containsKey(uuid) || !isValidUuid(uuid)) {
             return
         }
         val newNode = Node(uuid, treeRoot, 0)
         treeRoot!!.children.add(0, newNode)
         idToNode[uuid] = newNode
-        writeSerialization(list, serializeTree())
-        applyToFilter(filter)
+        writeOrder(list)
     }
 
-    suspend fun onDeleteTask(list: TaskListMetadata?, filter: AstridOrderingFilter, taskId: String?) {
+    suspend fun onDeleteTask(list: TaskListMetadata?, taskId: String?) {
         val task = idToNode[taskId] ?: return
         val parent = task.parent
         val siblings = parent!!.children
@@ -306,12 +296,7 @@ class SubtasksFilterUpdater @Inject constructor(
             index++
         }
         idToNode.remove(taskId)
-        writeSerialization(list, serializeTree())
-        applyToFilter(filter)
-    }
-
-    fun serializeTree(): String {
-        return serializeTree(treeRoot)
+        writeOrder(list)
     }
 
     class Node internal constructor(var uuid: String, var parent: Node?, var indent: Int) {
@@ -321,21 +306,145 @@ class SubtasksFilterUpdater @Inject constructor(
     companion object {
         const val ACTIVE_TASKS_ORDER = "active_tasks_order" // $NON-NLS-1$
         const val TODAY_TASKS_ORDER = "today_tasks_order" // $NON-NLS-1$
-        private const val MAX_ORDERED_TASKS = 900
+        /** Space between the positions of neighboring rows, leaves room to move rows in between */
+        const val ORDER_GAP = 1024
+
+        /** Sorts [sql] by joining against the stored order of [list] */
+        fun getOrderedQuery(sql: String, list: Long): String {
+            val join = Join.left(
+                TaskListOrder.TABLE,
+                TaskListOrder.TASK.eq(Task.UUID),
+                TaskListOrder.LIST.eq(list),
+            )
+            val query = sql.replace("ORDER BY .*".toRegex(), "")
+            return showHiddenAndCompleted("$join $query ORDER BY ${TaskListOrder.ORDER}")
+        }
 
-        fun buildOrderString(ids: List<String>): String {
-            val builder = StringBuilder()
-            if (ids.isEmpty()) {
-                return "(1)" // $NON-NLS-1$
+        /**
+         * Stored order for [list]. Trees serialized by older versions or restored from a backup
+         * are converted to rows the first time they are read.
+         */
+        suspend fun getOrder(
+            taskListMetadataDao: TaskListMetadataDao,
+            taskListOrderDao: TaskListOrderDao,
+            list: TaskListMetadata?,
+        ): List<TaskListOrder> {
+            val listId = list?.id ?: return emptyList()
+            val serialized = list.taskIds
+            if (serialized.isNullOrBlank() || serialized == "[]" || serialized == "null") {
+                return taskListOrderDao.getOrder(listId)
             }
-            val indices = ids.indices.reversed().take(MAX_ORDERED_TASKS)
-            indices.forEach { i ->
-                builder.append(Task.UUID.eq(ids[i]).toString())
-                if (i != indices.last()) {
-                    builder.append(", ") // $NON-NLS-1$
+            val order = flatten(buildTreeModel(serialized, null), listId)
+            taskListOrderDao.replace(listId, order)
+            list.taskIds = "[]"
+            taskListMetadataDao.update(list)
+            return order
+        }
+
+        fun flatten(root: Node?, list: Long): List<TaskListOrder> {
+            val order = ArrayList<TaskListOrder>()
+            fun visit(node: Node) {
+                for (child in node.children) {
+                    order.add(
+                        TaskListOrder(
+                            list = list,
+                            task = child.uuid,
+                            parent = node.takeIf { it !== root }?.uuid,
+                            order = order.size * ORDER_GAP,
+                        )
+                    )
+                    visit(child)
                 }
             }
-            return builder.toString()
+            root?.let { visit(it) }
+            return order
+        }
+
+        /**
+         * Assigns positions to [rows], which are in tree order. Rows whose [saved] position is
+         * still in order keep it, the others are placed in the gap between their neighbors. The
+         * whole list is only renumbered when a gap runs out.
+         */
+        fun reorder(rows: List<TaskListOrder>, saved: Map<String, TaskListOrder>): List<TaskListOrder> {
+            val previous = rows.map { saved[it.task]?.order }
+            val keep = longestIncreasing(previous)
+            val positions = LongArray(rows.size)
+            var start = 0
+            while (start < rows.size) {
+                if (keep[start]) {
+                    positions[start] = previous[start]!!.toLong()
+                    start++
+                    continue
+                }
+                var end = start
+                while (end < rows.size && !keep[end]) {
+                    end++
+                }
+                val count = end - start
+                val low = if (start > 0) positions[start - 1] else null
+                val high = if (end < rows.size) previous[end]!!.toLong() else null
+                val step = when {
+                    low == null || high == null -> ORDER_GAP.toLong()
+                    high - low > count -> (high - low) / (count + 1)
+                    else -> return rows.renumber()
+                }
+                val first = when {
+                    low != null -> low + step
+                    high != null -> high - step * count
+                    else -> 0L
+                }
+                for (i in 0 until count) {
+                    positions[start + i] = first + step * i
+                }
+                start = end
+            }
+            if (positions.any { it < Int.MIN_VALUE || it > Int.MAX_VALUE }) {
+                return rows.renumber()
+            }
+            return rows.mapIndexed { index, row -> row.copy(order = positions[index].toInt()) }
+        }
+
+        private fun List<TaskListOrder>.renumber() =
+            mapIndexed { index, row -> row.copy(order = index * ORDER_GAP) }
+
+        /** Marks the longest strictly increasing subsequence of [values], ignoring nulls */
+        private fun longestIncreasing(values: List<Int?>): BooleanArray {
+            val tails = ArrayList<Int>()
+            val previous = IntArray(values.size) { -1 }
+            values.forEachIndexed { index, value ->
+                value ?: return@forEachIndexed
+                var low = 0
+                var high = tails.size
+                while (low < high) {
+                    val mid = (low + high) / 2
+                    if (values[tails[mid]]!! < value) low = mid + 1 else high = mid
+                }
+                if (low > 0) {
+                    previous[index] = tails[low - 1]
+                }
+                if (low == tails.size) tails.add(index) else tails[low] = index
+            }
+            val keep = BooleanArray(values.size)
+            var index = tails.lastOrNull() ?: -1
+            while (index >= 0) {
+                keep[index] = true
+                index = previous[index]
+            }
+            return keep
+        }
+
+        /** @param order rows sorted by [TaskListOrder.order] */
+        fun buildTreeModel(order: List<TaskListOrder>, callback: ((Node?) -> Unit)?): Node {
+            val root = Node("-1", null, -1) // $NON-NLS-1$
+            val nodes = HashMap<String, Node>()
+            for (row in order) {
+                val parent = row.parent?.let { nodes[it] } ?: root
+                val node = Node(row.task, parent, parent.indent + 1)
+                parent.children.add(node)
+                nodes[row.task] = node
+                callback?.invoke(node)
+            }
+            return root
         }
 
         fun buildTreeModel(serializedTree: String?, callback: ((Node?) -> Unit)?): Node {
@@ -7,16 +7,16 @@ import com.todoroo.astrid.core.BuiltInFilterExposer.Companion.isInbox
 import com.todoroo.astrid.core.BuiltInFilterExposer.Companion.isTodayFilter
 import com.todoroo.astrid.dao.TaskDao
 import org.tasks.data.entity.Task.Companion.isValidUuid
-import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.buildOrderString
 import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.buildTreeModel
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.getOrder
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.getOrderedQuery
 import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.serializeTree
 import dagger.hilt.android.qualifiers.ApplicationContext
 import org.tasks.Strings.isNullOrEmpty
-import org.tasks.data.entity.TagData
 import org.tasks.data.dao.TagDataDao
 import org.tasks.data.entity.TaskListMetadata
 import org.tasks.data.dao.TaskListMetadataDao
-import org.tasks.db.QueryUtils.showHiddenAndCompleted
+import org.tasks.data.dao.TaskListOrderDao
 import org.tasks.preferences.QueryPreferences
 import timber.log.Timber
 import javax.inject.Inject
@@ -25,7 +25,8 @@ class SubtasksHelper @Inject constructor(
     @param:ApplicationContext private val context: Context,
     private val taskDao: TaskDao,
     private val tagDataDao: TagDataDao,
-    private val taskListMetadataDao: TaskListMetadataDao
+    private val taskListMetadataDao: TaskListMetadataDao,
+    private val taskListOrderDao: TaskListOrderDao,
 ) {
 
     suspend fun applySubtasksToWidgetFilter(
@@ -33,7 +34,6 @@ class SubtasksHelper @Inject constructor(
             preferences: QueryPreferences,
     ) {
         if (filter is AstridOrderingFilter && preferences.isAstridSort) {
-            var query = filter.sql!!
             val tagData = tagDataDao.getTagByName(filter.title!!)
             val tlm = when {
                 tagData != null ->
@@ -45,23 +45,12 @@ class SubtasksHelper @Inject constructor(
                 else -> null
             }
             if (tlm != null) {
-                query = query.replace("ORDER BY .*".toRegex(), "")
-                query += " ORDER BY ${getOrderString(tagData, tlm)}"
-                query = showHiddenAndCompleted(query)
-                filter.filterOverride = query
+                getOrder(taskListMetadataDao, taskListOrderDao, tlm) // converts serialized trees
+                filter.filterOverride = getOrderedQuery(filter.sql!!, tlm.id!!)
             }
         }
     }
 
-    private suspend fun getOrderString(tagData: TagData?, tlm: TaskListMetadata?): String {
-        val serialized: String? = when {
-            tlm != null -> tlm.taskIds
-            tagData != null -> convertTreeToRemoteIds(taskDao, tagData.tagOrdering)
-            else -> "[]"
-        }
-        return buildOrderString(getStringIdArray(serialized))
-    }
-
     companion object {
         @Deprecated("")
         private fun getIdList(serializedTree: String?): List<Long> {
@@ -8,12 +8,15 @@ import androidx.localbroadcastmanager.content.LocalBroadcastManager
 import com.google.common.collect.Lists
 import com.todoroo.astrid.api.AstridApiConstants
 import dagger.hilt.android.qualifiers.ApplicationContext
+import org.tasks.events.ChangeEvent
+import org.tasks.events.ChangeEventBus
 import org.tasks.widget.AppWidgetManager
 import javax.inject.Inject
 
 class LocalBroadcastManager @Inject constructor(
     @ApplicationContext context: Context,
     private val appWidgetManager: AppWidgetManager,
+    private val changeEventBus: ChangeEventBus,
 ) {
     private val localBroadcastManager = LocalBroadcastManager.getInstance(context)
 
@@ -43,9 +46,8 @@ class LocalBroadcastManager @Inject constructor(
         )
     }
 
-    fun broadcastRefresh() {
-        localBroadcastManager.sendBroadcast(Intent(REFRESH))
-        appWidgetManager.updateWidgets()
+    fun broadcastRefresh(event: ChangeEvent = ChangeEvent.REFRESH) {
+        changeEventBus.post(event)
     }
 
     fun broadcastRefreshList() {
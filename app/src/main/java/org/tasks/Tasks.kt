@@ -1,11 +1,8 @@
 package org.tasks
 
 import android.app.Application
-import android.content.BroadcastReceiver
 import android.content.Context
-import android.content.Intent
 import android.util.Log
-import androidx.core.app.JobIntentService
 import androidx.hilt.work.HiltWorkerFactory
 import androidx.lifecycle.DefaultLifecycleObserver
 import androidx.lifecycle.LifecycleOwner
@@ -16,19 +13,31 @@ import com.todoroo.astrid.service.Upgrader
 import dagger.Lazy
 import dagger.hilt.android.HiltAndroidApp
 import dagger.hilt.android.qualifiers.ApplicationContext
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import org.tasks.billing.Inventory
 import org.tasks.caldav.CaldavSynchronizer
 import org.tasks.files.FileHelper
-import org.tasks.injection.InjectingJobIntentService
 import org.tasks.jobs.WorkManager
 import org.tasks.location.GeofenceApi
 import org.tasks.opentasks.OpenTaskContentObserver
 import org.tasks.preferences.Preferences
-import org.tasks.receivers.RefreshReceiver
 import org.tasks.scheduling.NotificationSchedulerIntentService
+import org.tasks.startup.StartupGraph
+import org.tasks.startup.StartupGraph.Companion.CLEAR_CACHE
+import org.tasks.startup.StartupGraph.Companion.GEOFENCES
+import org.tasks.startup.StartupGraph.Companion.ICAL_FACTORIES
+import org.tasks.startup.StartupGraph.Companion.NIGHT_MODE
+import org.tasks.startup.StartupGraph.Companion.NOTIFICATIONS
+import org.tasks.startup.StartupGraph.Companion.OPENTASKS_OBSERVER
+import org.tasks.startup.StartupGraph.Companion.RESET_SYNC_STATE
+import org.tasks.startup.StartupGraph.Companion.SCHEDULE_WORK
+import org.tasks.startup.StartupGraph.Companion.SETUP
+import org.tasks.startup.StartupGraph.Companion.SYNC_ON_RESUME
+import org.tasks.startup.StartupGraph.Companion.TASKS_ACCOUNT
+import org.tasks.startup.StartupGraph.Companion.UPGRADE
+import org.tasks.startup.StartupGraph.Companion.WIDGETS
+import org.tasks.startup.StartupGraph.Step
+import org.tasks.startup.StartupRunner
 import org.tasks.themes.ThemeBase
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
 import org.tasks.widget.AppWidgetManager
@@ -50,32 +59,62 @@ class Tasks : Application(), Configuration.Provider {
     @Inject lateinit var appWidgetManager: Lazy<AppWidgetManager>
     @Inject lateinit var workerFactory: HiltWorkerFactory
     @Inject lateinit var contentObserver: Lazy<OpenTaskContentObserver>
+    @Inject lateinit var startupRunner: StartupRunner
 
     override fun onCreate() {
         super.onCreate()
-        buildSetup.setup()
-        upgrade()
-        preferences.isSyncOngoing = false
-        ThemeBase.getThemeBase(preferences, inventory, null).setDefaultNightMode()
-        localBroadcastManager.registerRefreshReceiver(RefreshBroadcastReceiver())
-        backgroundWork()
-        ProcessLifecycleOwner.get().lifecycle.addObserver(
-            object : DefaultLifecycleObserver {
-                override fun onResume(owner: LifecycleOwner) {
-                    if (currentTimeMillis() - preferences.lastSync > TimeUnit.MINUTES.toMillis(5)) {
-                        owner.lifecycle.coroutineScope.launch {
-                            workManager.get().sync(true)
+        startupRunner.start(
+            StartupGraph.DEFAULT,
+            mapOf<Step, suspend () -> Unit>(
+                SETUP to { buildSetup.setup() },
+                UPGRADE to { upgrade() },
+                RESET_SYNC_STATE to { preferences.isSyncOngoing = false },
+                NIGHT_MODE to {
+                    ThemeBase.getThemeBase(preferences, inventory, null).setDefaultNightMode()
+                },
+                SYNC_ON_RESUME to {
+                    ProcessLifecycleOwner.get().lifecycle.addObserver(syncOnResume)
+                },
+                TASKS_ACCOUNT to { inventory.updateTasksAccount() },
+                NOTIFICATIONS to { NotificationSchedulerIntentService.enqueueWork(context) },
+                SCHEDULE_WORK to {
+                    workManager.get().apply {
+                        updateBackgroundSync()
+                        scheduleBackup()
+                        scheduleConfigRefresh()
+                        updatePurchases()
+                        purgeFiles()
+                        scheduleRefresh()
+                        if (upgrader.get().hasPendingMigrations) {
+                            scheduleUpgrade()
                         }
                     }
-                }
+                },
+                OPENTASKS_OBSERVER to {
+                    OpenTaskContentObserver.registerObserver(context, contentObserver.get())
+                },
+                GEOFENCES to { geofenceApi.get().registerAll() },
+                CLEAR_CACHE to { FileHelper.delete(context, preferences.cacheDirectory) },
+                WIDGETS to { appWidgetManager.get().reconfigureWidgets() },
+                ICAL_FACTORIES to { CaldavSynchronizer.registerFactories() },
+            )
+        )
+    }
 
-                override fun onPause(owner: LifecycleOwner) {
-                    owner.lifecycle.coroutineScope.launch {
-                        workManager.get().startEnqueuedSync()
-                    }
+    private val syncOnResume = object : DefaultLifecycleObserver {
+        override fun onResume(owner: LifecycleOwner) {
+            if (currentTimeMillis() - preferences.lastSync > TimeUnit.MINUTES.toMillis(5)) {
+                owner.lifecycle.coroutineScope.launch {
+                    workManager.get().sync(true)
                 }
             }
-        )
+        }
+
+        override fun onPause(owner: LifecycleOwner) {
+            owner.lifecycle.coroutineScope.launch {
+                workManager.get().startEnqueuedSync()
+            }
+        }
     }
 
     private fun upgrade() {
@@ -90,23 +129,6 @@ class Tasks : Application(), Configuration.Provider {
         }
     }
 
-    private fun backgroundWork() = CoroutineScope(Dispatchers.Default).launch {
-        inventory.updateTasksAccount()
-        NotificationSchedulerIntentService.enqueueWork(context)
-        workManager.get().apply {
-            updateBackgroundSync()
-            scheduleBackup()
-            scheduleConfigRefresh()
-            updatePurchases()
-            scheduleRefresh()
-        }
-        OpenTaskContentObserver.registerObserver(context, contentObserver.get())
-        geofenceApi.get().registerAll()
-        FileHelper.delete(context, preferences.cacheDirectory)
-        appWidgetManager.get().reconfigureWidgets()
-        CaldavSynchronizer.registerFactories()
-    }
-
     override fun getWorkManagerConfiguration(): Configuration = Configuration.Builder()
             .setWorkerFactory(workerFactory)
             .setMinimumLoggingLevel(if (BuildConfig.DEBUG) Log.DEBUG else Log.INFO)
@@ -118,16 +140,6 @@ class Tasks : Application(), Configuration.Provider {
         localBroadcastManager.reconfigureWidgets()
     }
 
-    private class RefreshBroadcastReceiver : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            JobIntentService.enqueueWork(
-                    context,
-                    RefreshReceiver::class.java,
-                    InjectingJobIntentService.JOB_ID_REFRESH_RECEIVER,
-                    intent)
-        }
-    }
-
     companion object {
         @Suppress("KotlinConstantConditions")
         const val IS_GOOGLE_PLAY = BuildConfig.FLAVOR == "googleplay"
@@ -8,11 +8,16 @@ import android.net.Uri
 import android.os.Handler
 import com.google.common.io.Files
 import com.todoroo.andlib.utility.DialogUtilities
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.buildTreeModel
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.getOrder
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.serializeTree
 import kotlinx.serialization.encodeToString
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.JsonObject
 import kotlinx.serialization.json.JsonPrimitive
 import kotlinx.serialization.json.encodeToJsonElement
+import kotlinx.serialization.json.jsonObject
+import okio.ByteString.Companion.encodeUtf8
 import org.tasks.BuildConfig
 import org.tasks.R
 import org.tasks.backup.BackupContainer.TaskBackup
@@ -27,6 +32,7 @@ import org.tasks.data.dao.TagDataDao
 import org.tasks.data.dao.TaskAttachmentDao
 import org.tasks.data.dao.TaskDao
 import org.tasks.data.dao.TaskListMetadataDao
+import org.tasks.data.dao.TaskListOrderDao
 import org.tasks.data.dao.UserActivityDao
 import org.tasks.data.entity.Task
 import org.tasks.date.DateTimeUtils.newDateTime
@@ -56,6 +62,7 @@ class TasksJsonExporter @Inject constructor(
     private val caldavDao: CaldavDao,
     private val workManager: WorkManager,
     private val taskListMetadataDao: TaskListMetadataDao,
+    private val taskListOrderDao: TaskListOrderDao,
     private val vtodoCache: VtodoCache,
     ) {
 
@@ -90,7 +97,7 @@ class TasksJsonExporter @Inject constructor(
             file.createNewFile()
             val internalStorageBackup = Uri.fromFile(file)
             val os = context!!.contentResolver.openOutputStream(internalStorageBackup)
-            doTasksExport(os, tasks)
+            val contentHash = doTasksExport(os, tasks)
             os!!.close()
             val externalStorageBackup = FileHelper.newFile(
                     context!!,
@@ -99,7 +106,11 @@ class TasksJsonExporter @Inject constructor(
                     Files.getNameWithoutExtension(filename),
                     EXTENSION)
             FileHelper.copyStream(context!!, internalStorageBackup, externalStorageBackup)
-            workManager.scheduleDriveUpload(externalStorageBackup, exportType == ExportType.EXPORT_TYPE_SERVICE)
+            workManager.scheduleDriveUpload(
+                externalStorageBackup,
+                exportType == ExportType.EXPORT_TYPE_SERVICE,
+                contentHash,
+            )
             BackupManager(context).dataChanged()
             if (exportType == ExportType.EXPORT_TYPE_MANUAL) {
                 onFinishExport(filename)
@@ -117,7 +128,7 @@ class TasksJsonExporter @Inject constructor(
     }
 
     @Throws(IOException::class)
-    private suspend fun doTasksExport(os: OutputStream?, tasks: List<Task>) {
+    private suspend fun doTasksExport(os: OutputStream?, tasks: List<Task>): String {
         val taskBackups: MutableList<TaskBackup> = ArrayList()
         for (task in tasks) {
             setProgress(taskBackups.size, tasks.size)
@@ -136,27 +147,29 @@ class TasksJsonExporter @Inject constructor(
                     )
             )
         }
+        val container = Json.encodeToJsonElement(
+            BackupContainer(
+                taskBackups,
+                locationDao.getPlaces(),
+                tagDataDao.getAll(),
+                filterDao.getFilters(),
+                caldavDao.getAccounts(),
+                caldavDao.getCalendars(),
+                getTaskListMetadata(),
+                taskAttachmentDao.getAttachments(),
+                preferences.getPrefs(Integer::class.java),
+                preferences.getPrefs(java.lang.Long::class.java),
+                preferences.getPrefs(String::class.java),
+                preferences.getPrefs(java.lang.Boolean::class.java),
+                preferences.getPrefs(java.util.Set::class.java) as Map<String, java.util.Set<String>>,
+            )
+        ).jsonObject
+        val contentHash = getContentHash(container)
         val data = JsonObject(
             mapOf(
                 "version" to JsonPrimitive(BuildConfig.VERSION_CODE),
                 "timestamp" to JsonPrimitive(currentTimeMillis()),
-                "data" to Json.encodeToJsonElement(
-                    BackupContainer(
-                        taskBackups,
-                        locationDao.getPlaces(),
-                        tagDataDao.getAll(),
-                        filterDao.getFilters(),
-                        caldavDao.getAccounts(),
-                        caldavDao.getCalendars(),
-                        taskListMetadataDao.getAll(),
-                        taskAttachmentDao.getAttachments(),
-                        preferences.getPrefs(Integer::class.java),
-                        preferences.getPrefs(java.lang.Long::class.java),
-                        preferences.getPrefs(String::class.java),
-                        preferences.getPrefs(java.lang.Boolean::class.java),
-                        preferences.getPrefs(java.util.Set::class.java) as Map<String, java.util.Set<String>>,
-                    )
-                )
+                "data" to container,
             )
         )
         val out = OutputStreamWriter(os, UTF_8)
@@ -164,8 +177,34 @@ class TasksJsonExporter @Inject constructor(
         out.write(json.encodeToString(data))
         out.close()
         exportCount = taskBackups.size
+        return contentHash
     }
 
+    /**
+     * Hashes the backed up data without the timestamps that change with every backup, so
+     * that an unchanged backup doesn't need to be uploaded again
+     */
+    private fun getContentHash(container: JsonObject): String {
+        val ignored = IGNORE_PREFS.map { context!!.getString(it) }.toSet()
+        val stable = JsonObject(
+            container.mapValues { (key, value) ->
+                if (key.endsWith("Prefs") && value is JsonObject) {
+                    JsonObject(value.filterKeys { !ignored.contains(it) }.toSortedMap())
+                } else {
+                    value
+                }
+            }
+        )
+        return Json.encodeToString(stable).encodeUtf8().sha256().hex()
+    }
+
+    /** Backups keep manual order as serialized trees so they can be restored by older versions */
+    private suspend fun getTaskListMetadata() =
+        taskListMetadataDao.getAll().onEach { list ->
+            val order = getOrder(taskListMetadataDao, taskListOrderDao, list)
+            list.taskIds = serializeTree(buildTreeModel(order, null))
+        }
+
     private fun onFinishExport(outputFile: String) = post {
         context?.toast(
             R.string.export_toast,
@@ -191,6 +230,13 @@ class TasksJsonExporter @Inject constructor(
         val UTF_8: Charset = Charset.forName("UTF-8")
         private const val MIME = "application/json"
         private const val EXTENSION = ".json"
+        private val IGNORE_PREFS = listOf(
+            R.string.p_last_backup,
+            R.string.p_backups_drive_last,
+            R.string.p_backups_android_backup_last,
+            R.string.p_google_drive_upload_session,
+            R.string.p_google_drive_upload_uri,
+        )
         private val dateForExport: String
             get() = newDateTime().toString("yyyyMMdd'T'HHmm")
     }
@@ -41,6 +41,7 @@ import org.tasks.data.entity.Place
 import org.tasks.data.entity.Tag
 import org.tasks.data.entity.TagData
 import org.tasks.data.entity.Task
+import org.tasks.data.convertPictureUri
 import org.tasks.db.Migrations.repeatFrom
 import org.tasks.db.Migrations.withoutFrom
 import org.tasks.filters.FilterCriteriaProvider
@@ -365,7 +366,11 @@ class TasksJsonImporter @Inject constructor(
     companion object {
         private val ignorePrefs = intArrayOf(
                 R.string.p_current_version,
-                R.string.p_backups_android_backup_last
+                R.string.p_upgrade_migrated_version,
+                R.string.p_upgrade_checkpoint,
+                R.string.p_backups_android_backup_last,
+                R.string.p_google_drive_upload_session,
+                R.string.p_google_drive_upload_uri,
         )
     }
 }
\ No newline at end of file
@@ -56,6 +56,7 @@ import org.tasks.data.entity.CaldavAccount
 import org.tasks.data.entity.CaldavCalendar
 import org.tasks.data.entity.CaldavTask
 import org.tasks.data.entity.PrincipalAccess
+import org.tasks.events.ChangeEvent
 import timber.log.Timber
 import java.io.IOException
 import java.net.ConnectException
@@ -278,7 +279,7 @@ class CaldavSynchronizer @Inject constructor(
         Timber.d("UPDATE %s", caldavCalendar)
         caldavDao.update(caldavCalendar)
         caldavDao.updateParents(caldavCalendar.uuid!!)
-        localBroadcastManager.broadcastRefresh()
+        localBroadcastManager.broadcastRefresh(ChangeEvent.listSynced(caldavCalendar.uuid!!))
     }
 
     private suspend fun pushLocalChanges(
@@ -362,7 +363,7 @@ class CaldavSynchronizer @Inject constructor(
         Timber.d("SENT %s", caldavTask)
     }
 
-    fun Response.principals(
+    suspend fun Response.principals(
         account: CaldavAccount,
         list: CaldavCalendar
     ): List<PrincipalAccess> {
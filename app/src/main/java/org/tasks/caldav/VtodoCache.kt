@@ -77,4 +77,46 @@ class VtodoCache @Inject constructor(
 
     fun clear() =
         fileStorage.getFile()?.deleteRecursively()
+
+    fun deferred(calendar: CaldavCalendar) = Deferred(calendar)
+
+    /**
+     * Holds changes to the files of [calendar] in memory so they can be written after the
+     * transaction that saved their tasks commits. Reads see the pending changes.
+     */
+    inner class Deferred internal constructor(private val calendar: CaldavCalendar) {
+        private val vtodos = LinkedHashMap<String, Pair<CaldavTask, String?>>()
+        private val deleted = LinkedHashMap<String, CaldavTask>()
+
+        fun getVtodo(caldavTask: CaldavTask): String? {
+            val `object` = caldavTask.obj
+            return when {
+                `object` == null -> null
+                vtodos.containsKey(`object`) -> vtodos[`object`]!!.second
+                deleted.containsKey(`object`) -> null
+                else -> this@VtodoCache.getVtodo(calendar, caldavTask)
+            }
+        }
+
+        fun putVtodo(caldavTask: CaldavTask, vtodo: String?) {
+            val `object` = caldavTask.obj?.takeIf { it.isNotBlank() } ?: return
+            deleted.remove(`object`)
+            vtodos[`object`] = caldavTask to vtodo
+        }
+
+        fun delete(caldavTask: CaldavTask) {
+            val `object` = caldavTask.obj ?: return
+            vtodos.remove(`object`)
+            deleted[`object`] = caldavTask
+        }
+
+        fun write() {
+            deleted.values.forEach { this@VtodoCache.delete(calendar, it) }
+            vtodos.values.forEach { (caldavTask, vtodo) ->
+                this@VtodoCache.putVtodo(calendar, caldavTask, vtodo)
+            }
+            deleted.clear()
+            vtodos.clear()
+        }
+    }
 }
\ No newline at end of file
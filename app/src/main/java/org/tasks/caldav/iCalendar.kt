@@ -200,7 +200,8 @@ class iCalendar @Inject constructor(
         remote: Task,
         vtodo: String?,
         obj: String? = null,
-        eTag: String? = null
+        eTag: String? = null,
+        vtodos: VtodoCache.Deferred? = null,
     ) {
         if (existing?.isDeleted() == true) {
             return
@@ -222,7 +223,11 @@ class iCalendar @Inject constructor(
                 )
         val isNew = caldavTask.id == org.tasks.data.entity.Task.NO_ID
         val dirty = task.modificationDate > caldavTask.lastSync || caldavTask.lastSync == 0L
-        val local = vtodoCache.getVtodo(calendar, caldavTask)?.let { fromVtodo(it) }
+        val local = if (vtodos != null) {
+            vtodos.getVtodo(caldavTask)
+        } else {
+            vtodoCache.getVtodo(calendar, caldavTask)
+        }?.let { fromVtodo(it) }
         task.applyRemote(remote, local)
         caldavTask.applyRemote(remote, local)
 
@@ -269,7 +274,11 @@ class iCalendar @Inject constructor(
         task.suppressSync()
         task.suppressRefresh()
         taskDao.save(task)
-        vtodoCache.putVtodo(calendar, caldavTask, vtodo)
+        if (vtodos != null) {
+            vtodos.putVtodo(caldavTask, vtodo)
+        } else {
+            vtodoCache.putVtodo(calendar, caldavTask, vtodo)
+        }
         caldavTask.etag = eTag
         if (!dirty) {
             caldavTask.lastSync = task.modificationDate
@@ -15,6 +15,7 @@ import org.tasks.R
 import org.tasks.compose.DeleteButton
 import org.tasks.compose.TaskEditRow
 import org.tasks.data.entity.UserActivity
+import org.tasks.data.pictureUri
 import java.util.*
 
 @Composable
@@ -33,6 +33,11 @@ class MyAndroidTask() : AndroidTask(null) {
             populateProperty(values)
 
             while (cursor.moveToNext()) {
+                if (cursor.getLong(TaskContract.Tasks._ID) != id) {
+                    // cursor contains more than one task, leave the next one for the caller
+                    cursor.moveToPrevious()
+                    break
+                }
                 // process the other properties
                 populateProperty(cursor.toValues(true))
             }
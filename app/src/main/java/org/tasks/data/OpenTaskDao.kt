@@ -89,6 +89,32 @@ open class OpenTaskDao @Inject constructor(
         items
     }
 
+    /**
+     * Etags for the given task rows, grouped by list. Rows that no longer exist are left out.
+     */
+    suspend fun getEtags(taskIds: Collection<Long>): Map<Long, List<Triple<String, String?, String>>> =
+        withContext(Dispatchers.IO) {
+            val items = HashMap<Long, MutableList<Triple<String, String?, String>>>()
+            taskIds.chunked(OPENTASK_BATCH_LIMIT).forEach { chunk ->
+                cr.query(
+                        tasks,
+                        arrayOf(Tasks.LIST_ID, Tasks._UID, Tasks.SYNC1, "version"),
+                        "${Tasks._ID} IN (${chunk.joinToString(",")})",
+                        null,
+                        null)?.use {
+                    while (it.moveToNext()) {
+                        items
+                            .getOrPut(it.getLong(Tasks.LIST_ID)) { ArrayList() }
+                            .add(Triple(
+                                it.getString(Tasks._UID)!!,
+                                it.getString(Tasks.SYNC1),
+                                it.getLong("version").toString()))
+                    }
+                }
+            }
+            items
+        }
+
     fun delete(listId: Long, uid: String): ContentProviderOperation =
             newDelete(tasks)
                     .withSelection(
@@ -142,6 +168,25 @@ open class OpenTaskDao @Inject constructor(
         }
     }
 
+    suspend fun getTasks(listId: Long, uids: List<String>): List<MyAndroidTask> =
+        withContext(Dispatchers.IO) {
+            uids.chunked(OPENTASK_BATCH_LIMIT).flatMap { chunk ->
+                cr.query(
+                        tasks.buildUpon().appendQueryParameter(LOAD_PROPERTIES, "1").build(),
+                        null,
+                        "${Tasks.LIST_ID} = $listId AND ${Tasks._UID} IN (${chunk.joinToString(",") { "?" }})",
+                        chunk.toTypedArray(),
+                        Tasks._ID)?.use {
+                    val result = ArrayList<MyAndroidTask>()
+                    while (it.moveToNext()) {
+                        result.add(MyAndroidTask(it))
+                    }
+                    result
+                }
+                    ?: emptyList()
+            }
+        }
+
     companion object {
         private const val OPENTASK_BATCH_LIMIT = 499
         const val ACCOUNT_TYPE_DAVx5 = "bitfire.at.davdroid"
@@ -1,6 +1,6 @@
 package org.tasks.data
 
-import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.room.RoomRawQuery
 import org.tasks.data.sql.Field
 import org.tasks.data.sql.Query
 import com.todoroo.astrid.api.Filter
@@ -13,9 +13,7 @@ import org.tasks.time.DateTimeUtils2.currentTimeMillis
 import timber.log.Timber
 
 suspend fun TaskDao.fetchTasks(preferences: QueryPreferences, filter: Filter): List<TaskContainer> =
-    fetchTasks {
-        TaskListQuery.getQuery(preferences, filter)
-    }
+    fetchTasks(TaskListQuery.getCompiledQuery(preferences, filter))
 
 internal suspend fun TaskDao.setCollapsed(preferences: QueryPreferences, filter: Filter, collapsed: Boolean) {
     fetchTasks(preferences, filter)
@@ -42,8 +40,8 @@ suspend fun TaskDao.count(filter: Filter): Int {
     return count
 }
 
-private fun getQuery(queryTemplate: String, vararg fields: Field): SimpleSQLiteQuery =
-    SimpleSQLiteQuery(
+private fun getQuery(queryTemplate: String, vararg fields: Field): RoomRawQuery =
+    RoomRawQuery(
         Query.select(*fields)
             .withQueryTemplate(PermaSql.replacePlaceholdersForQuery(queryTemplate))
             .from(Task.TABLE)
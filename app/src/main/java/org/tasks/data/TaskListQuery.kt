@@ -1,53 +1,116 @@
 package org.tasks.data
 
-import org.tasks.data.sql.Criterion
-import org.tasks.data.sql.Field.Companion.field
-import org.tasks.data.sql.Join
+import android.util.LruCache
+import androidx.room.RoomRawQuery
 import com.todoroo.astrid.api.AstridOrderingFilter
+import com.todoroo.astrid.api.CaldavFilter
 import com.todoroo.astrid.api.Filter
-import org.tasks.data.entity.Task
-import org.tasks.data.TaskListQueryNonRecursive.getNonRecursiveQuery
-import org.tasks.data.TaskListQueryRecursive.getRecursiveQuery
-import org.tasks.data.entity.CaldavAccount
-import org.tasks.data.entity.CaldavCalendar
-import org.tasks.data.entity.CaldavTask
-import org.tasks.data.entity.Geofence
-import org.tasks.data.entity.Place
+import com.todoroo.astrid.api.GtasksFilter
+import com.todoroo.astrid.api.PermaSql
+import com.todoroo.astrid.core.SortHelper
+import org.tasks.filters.RecentlyModifiedFilter
 import org.tasks.preferences.QueryPreferences
 
 object TaskListQuery {
-    private const val CALDAV_METADATA_JOIN = "for_caldav"
-    private val JOIN_CALDAV = Criterion.and(
-            Task.ID.eq(field("$CALDAV_METADATA_JOIN.cd_task")),
-            field("$CALDAV_METADATA_JOIN.cd_deleted").eq(0))
-    val JOINS = """
-        ${Join.left(CaldavTask.TABLE.`as`(CALDAV_METADATA_JOIN), JOIN_CALDAV)}
-        ${
-        Join.left(
-        CaldavCalendar.TABLE, field("$CALDAV_METADATA_JOIN.cd_calendar").eq(
-            CaldavCalendar.UUID))}
-        ${Join.left(CaldavAccount.TABLE, CaldavCalendar.ACCOUNT.eq(CaldavAccount.UUID))}
-        ${Join.left(Geofence.TABLE, Geofence.TASK.eq(Task.ID))}
-        ${Join.left(Place.TABLE, Place.UID.eq(Geofence.PLACE))}
-    """.trimIndent()
-    val FIELDS = listOf(
-            field("tasks.*"),
-            field("$CALDAV_METADATA_JOIN.*"),
-            field("${CaldavAccount.ACCOUNT_TYPE}").`as`("accountType"),
-            field("geofences.*"),
-            field("places.*"))
+    private val compiledQueries = LruCache<List<Any?>, List<RoomRawQuery>>(32)
 
     @JvmStatic
     fun getQuery(
             preferences: QueryPreferences,
             filter: Filter,
+    ): MutableList<String> = getQuery(preferences, filter, PermaSql::replacePlaceholdersForQuery)
+
+    /**
+     * Same statements as [getQuery], with PermaSql placeholders bound as arguments at execution
+     * time. The SQL text only depends on the filter and sort preferences, so it is cached here and
+     * SQLite can reuse its prepared statements across refreshes.
+     */
+    @JvmStatic
+    fun getCompiledQuery(
+            preferences: QueryPreferences,
+            filter: Filter,
+    ): List<RoomRawQuery> {
+        val key = cacheKey(preferences, filter)
+        return compiledQueries.get(key)
+            ?: getQuery(preferences, filter) { it }
+                .map { compile(it) }
+                .also { compiledQueries.put(key, it) }
+    }
+
+    private fun getQuery(
+            preferences: QueryPreferences,
+            filter: Filter,
+            placeholders: (String) -> String,
     ): MutableList<String> = when {
         filter.supportsManualSort() && preferences.isManualSort ->
-            getRecursiveQuery(filter, preferences)
+            getRecursiveQuery(filter, preferences, placeholders)
         filter is AstridOrderingFilter && preferences.isAstridSort ->
-            getNonRecursiveQuery(filter, preferences)
+            getNonRecursiveQuery(filter, preferences, placeholders)
         filter.supportsSorting() ->
-            getRecursiveQuery(filter, preferences)
-        else -> getNonRecursiveQuery(filter, preferences)
+            getRecursiveQuery(filter, preferences, placeholders)
+        else -> getNonRecursiveQuery(filter, preferences, placeholders)
+    }
+
+    private fun getRecursiveQuery(
+            filter: Filter,
+            preferences: QueryPreferences,
+            placeholders: (String) -> String,
+    ) = when (filter) {
+        is CaldavFilter -> TaskListQueryRecursive
+            .getRecursiveListQuery(filter.uuid, SortHelper.SORT_CALDAV, preferences)
+        is GtasksFilter -> TaskListQueryRecursive
+            .getRecursiveListQuery(filter.list.uuid!!, SortHelper.SORT_GTASKS, preferences)
+        else -> TaskListQueryRecursive
+            .getRecursiveQuery(placeholders(filter.sql!!), preferences)
     }
-}
\ No newline at end of file
+
+    private fun getNonRecursiveQuery(
+            filter: Filter,
+            preferences: QueryPreferences,
+            placeholders: (String) -> String,
+    ) =
+        TaskListQueryNonRecursive.getNonRecursiveQuery(
+            filterSql = placeholders(
+                if (filter is AstridOrderingFilter) filter.getSqlQuery() else filter.sql!!
+            ),
+            preferences = preferences,
+            preserveOrder = filter is RecentlyModifiedFilter,
+        )
+
+    private fun compile(template: String): RoomRawQuery {
+        val placeholders = ArrayList<String>()
+        val sql = PermaSql.replacePlaceholdersForBinding(template, placeholders)
+        return if (placeholders.isEmpty()) {
+            RoomRawQuery(sql)
+        } else {
+            RoomRawQuery(sql) { statement ->
+                placeholders.forEachIndexed { index, placeholder ->
+                    statement.bindLong(index + 1, PermaSql.getValue(placeholder))
+                }
+            }
+        }
+    }
+
+    private fun cacheKey(preferences: QueryPreferences, filter: Filter): List<Any?> = listOf(
+        filter.javaClass,
+        filter.sql,
+        (filter as? AstridOrderingFilter)?.getSqlQuery(),
+        (filter as? CaldavFilter)?.uuid,
+        (filter as? GtasksFilter)?.list?.uuid,
+        filter.supportsManualSort(),
+        filter.supportsSorting(),
+        preferences.sortMode,
+        preferences.groupMode,
+        preferences.completedMode,
+        preferences.subtaskMode,
+        preferences.isManualSort,
+        preferences.isAstridSort,
+        preferences.sortAscending,
+        preferences.groupAscending,
+        preferences.completedAscending,
+        preferences.subtaskAscending,
+        preferences.showHidden,
+        preferences.showCompleted,
+        preferences.completedTasksAtBottom,
+    )
+}
@@ -0,0 +1,194 @@
+package org.tasks.db
+
+import android.database.Cursor
+import android.database.CursorWrapper
+import android.os.CancellationSignal
+import android.os.Looper
+import android.os.SystemClock
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.sqlite.db.SupportSQLiteOpenHelper
+import androidx.sqlite.db.SupportSQLiteProgram
+import androidx.sqlite.db.SupportSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteStatement
+import timber.log.Timber
+import java.util.concurrent.Executors
+
+/**
+ * Wraps another open helper factory and records every query and statement in [QueryStats].
+ * Cursors are recorded when they are closed, since SQLite does the actual work while they are
+ * read, and count the rows that were read. Query plans for slow queries are captured on a
+ * background thread.
+ */
+class InstrumentedOpenHelperFactory(
+    private val delegate: SupportSQLiteOpenHelper.Factory,
+    private val stats: QueryStats,
+) : SupportSQLiteOpenHelper.Factory {
+    private val explainExecutor = Executors.newSingleThreadExecutor()
+
+    override fun create(
+        configuration: SupportSQLiteOpenHelper.Configuration
+    ): SupportSQLiteOpenHelper = OpenHelper(delegate.create(configuration))
+
+    private inner class OpenHelper(
+        private val helper: SupportSQLiteOpenHelper,
+    ) : SupportSQLiteOpenHelper by helper {
+        private var database: InstrumentedDatabase? = null
+
+        override val writableDatabase: SupportSQLiteDatabase
+            get() = wrap(helper.writableDatabase)
+
+        override val readableDatabase: SupportSQLiteDatabase
+            get() = wrap(helper.readableDatabase)
+
+        @Synchronized
+        private fun wrap(db: SupportSQLiteDatabase): SupportSQLiteDatabase =
+            database?.takeIf { it.db === db } ?: InstrumentedDatabase(db).also { database = it }
+    }
+
+    private inner class InstrumentedDatabase(
+        val db: SupportSQLiteDatabase,
+    ) : SupportSQLiteDatabase by db {
+
+        override fun query(query: String): Cursor =
+            query(SimpleSQLiteQuery(query))
+
+        override fun query(query: String, bindArgs: Array<out Any?>): Cursor =
+            query(SimpleSQLiteQuery(query, bindArgs))
+
+        override fun query(query: SupportSQLiteQuery): Cursor =
+            measure(query) { db.query(query) }
+
+        override fun query(
+            query: SupportSQLiteQuery,
+            cancellationSignal: CancellationSignal?
+        ): Cursor = measure(query) { db.query(query, cancellationSignal) }
+
+        override fun execSQL(sql: String) =
+            measure(sql, { 0 }) { db.execSQL(sql) }
+
+        override fun execSQL(sql: String, bindArgs: Array<out Any?>) =
+            measure(sql, { 0 }) { db.execSQL(sql, bindArgs) }
+
+        override fun compileStatement(sql: String): SupportSQLiteStatement =
+            InstrumentedStatement(db.compileStatement(sql), sql)
+
+        private fun measure(query: SupportSQLiteQuery, block: () -> Cursor): Cursor {
+            val start = SystemClock.elapsedRealtime()
+            return MeasuredCursor(
+                cursor = block(),
+                query = query,
+                start = start,
+                mainThread = Looper.getMainLooper().isCurrentThread,
+            )
+        }
+
+        private fun <T> measure(sql: String, rows: (T) -> Int, block: () -> T): T {
+            val start = SystemClock.elapsedRealtime()
+            val result = block()
+            record(sql, start, rows(result))
+            return result
+        }
+
+        private fun record(
+            sql: String,
+            start: Long,
+            rows: Int,
+            mainThread: Boolean = Looper.getMainLooper().isCurrentThread,
+        ) = stats.record(
+            sql = sql,
+            millis = SystemClock.elapsedRealtime() - start,
+            rows = rows,
+            mainThread = mainThread,
+        )
+
+        private fun explain(sql: String, args: Array<Any?>) {
+            explainExecutor.execute {
+                val plan = try {
+                    db.query("EXPLAIN QUERY PLAN $sql", args).use { cursor ->
+                        buildList {
+                            while (cursor.moveToNext()) {
+                                add(cursor.getString(3))
+                            }
+                        }
+                    }
+                } catch (e: Exception) {
+                    Timber.e(e)
+                    emptyList()
+                }
+                stats.setPlan(sql, plan)
+            }
+        }
+
+        private inner class MeasuredCursor(
+            cursor: Cursor,
+            query: SupportSQLiteQuery,
+            private val start: Long,
+            private val mainThread: Boolean,
+        ) : CursorWrapper(cursor) {
+            // Room may reuse its query objects once the cursor is returned, so keep a copy
+            private val sql = query.sql
+            private val args = BindArgs(query.argCount).also { query.bindTo(it) }
+            private var recorded = false
+
+            override fun close() {
+                if (!recorded) {
+                    recorded = true
+                    val rows = when {
+                        position < 0 -> 0
+                        isAfterLast -> position
+                        else -> position + 1
+                    }
+                    if (record(sql, start, rows, mainThread)) {
+                        explain(sql, args.values)
+                    }
+                }
+                super.close()
+            }
+        }
+
+        private inner class InstrumentedStatement(
+            private val statement: SupportSQLiteStatement,
+            private val sql: String,
+        ) : SupportSQLiteStatement by statement {
+            override fun execute() =
+                measure(sql, { 0 }) { statement.execute() }
+
+            override fun executeUpdateDelete(): Int =
+                measure(sql, { it }) { statement.executeUpdateDelete() }
+
+            override fun executeInsert(): Long =
+                measure(sql, { if (it >= 0) 1 else 0 }) { statement.executeInsert() }
+
+            override fun simpleQueryForLong(): Long =
+                measure(sql, { 1 }) { statement.simpleQueryForLong() }
+
+            override fun simpleQueryForString(): String? =
+                measure(sql, { 1 }) { statement.simpleQueryForString() }
+        }
+    }
+
+    private class BindArgs(count: Int) : SupportSQLiteProgram {
+        val values = arrayOfNulls<Any?>(count)
+
+        override fun bindNull(index: Int) = set(index, null)
+
+        override fun bindLong(index: Int, value: Long) = set(index, value)
+
+        override fun bindDouble(index: Int, value: Double) = set(index, value)
+
+        override fun bindString(index: Int, value: String) = set(index, value)
+
+        override fun bindBlob(index: Int, value: ByteArray) = set(index, value)
+
+        override fun clearBindings() = values.fill(null)
+
+        override fun close() {}
+
+        private fun set(index: Int, value: Any?) {
+            if (index in 1..values.size) {
+                values[index - 1] = value
+            }
+        }
+    }
+}
@@ -622,6 +622,28 @@ object Migrations {
         }
     }
 
+    private val MIGRATION_88_89 = object : Migration(88, 89) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_parent` ON `tasks` (`parent`)")
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_caldav_tasks_cd_calendar_cd_object` ON `caldav_tasks` (`cd_calendar`, `cd_object`)")
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_caldav_tasks_cd_calendar_cd_remote_id` ON `caldav_tasks` (`cd_calendar`, `cd_remote_id`)")
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_alarms_type` ON `alarms` (`type`)")
+        }
+    }
+
+    private val MIGRATION_89_90 = object : Migration(89, 90) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            // serialized trees in task_list_metadata.task_ids are converted when a list is loaded
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_list_order` (`tlo_list` INTEGER NOT NULL, `tlo_task` TEXT NOT NULL, `tlo_parent` TEXT, `tlo_order` INTEGER NOT NULL, PRIMARY KEY(`tlo_list`, `tlo_task`), FOREIGN KEY(`tlo_list`) REFERENCES `task_list_metadata`(`_id`) ON UPDATE NO ACTION ON DELETE CASCADE )")
+        }
+    }
+
+    private val MIGRATION_90_91 = object : Migration(90, 91) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `file_purge` (`fp_id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `fp_uri` TEXT NOT NULL)")
+        }
+    }
+
     fun migrations(
         context: Context,
         fileStorage: FileStorage
@@ -669,6 +691,9 @@ object Migrations {
             MIGRATION_85_86,
             MIGRATION_86_87,
             migration_87_88(context),
+            MIGRATION_88_89,
+            MIGRATION_89_90,
+            MIGRATION_90_91,
     )
 
     private fun noop(from: Int, to: Int): Migration = object : Migration(from, to) {
@@ -0,0 +1,126 @@
+package org.tasks.db
+
+import android.util.LruCache
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Latency, row counts and main thread usage for every statement run against the database,
+ * grouped by query shape (the SQL with literals and IN lists collapsed). Statements slower than
+ * [SLOW_QUERY] ms keep the query plan of their first slow run.
+ */
+@Singleton
+class QueryStats @Inject constructor() {
+
+    data class Summary(
+        val shape: String,
+        val count: Int,
+        val totalMillis: Long,
+        val maxMillis: Long,
+        val rows: Long,
+        val mainThread: Int,
+        val histogram: List<Int>,
+        val plan: List<String>?,
+    ) {
+        val averageMillis: Long
+            get() = if (count == 0) 0 else totalMillis / count
+    }
+
+    private class Stats {
+        var count = 0
+        var totalMillis = 0L
+        var maxMillis = 0L
+        var rows = 0L
+        var mainThread = 0
+        val histogram = IntArray(BUCKETS.size + 1)
+        var plan: List<String>? = null
+    }
+
+    private val stats = HashMap<String, Stats>()
+    private val shapes = LruCache<String, String>(256)
+
+    /** @return true if this query was slow and no plan has been captured for its shape yet */
+    fun record(sql: String, millis: Long, rows: Int, mainThread: Boolean): Boolean =
+        record(getShape(sql), millis, rows.toLong(), mainThread)
+
+    @Synchronized
+    private fun record(shape: String, millis: Long, rows: Long, mainThread: Boolean): Boolean {
+        val entry = stats[shape]
+            ?: Stats().takeIf { stats.size < MAX_SHAPES }?.also { stats[shape] = it }
+            ?: return false
+        entry.count++
+        entry.totalMillis += millis
+        entry.maxMillis = maxOf(entry.maxMillis, millis)
+        entry.rows += rows
+        if (mainThread) {
+            entry.mainThread++
+        }
+        entry.histogram[BUCKETS.indexOfFirst { millis <= it }.takeIf { it >= 0 } ?: BUCKETS.size]++
+        return millis >= SLOW_QUERY && entry.plan == null
+    }
+
+    fun setPlan(sql: String, plan: List<String>) {
+        val shape = getShape(sql)
+        synchronized(this) {
+            stats[shape]?.plan = plan
+        }
+    }
+
+    private fun getShape(sql: String): String =
+        shapes.get(sql) ?: shape(sql).also { shapes.put(sql, it) }
+
+    /** @return the shapes that spent the most time in the database */
+    @Synchronized
+    fun worst(limit: Int = 25): List<Summary> =
+        stats
+            .entries
+            .sortedByDescending { it.value.totalMillis }
+            .take(limit)
+            .map { (shape, stats) ->
+                Summary(
+                    shape = shape,
+                    count = stats.count,
+                    totalMillis = stats.totalMillis,
+                    maxMillis = stats.maxMillis,
+                    rows = stats.rows,
+                    mainThread = stats.mainThread,
+                    histogram = stats.histogram.toList(),
+                    plan = stats.plan,
+                )
+            }
+
+    @Synchronized
+    fun reset() = stats.clear()
+
+    fun export(limit: Int = 100): String = buildString {
+        append("buckets (ms): ")
+        appendLine((BUCKETS.map { "<=$it" } + ">${BUCKETS.last()}").joinToString(" "))
+        worst(limit).forEach {
+            appendLine()
+            appendLine(it.shape)
+            appendLine(
+                "count=${it.count} total=${it.totalMillis}ms avg=${it.averageMillis}ms " +
+                        "max=${it.maxMillis}ms rows=${it.rows} main=${it.mainThread}"
+            )
+            appendLine("histogram=${it.histogram.joinToString(" ")}")
+            it.plan?.forEach { step -> appendLine("plan: $step") }
+        }
+    }
+
+    companion object {
+        const val SLOW_QUERY = 50L
+        private const val MAX_SHAPES = 500
+        private val BUCKETS = longArrayOf(1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024)
+        private val STRING = Regex("""'(?:[^']|'')*'""")
+        private val NUMBER = Regex("""\b\d+(?:\.\d+)?\b""")
+        private val IN_LIST = Regex("""\(\s*\?(?:\s*,\s*\?)*\s*\)""")
+        private val WHITESPACE = Regex("""\s+""")
+
+        fun shape(sql: String): String = sql
+            .replace(STRING, "?")
+            .replace(NUMBER, "?")
+            .replace(IN_LIST, "(?)")
+            .replace(WHITESPACE, " ")
+            .trim()
+    }
+}
@@ -258,32 +258,34 @@ class DateTimePicker : BaseDateTimePicker() {
                 targetFragment?.onActivityResult(targetRequestCode, RESULT_OK, intent)
             } else {
                 lifecycleScope.launch(NonCancellable) {
-                    taskDao
-                            .fetch(taskIds.toList())
-                            .forEach {
-                                val day = if (selectedDay == MULTIPLE_DAYS) {
-                                    if (it.hasDueDate()) it.dueDate else today.millis
-                                } else {
-                                    selectedDay
+                    val originals = taskDao.fetch(taskIds.toList())
+                    originals
+                            .map { original ->
+                                original.copy().also {
+                                    val day = if (selectedDay == MULTIPLE_DAYS) {
+                                        if (it.hasDueDate()) it.dueDate else today.millis
+                                    } else {
+                                        selectedDay
+                                    }
+                                    val time = if (selectedTime == MULTIPLE_TIMES) {
+                                        if (it.hasDueTime()) it.dueDate.millisOfDay() else NO_TIME
+                                    } else {
+                                        selectedTime
+                                    }
+                                    it.setDueDateAdjustingHideUntil(when {
+                                        day == NO_DAY -> 0L
+                                        time == NO_TIME -> createDueDate(
+                                                Task.URGENCY_SPECIFIC_DAY,
+                                                day
+                                        )
+                                        else -> createDueDate(
+                                                Task.URGENCY_SPECIFIC_DAY_TIME,
+                                                day.toDateTime().withMillisOfDay(time).millis
+                                        )
+                                    })
                                 }
-                                val time = if (selectedTime == MULTIPLE_TIMES) {
-                                    if (it.hasDueTime()) it.dueDate.millisOfDay() else NO_TIME
-                                } else {
-                                    selectedTime
-                                }
-                                it.setDueDateAdjustingHideUntil(when {
-                                    day == NO_DAY -> 0L
-                                    time == NO_TIME -> createDueDate(
-                                            Task.URGENCY_SPECIFIC_DAY,
-                                            day
-                                    )
-                                    else -> createDueDate(
-                                            Task.URGENCY_SPECIFIC_DAY_TIME,
-                                            day.toDateTime().withMillisOfDay(time).millis
-                                    )
-                                })
-                                taskDao.save(it)
                             }
+                            .let { taskDao.save(it, originals) }
                 }
             }
         }
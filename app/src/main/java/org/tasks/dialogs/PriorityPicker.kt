@@ -66,11 +66,11 @@ class PriorityPicker : DialogFragment() {
 
     private fun changePriority() {
         lifecycleScope.launch(NonCancellable) {
-            taskDao
-                .fetch(taskIds.toList())
-                .forEach {
-                    taskDao.save(it.copy(priority = priorityPickerViewModel.priority.value))
-                }
+            val originals = taskDao.fetch(taskIds.toList())
+            taskDao.save(
+                originals.map { it.copy(priority = priorityPickerViewModel.priority.value) },
+                originals,
+            )
         }
         dismiss()
     }
@@ -1,21 +1,32 @@
 package org.tasks.drive
 
 import android.content.Context
+import android.content.res.AssetFileDescriptor
 import android.net.Uri
-import com.google.api.client.http.InputStreamContent
+import com.google.api.client.http.ByteArrayContent
+import com.google.api.client.http.EmptyContent
+import com.google.api.client.http.GenericUrl
+import com.google.api.client.http.HttpContent
+import com.google.api.client.http.HttpResponseException
+import com.google.api.client.http.HttpStatusCodes
+import com.google.api.client.http.json.JsonHttpContent
 import com.google.api.client.http.javanet.NetHttpTransport
 import com.google.api.client.json.gson.GsonFactory
 import com.google.api.services.drive.Drive
 import com.google.api.services.drive.model.File
+import com.google.common.io.ByteStreams
 import com.todoroo.astrid.gtasks.api.HttpCredentialsAdapter
 import com.todoroo.astrid.gtasks.api.HttpNotFoundException
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
 import org.tasks.DebugNetworkInterceptor
 import org.tasks.backup.BackupConstants
 import org.tasks.files.FileHelper
 import org.tasks.googleapis.BaseInvoker
 import org.tasks.preferences.Preferences
 import java.io.IOException
+import java.io.InputStream
 
 class DriveInvoker(
         @param:ApplicationContext private val context: Context,
@@ -54,7 +65,8 @@ class DriveInvoker(
                         .list()
                         .setQ(query)
                         .setSpaces("drive")
-                        .setFields("files(id, name, modifiedTime)"))
+                        .setPageSize(MAX_PAGE_SIZE)
+                        .setFields("files(id, name, modifiedTime, appProperties)"))
                 ?.files
                 ?.filter { BackupConstants.isBackupFile(it.name) }
                 ?.sortedWith(DRIVE_FILE_COMPARATOR)
@@ -68,18 +80,130 @@ class DriveInvoker(
     }
 
     @Throws(IOException::class)
-    suspend fun createFile(folderId: String, uri: Uri?): File? {
-        val mime = FileHelper.getMimeType(context, uri!!)
+    suspend fun rename(file: File, name: String): File? =
+        execute(service.files().update(file.id, File().setName(name)).setFields(FILE_FIELDS))
+
+    /**
+     * Starts a resumable upload of [uri] into [folderId] and returns the session uri. The session
+     * stays valid for about a week, so an interrupted upload can be continued with [upload].
+     */
+    @Throws(IOException::class)
+    suspend fun startUpload(folderId: String, uri: Uri, contentHash: String?): String {
+        val mime = FileHelper.getMimeType(context, uri)
         val metadata = File()
                 .setParents(listOf(folderId))
                 .setMimeType(mime)
                 .setName(FileHelper.getFilename(context, uri))
-        val content = InputStreamContent(mime, context.contentResolver.openInputStream(uri))
-        return execute(service.files().create(metadata, content))
+                .setAppProperties(contentHash?.let { mapOf(PROPERTY_CONTENT_HASH to it) })
+        val length = getLength(uri)
+        val response = execute {
+            service.requestFactory
+                    .buildPostRequest(GenericUrl(UPLOAD_URL), JsonHttpContent(service.jsonFactory, metadata))
+                    .apply {
+                        mime?.let { headers["X-Upload-Content-Type"] = it }
+                        headers["X-Upload-Content-Length"] = length
+                    }
+        }
+        try {
+            if (!response.isSuccessStatusCode) {
+                throw HttpResponseException(response)
+            }
+            return response.headers.location ?: throw IOException("Missing upload session")
+        } finally {
+            response.disconnect()
+        }
+    }
+
+    /**
+     * Sends [uri] to an upload [session] in chunks, starting after the last byte the server has
+     * acknowledged. Returns null if the session has expired and the upload must be restarted.
+     */
+    @Throws(IOException::class)
+    suspend fun upload(session: String, uri: Uri): File? = withContext(Dispatchers.IO) {
+        upload(session, uri, getLength(uri))
+    }
+
+    @Throws(IOException::class)
+    private suspend fun upload(session: String, uri: Uri, length: Long): File? {
+        val status = put(session, EmptyContent(), "bytes */$length")
+        status.file?.let { return it }
+        var offset = status.offset ?: return null
+        var input = open(uri, offset)
+        try {
+            while (true) {
+                val chunk = input.readChunk()
+                val range = if (chunk.isEmpty()) {
+                    "bytes */$length"
+                } else {
+                    "bytes $offset-${offset + chunk.size - 1}/$length"
+                }
+                val result = put(session, ByteArrayContent(null, chunk), range)
+                result.file?.let { return it }
+                if (chunk.isEmpty()) {
+                    throw IOException("Upload incomplete after sending $length bytes")
+                }
+                val acknowledged = result.offset ?: return null
+                if (acknowledged != offset + chunk.size) {
+                    input.close()
+                    input = open(uri, acknowledged)
+                }
+                offset = acknowledged
+            }
+        } finally {
+            input.close()
+        }
+    }
+
+    private class UploadStatus(val file: File? = null, val offset: Long? = null)
+
+    @Throws(IOException::class)
+    private suspend fun put(session: String, content: HttpContent, range: String): UploadStatus {
+        val response = execute {
+            service.requestFactory
+                    .buildPutRequest(GenericUrl(session), content)
+                    .setParser(service.objectParser)
+                    .apply { headers.contentRange = range }
+        }
+        try {
+            return when (response.statusCode) {
+                HttpStatusCodes.STATUS_CODE_OK, 201 ->
+                    UploadStatus(file = response.parseAs(File::class.java))
+                STATUS_RESUME_INCOMPLETE ->
+                    UploadStatus(offset = response.headers.range?.substringAfter('-')?.toLong()?.plus(1) ?: 0)
+                HttpStatusCodes.STATUS_CODE_NOT_FOUND, 410 -> UploadStatus()
+                else -> throw HttpResponseException(response)
+            }
+        } finally {
+            response.disconnect()
+        }
+    }
+
+    private fun getLength(uri: Uri): Long =
+        context.contentResolver.openAssetFileDescriptor(uri, "r")
+            ?.use { it.length }
+            ?.takeIf { it != AssetFileDescriptor.UNKNOWN_LENGTH }
+            ?: open(uri, 0).use { ByteStreams.exhaust(it) }
+
+    private fun open(uri: Uri, offset: Long): InputStream =
+        (context.contentResolver.openInputStream(uri) ?: throw IOException("Failed to open $uri"))
+            .apply { ByteStreams.skipFully(this, offset) }
+
+    private fun InputStream.readChunk(): ByteArray {
+        val buffer = ByteArray(CHUNK_SIZE)
+        val read = ByteStreams.read(this, buffer, 0, buffer.size)
+        return if (read == buffer.size) buffer else buffer.copyOf(read)
     }
 
     companion object {
+        const val PROPERTY_CONTENT_HASH = "contentHash"
         private const val MIME_FOLDER = "application/vnd.google-apps.folder"
+        private const val FILE_FIELDS = "id, name, modifiedTime, appProperties"
+        private const val UPLOAD_URL =
+            "https://www.googleapis.com/upload/drive/v3/files?uploadType=resumable&fields=id,name,modifiedTime,appProperties"
+        private const val STATUS_RESUME_INCOMPLETE = 308
+        private const val MAX_PAGE_SIZE = 1000
+        // must be a multiple of 256 KiB
+        private const val CHUNK_SIZE = 8 * 256 * 1024
         private val DRIVE_FILE_COMPARATOR = Comparator<File> { f1, f2 ->
             BackupConstants.getTimestamp(f2)!!.compareTo(BackupConstants.getTimestamp(f1)!!)
         }
@@ -6,7 +6,14 @@ import com.etebase.client.Collection
 import com.etebase.client.FetchOptions
 import com.etebase.client.Item
 import com.etebase.client.ItemMetadata
+import com.etebase.client.exceptions.ConnectionException
+import com.etebase.client.exceptions.EtebaseException
+import com.etebase.client.exceptions.TemporaryServerErrorException
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.withContext
 import org.tasks.data.entity.CaldavCalendar
 import org.tasks.data.dao.CaldavDao
@@ -46,20 +53,27 @@ class EtebaseClient(
         return cache.collectionList(collectionManager)
     }
 
+    /**
+     * Pages through the collection, downloading and decrypting the next page while [callback] is
+     * still applying the previous one.
+     */
     suspend fun fetchItems(
         collection: Collection,
         calendar: CaldavCalendar,
-        callback: suspend (Pair<String?, List<Item>>) -> Unit
+        callback: suspend (String?, List<Pair<Item, String>>) -> Unit
     ) {
         val itemManager = etebase.collectionManager.getItemManager(collection)
-        var stoken = calendar.ctag
-        do {
-            val items = withContext(Dispatchers.IO) {
-                itemManager.list(FetchOptions().stoken(stoken).limit(MAX_FETCH))
-            }
-            stoken = items.stoken
-            callback(Pair(stoken, items.data.toList()))
-        } while (!items.isDone)
+        flow {
+            var stoken = calendar.ctag
+            do {
+                val items = itemManager.list(FetchOptions().stoken(stoken).limit(MAX_FETCH))
+                stoken = items.stoken
+                emit(Pair(stoken, items.data.map { it to it.contentString }))
+            } while (!items.isDone)
+        }
+            .buffer(1)
+            .flowOn(Dispatchers.IO)
+            .collect { (stoken, items) -> callback(stoken, items) }
     }
 
     suspend fun updateItem(collection: Collection, task: CaldavTask, content: ByteArray): Item {
@@ -93,13 +107,27 @@ class EtebaseClient(
 
     suspend fun updateCache(collection: Collection, items: List<Item>) {
         val itemManager = etebase.collectionManager.getItemManager(collection)
-        items.forEach { cache.itemSet(itemManager, collection.uid, it) }
+        cache.itemSet(itemManager, collection.uid, items)
     }
 
     suspend fun uploadChanges(collection: Collection, items: List<Item>) {
         val itemManager = etebase.collectionManager.getItemManager(collection)
-        withContext(Dispatchers.IO) {
-            itemManager.batch(items.toTypedArray())
+        var attempt = 1
+        while (true) {
+            try {
+                withContext(Dispatchers.IO) {
+                    itemManager.batch(items.toTypedArray())
+                }
+                return
+            } catch (e: EtebaseException) {
+                if (attempt == MAX_UPLOAD_ATTEMPTS ||
+                    (e !is ConnectionException && e !is TemporaryServerErrorException)) {
+                    throw e
+                }
+                Timber.w(e, "Upload of ${items.size} items failed, attempt $attempt")
+                delay(UPLOAD_BACKOFF_MILLIS shl (attempt - 1))
+                attempt++
+            }
         }
     }
 
@@ -153,6 +181,37 @@ class EtebaseClient(
     companion object {
         private const val TYPE_TASKS = "etebase.vtodo"
         private const val MAX_FETCH = 30L
+        private const val MAX_UPLOAD_ITEMS = 50
+        private const val MAX_UPLOAD_BYTES = 256 * 1024
+        // rough allowance for metadata and encryption overhead on top of the content
+        private const val ITEM_OVERHEAD_BYTES = 512
+        private const val MAX_UPLOAD_ATTEMPTS = 4
+        private const val UPLOAD_BACKOFF_MILLIS = 2_000L
+
+        /**
+         * Splits pending changes into upload batches that stay below [MAX_UPLOAD_BYTES] and
+         * [MAX_UPLOAD_ITEMS], so that a single failure only loses one batch
+         */
+        fun chunkBySize(items: List<Item>): List<List<Item>> {
+            val chunks = ArrayList<List<Item>>()
+            var chunk = ArrayList<Item>()
+            var bytes = 0
+            items.forEach { item ->
+                val size = item.content.size + ITEM_OVERHEAD_BYTES
+                if (chunk.isNotEmpty() &&
+                    (bytes + size > MAX_UPLOAD_BYTES || chunk.size == MAX_UPLOAD_ITEMS)) {
+                    chunks.add(chunk)
+                    chunk = ArrayList()
+                    bytes = 0
+                }
+                chunk.add(item)
+                bytes += size
+            }
+            if (chunk.isNotEmpty()) {
+                chunks.add(chunk)
+            }
+            return chunks
+        }
 
         private fun Int.toHexColor(): String? = takeIf { this != 0 }?.let {
             java.lang.String.format("#%06X", 0xFFFFFF and it)
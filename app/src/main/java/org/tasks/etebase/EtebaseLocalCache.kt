@@ -73,16 +73,18 @@ class EtebaseLocalCache private constructor(context: Context, username: String)
         }
     }
 
-    suspend fun itemSet(itemMgr: ItemManager, colUid: String, item: Item) {
+    suspend fun itemSet(itemMgr: ItemManager, colUid: String, items: List<Item>) {
         withContext(Dispatchers.IO) {
-            if (item.isDeleted) {
-                try {
-                    fsCache.itemUnset(itemMgr, colUid, item.uid)
-                } catch (e: UrlParseException) {
-                    // Ignore, as it just means the file doesn't exist
+            items.forEach { item ->
+                if (item.isDeleted) {
+                    try {
+                        fsCache.itemUnset(itemMgr, colUid, item.uid)
+                    } catch (e: UrlParseException) {
+                        // Ignore, as it just means the file doesn't exist
+                    }
+                } else {
+                    fsCache.itemSet(itemMgr, colUid, item)
                 }
-            } else {
-                fsCache.itemSet(itemMgr, colUid, item)
             }
         }
     }
@@ -2,6 +2,7 @@ package org.tasks.etebase
 
 import android.content.Context
 import android.graphics.Color
+import androidx.room.withTransaction
 import at.bitfire.ical4android.ICalendar.Companion.prodId
 import com.etebase.client.Collection
 import com.etebase.client.Item
@@ -25,6 +26,8 @@ import org.tasks.caldav.iCalendar.Companion.fromVtodo
 import org.tasks.data.entity.CaldavAccount
 import org.tasks.data.entity.CaldavCalendar
 import org.tasks.data.dao.CaldavDao
+import org.tasks.data.db.Database
+import org.tasks.events.ChangeEvent
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
 import timber.log.Timber
 import javax.inject.Inject
@@ -38,6 +41,7 @@ class EtebaseSynchronizer @Inject constructor(
     private val clientProvider: EtebaseClientProvider,
     private val iCal: iCalendar,
     private val vtodoCache: VtodoCache,
+    private val database: Database,
 ) {
     companion object {
         init {
@@ -128,14 +132,24 @@ class EtebaseSynchronizer @Inject constructor(
             return
         }
         Timber.d("updating $caldavCalendar")
-        client.fetchItems(collection, caldavCalendar) { (stoken, items) ->
-            applyEntries(account, caldavCalendar, items, stoken)
-            client.updateCache(collection, items)
+        client.fetchItems(collection, caldavCalendar) { stoken, items ->
+            val vtodos = vtodoCache.deferred(caldavCalendar)
+            val deleted = database.withTransaction {
+                applyEntries(account, caldavCalendar, items, vtodos)
+            }
+            afterApply(vtodos, deleted)
+            client.updateCache(collection, items.map { it.first })
+            // only checkpoint once the page is in both the database and the item cache, so an
+            // interrupted sync resumes from here instead of starting over
+            stoken?.let {
+                caldavCalendar.ctag = it
+                caldavDao.update(caldavCalendar)
+            }
         }
         Timber.d("UPDATE %s", caldavCalendar)
         caldavDao.update(caldavCalendar)
         caldavDao.updateParents(caldavCalendar.uuid!!)
-        localBroadcastManager.broadcastRefresh()
+        localBroadcastManager.broadcastRefresh(ChangeEvent.listSynced(caldavCalendar.uuid!!))
     }
 
     private suspend fun pushLocalChanges(
@@ -171,48 +185,74 @@ class EtebaseSynchronizer @Inject constructor(
                 )
             }
         }
-        if (changes.isNotEmpty()) {
-            client.uploadChanges(collection, changes)
-            applyEntries(account, caldavCalendar, changes, isLocalChange = true)
-            client.updateCache(collection, changes)
+        EtebaseClient.chunkBySize(changes).forEach { chunk ->
+            client.uploadChanges(collection, chunk)
+            val vtodos = vtodoCache.deferred(caldavCalendar)
+            val deleted = applyEntries(
+                account,
+                caldavCalendar,
+                chunk.map { it to it.contentString },
+                vtodos,
+                isLocalChange = true
+            )
+            afterApply(vtodos, deleted)
+            client.updateCache(collection, chunk)
         }
     }
 
+    /**
+     * Saves [items] to the database. File changes are collected in [vtodos] and the tasks that
+     * were deleted remotely are returned, pass both to [afterApply] once the transaction commits.
+     */
     private suspend fun applyEntries(
         account: CaldavAccount,
         caldavCalendar: CaldavCalendar,
-        items: List<Item>,
-        stoken: String? = null,
+        items: List<Pair<Item, String>>,
+        vtodos: VtodoCache.Deferred,
         isLocalChange: Boolean = false
-    ) {
-        for (item in items) {
-            val vtodo = item.contentString
-            val task = fromVtodo(vtodo) ?: continue
-            val remoteId = task.uid
-            val caldavTask = caldavDao.getTaskByRemoteId(caldavCalendar.uuid!!, remoteId!!)
+    ): List<Long> {
+        val entries = items.mapNotNull { (item, vtodo) ->
+            fromVtodo(vtodo)?.let { Triple(item, vtodo, it) }
+        }
+        val existing = caldavDao
+            .getCaldavTasksByRemoteId(caldavCalendar.uuid!!, entries.map { it.third.uid!! })
+            .associateBy { it.remoteId }
+        val applied = HashSet<String>()
+        val deleted = ArrayList<Long>()
+        for ((item, vtodo, task) in entries) {
+            val remoteId = task.uid!!
+            val caldavTask = if (applied.add(remoteId)) {
+                existing[remoteId]
+            } else {
+                caldavDao.getTaskByRemoteId(caldavCalendar.uuid!!, remoteId)
+            }
             if (item.isDeleted) {
                 if (caldavTask != null) {
                     if (caldavTask.isDeleted()) {
-                        vtodoCache.delete(caldavCalendar, caldavTask)
+                        vtodos.delete(caldavTask)
                         caldavDao.delete(caldavTask)
                     } else {
-                        taskDeleter.delete(caldavTask.task)
+                        deleted.add(caldavTask.task)
                     }
                 }
             } else if (isLocalChange) {
                 caldavTask?.let {
-                    vtodoCache.putVtodo(caldavCalendar, it, vtodo)
+                    vtodos.putVtodo(it, vtodo)
                     it.lastSync = item.meta.mtime ?: currentTimeMillis()
                     caldavDao.update(it)
                 }
             } else {
                 caldavTask?.obj = item.uid
-                iCal.fromVtodo(account, caldavCalendar, caldavTask, task, vtodo, item.uid, null)
+                iCal.fromVtodo(account, caldavCalendar, caldavTask, task, vtodo, item.uid, null, vtodos)
             }
         }
-        stoken?.let {
-            caldavCalendar.ctag = it
-            caldavDao.update(caldavCalendar)
+        return deleted
+    }
+
+    private suspend fun afterApply(vtodos: VtodoCache.Deferred, deleted: List<Long>) {
+        vtodos.write()
+        if (deleted.isNotEmpty()) {
+            taskDeleter.delete(deleted.distinct())
         }
     }
-}
\ No newline at end of file
+}
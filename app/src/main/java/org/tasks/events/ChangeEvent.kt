@@ -0,0 +1,73 @@
+package org.tasks.events
+
+import android.content.Intent
+
+/**
+ * Describes what changed since the last refresh. An event without tasks or lists is unscoped and
+ * any view may be stale.
+ */
+data class ChangeEvent(
+    val kinds: Set<Kind> = emptySet(),
+    val tasks: Set<Long> = emptySet(),
+    val lists: Set<String> = emptySet(),
+) {
+    enum class Kind {
+        REFRESH,
+        TASK_UPDATED,
+        TASK_MOVED,
+        TASK_DELETED,
+        SYNC,
+    }
+
+    val isUnscoped: Boolean
+        get() = kinds.contains(Kind.REFRESH) || (tasks.isEmpty() && lists.isEmpty())
+
+    fun affectsTask(id: Long) = isUnscoped || tasks.contains(id)
+
+    fun affectsList(uuid: String) = isUnscoped || lists.contains(uuid)
+
+    operator fun plus(other: ChangeEvent) = ChangeEvent(
+        kinds = kinds + other.kinds,
+        tasks = tasks + other.tasks,
+        lists = lists + other.lists,
+    )
+
+    fun writeTo(intent: Intent): Intent = intent
+        .putExtra(EXTRA_KINDS, kinds.map { it.name }.toTypedArray())
+        .putExtra(EXTRA_TASKS, tasks.toLongArray())
+        .putExtra(EXTRA_LISTS, lists.toTypedArray())
+
+    companion object {
+        private const val EXTRA_KINDS = "extra_change_kinds"
+        private const val EXTRA_TASKS = "extra_change_tasks"
+        private const val EXTRA_LISTS = "extra_change_lists"
+
+        val REFRESH = ChangeEvent(kinds = setOf(Kind.REFRESH))
+
+        fun taskUpdated(id: Long) = tasksUpdated(setOf(id))
+
+        fun tasksUpdated(ids: Collection<Long>) =
+            ChangeEvent(setOf(Kind.TASK_UPDATED), tasks = ids.toSet())
+
+        fun tasksMoved(ids: Collection<Long>, list: String?) = ChangeEvent(
+            kinds = setOf(Kind.TASK_MOVED),
+            tasks = ids.toSet(),
+            lists = setOfNotNull(list),
+        )
+
+        fun tasksDeleted(ids: Collection<Long>) =
+            ChangeEvent(setOf(Kind.TASK_DELETED), tasks = ids.toSet())
+
+        fun listSynced(uuid: String) = ChangeEvent(setOf(Kind.SYNC), lists = setOf(uuid))
+
+        /** @return the change carried by a refresh broadcast, or [REFRESH] if there is none */
+        fun fromIntent(intent: Intent?): ChangeEvent {
+            val kinds = intent?.getStringArrayExtra(EXTRA_KINDS) ?: return REFRESH
+            return ChangeEvent(
+                kinds = kinds.mapTo(HashSet()) { Kind.valueOf(it) },
+                tasks = intent.getLongArrayExtra(EXTRA_TASKS)?.toSet() ?: emptySet(),
+                lists = intent.getStringArrayExtra(EXTRA_LISTS)?.toSet() ?: emptySet(),
+            )
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.tasks.events
+
+import android.content.Context
+import android.content.Intent
+import androidx.localbroadcastmanager.content.LocalBroadcastManager
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.launch
+import org.tasks.LocalBroadcastManager.Companion.REFRESH
+import org.tasks.injection.ApplicationScope
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Merges change events posted in quick succession into a single REFRESH broadcast, then hands
+ * them to [RefreshDispatcher] for the badge, widgets and content providers. Bursts are flushed
+ * after one frame, or every [BATCH_INTERVAL] ms and once at the end while a [batch] (e.g. a sync)
+ * is running.
+ */
+@Singleton
+class ChangeEventBus @Inject constructor(
+    @ApplicationContext context: Context,
+    @ApplicationScope private val scope: CoroutineScope,
+    private val refreshDispatcher: RefreshDispatcher,
+) {
+    private val localBroadcastManager = LocalBroadcastManager.getInstance(context)
+    private val _events = MutableSharedFlow<ChangeEvent>(
+        extraBufferCapacity = 64,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST,
+    )
+    val events: SharedFlow<ChangeEvent> = _events.asSharedFlow()
+
+    private var pending: ChangeEvent? = null
+    private var flushJob: Job? = null
+    private var batches = 0
+
+    @Synchronized
+    fun post(event: ChangeEvent) {
+        pending = pending?.plus(event) ?: event
+        if (flushJob == null) {
+            val delay = if (batches > 0) BATCH_INTERVAL else FRAME
+            flushJob = scope.launch {
+                delay(delay)
+                flush(cancelPending = false)
+            }
+        }
+    }
+
+    suspend fun <T> batch(block: suspend () -> T): T {
+        synchronized(this) { batches++ }
+        try {
+            return block()
+        } finally {
+            val finished = synchronized(this) { --batches == 0 }
+            if (finished) {
+                flush(cancelPending = true)
+            }
+        }
+    }
+
+    private fun flush(cancelPending: Boolean) {
+        val event = synchronized(this) {
+            if (cancelPending) {
+                flushJob?.cancel()
+            }
+            flushJob = null
+            pending.also { pending = null }
+        }
+        event?.let {
+            localBroadcastManager.sendBroadcast(it.writeTo(Intent(REFRESH)))
+            refreshDispatcher.post(it)
+            _events.tryEmit(it)
+        }
+    }
+
+    companion object {
+        private const val FRAME = 16L
+        private const val BATCH_INTERVAL = 1000L
+    }
+}
@@ -0,0 +1,170 @@
+package org.tasks.events
+
+import android.content.Context
+import android.net.Uri
+import com.todoroo.astrid.api.CaldavFilter
+import com.todoroo.astrid.api.Filter
+import com.todoroo.astrid.api.GtasksFilter
+import com.todoroo.astrid.provider.Astrid2TaskProvider
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import org.tasks.R
+import org.tasks.data.count
+import org.tasks.data.dao.CaldavDao
+import org.tasks.data.dao.TaskDao
+import org.tasks.data.db.SuspendDbUtils.chunkedMap
+import org.tasks.injection.ApplicationScope
+import org.tasks.preferences.DefaultFilterProvider
+import org.tasks.preferences.Preferences
+import org.tasks.provider.TasksContentProvider
+import org.tasks.receivers.ShortcutBadger
+import org.tasks.time.DateTimeUtils2.currentTimeMillis
+import org.tasks.widget.AppWidgetManager
+import org.tasks.widget.WidgetPreferences
+import timber.log.Timber
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Updates the launcher badge, content provider observers and widgets after tasks change.
+ *
+ * Events are collected until [WINDOW] ms pass without a new one (or [MAX_WAIT] ms after the
+ * first), then each consumer is refreshed at most once. A badge or widget showing a CalDAV or
+ * Google Tasks list is skipped when the change cannot affect that list. Any other filter is
+ * refreshed on every change.
+ */
+@Singleton
+class RefreshDispatcher @Inject constructor(
+    @ApplicationContext private val context: Context,
+    @ApplicationScope private val scope: CoroutineScope,
+    private val preferences: Preferences,
+    private val defaultFilterProvider: DefaultFilterProvider,
+    private val taskDao: TaskDao,
+    private val caldavDao: CaldavDao,
+    private val appWidgetManager: AppWidgetManager,
+) {
+    private val mutex = Mutex()
+    private var pending: ChangeEvent? = null
+    private val dirtyUris = LinkedHashSet<Uri>()
+    private var firstPost = 0L
+    private var job: Job? = null
+
+    @Synchronized
+    fun post(event: ChangeEvent) {
+        pending = pending?.plus(event) ?: event
+        dirtyUris.addAll(PROVIDER_URIS)
+        val now = currentTimeMillis()
+        if (firstPost == 0L) {
+            firstPost = now
+        }
+        job?.cancel()
+        val wait = minOf(WINDOW, firstPost + MAX_WAIT - now).coerceAtLeast(0)
+        job = scope.launch {
+            delay(wait)
+            val (changes, uris) = take() ?: return@launch
+            withContext(NonCancellable) {
+                mutex.withLock { dispatch(changes, uris) }
+            }
+        }
+    }
+
+    @Synchronized
+    private fun take(): Pair<ChangeEvent, Set<Uri>>? {
+        val event = pending ?: return null
+        val uris = dirtyUris.toSet()
+        pending = null
+        dirtyUris.clear()
+        firstPost = 0L
+        job = null
+        return event to uris
+    }
+
+    private suspend fun dispatch(event: ChangeEvent, uris: Set<Uri>) {
+        val calendars = Calendars(event.tasks)
+        try {
+            updateBadge(event, calendars)
+        } catch (e: Exception) {
+            Timber.e(e)
+        }
+        uris.forEach {
+            try {
+                context.contentResolver.notifyChange(it, null)
+            } catch (e: Exception) {
+                Timber.e(e)
+            }
+        }
+        try {
+            updateWidgets(event, calendars)
+        } catch (e: Exception) {
+            Timber.e(e)
+        }
+    }
+
+    private suspend fun updateBadge(event: ChangeEvent, calendars: Calendars) {
+        if (!preferences.getBoolean(R.string.p_badges_enabled, true)) {
+            return
+        }
+        val filter = defaultFilterProvider.getBadgeFilter()
+        if (affects(filter, event, calendars)) {
+            ShortcutBadger.applyCount(context, taskDao.count(filter))
+        }
+    }
+
+    private suspend fun updateWidgets(event: ChangeEvent, calendars: Calendars) {
+        val dirty = appWidgetManager.widgetIds.filter { id ->
+            val filterId = WidgetPreferences(context, preferences, id).filterId
+            affects(defaultFilterProvider.getFilterFromPreference(filterId), event, calendars)
+        }
+        if (dirty.isNotEmpty()) {
+            appWidgetManager.updateWidgets(dirty.toIntArray())
+        }
+    }
+
+    /**
+     * Moves and deletions may drop a task out of a list without leaving a trace in caldav_tasks,
+     * so only edits and list syncs are narrowed down to the lists they touched.
+     *
+     * Only CalDAV and Google Tasks lists are narrowed. An edit can also remove the last tag that
+     * matched a tag filter, and custom and built-in filters can match on any column. Neither
+     * leaves anything to check against, so those filters are always refreshed.
+     */
+    private suspend fun affects(filter: Filter, event: ChangeEvent, calendars: Calendars): Boolean {
+        if (event.isUnscoped || !SCOPED_KINDS.containsAll(event.kinds)) {
+            return true
+        }
+        val list = when (filter) {
+            is CaldavFilter -> filter.uuid
+            is GtasksFilter -> filter.list.uuid
+            else -> null
+        } ?: return true
+        return event.lists.contains(list) || calendars.contains(list)
+    }
+
+    /** Lists of the changed tasks, only looked up if a consumer shows a single list */
+    private inner class Calendars(private val tasks: Set<Long>) {
+        private var lists: Set<String>? = null
+
+        suspend fun contains(list: String): Boolean {
+            val lists = lists
+                ?: tasks.chunkedMap { caldavDao.getCalendars(it) }.toSet().also { this.lists = it }
+            return lists.contains(list)
+        }
+    }
+
+    companion object {
+        private const val WINDOW = 250L
+        private const val MAX_WAIT = 2000L
+        private val SCOPED_KINDS = setOf(ChangeEvent.Kind.TASK_UPDATED, ChangeEvent.Kind.SYNC)
+        private val PROVIDER_URIS = listOf(
+            TasksContentProvider.CONTENT_URI,
+            Astrid2TaskProvider.CONTENT_URI,
+        )
+    }
+}
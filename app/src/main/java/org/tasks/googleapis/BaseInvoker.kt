@@ -1,6 +1,8 @@
 package org.tasks.googleapis
 
 import com.google.api.client.googleapis.services.json.AbstractGoogleJsonClientRequest
+import com.google.api.client.http.HttpRequest
+import com.google.api.client.http.HttpResponse
 import com.google.api.client.http.HttpResponseException
 import com.google.api.client.json.GenericJson
 import com.todoroo.astrid.gtasks.api.HttpCredentialsAdapter
@@ -51,6 +53,32 @@ abstract class BaseInvoker(
                 response
             }
 
+    /**
+     * Executes a request that can't be expressed with the generated client. Unsuccessful responses
+     * are returned instead of thrown, and redirects are not followed.
+     */
+    @Throws(IOException::class)
+    protected suspend fun execute(request: () -> HttpRequest): HttpResponse = execute(request, false)
+
+    @Throws(IOException::class)
+    private suspend fun execute(request: () -> HttpRequest, retry: Boolean): HttpResponse =
+            withContext(Dispatchers.IO) {
+                credentialsAdapter.checkToken()
+                val httpRequest = request()
+                        .setThrowExceptionOnExecuteError(false)
+                        .setFollowRedirects(false)
+                Timber.d("%s request: %s %s", caller, httpRequest.requestMethod, httpRequest.url)
+                val response = httpRequest.execute()
+                Timber.d("%s response: %s", caller, response.statusCode)
+                if (response.statusCode == 401 && !retry) {
+                    response.disconnect()
+                    credentialsAdapter.invalidateToken()
+                    execute(request, true)
+                } else {
+                    response
+                }
+            }
+
     @Throws(IOException::class)
     private fun <T> prettyPrint(`object`: T?): Any? {
         if (BuildConfig.DEBUG) {
@@ -29,6 +29,8 @@ import org.tasks.data.dao.TagDataDao
 import org.tasks.data.dao.TaskAttachmentDao
 import org.tasks.data.dao.TaskDao
 import org.tasks.data.dao.TaskListMetadataDao
+import org.tasks.data.dao.TaskListOrderDao
+import org.tasks.data.dao.FilePurgeDao
 import org.tasks.data.dao.UserActivityDao
 import org.tasks.jobs.WorkManager
 import org.tasks.data.dao.NotificationDao
@@ -68,6 +70,14 @@ class ApplicationModule {
     @Singleton
     fun getTaskListMetadataDao(db: Database): TaskListMetadataDao = db.taskListMetadataDao()
 
+    @Provides
+    @Singleton
+    fun getTaskListOrderDao(db: Database): TaskListOrderDao = db.taskListOrderDao()
+
+    @Provides
+    @Singleton
+    fun getFilePurgeDao(db: Database): FilePurgeDao = db.filePurgeDao()
+
     @Provides
     @Singleton
     fun getGoogleTaskDao(db: Database): GoogleTaskDao = db.googleTaskDao()
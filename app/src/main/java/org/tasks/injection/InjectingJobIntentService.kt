@@ -20,7 +20,6 @@ abstract class InjectingJobIntentService : JobIntentService() {
 
     companion object {
         const val JOB_ID_GEOFENCE_TRANSITION = 1081
-        const val JOB_ID_REFRESH_RECEIVER = 1082
         const val JOB_ID_NOTIFICATION_SCHEDULER = 1084
         const val JOB_ID_TASKER = 1086
     }
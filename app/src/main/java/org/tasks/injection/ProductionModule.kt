@@ -14,7 +14,9 @@ import org.tasks.caldav.FileStorage
 import org.tasks.data.OpenTaskDao
 import org.tasks.data.dao.CaldavDao
 import org.tasks.data.db.Database
+import org.tasks.db.InstrumentedOpenHelperFactory
 import org.tasks.db.Migrations
+import org.tasks.db.QueryStats
 import org.tasks.jobs.WorkManager
 import org.tasks.jobs.WorkManagerImpl
 import org.tasks.location.AndroidLocationManager
@@ -31,6 +33,7 @@ internal class ProductionModule {
         @ApplicationContext context: Context,
         preferences: Preferences,
         fileStorage: FileStorage,
+        queryStats: QueryStats,
     ): Database {
         val databaseFile = context.getDatabasePath(Database.NAME)
         val builder = Room.databaseBuilder<Database>(
@@ -38,7 +41,11 @@ internal class ProductionModule {
             name = databaseFile.absolutePath
         )
             .addMigrations(*Migrations.migrations(context, fileStorage))
-            .openHelperFactory(FrameworkSQLiteOpenHelperFactory())
+        if (preferences.getBoolean(R.string.p_query_diagnostics, false)) {
+            builder.openHelperFactory(
+                InstrumentedOpenHelperFactory(FrameworkSQLiteOpenHelperFactory(), queryStats)
+            )
+        }
         if (!BuildConfig.DEBUG || !preferences.getBoolean(R.string.p_crash_main_queries, false)) {
             builder.allowMainThreadQueries()
         }
@@ -5,6 +5,7 @@ import android.net.Uri
 import androidx.hilt.work.HiltWorker
 import androidx.work.WorkerParameters
 import com.google.api.client.googleapis.json.GoogleJsonResponseException
+import com.google.api.client.http.HttpResponseException
 import com.google.api.services.drive.model.File
 import dagger.assisted.Assisted
 import dagger.assisted.AssistedInject
@@ -13,6 +14,8 @@ import org.tasks.R
 import org.tasks.Strings.isNullOrEmpty
 import org.tasks.analytics.Firebase
 import org.tasks.backup.BackupConstants
+import org.tasks.drive.DriveInvoker.Companion.PROPERTY_CONTENT_HASH
+import org.tasks.files.FileHelper
 import org.tasks.googleapis.InvokerFactory
 import org.tasks.injection.BaseWorker
 import org.tasks.preferences.Preferences
@@ -39,16 +42,30 @@ class DriveUploader @AssistedInject constructor(
     override suspend fun run(): Result {
         val inputData = inputData
         val uri = Uri.parse(inputData.getString(EXTRA_URI))
+        val purge = inputData.getBoolean(EXTRA_PURGE, false)
+        val contentHash = inputData.getString(EXTRA_CONTENT_HASH)
         return try {
             val folder = getFolder() ?: return Result.failure()
             preferences.setString(R.string.p_google_drive_backup_folder, folder.id)
-            drive.createFile(folder.id, uri)
+            val backups = if (purge) drive.getFilesByPrefix(folder.id, "auto.") else emptyList()
+            val latest = backups.firstOrNull()
+            val file = if (
+                contentHash != null &&
+                latest?.appProperties?.get(PROPERTY_CONTENT_HASH) == contentHash
+            ) {
+                Timber.d("${latest.name} matches $uri, skipping upload")
+                FileHelper.getFilename(context, uri)
+                    ?.let { drive.rename(latest, it) }
+            } else {
+                upload(folder.id, uri, contentHash)
+            }
+            file
                     ?.let(BackupConstants::getTimestamp)
                     ?.let { preferences.setLong(R.string.p_backups_drive_last, it) }
             localBroadcastManager.broadcastPreferenceRefresh()
-            if (inputData.getBoolean(EXTRA_PURGE, false)) {
-                drive
-                        .getFilesByPrefix(folder.id, "auto.")
+            if (purge) {
+                listOfNotNull(file)
+                        .plus(backups.filterNot { it.id == file?.id })
                         .drop(BackupWork.DAYS_TO_KEEP_BACKUP)
                         .forEach { drive.delete(it) }
             }
@@ -71,11 +88,37 @@ class DriveUploader @AssistedInject constructor(
                 503 -> retry(e)
                 else -> retry(e, report = true)
             }
+        } catch (e: HttpResponseException) {
+            when (e.statusCode) {
+                401, 403 -> fail(e)
+                else -> retry(e, report = e.statusCode < 500)
+            }
         } catch (e: IOException) {
             fail(e, report = true)
         }
     }
 
+    /**
+     * Uploads [uri] in chunks. The upload session is saved so that a retry continues from the
+     * last byte Drive received instead of starting over.
+     */
+    @Throws(IOException::class)
+    private suspend fun upload(folderId: String, uri: Uri, contentHash: String?): File {
+        val session = preferences
+            .getStringValue(R.string.p_google_drive_upload_session)
+            ?.takeIf { preferences.getStringValue(R.string.p_google_drive_upload_uri) == uri.toString() }
+            ?.takeIf { it.isNotBlank() }
+        val file = session?.let { drive.upload(it, uri) }
+            ?: drive.startUpload(folderId, uri, contentHash).let {
+                preferences.setString(R.string.p_google_drive_upload_session, it)
+                preferences.setString(R.string.p_google_drive_upload_uri, uri.toString())
+                drive.upload(it, uri) ?: throw IOException("Upload session expired")
+            }
+        preferences.remove(R.string.p_google_drive_upload_session)
+        preferences.remove(R.string.p_google_drive_upload_uri)
+        return file
+    }
+
     private fun fail(e: Throwable, report: Boolean = false): Result {
         if (report) {
             firebase.reportException(e)
@@ -108,5 +151,6 @@ class DriveUploader @AssistedInject constructor(
         private const val FOLDER_NAME = "Tasks Backups"
         const val EXTRA_URI = "extra_uri"
         const val EXTRA_PURGE = "extra_purge"
+        const val EXTRA_CONTENT_HASH = "extra_content_hash"
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package org.tasks.jobs
+
+import android.content.Context
+import androidx.core.net.toUri
+import androidx.hilt.work.HiltWorker
+import androidx.work.WorkerParameters
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+import org.tasks.analytics.Firebase
+import org.tasks.data.dao.FilePurgeDao
+import org.tasks.files.FileHelper
+import org.tasks.injection.BaseWorker
+import timber.log.Timber
+
+/** Deletes the files queued in [FilePurgeDao] */
+@HiltWorker
+class PurgeFilesWork @AssistedInject constructor(
+    @Assisted context: Context,
+    @Assisted workerParams: WorkerParameters,
+    firebase: Firebase,
+    private val filePurgeDao: FilePurgeDao,
+) : BaseWorker(context, workerParams, firebase) {
+
+    override suspend fun run(): Result {
+        while (true) {
+            val files = filePurgeDao.getQueued(BATCH_SIZE).takeIf { it.isNotEmpty() } ?: break
+            files.forEach {
+                try {
+                    FileHelper.delete(context, it.uri.toUri())
+                } catch (e: Exception) {
+                    Timber.e(e, "Failed to delete ${it.uri}")
+                }
+            }
+            filePurgeDao.remove(files)
+        }
+        return Result.success()
+    }
+
+    companion object {
+        private const val BATCH_SIZE = 100
+    }
+}
@@ -24,16 +24,19 @@ import org.tasks.billing.Inventory
 import org.tasks.caldav.CaldavSynchronizer
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_CALDAV
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_ETEBASE
+import org.tasks.data.entity.CaldavAccount.Companion.TYPE_MICROSOFT
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_TASKS
 import org.tasks.data.dao.CaldavDao
 import org.tasks.data.dao.GoogleTaskListDao
 import org.tasks.data.OpenTaskDao
 import org.tasks.etebase.EtebaseSynchronizer
+import org.tasks.events.ChangeEventBus
 import org.tasks.extensions.Context.hasNetworkConnectivity
 import org.tasks.gtasks.GoogleTaskSynchronizer
 import org.tasks.injection.BaseWorker
 import org.tasks.opentasks.OpenTasksSynchronizer
 import org.tasks.preferences.Preferences
+import org.tasks.sync.microsoft.MicrosoftSynchronizer
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
 
 @HiltWorker
@@ -42,12 +45,14 @@ class SyncWork @AssistedInject constructor(
     @Assisted workerParams: WorkerParameters,
     firebase: Firebase,
     private val localBroadcastManager: LocalBroadcastManager,
+    private val changeEventBus: ChangeEventBus,
     private val preferences: Preferences,
     private val caldavDao: CaldavDao,
     private val caldavSynchronizer: Lazy<CaldavSynchronizer>,
     private val etebaseSynchronizer: Lazy<EtebaseSynchronizer>,
     private val googleTaskSynchronizer: Lazy<GoogleTaskSynchronizer>,
     private val openTasksSynchronizer: Lazy<OpenTasksSynchronizer>,
+    private val microsoftSynchronizer: Lazy<MicrosoftSynchronizer>,
     private val googleTaskListDao: GoogleTaskListDao,
     private val openTaskDao: OpenTaskDao,
     private val inventory: Inventory
@@ -70,7 +75,7 @@ class SyncWork @AssistedInject constructor(
         }
         localBroadcastManager.broadcastRefresh()
         try {
-            doSync()
+            changeEventBus.batch { doSync() }
             preferences.lastSync = currentTimeMillis()
         } catch (e: Exception) {
             firebase.reportException(e)
@@ -87,6 +92,9 @@ class SyncWork @AssistedInject constructor(
     private val isBackground: Boolean
         get() = inputData.getBoolean(EXTRA_BACKGROUND, false)
 
+    private val isObserved: Boolean
+        get() = inputData.getBoolean(EXTRA_OBSERVED, false)
+
     private val syncStatus = R.string.p_sync_ongoing
 
     private suspend fun doSync() {
@@ -99,7 +107,7 @@ class SyncWork @AssistedInject constructor(
         }
         inventory.updateTasksAccount()
         if (openTaskDao.shouldSync()) {
-            openTasksSynchronizer.get().sync()
+            openTasksSynchronizer.get().sync(observed = isObserved)
 
             if (isImmediate && hasNetworkConnectivity) {
                 AccountManager
@@ -134,6 +142,7 @@ class SyncWork @AssistedInject constructor(
             async(Dispatchers.IO) {
                 when (it.accountType) {
                     TYPE_ETEBASE -> etebaseSynchronizer.get().sync(it)
+                    TYPE_MICROSOFT -> microsoftSynchronizer.get().sync(it)
                     TYPE_TASKS,
                     TYPE_CALDAV -> caldavSynchronizer.get().sync(it)
                 }
@@ -145,12 +154,13 @@ class SyncWork @AssistedInject constructor(
         googleTaskListDao.getAccounts()
 
     private suspend fun getCaldavAccounts() =
-            caldavDao.getAccounts(TYPE_CALDAV, TYPE_TASKS, TYPE_ETEBASE)
+            caldavDao.getAccounts(TYPE_CALDAV, TYPE_TASKS, TYPE_ETEBASE, TYPE_MICROSOFT)
 
     companion object {
         private val LOCK = Any()
 
         const val EXTRA_IMMEDIATE = "extra_immediate"
         const val EXTRA_BACKGROUND = "extra_background"
+        const val EXTRA_OBSERVED = "extra_observed"
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package org.tasks.jobs
+
+import android.content.Context
+import androidx.hilt.work.HiltWorker
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.todoroo.astrid.service.Upgrader
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+import org.tasks.LocalBroadcastManager
+import org.tasks.analytics.Firebase
+import org.tasks.injection.BaseWorker
+
+/** Runs the data migrations deferred by [Upgrader.upgrade] */
+@HiltWorker
+class UpgradeWork @AssistedInject constructor(
+    @Assisted context: Context,
+    @Assisted workerParams: WorkerParameters,
+    firebase: Firebase,
+    private val upgrader: Upgrader,
+    private val localBroadcastManager: LocalBroadcastManager,
+) : BaseWorker(context, workerParams, firebase) {
+
+    override suspend fun run(): Result {
+        upgrader.migrate { completed, total ->
+            setProgress(workDataOf(PROGRESS_COMPLETED to completed, PROGRESS_TOTAL to total))
+        }
+        localBroadcastManager.broadcastRefresh()
+        return Result.success()
+    }
+
+    companion object {
+        const val PROGRESS_COMPLETED = "progress_completed"
+        const val PROGRESS_TOTAL = "progress_total"
+    }
+}
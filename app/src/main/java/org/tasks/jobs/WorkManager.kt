@@ -13,7 +13,7 @@ interface WorkManager {
 
     fun migrateLocalTasks(caldavAccount: CaldavAccount)
 
-    suspend fun sync(immediate: Boolean)
+    suspend fun sync(immediate: Boolean, observed: Boolean = false)
 
     suspend fun startEnqueuedSync()
 
@@ -31,10 +31,14 @@ interface WorkManager {
 
     fun scheduleConfigRefresh()
 
-    fun scheduleDriveUpload(uri: Uri, purge: Boolean)
+    fun scheduleDriveUpload(uri: Uri, purge: Boolean, contentHash: String?)
 
     fun updatePurchases()
 
+    fun purgeFiles()
+
+    fun scheduleUpgrade()
+
     companion object {
         val REMOTE_CONFIG_INTERVAL_HOURS = if (BuildConfig.DEBUG) 1 else 12.toLong()
         const val TAG_BACKUP = "tag_backup"
@@ -45,5 +49,7 @@ interface WorkManager {
         const val TAG_MIGRATE_LOCAL = "tag_migrate_local"
         const val TAG_UPDATE_PURCHASES = "tag_update_purchases"
         const val TAG_NOTIFICATIONS = "tag_notifications"
+        const val TAG_PURGE_FILES = "tag_purge_files"
+        const val TAG_UPGRADE = "tag_upgrade"
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import android.net.Uri
 import androidx.work.Constraints
 import androidx.work.ExistingPeriodicWorkPolicy
 import androidx.work.ExistingWorkPolicy.APPEND_OR_REPLACE
+import androidx.work.ExistingWorkPolicy.KEEP
 import androidx.work.ExistingWorkPolicy.REPLACE
 import androidx.work.NetworkType
 import androidx.work.OneTimeWorkRequest
@@ -36,20 +37,24 @@ import org.tasks.data.OpenTaskDao
 import org.tasks.data.entity.Place
 import org.tasks.date.DateTimeUtils.midnight
 import org.tasks.date.DateTimeUtils.newDateTime
+import org.tasks.jobs.DriveUploader.Companion.EXTRA_CONTENT_HASH
 import org.tasks.jobs.DriveUploader.Companion.EXTRA_PURGE
 import org.tasks.jobs.DriveUploader.Companion.EXTRA_URI
 import org.tasks.jobs.MigrateLocalWork.Companion.EXTRA_ACCOUNT
 import org.tasks.jobs.SyncWork.Companion.EXTRA_BACKGROUND
 import org.tasks.jobs.SyncWork.Companion.EXTRA_IMMEDIATE
+import org.tasks.jobs.SyncWork.Companion.EXTRA_OBSERVED
 import org.tasks.jobs.WorkManager.Companion.REMOTE_CONFIG_INTERVAL_HOURS
 import org.tasks.jobs.WorkManager.Companion.TAG_BACKGROUND_SYNC
 import org.tasks.jobs.WorkManager.Companion.TAG_BACKUP
 import org.tasks.jobs.WorkManager.Companion.TAG_MIGRATE_LOCAL
 import org.tasks.jobs.WorkManager.Companion.TAG_NOTIFICATIONS
+import org.tasks.jobs.WorkManager.Companion.TAG_PURGE_FILES
 import org.tasks.jobs.WorkManager.Companion.TAG_REFRESH
 import org.tasks.jobs.WorkManager.Companion.TAG_REMOTE_CONFIG
 import org.tasks.jobs.WorkManager.Companion.TAG_SYNC
 import org.tasks.jobs.WorkManager.Companion.TAG_UPDATE_PURCHASES
+import org.tasks.jobs.WorkManager.Companion.TAG_UPGRADE
 import org.tasks.notifications.Throttle
 import org.tasks.preferences.Preferences
 import org.tasks.time.DateTimeUtils
@@ -92,9 +97,9 @@ class WorkManagerImpl(
     }
 
     @SuppressLint("EnqueueWork")
-    override suspend fun sync(immediate: Boolean) {
+    override suspend fun sync(immediate: Boolean, observed: Boolean) {
         val builder = OneTimeWorkRequest.Builder(SyncWork::class.java)
-                .setInputData(EXTRA_IMMEDIATE to immediate)
+                .setInputData(EXTRA_IMMEDIATE to immediate, EXTRA_OBSERVED to observed)
         if (!openTaskDao.shouldSync()) {
             builder.setConstraints(networkConstraints)
         }
@@ -102,7 +107,7 @@ class WorkManagerImpl(
             builder.setInitialDelay(1, TimeUnit.MINUTES)
         }
         val append = getSyncJob().any { it.state == WorkInfo.State.RUNNING }
-        Timber.d("sync: immediate=$immediate, append=$append)")
+        Timber.d("sync: immediate=$immediate, observed=$observed, append=$append)")
         enqueue(workManager.beginUniqueWork(
                 TAG_SYNC,
                 if (append) APPEND_OR_REPLACE else REPLACE,
@@ -191,7 +196,7 @@ class WorkManagerImpl(
         }
     }
 
-    override fun scheduleDriveUpload(uri: Uri, purge: Boolean) {
+    override fun scheduleDriveUpload(uri: Uri, purge: Boolean, contentHash: String?) {
         if (!preferences.getBoolean(R.string.p_google_drive_backup, false)) {
             return
         }
@@ -199,6 +204,7 @@ class WorkManagerImpl(
             .setInputData(
                 EXTRA_URI to uri.toString(),
                 EXTRA_PURGE to purge,
+                EXTRA_CONTENT_HASH to contentHash,
             )
             .setConstraints(networkConstraints)
         if (purge) {
@@ -213,6 +219,18 @@ class WorkManagerImpl(
     override fun updatePurchases() =
         enqueueUnique(TAG_UPDATE_PURCHASES, UpdatePurchaseWork::class.java)
 
+    @SuppressLint("EnqueueWork")
+    override fun purgeFiles() {
+        val builder = OneTimeWorkRequest.Builder(PurgeFilesWork::class.java)
+        enqueue(workManager.beginUniqueWork(TAG_PURGE_FILES, APPEND_OR_REPLACE, builder.build()))
+    }
+
+    @SuppressLint("EnqueueWork")
+    override fun scheduleUpgrade() {
+        val builder = OneTimeWorkRequest.Builder(UpgradeWork::class.java)
+        enqueue(workManager.beginUniqueWork(TAG_UPGRADE, KEEP, builder.build()))
+    }
+
     @SuppressLint("EnqueueWork")
     private fun enqueueUnique(
         key: String,
@@ -1,6 +1,7 @@
 package org.tasks.location
 
 import org.tasks.data.dao.LocationDao
+import org.tasks.data.db.SuspendDbUtils.chunkedMap
 import org.tasks.data.entity.Place
 import org.tasks.preferences.PermissionChecker
 import timber.log.Timber
@@ -15,6 +16,12 @@ class GeofenceApi @Inject constructor(
 
     suspend fun update(taskId: Long) = update(locationDao.getPlaceForTask(taskId))
 
+    suspend fun update(taskIds: List<Long>) =
+        taskIds
+            .chunkedMap { locationDao.getPlacesForTasks(it) }
+            .distinctBy { it.uid }
+            .forEach { update(it) }
+
     suspend fun update(place: String) = update(locationDao.getPlace(place))
 
     suspend fun update(place: Place?) {
@@ -11,5 +11,8 @@ interface Markdown {
 
     fun setMarkdown(tv: TextView, markdown: String?)
 
+    /** Applies the result of [toMarkdown] */
+    fun setParsedMarkdown(tv: TextView, markdown: CharSequence)
+
     fun toMarkdown(markdown: String?): CharSequence?
 }
\ No newline at end of file
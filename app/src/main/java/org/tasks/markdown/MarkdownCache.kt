@@ -0,0 +1,91 @@
+package org.tasks.markdown
+
+import android.util.LruCache
+import android.widget.TextView
+import androidx.annotation.MainThread
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import org.tasks.injection.ApplicationScope
+import timber.log.Timber
+import java.util.WeakHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Rendered task titles and notes, keyed by task id and modification date so edits invalidate
+ * them. [bind] never renders on the calling thread: a text view shows the plain text until the
+ * spans have been rendered in the background.
+ */
+@Singleton
+class MarkdownCache @Inject constructor(
+    @ApplicationScope private val scope: CoroutineScope,
+) {
+    data class Key(
+        val task: Long,
+        val modified: Long,
+        val notes: Boolean,
+        /** identifies the renderer, e.g. linkify or night mode changes produce different spans */
+        val variant: String,
+    )
+
+    private val cache = object : LruCache<Key, CharSequence>(MAX_SIZE) {
+        override fun sizeOf(key: Key, value: CharSequence) = value.length + ENTRY_OVERHEAD
+    }
+    private val pending = WeakHashMap<TextView, Key>()
+    private val rendering = HashSet<Key>()
+
+    fun get(key: Key): CharSequence? = cache.get(key)
+
+    /** Renders on the calling thread if needed, for callers that are already off the main thread */
+    fun render(markdown: Markdown, key: Key, text: String?): CharSequence? {
+        if (!markdown.enabled || text.isNullOrBlank()) {
+            return text
+        }
+        return cache.get(key) ?: markdown.toMarkdown(text)?.also { cache.put(key, it) }
+    }
+
+    @MainThread
+    fun bind(textView: TextView, markdown: Markdown, key: Key, text: String?) {
+        if (!markdown.enabled || text.isNullOrBlank()) {
+            pending.remove(textView)
+            textView.text = text
+            return
+        }
+        val rendered = cache.get(key)
+        if (rendered != null) {
+            pending.remove(textView)
+            markdown.setParsedMarkdown(textView, rendered)
+            return
+        }
+        pending[textView] = key
+        textView.text = text
+        if (!rendering.add(key)) {
+            return
+        }
+        scope.launch(Dispatchers.Main) {
+            try {
+                val result = withContext(Dispatchers.Default) { markdown.toMarkdown(text) }
+                result?.let { cache.put(key, it) }
+                pending
+                    .filterValues { it == key }
+                    .keys
+                    .forEach {
+                        pending.remove(it)
+                        result?.let { spans -> markdown.setParsedMarkdown(it, spans) }
+                    }
+            } catch (e: Exception) {
+                Timber.e(e)
+            } finally {
+                rendering.remove(key)
+            }
+        }
+    }
+
+    companion object {
+        /** in characters, roughly 1MB of text */
+        private const val MAX_SIZE = 512 * 1024
+        private const val ENTRY_OVERHEAD = 64
+    }
+}
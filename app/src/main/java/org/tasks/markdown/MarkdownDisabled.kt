@@ -13,5 +13,9 @@ class MarkdownDisabled : Markdown {
         tv.text = markdown
     }
 
+    override fun setParsedMarkdown(tv: TextView, markdown: CharSequence) {
+        tv.text = markdown
+    }
+
     override fun toMarkdown(markdown: String?) = markdown
 }
\ No newline at end of file
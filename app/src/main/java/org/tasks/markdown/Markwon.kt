@@ -1,6 +1,7 @@
 package org.tasks.markdown
 
 import android.content.Context
+import android.text.Spanned
 import android.text.util.Linkify.*
 import android.widget.EditText
 import android.widget.TextView
@@ -30,6 +31,14 @@ class Markwon(context: Context, linkify: Boolean) : Markdown {
         }
     }
 
+    override fun setParsedMarkdown(tv: TextView, markdown: CharSequence) {
+        if (markdown is Spanned) {
+            markwon.setParsedMarkdown(tv, markdown)
+        } else {
+            tv.text = markdown
+        }
+    }
+
     override fun toMarkdown(markdown: String?) = markdown?.let { markwon.toMarkdown(it) }
 
     init {
@@ -16,6 +16,8 @@ import org.tasks.R
 import org.tasks.data.dao.LocationDao
 import org.tasks.data.dao.NotificationDao
 import org.tasks.data.dao.TaskDao
+import org.tasks.data.db.SuspendDbUtils.chunkedMap
+import org.tasks.data.db.SuspendDbUtils.eachChunk
 import org.tasks.data.entity.Alarm
 import org.tasks.data.entity.Notification
 import org.tasks.intents.TaskIntents
@@ -56,20 +58,49 @@ class NotificationManager @Inject constructor(
     @SuppressLint("CheckResult")
     suspend fun cancel(id: Long) {
         if (id == SUMMARY_NOTIFICATION_ID.toLong()) {
-            cancel(notificationDao.getAll() + id)
+            // clearing the group clears all of its notifications
+            notificationManager.cancel(SUMMARY_NOTIFICATION_ID)
+            reconcile(emptyList())
         } else {
             cancel(listOf(id))
         }
     }
 
+    /**
+     * Cancels the notifications for [ids]. Only the rows for [ids] are looked up. The remaining
+     * notifications are only loaded when a single one is left and has to leave the group, so
+     * completing or deleting tasks in bulk uses this instead of [reconcile].
+     */
     @SuppressLint("CheckResult")
     suspend fun cancel(ids: Iterable<Long>) {
-        for (id in ids) {
-            notificationManager.cancel(id.toInt())
+        val cancel = ids.toSet()
+        cancel.forEach { notificationManager.cancel(it.toInt()) }
+        queue.remove(cancel)
+        val posted = cancel.chunkedMap { notificationDao.getPosted(it) }
+        if (posted.isEmpty()) {
+            return
+        }
+        posted.eachChunk { notificationDao.deleteAll(it) }
+        when (notificationDao.count()) {
+            0 -> cancelSummaryNotification()
+            1 -> {
+                createNotifications(
+                        notificationDao.getAllOrdered(),
+                        alert = false,
+                        nonstop = false,
+                        fiveTimes = false,
+                        useGroupKey = false)
+                cancelSummaryNotification()
+            }
+            else -> if (preferences.bundleNotifications()) {
+                updateSummary(
+                        notify = false,
+                        nonStop = false,
+                        fiveTimes = false,
+                        newNotifications = emptyList())
+            }
         }
-        queue.remove(ids)
-        notificationDao.deleteAll(ids.toList())
-        notifyTasks(emptyList(), alert = false, nonstop = false, fiveTimes = false)
+        localBroadcastManager.broadcastRefresh()
     }
 
     suspend fun restoreNotifications(cancelExisting: Boolean) {
@@ -107,14 +138,57 @@ class NotificationManager @Inject constructor(
         alert: Boolean,
         nonstop: Boolean,
         fiveTimes: Boolean) {
-        val existingNotifications = notificationDao.getAllOrdered()
+        val existing = notificationDao.getAllOrdered()
+        val replaced = newNotifications.mapTo(HashSet()) { it.taskId }
+        reconcile(
+            existing = existing,
+            notifications = newNotifications + existing.filterNot { replaced.contains(it.taskId) },
+            alert = alert,
+            nonstop = nonstop,
+            fiveTimes = fiveTimes,
+        )
+    }
+
+    /**
+     * Brings the posted notifications in line with [notifications], the complete set that should
+     * be showing. Notifications that are no longer wanted are cancelled, new or changed ones are
+     * posted, and the summary is rebuilt once. Nothing happens if the set is unchanged.
+     */
+    suspend fun reconcile(
+        notifications: List<Notification>,
+        alert: Boolean = false,
+        nonstop: Boolean = false,
+        fiveTimes: Boolean = false,
+    ) = reconcile(notificationDao.getAllOrdered(), notifications, alert, nonstop, fiveTimes)
+
+    private suspend fun reconcile(
+        existing: List<Notification>,
+        notifications: List<Notification>,
+        alert: Boolean,
+        nonstop: Boolean,
+        fiveTimes: Boolean,
+    ) {
+        val desired = notifications.associateBy { it.taskId }
+        val removed = existing.map { it.taskId }.filterNot { desired.containsKey(it) }
+        val current = existing.associateBy { it.taskId }
+        val newNotifications = desired.values.filterNot { current[it.taskId]?.sameAs(it) == true }
+        if (removed.isEmpty() && newNotifications.isEmpty()) {
+            return
+        }
+        val updated = newNotifications.mapTo(HashSet()) { it.taskId }
+        val existingNotifications = existing.filter {
+            desired.containsKey(it.taskId) && !updated.contains(it.taskId)
+        }
+        removed.forEach { notificationManager.cancel(it.toInt()) }
+        queue.remove(removed)
+        removed.eachChunk { notificationDao.deleteAll(it) }
         notificationDao.insertAll(newNotifications)
         val totalCount = existingNotifications.size + newNotifications.size
         when {
             totalCount == 0 -> cancelSummaryNotification()
             totalCount == 1 -> {
                 val notifications = existingNotifications + newNotifications
-                createNotifications(notifications, alert, nonstop, fiveTimes, false)
+                createNotifications(notifications, alert && newNotifications.isNotEmpty(), nonstop, fiveTimes, false)
                 cancelSummaryNotification()
             }
             preferences.bundleNotifications() -> {
@@ -133,7 +207,7 @@ class NotificationManager @Inject constructor(
                 }
                 if (newNotifications.size == 1) {
                     createNotifications(newNotifications, alert, nonstop, fiveTimes, true)
-                } else {
+                } else if (newNotifications.isNotEmpty()) {
                     createNotifications(
                             newNotifications,
                             alert = false,
@@ -160,22 +234,28 @@ class NotificationManager @Inject constructor(
             return
         }
         var alert = alert
+        val invalid = ArrayList<Long>()
+        val lastNotified = HashMap<Long, Long>()
         for (notification in notifications) {
             val builder = getTaskNotification(notification)
             if (builder == null) {
                 notificationManager.cancel(notification.taskId.toInt())
-                notificationDao.delete(notification.taskId)
+                invalid.add(notification.taskId)
             } else {
                 builder
                         .setGroup(if (useGroupKey) GROUP_KEY else notification.taskId.toString())
                         .setGroupAlertBehavior(
                                 if (alert) NotificationCompat.GROUP_ALERT_CHILDREN else NotificationCompat.GROUP_ALERT_SUMMARY)
                 notify(notification.taskId, builder, alert, nonstop, fiveTimes)
-                val reminderTime = DateTime(notification.timestamp).endOfMinute().millis
-                taskDao.setLastNotified(notification.taskId, reminderTime)
+                lastNotified[notification.taskId] =
+                        DateTime(notification.timestamp).endOfMinute().millis
                 alert = false
             }
         }
+        invalid.eachChunk { notificationDao.deleteAll(it) }
+        if (lastNotified.isNotEmpty()) {
+            taskDao.setLastNotified(lastNotified)
+        }
     }
 
     suspend fun notify(
@@ -427,6 +507,9 @@ class NotificationManager @Inject constructor(
         }
     }
 
+    private fun Notification.sameAs(other: Notification) =
+            timestamp == other.timestamp && type == other.type && location == other.location
+
     private fun cancelSummaryNotification() {
         notificationManager.cancel(SUMMARY_NOTIFICATION_ID)
     }
@@ -0,0 +1,65 @@
+package org.tasks.opentasks
+
+import android.content.Context
+import android.net.Uri
+import dagger.hilt.android.qualifiers.ApplicationContext
+import org.dmfs.tasks.contract.TaskContract.TaskLists
+import org.dmfs.tasks.contract.TaskContract.Tasks
+import org.tasks.R
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Collects the row URIs reported by [OpenTaskContentObserver] between syncs, so that
+ * [OpenTasksSynchronizer] only needs to look at the rows that actually changed.
+ */
+@Singleton
+class OpenTaskChanges @Inject constructor(
+    @ApplicationContext context: Context,
+) {
+    data class Snapshot(
+        val full: Boolean,
+        val tasks: Set<Long> = emptySet(),
+        val lists: Set<Long> = emptySet(),
+    )
+
+    private val authority = context.getString(R.string.opentasks_authority)
+    private val tasksPath = Tasks.getContentUri(authority).pathSegments
+    private val listsPath = TaskLists.getContentUri(authority).pathSegments
+    private var observed = false
+    private var full = false
+    private val tasks = HashSet<Long>()
+    private val lists = HashSet<Long>()
+
+    @Synchronized
+    fun add(uri: Uri) {
+        observed = true
+        val segments = uri.pathSegments
+        val id = segments.lastOrNull()?.toLongOrNull()
+        when {
+            id == null -> full = true
+            segments.dropLast(1) == tasksPath -> tasks.add(id)
+            segments.dropLast(1) == listsPath -> lists.add(id)
+            else -> full = true
+        }
+    }
+
+    /**
+     * Returns and clears the pending changes. Only a sync started by the observer is incremental.
+     * Periodic, manual and local change syncs are full, and since a full sync picks up everything
+     * the pending changes are dropped.
+     */
+    @Synchronized
+    fun take(fromObserver: Boolean): Snapshot {
+        val snapshot = if (!fromObserver || !observed || full) {
+            Snapshot(full = true)
+        } else {
+            Snapshot(full = false, tasks = tasks.toSet(), lists = lists.toSet())
+        }
+        observed = false
+        full = false
+        tasks.clear()
+        lists.clear()
+        return snapshot
+    }
+}
@@ -17,6 +17,7 @@ import javax.inject.Inject
 class OpenTaskContentObserver @Inject constructor(
         @ApplicationContext context: Context,
         private val syncAdapters: SyncAdapters,
+        private val openTaskChanges: OpenTaskChanges,
 ) : ContentObserver(getHandler()), SyncStatusObserver {
 
     val authority = context.getString(R.string.opentasks_authority)
@@ -31,6 +32,7 @@ class OpenTaskContentObserver @Inject constructor(
             Timber.v("onChange($selfChange, $uri)")
         }
 
+        openTaskChanges.add(uri)
         syncAdapters.syncOpenTasks()
     }
 
@@ -48,7 +50,7 @@ class OpenTaskContentObserver @Inject constructor(
 
         fun registerObserver(context: Context, observer: OpenTaskContentObserver) {
             getUris(observer.authority).forEach {
-                context.contentResolver.registerContentObserver(it, false, observer)
+                context.contentResolver.registerContentObserver(it, true, observer)
             }
             ContentResolver.addStatusChangeListener(
                     ContentResolver.SYNC_OBSERVER_TYPE_ACTIVE,
@@ -26,6 +26,7 @@ import org.tasks.data.OpenTaskDao.Companion.isDavx5
 import org.tasks.data.OpenTaskDao.Companion.isDecSync
 import org.tasks.data.OpenTaskDao.Companion.isEteSync
 import org.tasks.data.OpenTaskDao.Companion.toLocalCalendar
+import org.tasks.events.ChangeEvent
 import timber.log.Timber
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -40,9 +41,24 @@ class OpenTasksSynchronizer @Inject constructor(
     private val firebase: Firebase,
     private val iCalendar: iCalendar,
     private val openTaskDao: OpenTaskDao,
-    private val inventory: Inventory) {
+    private val inventory: Inventory,
+    private val openTaskChanges: OpenTaskChanges,
+) {
 
-    suspend fun sync() {
+    suspend fun sync(observed: Boolean = false) {
+        val changes = openTaskChanges
+            .take(observed)
+            .takeUnless { it.full }
+            ?.let { snapshot ->
+                val rows = openTaskDao.getEtags(snapshot.tasks)
+                // a missing row was deleted, and only a full scan can tell which list it was in
+                if (rows.values.sumOf { it.size } < snapshot.tasks.size) {
+                    null
+                } else {
+                    Changes(snapshot.lists, rows)
+                }
+            }
+        Timber.d(if (changes == null) "Full sync" else "Incremental sync: $changes")
         val lists = openTaskDao.getListsByAccount().filterActive(caldavDao)
         lists.keys
             .filter { caldavDao.getAccountByUuid(it) == null }
@@ -73,7 +89,7 @@ class OpenTasksSynchronizer @Inject constructor(
                 setError(account, context.getString(R.string.requires_pro_subscription))
             } else {
                 try {
-                    sync(account, entries)
+                    sync(account, entries, changes)
                     setError(account, null)
                 } catch (e: Exception) {
                     firebase.reportException(e)
@@ -83,7 +99,15 @@ class OpenTasksSynchronizer @Inject constructor(
         }
     }
 
-    private suspend fun sync(account: CaldavAccount, lists: List<CaldavCalendar>) {
+    /**
+     * @param changes lists and changed rows reported by the content observer, or null to check
+     * every list
+     */
+    private suspend fun sync(
+        account: CaldavAccount,
+        lists: List<CaldavCalendar>,
+        changes: Changes?,
+    ) {
         val uuid = account.uuid!!
         caldavDao
                 .findDeletedCalendars(uuid, lists.mapNotNull { it.url })
@@ -93,7 +117,11 @@ class OpenTasksSynchronizer @Inject constructor(
             if (calendar.access != CaldavCalendar.ACCESS_READ_ONLY) {
                 pushChanges(account, calendar, it.id)
             }
-            fetchChanges(account, calendar, it.ctag, it.id)
+            if (changes == null || changes.lists.contains(it.id)) {
+                fetchChanges(account, calendar, it.ctag, it.id)
+            } else {
+                changes.rows[it.id]?.let { etags -> fetchChanges(account, calendar, it.id, etags) }
+            }
         }
     }
 
@@ -154,20 +182,27 @@ class OpenTasksSynchronizer @Inject constructor(
         Timber.d("SYNC $calendar")
 
         val etags = openTaskDao.getEtags(listId)
-        etags.forEach { (uid, sync1, version) ->
-            val caldavTask = caldavDao.getTaskByRemoteId(calendar.uuid!!, uid)
-            val etag = if (account.isEteSync || account.isDecSync) version else sync1
-            if (caldavTask?.etag == null || caldavTask.etag != etag) {
-                applyChanges(account, calendar, listId, uid, etag, caldavTask)
-            }
-        }
+        applyChanges(account, calendar, listId, etags)
         removeDeleted(calendar.uuid!!, etags.map { it.first })
 
         calendar.ctag = ctag
         Timber.d("UPDATE $calendar")
         caldavDao.update(calendar)
         caldavDao.updateParents(calendar.uuid!!)
-        localBroadcastManager.broadcastRefresh()
+        localBroadcastManager.broadcastRefresh(ChangeEvent.listSynced(calendar.uuid!!))
+    }
+
+    private suspend fun fetchChanges(
+        account: CaldavAccount,
+        calendar: CaldavCalendar,
+        listId: Long,
+        etags: List<Triple<String, String?, String>>,
+    ) {
+        Timber.d("SYNC ${etags.size} rows in $calendar")
+        // ctag is left alone, the next full sync still compares every row in this list
+        applyChanges(account, calendar, listId, etags)
+        caldavDao.updateParents(calendar.uuid!!)
+        localBroadcastManager.broadcastRefresh(ChangeEvent.listSynced(calendar.uuid!!))
     }
 
     private suspend fun removeDeleted(calendar: String, uids: List<String>) {
@@ -229,16 +264,42 @@ class OpenTasksSynchronizer @Inject constructor(
         account: CaldavAccount,
         calendar: CaldavCalendar,
         listId: Long,
-        uid: String,
-        etag: String?,
-        existing: CaldavTask?
+        etags: List<Triple<String, String?, String>>,
     ) {
-        openTaskDao.getTask(listId, uid)?.let {
-            iCalendar.fromVtodo(account, calendar, existing, it.task!!, null, null, etag)
-        }
+        val existing = caldavDao
+            .getCaldavTasksByRemoteId(calendar.uuid!!, etags.map { it.first })
+            .associateBy { it.remoteId }
+        etags
+            .mapNotNull { (uid, sync1, version) ->
+                val caldavTask = existing[uid]
+                val etag = if (account.isEteSync || account.isDecSync) version else sync1
+                if (caldavTask?.etag == null || caldavTask.etag != etag) {
+                    Triple(uid, etag, caldavTask)
+                } else {
+                    null
+                }
+            }
+            .chunked(APPLY_CHUNK_SIZE)
+            .forEach { changed ->
+                val remote = openTaskDao
+                    .getTasks(listId, changed.map { it.first })
+                    .associateBy { it.task!!.uid }
+                changed.forEach { (uid, etag, caldavTask) ->
+                    remote[uid]?.let {
+                        iCalendar.fromVtodo(account, calendar, caldavTask, it.task!!, null, null, etag)
+                    }
+                }
+            }
     }
 
+    private data class Changes(
+        val lists: Set<Long>,
+        val rows: Map<Long, List<Triple<String, String?, String>>>,
+    )
+
     companion object {
+        private const val APPLY_CHUNK_SIZE = 100
+
         private val CaldavAccount.isEteSync: Boolean
             get() = uuid?.isEteSync() == true
 
@@ -0,0 +1,86 @@
+package org.tasks.preferences.fragments
+
+import android.content.Intent
+import android.os.Bundle
+import androidx.preference.Preference
+import androidx.preference.PreferenceCategory
+import dagger.hilt.android.AndroidEntryPoint
+import org.tasks.R
+import org.tasks.db.QueryStats
+import org.tasks.injection.InjectingPreferenceFragment
+import javax.inject.Inject
+
+@AndroidEntryPoint
+class QueryDiagnostics : InjectingPreferenceFragment() {
+
+    @Inject lateinit var queryStats: QueryStats
+
+    override fun getPreferenceXml() = R.xml.preferences_query_diagnostics
+
+    override suspend fun setupPreferences(savedInstanceState: Bundle?) {
+        findPreference(R.string.p_query_diagnostics)
+            .setOnPreferenceClickListener {
+                showRestartDialog()
+                true
+            }
+        findPreference(R.string.query_diagnostics_export)
+            .setOnPreferenceClickListener {
+                val intent = Intent(Intent.ACTION_SEND)
+                    .setType("text/plain")
+                    .putExtra(Intent.EXTRA_SUBJECT, getString(R.string.query_diagnostics))
+                    .putExtra(Intent.EXTRA_TEXT, "${device.debugInfo}\n\n${queryStats.export()}")
+                startActivity(Intent.createChooser(intent, null))
+                false
+            }
+        findPreference(R.string.query_diagnostics_reset)
+            .setOnPreferenceClickListener {
+                queryStats.reset()
+                updateSlowest()
+                false
+            }
+    }
+
+    override fun onResume() {
+        super.onResume()
+
+        updateSlowest()
+    }
+
+    private fun updateSlowest() {
+        val category = findPreference(R.string.query_diagnostics_slowest) as PreferenceCategory
+        category.removeAll()
+        val worst = queryStats.worst()
+        if (worst.isEmpty()) {
+            category.addPreference(
+                Preference(requireContext()).apply {
+                    setTitle(R.string.query_diagnostics_empty)
+                    isIconSpaceReserved = false
+                }
+            )
+            return
+        }
+        worst.forEach {
+            category.addPreference(
+                Preference(requireContext()).apply {
+                    title = it.shape
+                    summary = listOfNotNull(
+                        getString(
+                            R.string.query_diagnostics_stats,
+                            it.count,
+                            it.totalMillis,
+                            it.averageMillis,
+                            it.maxMillis,
+                            it.rows,
+                            it.mainThread,
+                        ),
+                        it.plan?.joinToString("\n"),
+                    ).joinToString("\n")
+                    isIconSpaceReserved = false
+                    isSingleLineTitle = false
+                }
+            )
+        }
+    }
+
+    override fun getMenu() = 0
+}
@@ -0,0 +1,139 @@
+package org.tasks.provider
+
+import android.database.sqlite.SQLiteQueryBuilder
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteQuery
+import com.todoroo.andlib.utility.AndroidUtilities.atLeastQ
+import java.util.Locale
+
+/**
+ * Builds content provider queries from the projection, selection and sort order of another app.
+ *
+ * [columns] maps every name a caller may use to the SQL that produces it, and nothing else can be
+ * read. [SQLiteQueryBuilder] rejects other columns in the projection. Queries run on Room's
+ * SupportSQLiteDatabase, which SQLiteQueryBuilder.query can't take, so the selection and sort order
+ * are checked by [checkGrammar] with the same rules as strict grammar.
+ */
+class ProviderQuery(
+    private val tables: String,
+    private val columns: Map<String, String>,
+    private val defaultSortOrder: String? = null,
+) {
+    fun build(
+        projection: Array<out String>?,
+        selection: String?,
+        selectionArgs: Array<out String>?,
+        sortOrder: String?,
+        limit: String? = null,
+    ): SupportSQLiteQuery {
+        selection?.let { checkGrammar(it, columns.keys) }
+        sortOrder?.let { checkGrammar(it, columns.keys) }
+        val builder = SQLiteQueryBuilder()
+        builder.tables = tables
+        builder.setProjectionMap(columns)
+        builder.setStrict(true)
+        if (atLeastQ()) {
+            builder.setStrictColumns(true)
+            builder.setStrictGrammar(true)
+        }
+        val sql = builder.buildQuery(
+            projection?.let { arrayOf(*it) },
+            selection?.takeIf { it.isNotBlank() }?.let { "($it)" },
+            null,
+            null,
+            sortOrder ?: defaultSortOrder,
+            limit,
+        )
+        return SimpleSQLiteQuery(sql, selectionArgs)
+    }
+
+    companion object {
+        private val KEYWORDS = setOf(
+            "AND", "OR", "NOT", "IS", "NULL", "IN", "LIKE", "GLOB", "BETWEEN", "ESCAPE",
+            "CASE", "WHEN", "THEN", "ELSE", "END", "ASC", "DESC", "NULLS", "FIRST", "LAST",
+            "COLLATE", "NOCASE", "BINARY", "RTRIM", "CAST", "AS", "TRUE", "FALSE",
+            "INT", "INTEGER", "TEXT", "REAL", "NUMERIC",
+            "ABS", "COALESCE", "IFNULL", "NULLIF", "LENGTH", "LOWER", "UPPER", "MAX", "MIN",
+            "SUBSTR", "TRIM", "LTRIM", "INSTR", "REPLACE", "ROUND", "TYPEOF",
+            "STRFTIME", "DATE", "TIME", "DATETIME", "JULIANDAY",
+        )
+        private const val OPERATORS = "=<>!+-*/%|&~,"
+
+        /**
+         * Only allows [columns], literals, `?` arguments, operators and a fixed set of keywords and
+         * functions, so a clause can't name another table or column or contain a subquery.
+         *
+         * @throws IllegalArgumentException if [clause] contains anything else
+         */
+        fun checkGrammar(clause: String, columns: Set<String>) {
+            var depth = 0
+            var i = 0
+            while (i < clause.length) {
+                val c = clause[i]
+                when {
+                    c.isWhitespace() -> i++
+                    c == '\'' -> i = skipQuoted(clause, i)
+                    c == '"' || c == '`' -> {
+                        val end = skipQuoted(clause, i)
+                        val name = clause.substring(i + 1, end - 1).replace("$c$c", "$c")
+                        if (!columns.contains(name)) {
+                            throw IllegalArgumentException("Invalid column $name")
+                        }
+                        i = end
+                    }
+                    c.isDigit() -> {
+                        while (i < clause.length && isNumberPart(clause[i])) i++
+                    }
+                    c.isLetter() || c == '_' -> {
+                        val start = i
+                        while (i < clause.length && (clause[i].isLetterOrDigit() || clause[i] == '_')) i++
+                        val word = clause.substring(start, i)
+                        if (!columns.contains(word) && !KEYWORDS.contains(word.uppercase(Locale.US))) {
+                            throw IllegalArgumentException("Invalid token $word")
+                        }
+                    }
+                    c == '?' -> {
+                        i++
+                        while (i < clause.length && clause[i].isDigit()) i++
+                    }
+                    c == '(' -> {
+                        depth++
+                        i++
+                    }
+                    c == ')' -> {
+                        if (--depth < 0) {
+                            throw IllegalArgumentException("Unbalanced parentheses in $clause")
+                        }
+                        i++
+                    }
+                    clause.startsWith("--", i) || clause.startsWith("/*", i) ->
+                        throw IllegalArgumentException("Comments are not allowed in $clause")
+                    OPERATORS.contains(c) -> i++
+                    else -> throw IllegalArgumentException("Invalid token $c")
+                }
+            }
+            if (depth != 0) {
+                throw IllegalArgumentException("Unbalanced parentheses in $clause")
+            }
+        }
+
+        private fun isNumberPart(c: Char) = c.isDigit() || c == '.' || c in "xXabcdefABCDEF"
+
+        /** @return the index after the closing quote, treating doubled quotes as escaped */
+        private fun skipQuoted(clause: String, start: Int): Int {
+            val quote = clause[start]
+            var i = start + 1
+            while (i < clause.length) {
+                if (clause[i] == quote) {
+                    if (i + 1 < clause.length && clause[i + 1] == quote) {
+                        i += 2
+                        continue
+                    }
+                    return i + 1
+                }
+                i++
+            }
+            throw IllegalArgumentException("Unterminated quote in $clause")
+        }
+    }
+}
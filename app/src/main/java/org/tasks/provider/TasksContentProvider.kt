@@ -5,7 +5,6 @@ import android.content.ContentValues
 import android.content.UriMatcher
 import android.database.Cursor
 import android.net.Uri
-import androidx.sqlite.db.SupportSQLiteQueryBuilder
 import org.tasks.data.entity.Task
 import dagger.hilt.EntryPoint
 import dagger.hilt.InstallIn
@@ -34,22 +33,40 @@ class TasksContentProvider : ContentProvider() {
             selectionArgs: Array<out String>?,
             sortOrder: String?): Cursor? {
         val hilt = hilt()
-        return when (URI_MATCHER.match(uri)) {
+        val query = when (URI_MATCHER.match(uri)) {
             URI_TODO_AGENDA -> {
                 hilt.firebase.logEvent(R.string.event_todoagenda)
-                hilt.contentProviderDao.rawQuery(
-                        SupportSQLiteQueryBuilder
-                                .builder(TODO_AGENDA_TABLES)
-                                .selection(selection, selectionArgs)
-                                .create())
+                todoAgenda
             }
-            URI_TASKS -> hilt.contentProviderDao.getTasks()
-            URI_LISTS -> hilt.contentProviderDao.getLists()
-            URI_GOOGLE_TASK_LISTS -> null
+            URI_TASKS -> tasks
+            URI_LISTS -> lists
+            URI_GOOGLE_TASK_LISTS -> return null
             else -> throw IllegalStateException("Unrecognized URI: $uri")
         }
+        return hilt.contentProviderDao.rawQuery(
+                query.build(projection, selection, selectionArgs, sortOrder, uri.limit))
     }
 
+    private val tasks by lazy {
+        ProviderQuery(Task.TABLE_NAME, columns(Task.TABLE_NAME))
+    }
+
+    private val lists by lazy {
+        ProviderQuery(
+                LISTS_TABLES,
+                columns("caldav_lists") + ("cda_name" to "caldav_accounts.cda_name AS cda_name"))
+    }
+
+    private val todoAgenda by lazy {
+        ProviderQuery(TODO_AGENDA_TABLES, columns(Task.TABLE_NAME, "caldav_tasks", "caldav_lists"))
+    }
+
+    /** Every column of [tables], the same columns `SELECT *` used to return */
+    private fun columns(vararg tables: String): Map<String, String> =
+            tables.flatMap { table ->
+                hilt().contentProviderDao.getColumns(table).map { it to "`$table`.`$it` AS `$it`" }
+            }.toMap()
+
     override fun onCreate() = true
 
     override fun update(
@@ -68,6 +85,9 @@ class TasksContentProvider : ContentProvider() {
                     TasksContentProviderEntryPoint::class.java)
 
     companion object {
+        private const val LIMIT = "limit"
+        private const val LISTS_TABLES =
+                "caldav_lists INNER JOIN caldav_accounts ON cdl_account = cda_uuid"
         private const val TODO_AGENDA_TABLES =
                 """${Task.TABLE_NAME}
                 LEFT JOIN caldav_tasks ON cd_task = _id
@@ -88,5 +108,9 @@ class TasksContentProvider : ContentProvider() {
             addURI(AUTHORITY, "todoagenda", URI_TODO_AGENDA)
             addURI(PURE_CALENDAR_WIDGET, "tasks/*", URI_OPEN_TASK)
         }
+
+        /** Optional row limit, e.g. content://org.tasks/tasks?limit=50 */
+        private val Uri.limit: String?
+            get() = getQueryParameter(LIMIT)?.toIntOrNull()?.takeIf { it > 0 }?.toString()
     }
 }
\ No newline at end of file
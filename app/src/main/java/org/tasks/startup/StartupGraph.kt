@@ -0,0 +1,95 @@
+package org.tasks.startup
+
+/**
+ * Application startup work, split into stages. [Stage.FIRST_FRAME] blocks `Application.onCreate`
+ * and must stay limited to what the first task list can't be shown without, everything else
+ * waits for the main thread to go idle or runs in the background.
+ */
+class StartupGraph(val steps: List<Step>) {
+
+    enum class Stage {
+        /** Runs on the main thread before `Application.onCreate` returns */
+        FIRST_FRAME,
+        /** Runs on the main thread once the first frame has been drawn */
+        IDLE,
+        /** Runs off the main thread as soon as [FIRST_FRAME] is done */
+        BACKGROUND,
+    }
+
+    data class Step(
+        val name: String,
+        val stage: Stage,
+        val dependsOn: List<Step> = emptyList(),
+    )
+
+    init {
+        val names = HashSet<String>()
+        steps.forEach { step ->
+            require(names.add(step.name)) { "Duplicate step ${step.name}" }
+            step.dependsOn.forEach { dependency ->
+                require(steps.contains(dependency)) {
+                    "${step.name} depends on unknown step ${dependency.name}"
+                }
+                require(dependency.stage != Stage.BACKGROUND || step.stage == Stage.BACKGROUND) {
+                    "${step.name} can't wait for background step ${dependency.name}"
+                }
+                require(step.stage != Stage.FIRST_FRAME || dependency.stage == Stage.FIRST_FRAME) {
+                    "${step.name} can't wait for deferred step ${dependency.name}"
+                }
+            }
+        }
+    }
+
+    /** @return the steps in [stage], ordered so that each step follows its dependencies */
+    fun stage(stage: Stage): List<Step> = sorted().filter { it.stage == stage }
+
+    private fun sorted(): List<Step> {
+        val sorted = LinkedHashSet<Step>()
+        val visiting = HashSet<Step>()
+        fun visit(step: Step) {
+            if (sorted.contains(step)) {
+                return
+            }
+            check(visiting.add(step)) { "Dependency cycle at ${step.name}" }
+            step.dependsOn.forEach { visit(it) }
+            visiting.remove(step)
+            sorted.add(step)
+        }
+        steps.forEach { visit(it) }
+        return sorted.toList()
+    }
+
+    companion object {
+        val SETUP = Step("setup", Stage.FIRST_FRAME)
+        val UPGRADE = Step("upgrade", Stage.FIRST_FRAME, listOf(SETUP))
+        val RESET_SYNC_STATE = Step("reset_sync_state", Stage.FIRST_FRAME, listOf(SETUP))
+        val NIGHT_MODE = Step("night_mode", Stage.FIRST_FRAME, listOf(UPGRADE))
+        val SYNC_ON_RESUME = Step("sync_on_resume", Stage.IDLE)
+        val TASKS_ACCOUNT = Step("tasks_account", Stage.BACKGROUND)
+        val NOTIFICATIONS = Step("notifications", Stage.BACKGROUND)
+        val SCHEDULE_WORK = Step("schedule_work", Stage.BACKGROUND, listOf(TASKS_ACCOUNT))
+        val OPENTASKS_OBSERVER = Step("opentasks_observer", Stage.BACKGROUND)
+        val GEOFENCES = Step("geofences", Stage.BACKGROUND)
+        val CLEAR_CACHE = Step("clear_cache", Stage.BACKGROUND)
+        val WIDGETS = Step("widgets", Stage.BACKGROUND)
+        val ICAL_FACTORIES = Step("ical_factories", Stage.BACKGROUND)
+
+        val DEFAULT = StartupGraph(
+            listOf(
+                SETUP,
+                UPGRADE,
+                RESET_SYNC_STATE,
+                NIGHT_MODE,
+                SYNC_ON_RESUME,
+                TASKS_ACCOUNT,
+                NOTIFICATIONS,
+                SCHEDULE_WORK,
+                OPENTASKS_OBSERVER,
+                GEOFENCES,
+                CLEAR_CACHE,
+                WIDGETS,
+                ICAL_FACTORIES,
+            )
+        )
+    }
+}
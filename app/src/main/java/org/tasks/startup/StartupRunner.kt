@@ -0,0 +1,79 @@
+package org.tasks.startup
+
+import android.os.Looper
+import android.os.SystemClock
+import dagger.Lazy
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import org.tasks.R
+import org.tasks.analytics.Firebase
+import org.tasks.injection.ApplicationScope
+import org.tasks.startup.StartupGraph.Stage
+import org.tasks.startup.StartupGraph.Step
+import timber.log.Timber
+import javax.inject.Inject
+
+/**
+ * Runs a [StartupGraph]. Every step and stage is timed, stage durations are reported once the
+ * main thread goes idle so that reporting doesn't add to the first frame.
+ */
+class StartupRunner @Inject constructor(
+    @ApplicationScope private val scope: CoroutineScope,
+    private val firebase: Lazy<Firebase>,
+) {
+    fun start(graph: StartupGraph, actions: Map<Step, suspend () -> Unit>) {
+        graph.steps
+            .filterNot { actions.containsKey(it) }
+            .takeIf { it.isNotEmpty() }
+            ?.let { missing -> throw IllegalArgumentException("No action for $missing") }
+        val done = graph.steps.associateWith { CompletableDeferred<Unit>() }
+        suspend fun run(step: Step) {
+            step.dependsOn.forEach { done[it]!!.await() }
+            val start = SystemClock.elapsedRealtime()
+            try {
+                actions[step]!!.invoke()
+            } catch (e: Exception) {
+                Timber.e(e, "Startup step ${step.name} failed")
+            } finally {
+                done[step]!!.complete(Unit)
+            }
+            Timber.d("${step.name} took ${SystemClock.elapsedRealtime() - start}ms")
+        }
+        suspend fun run(stage: Stage): Long {
+            val start = SystemClock.elapsedRealtime()
+            graph.stage(stage).forEach { run(it) }
+            return SystemClock.elapsedRealtime() - start
+        }
+
+        val firstFrame = runBlocking { run(Stage.FIRST_FRAME) }
+        if (firstFrame > FIRST_FRAME_BUDGET) {
+            Timber.w("${Stage.FIRST_FRAME} took ${firstFrame}ms, budget is ${FIRST_FRAME_BUDGET}ms")
+        }
+        scope.launch {
+            report(Stage.BACKGROUND, run(Stage.BACKGROUND))
+        }
+        Looper.myQueue().addIdleHandler {
+            report(Stage.FIRST_FRAME, firstFrame)
+            scope.launch(Dispatchers.Main.immediate) {
+                report(Stage.IDLE, run(Stage.IDLE))
+            }
+            false
+        }
+    }
+
+    private fun report(stage: Stage, duration: Long) {
+        Timber.i("$stage took ${duration}ms")
+        firebase.get().logEvent(
+            R.string.event_startup_stage,
+            R.string.param_stage to stage.name.lowercase(),
+            R.string.param_duration to duration,
+        )
+    }
+
+    companion object {
+        const val FIRST_FRAME_BUDGET = 200L
+    }
+}
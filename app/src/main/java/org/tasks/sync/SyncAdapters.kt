@@ -10,6 +10,7 @@ import org.tasks.R
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_CALDAV
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_ETEBASE
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_GOOGLE_TASKS
+import org.tasks.data.entity.CaldavAccount.Companion.TYPE_MICROSOFT
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_OPENTASKS
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_TASKS
 import org.tasks.data.dao.CaldavDao
@@ -36,6 +37,7 @@ class SyncAdapters @Inject constructor(
 ) {
     private val scope = CoroutineScope(newSingleThreadExecutor().asCoroutineDispatcher() + SupervisorJob())
     private val sync = Debouncer(TAG_SYNC) { workManager.sync(it) }
+    private val openTaskSync = Debouncer("opentasks_sync") { workManager.sync(immediate = true, observed = true) }
     private val syncStatus = Debouncer("sync_status") { newState ->
         val currentState = preferences.getBoolean(R.string.p_sync_ongoing_android, false)
         if (currentState != newState && isOpenTaskSyncEnabled()) {
@@ -44,15 +46,20 @@ class SyncAdapters @Inject constructor(
         }
     }
 
-    fun sync(task: Task, original: Task?) = scope.launch {
-        if (task.checkTransitory(SUPPRESS_SYNC)) {
-            return@launch
-        }
-        val needsGoogleTaskSync = !task.googleTaskUpToDate(original)
-                && googleTaskDao.getAllByTaskId(task.id).isNotEmpty()
-        val needsIcalendarSync = (task.checkTransitory(FORCE_CALDAV_SYNC) || !task.caldavUpToDate(original))
-            && caldavDao.isAccountType(task.id, TYPE_ICALENDAR)
-        if (needsGoogleTaskSync || needsIcalendarSync) {
+    fun sync(task: Task, original: Task?) = sync(listOf(task), mapOf(task.id to original))
+
+    fun sync(tasks: List<Task>, originals: Map<Long, Task?>) = scope.launch {
+        val needsSync = tasks
+            .filterNot { it.checkTransitory(SUPPRESS_SYNC) }
+            .any { task ->
+                val original = originals[task.id]
+                val needsGoogleTaskSync = !task.googleTaskUpToDate(original)
+                        && googleTaskDao.getAllByTaskId(task.id).isNotEmpty()
+                needsGoogleTaskSync ||
+                        ((task.checkTransitory(FORCE_CALDAV_SYNC) || !task.caldavUpToDate(original))
+                                && caldavDao.isAccountType(task.id, TYPE_ICALENDAR))
+            }
+        if (needsSync) {
             sync.sync(false)
         }
     }
@@ -62,7 +69,7 @@ class SyncAdapters @Inject constructor(
     }
 
     fun syncOpenTasks() = scope.launch {
-        sync.sync(true)
+        openTaskSync.sync(false)
     }
 
     fun sync() {
@@ -85,6 +92,7 @@ class SyncAdapters @Inject constructor(
                     TYPE_CALDAV,
                     TYPE_TASKS,
                     TYPE_ETEBASE,
+                    TYPE_MICROSOFT,
                 )
                 .isNotEmpty()
 
@@ -95,7 +103,8 @@ class SyncAdapters @Inject constructor(
             TYPE_CALDAV,
             TYPE_TASKS,
             TYPE_ETEBASE,
-            TYPE_OPENTASKS
+            TYPE_OPENTASKS,
+            TYPE_MICROSOFT,
         )
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package org.tasks.sync.microsoft
+
+/**
+ * Graph JSON batching, see https://learn.microsoft.com/en-us/graph/json-batching
+ */
+data class BatchRequest(
+    val requests: List<Request>,
+) {
+    data class Request(
+        val id: String,
+        val method: String,
+        val url: String,
+        val headers: Map<String, String>? = null,
+        val body: Tasks.Task? = null,
+    )
+
+    companion object {
+        const val MAX_REQUESTS = 20
+    }
+}
+
+data class BatchResponse(
+    val responses: List<Response>,
+) {
+    data class Response(
+        val id: String,
+        val status: Int,
+        val body: Tasks.Task? = null,
+    ) {
+        val isSuccessful: Boolean
+            get() = status in 200..299
+    }
+}
@@ -48,4 +48,7 @@ interface MicrosoftService {
         @Path("listId") listId: String,
         @Path("taskId") taskId: String
     ): Response<ResponseBody>
-}
\ No newline at end of file
+
+    @POST("/v1.0/\$batch")
+    suspend fun batch(@Body body: BatchRequest): Response<BatchResponse>
+}
@@ -0,0 +1,275 @@
+package org.tasks.sync.microsoft
+
+import android.content.Context
+import androidx.room.withTransaction
+import com.todoroo.astrid.dao.TaskDao
+import com.todoroo.astrid.service.TaskCreator
+import com.todoroo.astrid.service.TaskDeleter
+import dagger.hilt.android.qualifiers.ApplicationContext
+import org.tasks.LocalBroadcastManager
+import org.tasks.analytics.Firebase
+import org.tasks.caldav.iCalendar
+import org.tasks.data.dao.CaldavDao
+import org.tasks.data.dao.TagDao
+import org.tasks.data.dao.TagDataDao
+import org.tasks.data.db.Database
+import org.tasks.data.entity.CaldavAccount
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.CaldavTask
+import org.tasks.events.ChangeEvent
+import org.tasks.http.HttpClientFactory
+import org.tasks.preferences.Preferences
+import org.tasks.sync.microsoft.MicrosoftConverter.applyRemote
+import org.tasks.sync.microsoft.MicrosoftConverter.toRemote
+import retrofit2.HttpException
+import retrofit2.Response
+import timber.log.Timber
+import java.io.IOException
+import javax.inject.Inject
+
+/**
+ * Synchronizes Microsoft To Do lists using the Graph delta endpoint. The delta link returned at
+ * the end of each round is stored as the list's ctag, so steady state syncs only transfer items
+ * that changed since the previous round. Local changes are pushed with JSON batching.
+ */
+class MicrosoftSynchronizer @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val database: Database,
+    private val caldavDao: CaldavDao,
+    private val taskDao: TaskDao,
+    private val tagDao: TagDao,
+    private val tagDataDao: TagDataDao,
+    private val taskCreator: TaskCreator,
+    private val taskDeleter: TaskDeleter,
+    private val localBroadcastManager: LocalBroadcastManager,
+    private val preferences: Preferences,
+    private val httpClientFactory: HttpClientFactory,
+    private val iCal: iCalendar,
+    private val firebase: Firebase,
+) {
+    suspend fun sync(account: CaldavAccount) {
+        Thread.currentThread().contextClassLoader = context.classLoader
+        try {
+            sync(account, httpClientFactory.getMicrosoftService(account))
+            setError(account, "")
+        } catch (e: IOException) {
+            setError(account, e.message)
+        } catch (e: HttpException) {
+            if (e.code() !in 500..599) {
+                firebase.reportException(e)
+            }
+            setError(account, e.message)
+        } catch (e: Exception) {
+            firebase.reportException(e)
+            setError(account, e.message)
+        }
+    }
+
+    internal suspend fun sync(account: CaldavAccount, service: MicrosoftService) {
+        val lists = getLists(service)
+        for (calendar in caldavDao.findDeletedCalendars(account.uuid!!, lists.mapNotNull { it.id })) {
+            taskDeleter.delete(calendar)
+        }
+        for (remote in lists) {
+            var calendar = caldavDao.getCalendarByUrl(account.uuid!!, remote.id!!)
+            if (calendar == null) {
+                calendar = CaldavCalendar(account = account.uuid).apply { remote.applyTo(this) }
+                caldavDao.insert(calendar)
+                localBroadcastManager.broadcastRefreshList()
+            } else if (calendar.name != remote.displayName) {
+                remote.applyTo(calendar)
+                caldavDao.update(calendar)
+                localBroadcastManager.broadcastRefreshList()
+            }
+            pushLocalChanges(service, calendar)
+            fetchChanges(service, calendar)
+        }
+    }
+
+    private suspend fun getLists(service: MicrosoftService): List<TaskLists.TaskList> {
+        val lists = ArrayList<TaskLists.TaskList>()
+        var response = service.getLists()
+        while (true) {
+            val page = response.bodyOrThrow()
+            lists.addAll(page.value)
+            response = page.nextPage?.let { service.paginateLists(it) } ?: break
+        }
+        return lists
+    }
+
+    private suspend fun fetchChanges(service: MicrosoftService, calendar: CaldavCalendar) {
+        val deltaLink = calendar.ctag
+        var response = deltaLink
+            ?.takeIf { it.isNotBlank() }
+            ?.let { service.paginateTasks(it) }
+        if (response?.code() == 410) {
+            Timber.d("Delta link expired for ${calendar.name}, starting over")
+            response = null
+        }
+        // without a delta link the server returns every item, anything we don't see is gone
+        val seen = if (response == null) HashSet<String>() else null
+        var page = (response ?: service.getTasks(calendar.uuid!!)).bodyOrThrow()
+        while (true) {
+            database.withTransaction {
+                applyChanges(calendar, page.value)
+            }
+            seen?.addAll(page.value.filter { it.removed == null }.mapNotNull { it.id })
+            page = page.nextPage?.let { service.paginateTasks(it).bodyOrThrow() } ?: break
+        }
+        seen?.let { removeDeleted(calendar, it) }
+        calendar.ctag = page.nextDelta
+        caldavDao.update(calendar)
+        localBroadcastManager.broadcastRefresh(ChangeEvent.listSynced(calendar.uuid!!))
+    }
+
+    private suspend fun applyChanges(calendar: CaldavCalendar, items: List<Tasks.Task>) {
+        val existing = caldavDao
+            .getCaldavTasksByRemoteId(calendar.uuid!!, items.mapNotNull { it.id })
+            .associateBy { it.remoteId }
+        items.forEach { remote ->
+            val caldavTask = existing[remote.id]
+            if (remote.removed != null) {
+                caldavTask?.let { taskDeleter.delete(it.task) }
+            } else {
+                applyRemote(calendar, caldavTask, remote)
+            }
+        }
+    }
+
+    private suspend fun applyRemote(
+        calendar: CaldavCalendar,
+        existing: CaldavTask?,
+        remote: Tasks.Task,
+    ) {
+        if (existing?.isDeleted() == true || (existing != null && existing.etag == remote.etag)) {
+            return
+        }
+        val task = existing?.task
+            ?.let { taskDao.fetch(it) }
+            ?: taskCreator.createWithValues("").apply { taskDao.createNew(this) }
+        if (existing != null && task.modificationDate > existing.lastSync) {
+            Timber.d("Local changes pending for ${existing.remoteId}, not overwriting")
+            return
+        }
+        task.applyRemote(remote, preferences.defaultPriority)
+        tagDao.applyTags(task, tagDataDao, iCal.getTags(remote.categories ?: emptyList()))
+        task.suppressSync()
+        task.suppressRefresh()
+        taskDao.save(task)
+        val caldavTask = existing
+            ?: CaldavTask(task = task.id, calendar = calendar.uuid, remoteId = remote.id)
+        caldavTask.etag = remote.etag
+        caldavTask.lastSync = task.modificationDate
+        if (existing == null) {
+            caldavDao.insert(caldavTask)
+            Timber.d("NEW %s", caldavTask)
+        } else {
+            caldavDao.update(caldavTask)
+            Timber.d("UPDATE %s", caldavTask)
+        }
+    }
+
+    private suspend fun removeDeleted(calendar: CaldavCalendar, remoteIds: Set<String>) {
+        caldavDao
+            .getRemoteIds(calendar.uuid!!)
+            .subtract(remoteIds)
+            .takeIf { it.isNotEmpty() }
+            ?.let {
+                Timber.d("DELETED $it")
+                taskDeleter.delete(caldavDao.getTasksByRemoteId(calendar.uuid!!, it.toList()))
+            }
+    }
+
+    private class PendingChange(
+        val request: BatchRequest.Request,
+        val onSuccess: suspend (BatchResponse.Response) -> Unit,
+    )
+
+    private suspend fun pushLocalChanges(service: MicrosoftService, calendar: CaldavCalendar) {
+        val list = calendar.uuid!!
+        val tasksUrl = "/me/todo/lists/$list/tasks"
+        val changes = ArrayList<PendingChange>()
+        fun delete(remoteId: String?, onSuccess: suspend () -> Unit) = changes.add(
+            PendingChange(
+                BatchRequest.Request(
+                    id = changes.size.toString(),
+                    method = "DELETE",
+                    url = "$tasksUrl/$remoteId",
+                )
+            ) { onSuccess() }
+        )
+        for (caldavTask in caldavDao.getMoved(list)) {
+            if (caldavTask.lastSync == 0L) {
+                caldavDao.delete(caldavTask)
+            } else {
+                delete(caldavTask.remoteId) { caldavDao.delete(caldavTask) }
+            }
+        }
+        for (change in caldavDao.getCaldavTasksToPush(list)) {
+            val task = change.task
+            val caldavTask = change.caldavTask
+            val isNew = caldavTask.lastSync == 0L
+            if (task.isDeleted) {
+                if (isNew) {
+                    taskDeleter.delete(task.id)
+                } else {
+                    delete(caldavTask.remoteId) { taskDeleter.delete(task.id) }
+                }
+                continue
+            }
+            val body = task
+                .toRemote(caldavTask, tagDataDao.getTagDataForTask(task.id))
+                .copy(id = null, createdDateTime = null, lastModifiedDateTime = null)
+            changes.add(
+                PendingChange(
+                    BatchRequest.Request(
+                        id = changes.size.toString(),
+                        method = if (isNew) "POST" else "PATCH",
+                        url = if (isNew) tasksUrl else "$tasksUrl/${caldavTask.remoteId}",
+                        headers = mapOf("Content-Type" to "application/json"),
+                        body = body,
+                    )
+                ) { response ->
+                    response.body?.id?.let { caldavTask.remoteId = it }
+                    caldavTask.etag = response.body?.etag
+                    caldavTask.lastSync = task.modificationDate
+                    caldavDao.update(caldavTask)
+                }
+            )
+        }
+        changes.chunked(BatchRequest.MAX_REQUESTS).forEach { chunk ->
+            val pending = chunk.associateBy { it.request.id }
+            val responses = service
+                .batch(BatchRequest(chunk.map { it.request }))
+                .bodyOrThrow()
+                .responses
+            database.withTransaction {
+                responses.forEach { response ->
+                    val change = pending[response.id] ?: return@forEach
+                    val request = change.request
+                    if (response.isSuccessful ||
+                        (request.method == "DELETE" && response.status == 404)) {
+                        change.onSuccess(response)
+                    } else {
+                        // left dirty, retried on the next sync
+                        Timber.e("${request.method} ${request.url} failed: ${response.status}")
+                    }
+                }
+            }
+        }
+    }
+
+    private suspend fun setError(account: CaldavAccount, message: String?) {
+        account.error = message
+        caldavDao.update(account)
+        localBroadcastManager.broadcastRefreshList()
+        if (!message.isNullOrBlank()) {
+            Timber.e(message)
+        }
+    }
+
+    companion object {
+        private fun <T> Response<T>.bodyOrThrow(): T =
+            takeIf { it.isSuccessful }?.body() ?: throw HttpException(this)
+    }
+}
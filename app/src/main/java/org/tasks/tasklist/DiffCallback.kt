@@ -40,6 +40,9 @@ internal class DiffCallback(
         }
         val oldItem = old.getItem(oldPosition)
         val newItem = new.getItem(newPosition)
-        return !refreshDates && oldItem == newItem && oldItem.indent == adapter.getIndent(newItem)
+        return !refreshDates &&
+                oldItem == newItem &&
+                oldItem.indent == adapter.getIndent(newItem) &&
+                (old.chipsVersion == new.chipsVersion || old.getChips(oldItem) == new.getChips(newItem))
     }
 }
\ No newline at end of file
@@ -12,18 +12,26 @@ import androidx.recyclerview.widget.ItemTouchHelper.LEFT
 import androidx.recyclerview.widget.ItemTouchHelper.RIGHT
 import androidx.recyclerview.widget.ItemTouchHelper.UP
 import androidx.recyclerview.widget.RecyclerView
+import androidx.room.withTransaction
 import com.todoroo.astrid.activity.TaskListFragment
 import com.todoroo.astrid.adapter.TaskAdapter
 import com.todoroo.astrid.utility.Flags
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.asCoroutineDispatcher
 import kotlinx.coroutines.channels.Channel
-import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
 import org.tasks.activities.DragAndDropDiffer
 import org.tasks.data.TaskContainer
+import org.tasks.data.db.Database
+import org.tasks.events.ChangeEventBus
 import org.tasks.preferences.Preferences
 import org.tasks.ui.TaskListViewModel.UiItem
+import timber.log.Timber
 import java.util.LinkedList
 import java.util.Queue
 import java.util.concurrent.Executors
@@ -37,6 +45,8 @@ class DragAndDropRecyclerAdapter(
     private val taskList: TaskListFragment,
     tasks: SectionedDataSource,
     preferences: Preferences,
+    private val database: Database,
+    private val changeEventBus: ChangeEventBus,
     private val toggleCollapsed: (Long) -> Unit,
 ) : TaskListRecyclerAdapter(adapter, viewHolderFactory, taskList, preferences), DragAndDropDiffer<UiItem, SectionedDataSource> {
     private val itemTouchHelper = ItemTouchHelper(ItemTouchHelperCallback()).apply {
@@ -48,6 +58,7 @@ class DragAndDropRecyclerAdapter(
     override val scope: CoroutineScope =
             CoroutineScope(Executors.newSingleThreadExecutor().asCoroutineDispatcher() + Job())
     override var items = initializeDiffer(tasks)
+    private val moves = Mutex()
 
     override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
         val viewType = getItemViewType(position)
@@ -89,6 +100,8 @@ class DragAndDropRecyclerAdapter(
 
     override fun getItem(position: Int) = items.getItem(position)
 
+    override fun getChips(task: TaskContainer) = items.getChips(task)
+
     override fun diff(last: SectionedDataSource, next: SectionedDataSource) =
         DiffUtil.calculateDiff(DiffCallback(last, next, adapter), next.size < LONG_LIST_SIZE)
 
@@ -246,13 +259,37 @@ class DragAndDropRecyclerAdapter(
             } else {
                 from
             }
-            runBlocking {
-                // too much state change happens here, need to rewrite a bunch of stuff
-                adapter.moved(from, to, indent)
-            }
+            val snapshot = MoveSnapshot.of(
+                items,
+                manualSort = taskList.getFilter().supportsManualSort() && preferences.isManualSort,
+            )
             val task: TaskContainer = items.removeAt(from)
             items.add(if (from < to) to - 1 else to, task)
-            taskList.loadTaskListContent()
+            scope.launch {
+                moves.withLock {
+                    try {
+                        changeEventBus.batch {
+                            if (adapter.supportsAstridSorting()) {
+                                // the manual sort tree is only modified on the main thread
+                                withContext(Dispatchers.Main) {
+                                    adapter.moved(snapshot, from, to, indent)
+                                }
+                            } else {
+                                database.withTransaction {
+                                    snapshot.refresh(database)
+                                    adapter.moved(snapshot, from, to, indent)
+                                }
+                            }
+                        }
+                    } catch (e: Exception) {
+                        Timber.e(e)
+                        // undo the optimistic move
+                        withContext(Dispatchers.Main) {
+                            taskList.loadTaskListContent()
+                        }
+                    }
+                }
+            }
         }
     }
 
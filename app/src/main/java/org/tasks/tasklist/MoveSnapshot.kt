@@ -0,0 +1,78 @@
+package org.tasks.tasklist
+
+import com.todoroo.astrid.adapter.TaskAdapterDataSource
+import com.todoroo.astrid.core.SortHelper.SORT_MANUAL
+import org.tasks.data.TaskContainer
+import org.tasks.data.dao.CaldavDao.Companion.toAppleEpoch
+import org.tasks.data.db.Database
+
+/**
+ * The list as it was when a task was dropped, used to persist the move in the background.
+ *
+ * Drops are applied to the visible list right away, so its rows keep the sort order, parent and
+ * list they had when the list was last loaded. Call [refresh] inside the transaction that persists
+ * the move so that a drop queued behind another one doesn't use positions the first drop changed.
+ */
+class MoveSnapshot(
+    tasks: List<TaskContainer?>,
+    private val headers: List<Boolean> = List(tasks.size) { false },
+    private val nearestHeaders: LongArray = LongArray(tasks.size) { -1 },
+    private val taskCount: Int = tasks.size,
+    override val sortMode: Int = -1,
+    override val subtaskSortMode: Int = -1,
+    private val manualSort: Boolean = false,
+) : TaskAdapterDataSource {
+    private val tasks = tasks.toMutableList()
+
+    suspend fun refresh(database: Database) {
+        val ids = tasks.mapNotNull { it?.id }
+        val fresh = database.taskDao().fetch(ids).associateBy { it.id }
+        val caldavTasks = database.caldavDao().getTasks(ids).associateBy { it.task }
+        tasks.forEachIndexed { index, item ->
+            val task = item?.let { fresh[it.id] } ?: return@forEachIndexed
+            val order = task.order ?: task.creationDate.toAppleEpoch()
+            tasks[index] = item.copy(
+                task = task,
+                caldavTask = caldavTasks[task.id] ?: item.caldavTask,
+                primarySort = if (manualSort && item.indent == 0) order else item.primarySort,
+                secondarySort = if (item.indent > 0 && (manualSort || subtaskSortMode == SORT_MANUAL)) {
+                    order
+                } else {
+                    item.secondarySort
+                },
+            )
+        }
+    }
+
+    override fun getItem(position: Int) = tasks[position]
+
+    override fun getTaskCount() = taskCount
+
+    override fun isHeader(position: Int) = headers[position]
+
+    override fun nearestHeader(position: Int) =
+        if (position < 0) -1 else nearestHeaders[minOf(position, tasks.lastIndex)]
+
+    companion object {
+        fun of(items: SectionedDataSource, manualSort: Boolean): MoveSnapshot {
+            val headers = List(items.size) { items.isHeader(it) }
+            val nearestHeaders = LongArray(items.size)
+            var header = -1L
+            for (i in headers.indices) {
+                if (headers[i]) {
+                    header = items.getHeaderValue(i)
+                }
+                nearestHeaders[i] = header
+            }
+            return MoveSnapshot(
+                tasks = List(items.size) { items.getItem(it) },
+                headers = headers,
+                nearestHeaders = nearestHeaders,
+                taskCount = items.taskCount,
+                sortMode = items.groupMode,
+                subtaskSortMode = items.subtaskMode,
+                manualSort = manualSort,
+            )
+        }
+    }
+}
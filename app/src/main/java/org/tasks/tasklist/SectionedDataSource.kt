@@ -6,6 +6,7 @@ import com.todoroo.astrid.core.SortHelper
 import org.tasks.data.TaskContainer
 import org.tasks.time.DateTimeUtils.startOfDay
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
+import org.tasks.ui.ChipListCache.Chips
 import org.tasks.ui.TaskListViewModel.UiItem
 
 class SectionedDataSource(
@@ -15,6 +16,8 @@ class SectionedDataSource(
     val subtaskMode: Int = SortHelper.SORT_MANUAL,
     private val collapsed: Set<Long> = emptySet(),
     private val completedAtBottom: Boolean = true,
+    private val chips: Map<Long, Chips> = emptyMap(),
+    val chipsVersion: Long = 0,
 ): List<UiItem> {
     private val tasks = tasks.toMutableList()
 
@@ -26,6 +29,8 @@ class SectionedDataSource(
 
     fun getItem(position: Int): TaskContainer = tasks[sectionedPositionToPosition(position)]
 
+    fun getChips(task: TaskContainer): Chips = chips[task.id] ?: Chips.EMPTY
+
     fun getHeaderValue(position: Int): Long = getSection(position).value
 
     fun isHeader(position: Int) = sections[position] != null
@@ -8,7 +8,9 @@ import com.todoroo.astrid.adapter.TaskAdapter
 import com.todoroo.astrid.adapter.TaskAdapterDataSource
 import com.todoroo.astrid.api.AstridOrderingFilter
 import com.todoroo.astrid.core.SortHelper
+import org.tasks.data.TaskContainer
 import org.tasks.preferences.Preferences
+import org.tasks.ui.ChipListCache.Chips
 
 abstract class TaskListRecyclerAdapter internal constructor(
         private val adapter: TaskAdapter,
@@ -28,7 +30,12 @@ abstract class TaskListRecyclerAdapter internal constructor(
         val task = getItem(position)
         if (task != null) {
             (holder as TaskViewHolder)
-                    .bindView(task, filter, if (groupsEnabled) preferences.groupMode else SortHelper.GROUP_NONE)
+                    .bindView(
+                        task = task,
+                        chips = getChips(task),
+                        filter = filter,
+                        sortMode = if (groupsEnabled) preferences.groupMode else SortHelper.GROUP_NONE,
+                    )
             holder.moving = false
             val indent = adapter.getIndent(task)
             task.indent = indent
@@ -52,6 +59,8 @@ abstract class TaskListRecyclerAdapter internal constructor(
 
     abstract fun submitList(list: SectionedDataSource)
 
+    abstract fun getChips(task: TaskContainer): Chips
+
     override fun onInserted(position: Int, count: Int) {
         notifyItemRangeInserted(position, count)
     }
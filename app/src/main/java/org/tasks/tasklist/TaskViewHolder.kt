@@ -18,7 +18,6 @@ import com.todoroo.andlib.utility.DateUtilities
 import com.todoroo.astrid.api.CaldavFilter
 import com.todoroo.astrid.api.Filter
 import com.todoroo.astrid.api.GtasksFilter
-import com.todoroo.astrid.api.TagFilter
 import com.todoroo.astrid.core.SortHelper.SORT_DUE
 import com.todoroo.astrid.core.SortHelper.SORT_LIST
 import com.todoroo.astrid.core.SortHelper.SORT_START
@@ -37,10 +36,12 @@ import org.tasks.date.DateTimeUtils.newDateTime
 import org.tasks.dialogs.Linkify
 import org.tasks.filters.PlaceFilter
 import org.tasks.markdown.Markdown
+import org.tasks.markdown.MarkdownCache
 import org.tasks.preferences.Preferences
 import org.tasks.time.DateTimeUtils.startOfDay
 import org.tasks.time.DateTimeUtils2.currentTimeMillis
 import org.tasks.ui.CheckBoxProvider
+import org.tasks.ui.ChipListCache.Chips
 import org.tasks.ui.ChipProvider
 import java.time.format.FormatStyle
 import java.util.Locale
@@ -64,7 +65,9 @@ class TaskViewHolder internal constructor(
     private val rowPaddingPx: Int,
     private val linkify: Linkify,
     private val locale: Locale,
-    private val markdown: Markdown
+    private val markdown: Markdown,
+    private val markdownCache: MarkdownCache,
+    private val markdownVariant: String,
 ) : RecyclerView.ViewHolder(binding.root) {
     private val row: ViewGroup = binding.row
     private val dueDate: TextView = binding.dueDate.apply {
@@ -147,19 +150,20 @@ class TaskViewHolder internal constructor(
 
     private fun getIndentSize(indent: Int) = (indent * shiftSize).roundToInt()
 
-    fun bindView(task: TaskContainer, filter: Filter, sortMode: Int) {
+    fun bindView(task: TaskContainer, chips: Chips, filter: Filter, sortMode: Int) {
         this.task = task
         indent = task.indent
-        markdown.setMarkdown(nameView, task.title)
+        markdownCache.bind(nameView, markdown, markdownKey(notes = false), task.title)
         setupTitleAndCheckbox()
         setupDueDate(sortMode == SORT_DUE)
         setupChips(
+            chips = chips,
             filter = filter,
             sortByStartDate = sortMode == SORT_START,
             sortByList = sortMode == SORT_LIST
         )
         if (preferences.getBoolean(R.string.p_show_description, true)) {
-            markdown.setMarkdown(description, task.notes)
+            markdownCache.bind(description, markdown, markdownKey(notes = true), task.notes)
             description.visibility = if (task.task.hasNotes()) View.VISIBLE else View.GONE
         }
         if (markdown.enabled || preferences.getBoolean(R.string.p_linkify_task_list, false)) {
@@ -194,6 +198,9 @@ class TaskViewHolder internal constructor(
         }
     }
 
+    private fun markdownKey(notes: Boolean) =
+        MarkdownCache.Key(task.id, task.task.modificationDate, notes, markdownVariant)
+
     private fun setupTitleAndCheckbox() {
         if (task.isCompleted) {
             nameView.setTextColor(context.getColor(R.color.text_tertiary))
@@ -231,7 +238,7 @@ class TaskViewHolder internal constructor(
         }
     }
 
-    private fun setupChips(filter: Filter, sortByStartDate: Boolean, sortByList: Boolean) {
+    private fun setupChips(chips: Chips, filter: Filter, sortByStartDate: Boolean, sortByList: Boolean) {
         val id = task.id
         val children = task.children
         val collapsed = task.isCollapsed
@@ -239,10 +246,7 @@ class TaskViewHolder internal constructor(
         val sortGroup = task.sortGroup
         val startDate = task.task.hideUntil
         val place = task.location?.place
-        val list = task.caldav
-        val tagsString = task.tagsString
         val isSubtask = task.hasParent()
-        val isGoogleTask = task.isGoogleTask
         val appearance = preferences.getIntegerFromString(R.string.p_chip_appearance, 0)
         val showText = appearance != 2
         val showIcon = appearance != 1
@@ -285,20 +289,27 @@ class TaskViewHolder internal constructor(
                     }
 
                     if (
+                        chips.list != null &&
                         !isSubtask &&
                         !sortByList &&
                         preferences.showListChip &&
                         filter !is CaldavFilter &&
                         filter !is GtasksFilter
                     ) {
-                        remember(list, isGoogleTask) {
-                            chipProvider.lists
-                                .getCaldavList(list)
-                                ?.let { if (isGoogleTask) GtasksFilter(it) else CaldavFilter(it) }
-                        }?.let {
+                        FilterChip(
+                            filter = chips.list,
+                            defaultIcon = R.drawable.ic_list_24px,
+                            onClick = onClick,
+                            showText = showText,
+                            showIcon = showIcon,
+                            colorProvider = { chipProvider.getColor(it) },
+                        )
+                    }
+                    if (chips.tags.isNotEmpty() && remember { preferences.showTagChip }) {
+                        chips.tags.forEach {
                             FilterChip(
                                 filter = it,
-                                defaultIcon = R.drawable.ic_list_24px,
+                                defaultIcon = R.drawable.ic_outline_label_24px,
                                 onClick = onClick,
                                 showText = showText,
                                 showIcon = showIcon,
@@ -306,26 +317,6 @@ class TaskViewHolder internal constructor(
                             )
                         }
                     }
-                    if (!tagsString.isNullOrBlank() && remember { preferences.showTagChip }) {
-                        remember(tagsString, filter) {
-                            val tags = tagsString.split(",").toHashSet()
-                            if (filter is TagFilter) {
-                                tags.remove(filter.uuid)
-                            }
-                            tags.mapNotNull { chipProvider.lists.getTag(it) }
-                                .sortedBy(TagFilter::title)
-                        }
-                            .forEach {
-                                FilterChip(
-                                    filter = it,
-                                    defaultIcon = R.drawable.ic_outline_label_24px,
-                                    onClick = onClick,
-                                    showText = showText,
-                                    showIcon = showIcon,
-                                    colorProvider = { chipProvider.getColor(it) },
-                                )
-                            }
-                    }
                 }
             }
         }
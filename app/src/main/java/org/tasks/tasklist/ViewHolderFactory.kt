@@ -2,6 +2,7 @@ package org.tasks.tasklist
 
 import android.app.Activity
 import android.content.Context
+import android.content.res.Configuration
 import android.util.DisplayMetrics
 import android.view.LayoutInflater
 import android.view.ViewGroup
@@ -10,6 +11,7 @@ import dagger.hilt.android.qualifiers.ActivityContext
 import org.tasks.R
 import org.tasks.databinding.TaskAdapterRowBinding
 import org.tasks.dialogs.Linkify
+import org.tasks.markdown.MarkdownCache
 import org.tasks.markdown.MarkdownProvider
 import org.tasks.preferences.Preferences
 import org.tasks.preferences.ResourceResolver
@@ -27,6 +29,7 @@ class ViewHolderFactory @Inject constructor(
         private val linkify: Linkify,
         private val locale: Locale,
         private val headerFormatter: HeaderFormatter,
+        private val markdownCache: MarkdownCache,
 ) {
     private val textColorSecondary: Int = ResourceResolver.getData(context, android.R.attr.textColorSecondary)
     private val textColorOverdue: Int = context.getColor(R.color.overdue)
@@ -38,6 +41,9 @@ class ViewHolderFactory @Inject constructor(
     private val rowPaddingPx: Int = AndroidUtilities.convertDpToPixels(metrics, rowPaddingDp)
     private val markdown =
         MarkdownProvider(context, preferences).markdown(R.string.p_linkify_task_list)
+    private val markdownVariant = "list:" +
+            preferences.getBoolean(R.string.p_linkify_task_list, false) + ":" +
+            (context.resources.configuration.uiMode and Configuration.UI_MODE_NIGHT_MASK)
 
     fun newHeaderViewHolder(parent: ViewGroup?, callback: (Long) -> Unit) =
             HeaderViewHolder(
@@ -65,6 +71,8 @@ class ViewHolderFactory @Inject constructor(
                     rowPaddingPx,
                     linkify,
                     locale,
-                    markdown
+                    markdown,
+                    markdownCache,
+                    markdownVariant,
             )
 }
\ No newline at end of file
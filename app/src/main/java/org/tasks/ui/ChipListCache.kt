@@ -1,47 +1,95 @@
 package org.tasks.ui
 
+import com.todoroo.astrid.api.CaldavFilter
+import com.todoroo.astrid.api.Filter
+import com.todoroo.astrid.api.GtasksFilter
 import com.todoroo.astrid.api.TagFilter
 import kotlinx.coroutines.GlobalScope
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.drop
 import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.onEach
-import org.tasks.LocalBroadcastManager
+import kotlinx.coroutines.flow.update
+import org.tasks.data.TaskContainer
 import org.tasks.data.dao.CaldavDao
 import org.tasks.data.dao.TagDataDao
 import org.tasks.data.entity.CaldavCalendar
-import org.tasks.data.entity.TagData
+import org.tasks.widget.AppWidgetManager
 import javax.inject.Inject
 import javax.inject.Singleton
 
+/**
+ * Lists and tags for chips. The task list recomputes its chips from [snapshot], widgets look them
+ * up while drawing and are redrawn whenever the snapshot changes.
+ */
 @Singleton
 class ChipListCache @Inject internal constructor(
     caldavDao: CaldavDao,
     tagDataDao: TagDataDao,
-    private val localBroadcastManager: LocalBroadcastManager) {
-
-    private val caldavCalendars: MutableMap<String?, CaldavCalendar> = HashMap()
-    private val tagDatas: MutableMap<String?, TagFilter> = HashMap()
-    private fun updateCaldavCalendars(updated: List<CaldavCalendar>) {
-        caldavCalendars.clear()
-        for (update in updated) {
-            caldavCalendars[update.uuid] = update
+    appWidgetManager: AppWidgetManager,
+) {
+    /** List and tag lookups as of [version]. Changes replace the whole snapshot. */
+    data class Snapshot(
+        val version: Long = 0,
+        val lists: Map<String?, CaldavCalendar> = emptyMap(),
+        val tags: Map<String?, TagFilter> = emptyMap(),
+    ) {
+        /** Resolves chips for [tasks] as they should appear when viewing [filter] */
+        fun getChips(tasks: List<TaskContainer>, filter: Filter): Map<Long, Chips> {
+            val chips = HashMap<Long, Chips>()
+            for (task in tasks) {
+                val list = lists[task.caldav]
+                    ?.let { if (task.isGoogleTask) GtasksFilter(it) else CaldavFilter(it) }
+                val taskTags = task.tagsString
+                    ?.takeIf { it.isNotBlank() }
+                    ?.split(",")
+                    ?.toHashSet()
+                    ?.apply { if (filter is TagFilter) remove(filter.uuid) }
+                    ?.mapNotNull { tags[it] }
+                    ?.sortedBy(TagFilter::title)
+                    ?: emptyList()
+                if (list != null || taskTags.isNotEmpty()) {
+                    chips[task.id] = Chips(list, taskTags)
+                }
+            }
+            return chips
         }
-        localBroadcastManager.broadcastRefresh()
     }
 
-    private fun updateTags(updated: List<TagData>) {
-        tagDatas.clear()
-        for (update in updated) {
-            tagDatas[update.remoteId] = TagFilter(update)
+    data class Chips(
+        val list: Filter? = null,
+        val tags: List<TagFilter> = emptyList(),
+    ) {
+        companion object {
+            val EMPTY = Chips()
         }
-        localBroadcastManager.broadcastRefresh()
     }
 
-    fun getCaldavList(caldav: String?): CaldavCalendar? = caldavCalendars[caldav]
+    private val _snapshot = MutableStateFlow(Snapshot())
+    val snapshot: StateFlow<Snapshot> = _snapshot.asStateFlow()
+
+    fun getCaldavList(caldav: String?): CaldavCalendar? = _snapshot.value.lists[caldav]
 
-    fun getTag(tag: String?): TagFilter? = tagDatas[tag]
+    fun getTag(tag: String?): TagFilter? = _snapshot.value.tags[tag]
 
     init {
-        caldavDao.subscribeToCalendars().onEach { updateCaldavCalendars(it) }.launchIn(GlobalScope)
-        tagDataDao.subscribeToTags().onEach { updateTags(it) }.launchIn(GlobalScope)
+        caldavDao.subscribeToCalendars()
+            .onEach { calendars ->
+                val lists = calendars.associateBy { it.uuid }
+                _snapshot.update { it.copy(version = it.version + 1, lists = lists) }
+            }
+            .launchIn(GlobalScope)
+        tagDataDao.subscribeToTags()
+            .onEach { tagDatas ->
+                val tags = tagDatas.associate { it.remoteId to TagFilter(it) }
+                _snapshot.update { it.copy(version = it.version + 1, tags = tags) }
+            }
+            .launchIn(GlobalScope)
+        snapshot
+            .drop(1)
+            .onEach { appWidgetManager.updateWidgets() }
+            .launchIn(GlobalScope)
     }
-}
\ No newline at end of file
+}
@@ -10,7 +10,6 @@ import javax.inject.Inject
 class ChipProvider @Inject constructor(
     private val activity: Activity,
     private val inventory: Inventory,
-    val lists: ChipListCache,
     private val colorProvider: ColorProvider,
 ) {
 
@@ -7,6 +7,7 @@ import androidx.core.net.toUri
 import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.room.withTransaction
 import com.todoroo.astrid.activity.TaskEditFragment
 import com.todoroo.astrid.alarms.AlarmService
 import com.todoroo.astrid.api.CaldavFilter
@@ -41,6 +42,7 @@ import org.tasks.data.dao.TagDao
 import org.tasks.data.dao.TagDataDao
 import org.tasks.data.dao.TaskAttachmentDao
 import org.tasks.data.dao.UserActivityDao
+import org.tasks.data.db.Database
 import org.tasks.data.entity.Alarm
 import org.tasks.data.entity.Alarm.Companion.TYPE_REL_END
 import org.tasks.data.entity.Alarm.Companion.TYPE_REL_START
@@ -50,6 +52,7 @@ import org.tasks.data.entity.Alarm.Companion.whenStarted
 import org.tasks.data.entity.Attachment
 import org.tasks.data.entity.CaldavTask
 import org.tasks.data.entity.FORCE_CALDAV_SYNC
+import org.tasks.data.entity.Place
 import org.tasks.data.entity.TagData
 import org.tasks.data.entity.Task
 import org.tasks.data.entity.Task.Companion.NOTIFY_MODE_FIVE
@@ -57,7 +60,9 @@ import org.tasks.data.entity.Task.Companion.NOTIFY_MODE_NONSTOP
 import org.tasks.data.entity.Task.Companion.hasDueTime
 import org.tasks.data.entity.TaskAttachment
 import org.tasks.data.entity.UserActivity
+import org.tasks.data.setPicture
 import org.tasks.date.DateTimeUtils.toDateTime
+import org.tasks.events.ChangeEventBus
 import org.tasks.files.FileHelper
 import org.tasks.location.GeofenceApi
 import org.tasks.preferences.PermissionChecker
@@ -93,6 +98,8 @@ class TaskEditViewModel @Inject constructor(
     private val userActivityDao: UserActivityDao,
     private val alarmDao: AlarmDao,
     private val taskAttachmentDao: TaskAttachmentDao,
+    private val database: Database,
+    private val changeEventBus: ChangeEventBus,
 ) : ViewModel() {
     private val resources = context.resources
     private var cleared = false
@@ -279,127 +286,140 @@ class TaskEditViewModel @Inject constructor(
 
         applyCalendarChanges()
 
-        if (isNew) {
-            taskDao.createNew(task)
-        }
-
-        if ((isNew && selectedLocation.value != null) || originalLocation != selectedLocation.value) {
-            originalLocation?.let { location ->
-                if (location.geofence.id > 0) {
-                    locationDao.delete(location.geofence)
-                    geofenceApi.update(location.place)
+        changeEventBus.batch {
+            val places = ArrayList<Place>()
+            val saved = arrayListOf(task)
+            val moved = database.withTransaction {
+                if (isNew) {
+                    taskDao.createNew(task)
                 }
-            }
-            selectedLocation.value?.let { location ->
-                val place = location.place
-                locationDao.insert(
-                    location.geofence.copy(
-                        task = task.id,
-                        place = place.uid,
-                    )
-                )
-                geofenceApi.update(place)
-            }
-            task.putTransitory(FORCE_CALDAV_SYNC, true)
-            task.modificationDate = currentTimeMillis()
-        }
 
-        if ((isNew && selectedTags.value.isNotEmpty()) || originalTags.toHashSet() != selectedTags.value.toHashSet()) {
-            tagDao.applyTags(task, tagDataDao, selectedTags.value)
-            task.modificationDate = currentTimeMillis()
-        }
+                if ((isNew && selectedLocation.value != null) || originalLocation != selectedLocation.value) {
+                    originalLocation?.let { location ->
+                        if (location.geofence.id > 0) {
+                            locationDao.delete(location.geofence)
+                            places.add(location.place)
+                        }
+                    }
+                    selectedLocation.value?.let { location ->
+                        val place = location.place
+                        locationDao.insert(
+                            location.geofence.copy(
+                                task = task.id,
+                                place = place.uid,
+                            )
+                        )
+                        places.add(place)
+                    }
+                    task.putTransitory(FORCE_CALDAV_SYNC, true)
+                    task.modificationDate = currentTimeMillis()
+                }
 
-        if (!task.hasStartDate()) {
-            selectedAlarms.value = selectedAlarms.value.filterNot { a -> a.type == TYPE_REL_START }
-        }
-        if (!task.hasDueDate()) {
-            selectedAlarms.value = selectedAlarms.value.filterNot { a -> a.type == TYPE_REL_END }
-        }
+                if ((isNew && selectedTags.value.isNotEmpty()) || originalTags.toHashSet() != selectedTags.value.toHashSet()) {
+                    tagDao.applyTags(task, tagDataDao, selectedTags.value)
+                    task.modificationDate = currentTimeMillis()
+                }
 
-        if (
-            selectedAlarms.value.toHashSet() != originalAlarms.toHashSet() ||
-            (isNew && selectedAlarms.value.isNotEmpty())
-        ) {
-            alarmService.synchronizeAlarms(task.id, selectedAlarms.value.toMutableSet())
-            task.putTransitory(FORCE_CALDAV_SYNC, true)
-            task.modificationDate = currentTimeMillis()
-        }
+                if (!task.hasStartDate()) {
+                    selectedAlarms.value = selectedAlarms.value.filterNot { a -> a.type == TYPE_REL_START }
+                }
+                if (!task.hasDueDate()) {
+                    selectedAlarms.value = selectedAlarms.value.filterNot { a -> a.type == TYPE_REL_END }
+                }
 
-        taskDao.save(task, null)
+                if (
+                    selectedAlarms.value.toHashSet() != originalAlarms.toHashSet() ||
+                    (isNew && selectedAlarms.value.isNotEmpty())
+                ) {
+                    alarmService.replaceAlarms(task.id, selectedAlarms.value.toMutableSet())
+                    task.putTransitory(FORCE_CALDAV_SYNC, true)
+                    task.modificationDate = currentTimeMillis()
+                }
 
-        if (isNew || originalList != selectedList.value) {
-            task.parent = 0
-            taskMover.move(listOf(task.id), selectedList.value)
-        }
+                taskDao.update(task, null)
 
-        for (subtask in newSubtasks.value) {
-            if (Strings.isNullOrEmpty(subtask.title)) {
-                continue
-            }
-            if (!subtask.isCompleted) {
-                subtask.completionDate = task.completionDate
-            }
-            taskDao.createNew(subtask)
-            alarmDao.insert(subtask.getDefaultAlarms())
-            firebase?.addTask("subtasks")
-            when (val filter = selectedList.value) {
-                is GtasksFilter -> {
-                    val googleTask = CaldavTask(
-                        task = subtask.id,
-                        calendar = filter.remoteId,
-                        remoteId = null,
-                    )
-                    subtask.parent = task.id
-                    googleTask.isMoved = true
-                    googleTaskDao.insertAndShift(
-                        task = subtask,
-                        caldavTask = googleTask,
-                        top = if (isNew) false else preferences.addTasksToTop()
-                    )
-                }
-                is CaldavFilter -> {
-                    val caldavTask = CaldavTask(
-                        task = subtask.id,
-                        calendar = filter.uuid,
-                    )
-                    subtask.parent = task.id
-                    caldavTask.remoteParent = caldavDao.getRemoteIdForTask(task.id)
-                    taskDao.save(subtask)
-                    caldavDao.insert(
-                        task = subtask,
-                        caldavTask = caldavTask,
-                        addToTop = if (isNew) false else preferences.addTasksToTop()
-                    )
+                val movedTasks = if (isNew || originalList != selectedList.value) {
+                    task.parent = 0
+                    taskMover.moveTasks(listOf(task.id), selectedList.value)
+                } else {
+                    null
                 }
-                else -> {
-                    subtask.parent = task.id
-                    taskDao.save(subtask)
+
+                for (subtask in newSubtasks.value) {
+                    if (Strings.isNullOrEmpty(subtask.title)) {
+                        continue
+                    }
+                    if (!subtask.isCompleted) {
+                        subtask.completionDate = task.completionDate
+                    }
+                    taskDao.createNew(subtask)
+                    alarmDao.insert(subtask.getDefaultAlarms())
+                    firebase?.addTask("subtasks")
+                    when (val filter = selectedList.value) {
+                        is GtasksFilter -> {
+                            val googleTask = CaldavTask(
+                                task = subtask.id,
+                                calendar = filter.remoteId,
+                                remoteId = null,
+                            )
+                            subtask.parent = task.id
+                            googleTask.isMoved = true
+                            googleTaskDao.insertAndShift(
+                                task = subtask,
+                                caldavTask = googleTask,
+                                top = if (isNew) false else preferences.addTasksToTop()
+                            )
+                        }
+                        is CaldavFilter -> {
+                            val caldavTask = CaldavTask(
+                                task = subtask.id,
+                                calendar = filter.uuid,
+                            )
+                            subtask.parent = task.id
+                            caldavTask.remoteParent = caldavDao.getRemoteIdForTask(task.id)
+                            taskDao.update(subtask, null)
+                            caldavDao.insert(
+                                task = subtask,
+                                caldavTask = caldavTask,
+                                addToTop = if (isNew) false else preferences.addTasksToTop()
+                            )
+                        }
+                        else -> {
+                            subtask.parent = task.id
+                            taskDao.update(subtask, null)
+                        }
+                    }
+                    saved.add(subtask)
                 }
-            }
-        }
 
-        if (
-            this@TaskEditViewModel::originalAttachments.isInitialized &&
-            selectedAttachments.value.toHashSet() != originalAttachments.toHashSet()
-        ) {
-            originalAttachments
-                .minus(selectedAttachments.value.toSet())
-                .map { it.remoteId }
-                .let { taskAttachmentDao.delete(task.id, it) }
-            selectedAttachments.value
-                .minus(originalAttachments.toSet())
-                .map {
-                    Attachment(
-                        task = task.id,
-                        fileId = it.id!!,
-                        attachmentUid = it.remoteId,
-                    )
+                if (
+                    this@TaskEditViewModel::originalAttachments.isInitialized &&
+                    selectedAttachments.value.toHashSet() != originalAttachments.toHashSet()
+                ) {
+                    originalAttachments
+                        .minus(selectedAttachments.value.toSet())
+                        .map { it.remoteId }
+                        .let { taskAttachmentDao.delete(task.id, it) }
+                    selectedAttachments.value
+                        .minus(originalAttachments.toSet())
+                        .map {
+                            Attachment(
+                                task = task.id,
+                                fileId = it.id!!,
+                                attachmentUid = it.remoteId,
+                            )
+                        }
+                        .let { taskAttachmentDao.insert(it) }
                 }
-                .let { taskAttachmentDao.insert(it) }
-        }
+                movedTasks
+            }
 
-        if (task.isCompleted != completed) {
-            taskCompleter.setComplete(task, completed)
+            places.distinct().forEach { geofenceApi.update(it) }
+            moved?.let { taskMover.afterMove(it, selectedList.value) }
+            taskDao.afterSave(saved, emptyMap())
+            if (task.isCompleted != completed) {
+                taskCompleter.setComplete(task, completed)
+            }
         }
 
         if (isNew) {
@@ -7,6 +7,7 @@ import android.content.Intent
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.todoroo.astrid.api.AstridOrderingFilter
+import com.todoroo.astrid.api.CaldavFilter
 import com.todoroo.astrid.api.EmptyFilter
 import com.todoroo.astrid.api.Filter
 import com.todoroo.astrid.api.FilterImpl
@@ -18,6 +19,7 @@ import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.launchIn
@@ -34,9 +36,10 @@ import org.tasks.data.dao.DeletionDao
 import org.tasks.data.entity.Task
 import org.tasks.data.TaskContainer
 import org.tasks.data.dao.TaskDao
-import org.tasks.data.TaskListQuery.getQuery
+import org.tasks.data.TaskListQuery.getCompiledQuery
 import org.tasks.data.fetchTasks
 import org.tasks.db.QueryUtils
+import org.tasks.events.ChangeEvent
 import org.tasks.preferences.Preferences
 import org.tasks.preferences.QueryPreferences
 import org.tasks.tasklist.SectionedDataSource
@@ -54,6 +57,7 @@ class TaskListViewModel @Inject constructor(
     private val localBroadcastManager: LocalBroadcastManager,
     private val inventory: Inventory,
     private val firebase: Firebase,
+    private val chipListCache: ChipListCache,
 ) : ViewModel() {
 
     sealed class UiItem {
@@ -81,6 +85,15 @@ class TaskListViewModel @Inject constructor(
 
     private val refreshReceiver = object : BroadcastReceiver() {
         override fun onReceive(context: Context?, intent: Intent?) {
+            val event = ChangeEvent.fromIntent(intent)
+            val filter = _state.value.filter
+            if (
+                filter is CaldavFilter &&
+                event.kinds == setOf(ChangeEvent.Kind.SYNC) &&
+                !event.affectsList(filter.uuid)
+            ) {
+                return
+            }
             invalidate()
         }
     }
@@ -148,9 +161,13 @@ class TaskListViewModel @Inject constructor(
                     it.searchQuery.isBlank() -> BuiltInFilterExposer.getMyTasksFilter(context.resources)
                     else -> context.createSearchQuery(it.searchQuery)
                 }
-                taskDao.fetchTasks { getQuery(preferences, filter) }
+                it.filter to taskDao.fetchTasks(getCompiledQuery(preferences, filter))
+            }
+            // list and tag changes only recompute chips, the tasks are not queried again
+            .combine(chipListCache.snapshot) { (filter, tasks), lists ->
+                Triple(tasks, lists.getChips(tasks, filter), lists.version)
             }
-            .onEach { tasks ->
+            .onEach { (tasks, chips, chipsVersion) ->
                 _state.update {
                     it.copy(
                         tasks = TasksResults.Results(
@@ -163,6 +180,8 @@ class TaskListViewModel @Inject constructor(
                                 subtaskMode = preferences.subtaskMode,
                                 collapsed = it.collapsed,
                                 completedAtBottom = preferences.completedTasksAtBottom,
+                                chips = chips,
+                                chipsVersion = chipsVersion,
                             )
                         )
                     )
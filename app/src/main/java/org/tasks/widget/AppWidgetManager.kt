@@ -28,8 +28,8 @@ class AppWidgetManager @Inject constructor(
         updateWidgets()
     }
 
-    fun updateWidgets() {
-        appWidgetManager?.notifyAppWidgetViewDataChanged(widgetIds, R.id.list_view)
+    fun updateWidgets(ids: IntArray = widgetIds) {
+        appWidgetManager?.notifyAppWidgetViewDataChanged(ids, R.id.list_view)
     }
 
     fun exists(id: Int) = appWidgetManager?.getAppWidgetInfo(id) != null
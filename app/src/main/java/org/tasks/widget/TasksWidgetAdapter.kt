@@ -9,6 +9,7 @@ import dagger.hilt.android.AndroidEntryPoint
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.runBlocking
 import org.tasks.data.dao.TaskDao
+import org.tasks.markdown.MarkdownCache
 import org.tasks.markdown.MarkdownProvider
 import org.tasks.preferences.DefaultFilterProvider
 import org.tasks.preferences.Preferences
@@ -26,6 +27,7 @@ class TasksWidgetAdapter : RemoteViewsService() {
     @Inject lateinit var locale: Locale
     @Inject lateinit var chipProvider: WidgetChipProvider
     @Inject lateinit var markdownProvider: MarkdownProvider
+    @Inject lateinit var markdownCache: MarkdownCache
     @Inject lateinit var headerFormatter: HeaderFormatter
 
     override fun onGetViewFactory(intent: Intent): RemoteViewsFactory? {
@@ -44,6 +46,7 @@ class TasksWidgetAdapter : RemoteViewsService() {
             locale,
             chipProvider,
             markdownProvider.markdown(false),
+            markdownCache,
             headerFormatter,
         )
     }
@@ -5,6 +5,7 @@ import android.content.Intent
 import android.view.View
 import android.widget.RemoteViews
 import android.widget.RemoteViewsService.RemoteViewsFactory
+import androidx.room.RoomRawQuery
 import com.todoroo.andlib.utility.DateUtilities
 import com.todoroo.astrid.api.AstridOrderingFilter
 import com.todoroo.astrid.api.Filter
@@ -15,7 +16,8 @@ import org.tasks.BuildConfig
 import org.tasks.R
 import org.tasks.data.TaskContainer
 import org.tasks.data.dao.TaskDao
-import org.tasks.data.TaskListQuery.getQuery
+import org.tasks.data.entity.Task
+import org.tasks.data.TaskListQuery.getCompiledQuery
 import org.tasks.data.hasNotes
 import org.tasks.data.isHidden
 import org.tasks.data.isOverdue
@@ -26,6 +28,7 @@ import org.tasks.extensions.setMaxLines
 import org.tasks.extensions.setTextSize
 import org.tasks.extensions.strikethrough
 import org.tasks.markdown.Markdown
+import org.tasks.markdown.MarkdownCache
 import org.tasks.tasklist.HeaderFormatter
 import org.tasks.tasklist.SectionedDataSource
 import org.tasks.themes.ColorProvider.Companion.priorityColor
@@ -47,6 +50,7 @@ internal class TasksWidgetViewFactory(
     private val locale: Locale,
     private val chipProvider: WidgetChipProvider,
     private val markdown: Markdown,
+    private val markdownCache: MarkdownCache,
     private val headerFormatter: HeaderFormatter,
 ) : RemoteViewsFactory {
     private val indentPadding = (20 * context.resources.displayMetrics.density).toInt()
@@ -69,7 +73,7 @@ internal class TasksWidgetViewFactory(
         runBlocking {
             val collapsed = widgetPreferences.collapsed
             tasks = SectionedDataSource(
-                taskDao.fetchTasks { getQuery(filter) },
+                taskDao.fetchTasks(getQuery(filter)),
                 disableGroups,
                 settings.groupMode,
                 widgetPreferences.subtaskMode,
@@ -171,7 +175,7 @@ internal class TasksWidgetViewFactory(
                 }
                 setTextViewText(
                     R.id.widget_text,
-                    markdown.toMarkdown(task.title)
+                    markdownCache.render(markdown, markdownKey(task, notes = false), task.title)
                 )
                 setTextColor(R.id.widget_text, textColorTitle)
                 if (settings.showDescription && task.hasNotes()) {
@@ -179,7 +183,7 @@ internal class TasksWidgetViewFactory(
                     setTextColor(R.id.widget_description, onSurfaceVariant)
                     setTextViewText(
                         R.id.widget_description,
-                        markdown.toMarkdown(task.notes)
+                        markdownCache.render(markdown, markdownKey(task, notes = true), task.notes)
                     )
                     setViewVisibility(R.id.widget_description, View.VISIBLE)
                     if (settings.showFullDescription) {
@@ -264,9 +268,9 @@ internal class TasksWidgetViewFactory(
 
     private fun getTask(position: Int): TaskContainer = tasks.getItem(position)
 
-    private suspend fun getQuery(filter: Filter): List<String> {
+    private suspend fun getQuery(filter: Filter): List<RoomRawQuery> {
         subtasksHelper.applySubtasksToWidgetFilter(filter, widgetPreferences)
-        return getQuery(widgetPreferences, filter)
+        return getCompiledQuery(widgetPreferences, filter)
     }
 
     private fun formatDueDate(row: RemoteViews, task: TaskContainer) = with(row) {
@@ -311,5 +315,7 @@ internal class TasksWidgetViewFactory(
             setViewVisibility(dueDateRes, View.GONE)
         }
     }
-}
 
+    private fun markdownKey(task: Task, notes: Boolean) =
+        MarkdownCache.Key(task.id, task.modificationDate, notes, "widget")
+}
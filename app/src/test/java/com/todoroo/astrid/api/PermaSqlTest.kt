@@ -0,0 +1,45 @@
+package com.todoroo.astrid.api
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PermaSqlTest {
+    @Test
+    fun bindPlaceholdersInOrder() {
+        val placeholders = ArrayList<String>()
+
+        val sql = PermaSql.replacePlaceholdersForBinding(
+            "dueDate < EODT() AND dueDate > NOW() AND hideUntil < EODT()",
+            placeholders
+        )
+
+        assertEquals("dueDate < ?1 AND dueDate > ?2 AND hideUntil < ?1", sql)
+        assertEquals(listOf("EODT()", "NOW()"), placeholders)
+    }
+
+    @Test
+    fun distinguishSimilarPlaceholders() {
+        val placeholders = ArrayList<String>()
+
+        val sql = PermaSql.replacePlaceholdersForBinding(
+            "EOD() EODY() EODTT() NOON() NOONTT()",
+            placeholders
+        )
+
+        assertEquals("?1 ?2 ?3 ?4 ?5", sql)
+        assertEquals(listOf("EOD()", "EODY()", "EODTT()", "NOON()", "NOONTT()"), placeholders)
+    }
+
+    @Test
+    fun ignoreStatementsWithoutPlaceholders() {
+        val placeholders = ArrayList<String>()
+
+        val sql = PermaSql.replacePlaceholdersForBinding(
+            "SELECT * FROM tasks WHERE hideUntil <= (strftime('%s','now')*1000)",
+            placeholders
+        )
+
+        assertEquals("SELECT * FROM tasks WHERE hideUntil <= (strftime('%s','now')*1000)", sql)
+        assertEquals(emptyList<String>(), placeholders)
+    }
+}
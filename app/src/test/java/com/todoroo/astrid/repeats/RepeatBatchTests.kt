@@ -0,0 +1,181 @@
+package com.todoroo.astrid.repeats
+
+import com.natpryce.makeiteasy.MakeItEasy.with
+import com.todoroo.andlib.utility.DateUtilities.ONE_HOUR
+import com.todoroo.astrid.alarms.AlarmService
+import com.todoroo.astrid.dao.TaskDao
+import com.todoroo.astrid.gcal.GCalHelper
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito.anyList
+import org.mockito.Mockito.anyLong
+import org.mockito.Mockito.anyMap
+import org.mockito.Mockito.anySet
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+import org.tasks.Freeze.Companion.freezeAt
+import org.tasks.LocalBroadcastManager
+import org.tasks.data.entity.Alarm
+import org.tasks.data.entity.Alarm.Companion.TYPE_DATE_TIME
+import org.tasks.data.entity.Alarm.Companion.TYPE_REL_END
+import org.tasks.data.entity.Alarm.Companion.TYPE_SNOOZE
+import org.tasks.data.entity.Task
+import org.tasks.makers.TaskMaker.AFTER_COMPLETE
+import org.tasks.makers.TaskMaker.COMPLETION_TIME
+import org.tasks.makers.TaskMaker.DUE_DATE
+import org.tasks.makers.TaskMaker.DUE_TIME
+import org.tasks.makers.TaskMaker.ID
+import org.tasks.makers.TaskMaker.RECUR
+import org.tasks.makers.TaskMaker.newTask
+import org.tasks.time.DateTime
+
+class RepeatBatchTests {
+    private val alarmService = mock(AlarmService::class.java)
+    private val helper = RepeatTaskHelper(
+        mock(GCalHelper::class.java),
+        alarmService,
+        mock(TaskDao::class.java),
+        mock(LocalBroadcastManager::class.java),
+    )
+    private val now = DateTime(2024, 3, 14, 9, 26, 53, 589)
+
+    @Before
+    fun before() {
+        runBlocking {
+            `when`(alarmService.getAlarms(anyLong())).thenReturn(emptyList())
+            `when`(alarmService.synchronizeAlarms(anyLong(), anySet())).thenReturn(false)
+            `when`(alarmService.getAlarms(anyList())).thenReturn(emptyMap())
+            `when`(alarmService.synchronizeAlarms(anyMap(), anyMap())).thenReturn(false)
+        }
+    }
+
+    @Test
+    fun matchesSingleTaskPath() = assertSameAsSingle(
+        dueTime("RRULE:FREQ=DAILY;INTERVAL=1", DateTime(2024, 3, 12, 14, 0)),
+        dueTime("RRULE:FREQ=DAILY;INTERVAL=1", DateTime(2024, 3, 12, 14, 0), afterComplete = true),
+        dueDate("RRULE:FREQ=DAILY;INTERVAL=1", DateTime(2024, 3, 12)),
+        dueDate("RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE,FR", DateTime(2024, 3, 11)),
+        dueTime("RRULE:FREQ=WEEKLY;BYDAY=TU,TH", DateTime(2024, 3, 12, 8, 30), afterComplete = true),
+        dueDate("RRULE:FREQ=MONTHLY;INTERVAL=1", DateTime(2024, 1, 31)),
+        dueTime("RRULE:FREQ=MONTHLY;BYDAY=2TU", DateTime(2024, 3, 12, 18, 0)),
+        dueDate("RRULE:FREQ=YEARLY;INTERVAL=1", DateTime(2024, 2, 29)),
+        dueTime("RRULE:FREQ=HOURLY;INTERVAL=6", DateTime(2024, 3, 14, 6, 0)),
+        dueTime("RRULE:FREQ=MINUTELY;INTERVAL=30", DateTime(2024, 3, 14, 9, 0)),
+        newTask(with(RECUR, "RRULE:FREQ=DAILY"), with(COMPLETION_TIME, now)),
+    )
+
+    @Test
+    fun sharedRuleWithAndWithoutDueTime() = assertSameAsSingle(
+        dueTime("RRULE:FREQ=DAILY;UNTIL=20240320", DateTime(2024, 3, 13, 23, 0)),
+        dueDate("RRULE:FREQ=DAILY;UNTIL=20240320", DateTime(2024, 3, 13)),
+        dueTime("RRULE:FREQ=DAILY;UNTIL=20240320", DateTime(2024, 3, 20, 23, 0)),
+        dueDate("RRULE:FREQ=DAILY;UNTIL=20240320", DateTime(2024, 3, 20)),
+    )
+
+    @Test
+    fun countedRules() = assertSameAsSingle(
+        dueTime("RRULE:FREQ=DAILY;COUNT=3", DateTime(2024, 3, 13, 10, 0)),
+        dueTime("RRULE:FREQ=DAILY;COUNT=3", DateTime(2024, 3, 14, 10, 0)),
+        dueTime("RRULE:FREQ=DAILY;COUNT=1", DateTime(2024, 3, 14, 10, 0)),
+        dueDate("RRULE:FREQ=WEEKLY;COUNT=2;BYDAY=SA", DateTime(2024, 3, 9)),
+    )
+
+    @Test
+    fun skipsInvalidRules() = assertSameAsSingle(
+        dueDate("RRULE:FREQ=DAILY", DateTime(2024, 3, 13)),
+        dueDate("RRULE:FREQ=SOMETIMES", DateTime(2024, 3, 13)),
+    )
+
+    @Test
+    fun returnsRescheduledTasks() {
+        val tasks = listOf(
+            dueDate("RRULE:FREQ=DAILY", DateTime(2024, 3, 13)),
+            dueDate("RRULE:FREQ=DAILY;COUNT=1", DateTime(2024, 3, 13)),
+            dueDate("RRULE:FREQ=WEEKLY", DateTime(2024, 3, 13)),
+        )
+
+        val repeated = freezeAt(now) { runBlocking { helper.handleRepeats(tasks) } }
+
+        assertEquals(listOf(tasks[0].id, tasks[2].id), repeated.map { it.id })
+    }
+
+    @Test
+    fun shiftsSameAlarmsAsSingleTaskPath() {
+        val tasks = listOf(
+            dueTime("RRULE:FREQ=DAILY", DateTime(2024, 3, 12, 14, 0)),
+            dueTime("RRULE:FREQ=WEEKLY;BYDAY=TU,TH", DateTime(2024, 3, 12, 8, 30), afterComplete = true),
+            dueDate("RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=FR,MO,WE", DateTime(2024, 3, 11), afterComplete = true),
+            dueTime("RRULE:FREQ=MONTHLY;BYDAY=2TU", DateTime(2024, 3, 12, 18, 0)),
+            dueTime("RRULE:FREQ=DAILY;COUNT=1", DateTime(2024, 3, 13, 10, 0)),
+            newTask(with(ID, nextId++), with(RECUR, "RRULE:FREQ=DAILY"), with(COMPLETION_TIME, now)),
+        )
+        val alarms = tasks.associate { it.id to alarms(it) }
+        val single = HashMap<Long, Set<Alarm>>()
+        val batch = HashMap<Long, Set<Alarm>>()
+        runBlocking {
+            `when`(alarmService.getAlarms(anyLong())).thenAnswer {
+                alarms[it.getArgument<Long>(0)].orEmpty()
+            }
+            `when`(alarmService.getAlarms(anyList())).thenAnswer { invocation ->
+                invocation.getArgument<List<Long>>(0).associateWith { alarms[it].orEmpty() }
+            }
+            `when`(alarmService.synchronizeAlarms(anyLong(), anySet())).thenAnswer {
+                single[it.getArgument(0)] = it.getArgument<Set<Alarm>>(1).toSet()
+                false
+            }
+            `when`(alarmService.synchronizeAlarms(anyMap(), anyMap())).thenAnswer {
+                batch.putAll(it.getArgument<Map<Long, Set<Alarm>>>(0))
+                false
+            }
+        }
+
+        freezeAt(now) {
+            runBlocking {
+                tasks.map { it.copy() }.forEach { helper.handleRepeat(it) }
+                helper.handleRepeats(tasks.map { it.copy() })
+            }
+        }
+
+        assertEquals(single, batch)
+    }
+
+    private fun alarms(task: Task) = listOf(
+        Alarm(task = task.id, time = task.dueDate - ONE_HOUR, type = TYPE_DATE_TIME),
+        Alarm(task = task.id, type = TYPE_REL_END),
+        Alarm(task = task.id, time = now.millis, type = TYPE_SNOOZE),
+    )
+
+    private fun assertSameAsSingle(vararg tasks: Task) {
+        val single = tasks.map { it.copy() }
+        val batch = tasks.map { it.copy() }
+
+        freezeAt(now) {
+            runBlocking {
+                single.forEach { helper.handleRepeat(it) }
+                helper.handleRepeats(batch)
+            }
+        }
+
+        assertEquals(single, batch)
+    }
+
+    private var nextId = 1L
+
+    private fun dueDate(recur: String, due: DateTime, afterComplete: Boolean = false) = newTask(
+        with(ID, nextId++),
+        with(RECUR, recur),
+        with(AFTER_COMPLETE, afterComplete),
+        with(DUE_DATE, due),
+        with(COMPLETION_TIME, now),
+    )
+
+    private fun dueTime(recur: String, due: DateTime, afterComplete: Boolean = false) = newTask(
+        with(ID, nextId++),
+        with(RECUR, recur),
+        with(AFTER_COMPLETE, afterComplete),
+        with(DUE_TIME, due),
+        with(COMPLETION_TIME, now),
+    )
+}
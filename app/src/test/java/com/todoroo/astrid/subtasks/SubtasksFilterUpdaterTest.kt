@@ -0,0 +1,138 @@
+package com.todoroo.astrid.subtasks
+
+import com.todoroo.astrid.dao.TaskDao
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.ORDER_GAP
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.buildTreeModel
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.flatten
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.getOrderedQuery
+import com.todoroo.astrid.subtasks.SubtasksFilterUpdater.Companion.reorder
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito.anyString
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.`when`
+import org.tasks.data.dao.TaskListMetadataDao
+import org.tasks.data.dao.TaskListOrderDao
+import org.tasks.data.entity.Task
+import org.tasks.data.entity.TaskListMetadata
+import org.tasks.data.entity.TaskListOrder
+import org.tasks.filters.MyTasksFilter
+
+class SubtasksFilterUpdaterTest {
+    private val taskListOrderDao = mock(TaskListOrderDao::class.java)
+    private val taskDao = mock(TaskDao::class.java)
+    private val filter = MyTasksFilter("My Tasks")
+    private val list = TaskListMetadata().apply { id = 1 }
+    private val updater = SubtasksFilterUpdater(
+        mock(TaskListMetadataDao::class.java),
+        taskListOrderDao,
+        taskDao,
+    )
+
+    /*
+     * A
+     *  B
+     *  C
+     *   D
+     * E
+     * F
+     */
+    private val order = listOf(
+        TaskListOrder(list = 1, task = "A", parent = null, order = 0 * ORDER_GAP),
+        TaskListOrder(list = 1, task = "B", parent = "A", order = 1 * ORDER_GAP),
+        TaskListOrder(list = 1, task = "C", parent = "A", order = 2 * ORDER_GAP),
+        TaskListOrder(list = 1, task = "D", parent = "C", order = 3 * ORDER_GAP),
+        TaskListOrder(list = 1, task = "E", parent = null, order = 4 * ORDER_GAP),
+        TaskListOrder(list = 1, task = "F", parent = null, order = 5 * ORDER_GAP),
+    )
+
+    @Before
+    fun setUp() = runBlocking {
+        `when`(taskListOrderDao.getOrder(1)).thenReturn(order)
+        `when`(taskDao.fetchFiltered(anyString()))
+            .thenReturn(order.map { Task(remoteId = it.task) })
+        updater.initialize(list, filter)
+    }
+
+    @Test
+    fun flattenRestoresRows() {
+        assertEquals(order, flatten(buildTreeModel(order, null), 1))
+    }
+
+    @Test
+    fun buildIndents() {
+        assertEquals(listOf(0, 1, 1, 2, 0, 0), order.map { updater.getIndentForTask(it.task) })
+    }
+
+    @Test
+    fun queryDoesNotDependOnOrder() = runBlocking {
+        val query = filter.filterOverride
+
+        updater.moveTo(list, "F", "A")
+
+        assertEquals(getOrderedQuery(filter.sql, 1), query)
+        assertEquals(query, filter.filterOverride)
+    }
+
+    @Test
+    fun moveOnlyWritesMovedRow() = runBlocking {
+        updater.moveTo(list, "E", "C")
+
+        verify(taskListOrderDao).update(
+            1,
+            emptyList(),
+            listOf(TaskListOrder(list = 1, task = "E", parent = "A", order = ORDER_GAP * 3 / 2)),
+        )
+    }
+
+    @Test
+    fun moveSubtreeWritesFewestRows() = runBlocking {
+        updater.moveTo(list, "C", "F")
+
+        // moving E up is cheaper than moving C and D down
+        verify(taskListOrderDao).update(
+            1,
+            emptyList(),
+            listOf(
+                TaskListOrder(list = 1, task = "E", parent = null, order = ORDER_GAP * 3 / 2),
+                TaskListOrder(list = 1, task = "C", parent = null, order = 2 * ORDER_GAP),
+            ),
+        )
+    }
+
+    @Test
+    fun createOnlyWritesNewRow() = runBlocking {
+        updater.onCreateTask(list, "7")
+
+        verify(taskListOrderDao).update(
+            1,
+            emptyList(),
+            listOf(TaskListOrder(list = 1, task = "7", parent = null, order = -ORDER_GAP)),
+        )
+    }
+
+    @Test
+    fun deleteRemovesRowAndReparentsChildren() = runBlocking {
+        updater.onDeleteTask(list, "C")
+
+        verify(taskListOrderDao).update(
+            1,
+            listOf("C"),
+            listOf(TaskListOrder(list = 1, task = "D", parent = "A", order = 3 * ORDER_GAP)),
+        )
+    }
+
+    @Test
+    fun renumberWhenGapRunsOut() {
+        val dense = order.mapIndexed { index, row -> row.copy(order = index) }
+        val moved = listOf(dense[0], dense[1], dense[4], dense[2], dense[3], dense[5])
+
+        assertEquals(
+            moved.mapIndexed { index, row -> row.copy(order = index * ORDER_GAP) },
+            reorder(moved, dense.associateBy { it.task }),
+        )
+    }
+}
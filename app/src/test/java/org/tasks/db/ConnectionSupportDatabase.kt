@@ -0,0 +1,81 @@
+package org.tasks.db
+
+import android.database.Cursor
+import androidx.sqlite.SQLiteConnection
+import androidx.sqlite.SQLiteStatement
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.sqlite.execSQL
+import org.mockito.Mockito.mock
+
+/**
+ * Lets [Migrations] run on the JVM against a bundled SQLite connection. Only the calls that
+ * migrations make are implemented, anything else throws.
+ */
+class ConnectionSupportDatabase(
+    private val connection: SQLiteConnection,
+) : SupportSQLiteDatabase by unsupported() {
+
+    override fun execSQL(sql: String) = connection.execSQL(sql)
+
+    override fun query(query: String): Cursor = StatementCursor(connection.prepare(query))
+
+    private class StatementCursor(
+        private val statement: SQLiteStatement,
+    ) : Cursor by unsupported() {
+        private var position = -1
+        private var closed = false
+
+        override fun moveToNext(): Boolean {
+            if (closed) {
+                return false
+            }
+            return statement.step().also { if (it) position++ }
+        }
+
+        override fun moveToFirst(): Boolean {
+            check(position == -1) { "Statements can't be rewound" }
+            return moveToNext()
+        }
+
+        override fun getPosition() = position
+
+        override fun getColumnCount() = statement.getColumnCount()
+
+        override fun getColumnName(columnIndex: Int) = statement.getColumnName(columnIndex)
+
+        override fun getColumnNames(): Array<String> = statement.getColumnNames().toTypedArray()
+
+        override fun getColumnIndex(columnName: String): Int =
+            statement.getColumnNames().indexOf(columnName)
+
+        override fun getColumnIndexOrThrow(columnName: String): Int =
+            getColumnIndex(columnName).takeIf { it >= 0 }
+                ?: throw IllegalArgumentException("column '$columnName' does not exist")
+
+        override fun isNull(columnIndex: Int) = statement.isNull(columnIndex)
+
+        override fun getString(columnIndex: Int): String? =
+            if (statement.isNull(columnIndex)) null else statement.getText(columnIndex)
+
+        override fun getLong(columnIndex: Int) = statement.getLong(columnIndex)
+
+        override fun getInt(columnIndex: Int) = statement.getInt(columnIndex)
+
+        override fun getDouble(columnIndex: Int) = statement.getDouble(columnIndex)
+
+        override fun isClosed() = closed
+
+        override fun close() {
+            if (!closed) {
+                closed = true
+                statement.close()
+            }
+        }
+    }
+
+    companion object {
+        private inline fun <reified T> unsupported(): T = mock(T::class.java) {
+            throw UnsupportedOperationException(it.method.name)
+        }
+    }
+}
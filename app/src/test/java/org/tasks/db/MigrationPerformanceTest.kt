@@ -0,0 +1,275 @@
+package org.tasks.db
+
+import android.content.Context
+import android.content.SharedPreferences
+import androidx.room.migration.Migration
+import androidx.sqlite.SQLiteConnection
+import androidx.sqlite.SQLiteStatement
+import androidx.sqlite.driver.bundled.BundledSQLiteDriver
+import androidx.sqlite.execSQL
+import org.junit.After
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.mockito.ArgumentMatchers.anyInt
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+import org.tasks.caldav.FileStorage
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+import java.nio.file.Files
+
+/**
+ * Migrates synthetic databases from older exported schemas to [TARGET] and checks the resulting
+ * schema. When a database size is passed, the time and peak heap of each step are also checked
+ * against a budget.
+ *
+ * Steps without a hand-written [Migration] are Room automatic migrations (e.g. 83 to 84). Room's
+ * generated AutoMigration classes are not used here. [autoMigrate] stands in for them with the
+ * same copy-and-rename of every changed table, so those timings approximate Room's rebuild and
+ * do not run its generated code.
+ *
+ * The default size keeps this fast enough for every test run. For realistic numbers pass a larger
+ * database, e.g. `./gradlew testGoogleplayDebugUnitTest --tests '*MigrationPerformanceTest'
+ * -PmigrationTasks=300000`, which enforces the budgets and prints the time and heap of every
+ * step. `-PmigrationBudgetScale` stretches every budget on slow machines.
+ */
+class MigrationPerformanceTest {
+    private lateinit var dir: File
+    private lateinit var migrations: Map<Int, Migration>
+
+    @Before
+    fun setUp() {
+        dir = Files.createTempDirectory("migrations").toFile()
+        val preferences = mock(SharedPreferences::class.java)
+        val context = mock(Context::class.java)
+        `when`(context.filesDir).thenReturn(dir)
+        `when`(context.getSharedPreferences(anyString(), anyInt())).thenReturn(preferences)
+        migrations = Migrations
+            .migrations(context, FileStorage(context))
+            .associateBy { it.startVersion }
+    }
+
+    @After
+    fun tearDown() {
+        dir.deleteRecursively()
+    }
+
+    @Test fun from80() = migrate(80)
+
+    @Test fun from81() = migrate(81)
+
+    @Test fun from82() = migrate(82)
+
+    @Test fun from83() = migrate(83)
+
+    @Test fun from84() = migrate(84)
+
+    @Test fun from85() = migrate(85)
+
+    @Test fun from86() = migrate(86)
+
+    @Test fun from87() = migrate(87)
+
+    private fun migrate(from: Int) {
+        val file = File(dir, "$from.db")
+        BundledSQLiteDriver().open(file.path).use { connection ->
+            connection.execSQL("PRAGMA journal_mode = WAL")
+            SyntheticDatabase(TASKS).create(connection, SchemaBundle.load(from))
+            val database = ConnectionSupportDatabase(connection)
+            var version = from
+            while (version < TARGET) {
+                val migration = migrations[version]
+                val to = migration?.endVersion ?: (version + 1)
+                val step = "${version}_$to"
+                val result = measure("$from: $step") {
+                    connection.execSQL("BEGIN")
+                    if (migration != null) {
+                        migration.migrate(database)
+                    } else {
+                        autoMigrate(connection, SchemaBundle.load(version), SchemaBundle.load(to))
+                    }
+                    connection.execSQL("PRAGMA user_version = $to")
+                    connection.execSQL("COMMIT")
+                }
+                results.add(result)
+                if (TASKS_PROPERTY != null) {
+                    // timings on shared CI machines are too noisy to enforce by default
+                    val budget = BUDGETS[step] ?: DEFAULT_BUDGET
+                    assertTrue(
+                        "${result.name} took ${result.millis}ms, budget ${budget.millis(TASKS)}ms",
+                        result.millis <= budget.millis(TASKS)
+                    )
+                    assertTrue(
+                        "${result.name} used ${result.peakMb}MB, budget ${budget.peakMb}MB",
+                        result.peakMb <= budget.peakMb
+                    )
+                }
+                version = to
+            }
+            assertSchema(connection, SchemaBundle.load(TARGET))
+        }
+    }
+
+    /**
+     * Hand-written stand-in for Room's generated automatic migrations. It drops removed tables,
+     * creates new ones and rebuilds tables whose definition changed between [from] and [to].
+     */
+    private fun autoMigrate(connection: SQLiteConnection, from: SchemaBundle, to: SchemaBundle) {
+        from.entities
+            .filter { to.entity(it.tableName) == null }
+            .forEach { connection.execSQL("DROP TABLE `${it.tableName}`") }
+        to.entities.forEach { entity ->
+            val previous = from.entity(entity.tableName)
+            when {
+                previous == null -> {
+                    connection.execSQL(entity.createSql)
+                    entity.indices.forEach { connection.execSQL(it.createSql) }
+                }
+                previous.createSql != entity.createSql -> {
+                    val table = entity.tableName
+                    val columns = entity.fields
+                        .map { it.columnName }
+                        .filter { column -> previous.fields.any { it.columnName == column } }
+                        .joinToString { "`$it`" }
+                    connection.execSQL(entity.createSql.replaceFirst("`$table`", "`_new_$table`"))
+                    connection.execSQL("INSERT INTO `_new_$table` ($columns) SELECT $columns FROM `$table`")
+                    connection.execSQL("DROP TABLE `$table`")
+                    connection.execSQL("ALTER TABLE `_new_$table` RENAME TO `$table`")
+                    entity.indices.forEach { connection.execSQL(it.createSql) }
+                }
+            }
+        }
+    }
+
+    private fun assertSchema(connection: SQLiteConnection, schema: SchemaBundle) {
+        schema.entities.forEach { entity ->
+            val table = entity.tableName
+            val columns = connection.rows("PRAGMA table_info(`$table`)") {
+                Column(getText(1), affinity(getText(2)), getLong(3) != 0L, getLong(5).toInt())
+            }
+            assertEquals(
+                table,
+                entity.fields
+                    .map {
+                        Column(
+                            name = it.columnName,
+                            affinity = it.affinity,
+                            notNull = it.notNull,
+                            primaryKey = entity.primaryKey.indexOf(it.columnName) + 1,
+                        )
+                    }
+                    .sortedBy { it.name },
+                columns.sortedBy { it.name },
+            )
+            assertEquals(
+                table,
+                entity.indices.map { "${it.name} ${it.unique} ${it.columnNames}" }.sorted(),
+                connection
+                    .rows("PRAGMA index_list(`$table`)") { getText(1) to (getLong(2) != 0L) }
+                    .filterNot { (name, _) -> name.startsWith("sqlite_autoindex") }
+                    .map { (name, unique) ->
+                        val indexColumns = connection.rows("PRAGMA index_info(`$name`)") { getText(2) }
+                        "$name $unique $indexColumns"
+                    }
+                    .sorted(),
+            )
+            assertEquals(
+                table,
+                entity.foreignKeys.map { "${it.table} ${it.columns} ${it.referencedColumns}" }.sorted(),
+                connection
+                    .rows("PRAGMA foreign_key_list(`$table`)") {
+                        Triple(getLong(0), getText(2), getText(3) to getText(4))
+                    }
+                    .groupBy({ it.first to it.second }, { it.third })
+                    .map { (key, columns) ->
+                        "${key.second} ${columns.map { it.first }} ${columns.map { it.second }}"
+                    }
+                    .sorted(),
+            )
+        }
+        assertEquals(
+            schema.entities.map { it.tableName }.sorted(),
+            connection
+                .rows("SELECT name FROM sqlite_master WHERE type = 'table'") { getText(0) }
+                .filterNot { it in INTERNAL_TABLES || it.startsWith("sqlite_") }
+                .sorted(),
+        )
+    }
+
+    private data class Column(val name: String, val affinity: String, val notNull: Boolean, val primaryKey: Int)
+
+    class Result(val name: String, val millis: Long, val peakMb: Long)
+
+    class Budget(private val fixedMillis: Long, private val millisPerThousandTasks: Long, val peakMb: Long) {
+        fun millis(tasks: Int) = ((fixedMillis + millisPerThousandTasks * tasks / 1000) * BUDGET_SCALE).toLong()
+    }
+
+    companion object {
+        private const val TARGET = 88
+        private val TASKS_PROPERTY = System.getProperty("migrationTasks")
+        private val TASKS = TASKS_PROPERTY?.toInt() ?: 10_000
+        private val BUDGET_SCALE = System.getProperty("migrationBudgetScale")?.toDouble() ?: 1.0
+        private val INTERNAL_TABLES = setOf("room_master_table", "android_metadata")
+        private val DEFAULT_BUDGET = Budget(2_000, 20, 256)
+        private val BUDGETS = mapOf(
+            // one vtodo file per caldav task
+            "81_82" to Budget(2_000, 500, 256),
+            // rebuilds every table with a foreign key to tasks
+            "82_83" to Budget(2_000, 200, 256),
+            // parses every recurrence rule
+            "84_85" to Budget(2_000, 200, 256),
+            // copies google tasks into caldav_tasks
+            "87_88" to Budget(2_000, 100, 256),
+        )
+        private val results = ArrayList<Result>()
+
+        @JvmStatic
+        @AfterClass
+        fun report() {
+            if (TASKS_PROPERTY == null) {
+                return
+            }
+            println("Migrating $TASKS tasks")
+            results.forEach { println("%-12s %8dms %6dMB".format(it.name, it.millis, it.peakMb)) }
+        }
+
+        private fun measure(name: String, block: () -> Unit): Result {
+            val pools = ManagementFactory.getMemoryPoolMXBeans().filter { it.type == MemoryType.HEAP }
+            System.gc()
+            val baseline = pools.sumOf { it.usage.used }
+            pools.forEach { it.resetPeakUsage() }
+            val start = System.nanoTime()
+            block()
+            val millis = (System.nanoTime() - start) / 1_000_000
+            val peak = pools.sumOf { it.peakUsage.used } - baseline
+            return Result(name, millis, peak.coerceAtLeast(0) / (1024 * 1024))
+        }
+
+        private fun <T> SQLiteConnection.rows(
+            sql: String,
+            mapper: SQLiteStatement.() -> T,
+        ): List<T> = prepare(sql).use { statement ->
+            val rows = ArrayList<T>()
+            while (statement.step()) {
+                rows.add(statement.mapper())
+            }
+            rows
+        }
+
+        /** Column affinity rules from https://www.sqlite.org/datatype3.html */
+        private fun affinity(type: String): String = type.uppercase().let {
+            when {
+                it.contains("INT") -> "INTEGER"
+                it.contains("CHAR") || it.contains("CLOB") || it.contains("TEXT") -> "TEXT"
+                it.isEmpty() || it.contains("BLOB") -> "BLOB"
+                it.contains("REAL") || it.contains("FLOA") || it.contains("DOUB") -> "REAL"
+                else -> "NUMERIC"
+            }
+        }
+    }
+}
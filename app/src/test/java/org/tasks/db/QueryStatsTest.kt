@@ -0,0 +1,30 @@
+package org.tasks.db
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class QueryStatsTest {
+    @Test
+    fun collapseLiterals() {
+        assertEquals(
+            "SELECT * FROM tasks WHERE _id = ? AND title = ?",
+            QueryStats.shape("SELECT * FROM tasks WHERE _id = 12 AND title = 'it''s'")
+        )
+    }
+
+    @Test
+    fun collapseInLists() {
+        assertEquals(
+            "SELECT * FROM tasks WHERE _id IN (?)",
+            QueryStats.shape("SELECT * FROM tasks WHERE _id IN (?, ?,?)")
+        )
+    }
+
+    @Test
+    fun keepIdentifiersWithDigits() {
+        assertEquals(
+            "SELECT t1._id FROM tasks t1 LIMIT ?",
+            QueryStats.shape("SELECT t1._id\n    FROM tasks t1 LIMIT 100")
+        )
+    }
+}
@@ -0,0 +1,96 @@
+package org.tasks.db
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.boolean
+import kotlinx.serialization.json.int
+import kotlinx.serialization.json.jsonArray
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+
+/** The parts of an exported Room schema (data/schemas) that the migration suite needs */
+class SchemaBundle(
+    val version: Int,
+    val entities: List<Entity>,
+    val setupQueries: List<String>,
+) {
+    class Entity(
+        val tableName: String,
+        val createSql: String,
+        val fields: List<Field>,
+        val primaryKey: List<String>,
+        val autoGenerate: Boolean,
+        val indices: List<Index>,
+        val foreignKeys: List<ForeignKey>,
+    )
+
+    class Field(val columnName: String, val affinity: String, val notNull: Boolean)
+
+    class Index(val name: String, val unique: Boolean, val columnNames: List<String>, val createSql: String)
+
+    class ForeignKey(val table: String, val columns: List<String>, val referencedColumns: List<String>)
+
+    fun entity(tableName: String) = entities.firstOrNull { it.tableName == tableName }
+
+    companion object {
+        private const val PATH = "org.tasks.data.db.Database"
+
+        fun load(version: Int): SchemaBundle {
+            val json = SchemaBundle::class.java.classLoader!!
+                .getResourceAsStream("$PATH/$version.json")
+                ?.use { it.reader().readText() }
+                ?: throw IllegalArgumentException("Missing schema for $version")
+            val database = Json.parseToJsonElement(json).jsonObject["database"]!!.jsonObject
+            return SchemaBundle(
+                version = database.int("version"),
+                entities = database.array("entities").map { entity ->
+                    val tableName = entity.string("tableName")
+                    val primaryKey = entity["primaryKey"]!!.jsonObject
+                    Entity(
+                        tableName = tableName,
+                        createSql = entity.string("createSql").withName(tableName),
+                        fields = entity.array("fields").map {
+                            Field(
+                                columnName = it.string("columnName"),
+                                affinity = it.string("affinity"),
+                                notNull = it.boolean("notNull"),
+                            )
+                        },
+                        primaryKey = primaryKey.strings("columnNames"),
+                        autoGenerate = primaryKey.boolean("autoGenerate"),
+                        indices = entity.array("indices").map {
+                            Index(
+                                name = it.string("name"),
+                                unique = it.boolean("unique"),
+                                columnNames = it.strings("columnNames"),
+                                createSql = it.string("createSql").withName(tableName),
+                            )
+                        },
+                        foreignKeys = entity.array("foreignKeys").map {
+                            ForeignKey(
+                                table = it.string("table"),
+                                columns = it.strings("columns"),
+                                referencedColumns = it.strings("referencedColumns"),
+                            )
+                        },
+                    )
+                },
+                setupQueries = database.strings("setupQueries"),
+            )
+        }
+
+        private fun String.withName(name: String) = replace("\${TABLE_NAME}", name)
+
+        private fun JsonObject.string(key: String) = this[key]!!.jsonPrimitive.content
+
+        private fun JsonObject.int(key: String) = this[key]!!.jsonPrimitive.int
+
+        private fun JsonObject.boolean(key: String) = this[key]?.jsonPrimitive?.boolean ?: false
+
+        private fun JsonObject.strings(key: String) =
+            this[key]?.jsonArray?.map { it.jsonPrimitive.content } ?: emptyList()
+
+        private fun JsonObject.array(key: String) =
+            this[key]?.jsonArray?.map { it.jsonObject } ?: emptyList()
+    }
+}
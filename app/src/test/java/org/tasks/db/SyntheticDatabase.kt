@@ -0,0 +1,127 @@
+package org.tasks.db
+
+import androidx.sqlite.SQLiteConnection
+import androidx.sqlite.execSQL
+
+/**
+ * Creates a database at an exported schema version and fills it with [tasks] tasks plus related
+ * rows. Text columns default to `<column>_<row>`, and columns that reference other tables use
+ * the same pattern so that joins in migrations find their rows.
+ */
+class SyntheticDatabase(private val tasks: Int) {
+
+    fun create(connection: SQLiteConnection, schema: SchemaBundle) {
+        connection.execSQL("BEGIN")
+        schema.entities.forEach { entity ->
+            connection.execSQL(entity.createSql)
+            entity.indices.forEach { connection.execSQL(it.createSql) }
+        }
+        schema.setupQueries.forEach { connection.execSQL(it) }
+        schema.entities.forEach { insert(connection, it) }
+        connection.execSQL("COMMIT")
+        connection.execSQL("PRAGMA user_version = ${schema.version}")
+    }
+
+    private fun insert(connection: SQLiteConnection, entity: SchemaBundle.Entity) {
+        val rows = rows(entity.tableName)
+        if (rows == 0) {
+            return
+        }
+        val columns = entity.fields.joinToString { "`${it.columnName}`" }
+        val values = entity.fields.joinToString { "?" }
+        connection.prepare("INSERT INTO `${entity.tableName}` ($columns) VALUES ($values)").use { statement ->
+            for (row in 1..rows) {
+                entity.fields.forEachIndexed { index, field ->
+                    when (val value = value(entity, field, row)) {
+                        null -> statement.bindNull(index + 1)
+                        is Int -> statement.bindLong(index + 1, value.toLong())
+                        is Long -> statement.bindLong(index + 1, value)
+                        is Double -> statement.bindDouble(index + 1, value)
+                        else -> statement.bindText(index + 1, value.toString())
+                    }
+                }
+                statement.step()
+                statement.reset()
+            }
+        }
+    }
+
+    private fun rows(table: String) = when (table) {
+        "tasks" -> tasks
+        "caldav_tasks", "tags" -> tasks / 2
+        "google_tasks", "alarms" -> tasks / 4
+        "userActivity", "geofences", "notification", "places" -> tasks / 100
+        "task_attachments", "attachment_file", "attachment" -> tasks / 100
+        "tagdata" -> TAGS
+        "caldav_lists", "google_task_lists" -> LISTS
+        "caldav_accounts", "google_task_accounts" -> ACCOUNTS
+        "filters", "task_list_metadata" -> 10
+        else -> 0
+    }
+
+    private fun value(entity: SchemaBundle.Entity, field: SchemaBundle.Field, row: Int): Any? {
+        val column = field.columnName
+        if (entity.autoGenerate && entity.primaryKey == listOf(column)) {
+            return row
+        }
+        return when (column) {
+            "task", "cd_task", "file" -> row
+            "gt_task" -> tasks / 2 + row
+            "title", "name" -> "${entity.tableName} $row"
+            "notes" -> "Notes for task $row"
+            "importance" -> row % 4
+            "created", "modified", "cd_last_sync", "gt_last_sync", "time" -> NOW
+            "dueDate" -> if (row % 3 == 0) NOW + row * MINUTE else 0
+            "hideUntil" -> if (row % 5 == 0) NOW else 0
+            "completed" -> if (row % 4 == 0) NOW else 0
+            "notificationFlags" -> row % 16
+            "parent" -> if (row % 5 == 0) row - 1 else 0
+            "recurrence" -> when {
+                row % 20 == 0 -> "FREQ=WEEKLY;INTERVAL=2;FROM=COMPLETION"
+                row % 10 == 0 -> "FREQ=DAILY;COUNT=10"
+                else -> null
+            }
+            "repeatUntil" -> if (row % 20 == 0) NOW + 365 * DAY else 0
+            "cd_calendar" -> "cdl_uuid_${row % LISTS + 1}"
+            "cd_object" -> "$row.ics"
+            "cd_vtodo" -> vtodo(row)
+            "cd_remote_parent", "cd_order", "gt_remote_parent" -> null
+            "cdl_account" -> "cda_uuid_${row % ACCOUNTS + 1}"
+            "gt_list_id" -> "gtl_remote_id_${row % LISTS + 1}"
+            "gtl_account" -> "gta_account_${row % ACCOUNTS + 1}"
+            "tag_uid" -> "remoteId_${row % TAGS + 1}"
+            "task_uid", "task_id" -> "remoteId_$row"
+            "path", "uri" -> "file:///attachments/$row"
+            else -> when (field.affinity) {
+                "INTEGER" -> 0
+                "REAL" -> 0.0
+                "TEXT" -> "${column}_$row"
+                else -> if (field.notNull) "" else null
+            }
+        }
+    }
+
+    private fun vtodo(row: Int) = """
+        BEGIN:VCALENDAR
+        VERSION:2.0
+        PRODID:+//IDN tasks.org//android
+        BEGIN:VTODO
+        UID:remote_$row
+        SUMMARY:caldav_tasks $row
+        DESCRIPTION:Notes for task $row
+        CATEGORIES:tag ${row % TAGS + 1}
+        X-APPLE-SORT-ORDER:$row
+        DTSTAMP:20240101T000000Z
+        END:VTODO
+        END:VCALENDAR
+    """.trimIndent().replace("\n", "\r\n")
+
+    companion object {
+        private const val TAGS = 50
+        private const val LISTS = 20
+        private const val ACCOUNTS = 4
+        private const val MINUTE = 60_000L
+        private const val DAY = 24 * 60 * MINUTE
+        private const val NOW = 1_700_000_000_000L
+    }
+}
@@ -0,0 +1,195 @@
+package org.tasks.notifications
+
+import android.content.Context
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito.atLeastOnce
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.verifyNoInteractions
+import org.mockito.Mockito.`when`
+import org.tasks.LocalBroadcastManager
+import org.tasks.data.dao.LocationDao
+import org.tasks.data.dao.NotificationDao
+import org.tasks.data.dao.TaskDao
+import org.tasks.data.entity.Notification
+import org.tasks.markdown.MarkdownProvider
+import org.tasks.notifications.NotificationManager.Companion.SUMMARY_NOTIFICATION_ID
+import org.tasks.preferences.PermissionChecker
+import org.tasks.preferences.Preferences
+
+class NotificationManagerTest {
+    private val notificationDao = FakeNotificationDao()
+    private val throttled = mock(ThrottledNotificationManager::class.java)
+    private val localBroadcastManager = mock(LocalBroadcastManager::class.java)
+    private val preferences = mock(Preferences::class.java)
+    private val taskDao = mock(TaskDao::class.java)
+    private lateinit var notificationManager: NotificationManager
+
+    @Before
+    fun setUp() {
+        `when`(preferences.bundleNotifications()).thenReturn(true)
+        runBlocking {
+            `when`(taskDao.activeNotifications()).thenReturn(emptyList())
+        }
+        notificationManager = NotificationManager(
+            mock(Context::class.java),
+            preferences,
+            notificationDao,
+            taskDao,
+            mock(LocationDao::class.java),
+            localBroadcastManager,
+            throttled,
+            mock(MarkdownProvider::class.java),
+            mock(PermissionChecker::class.java),
+        )
+    }
+
+    @Test
+    fun reconcileUnchangedNotificationsIsNoop() = runBlocking {
+        post(notification(1, 100), notification(2, 200))
+
+        notificationManager.reconcile(listOf(notification(1, 100), notification(2, 200)))
+
+        assertTrue(notificationDao.inserted.isEmpty())
+        assertEquals(listOf(1L, 2L), notificationDao.posted())
+        verifyNoInteractions(throttled, localBroadcastManager)
+    }
+
+    @Test
+    fun notifyExistingNotificationIsNoop() = runBlocking {
+        post(notification(1, 100), notification(2, 200))
+
+        notificationManager.notifyTasks(listOf(notification(1, 100)), true, false, false)
+
+        assertTrue(notificationDao.inserted.isEmpty())
+        verifyNoInteractions(throttled, localBroadcastManager)
+    }
+
+    @Test
+    fun notifyReplacesChangedNotification() = runBlocking {
+        post(notification(1, 100), notification(2, 200))
+
+        notificationManager.notifyTasks(listOf(notification(1, 300)), true, false, false)
+
+        assertEquals(listOf(notification(1, 300)), notificationDao.inserted)
+        assertEquals(listOf(1L, 2L), notificationDao.posted())
+        verify(throttled, never()).cancel(1)
+        verify(throttled, never()).cancel(2)
+        verify(localBroadcastManager).broadcastRefresh()
+    }
+
+    @Test
+    fun reconcileDropsRemovedNotifications() = runBlocking {
+        post(notification(1, 100), notification(2, 200), notification(3, 300))
+
+        notificationManager.reconcile(listOf(notification(2, 200)))
+
+        assertEquals(listOf(2L), notificationDao.posted())
+        verify(throttled).cancel(1)
+        verify(throttled).cancel(3)
+        verify(throttled).cancel(SUMMARY_NOTIFICATION_ID)
+        verify(localBroadcastManager).broadcastRefresh()
+    }
+
+    @Test
+    fun cancelUnpostedNotificationIsNoop() = runBlocking {
+        post(notification(1, 100), notification(2, 200))
+
+        notificationManager.cancel(listOf(3L))
+
+        assertEquals(listOf(1L, 2L), notificationDao.posted())
+        assertFalse(notificationDao.loadedAll)
+        verify(throttled).cancel(3)
+        verifyNoInteractions(localBroadcastManager)
+    }
+
+    @Test
+    fun cancelOnlyLoadsCancelledNotifications() = runBlocking {
+        post(notification(1, 100), notification(2, 200), notification(3, 300))
+
+        notificationManager.cancel(listOf(1L))
+
+        assertEquals(listOf(2L, 3L), notificationDao.posted())
+        assertFalse(notificationDao.loadedAll)
+        verify(localBroadcastManager).broadcastRefresh()
+    }
+
+    @Test
+    fun cancelDownToOneLeftRemovesSummary() = runBlocking {
+        post(notification(1, 100), notification(2, 200))
+
+        notificationManager.cancel(listOf(1L))
+
+        assertEquals(listOf(2L), notificationDao.posted())
+        assertTrue(notificationDao.loadedAll)
+        verify(throttled).cancel(1)
+        verify(throttled, never()).cancel(2)
+        verify(throttled).cancel(SUMMARY_NOTIFICATION_ID)
+        verify(localBroadcastManager).broadcastRefresh()
+    }
+
+    @Test
+    fun clearingSummaryCancelsEverything() = runBlocking {
+        post(notification(1, 100), notification(2, 200))
+
+        notificationManager.cancel(SUMMARY_NOTIFICATION_ID.toLong())
+
+        assertTrue(notificationDao.posted().isEmpty())
+        verify(throttled).cancel(1)
+        verify(throttled).cancel(2)
+        verify(throttled, atLeastOnce()).cancel(SUMMARY_NOTIFICATION_ID)
+        verify(localBroadcastManager).broadcastRefresh()
+    }
+
+    private suspend fun post(vararg notifications: Notification) {
+        notificationDao.insertAll(notifications.toList())
+        notificationDao.inserted.clear()
+    }
+
+    private fun notification(task: Long, timestamp: Long) =
+        Notification(taskId = task, timestamp = timestamp)
+
+    private class FakeNotificationDao : NotificationDao {
+        private val notifications = LinkedHashMap<Long, Notification>()
+        val inserted = ArrayList<Notification>()
+        var loadedAll = false
+
+        fun posted() = notifications.keys.sorted()
+
+        override suspend fun getAll(): List<Long> {
+            loadedAll = true
+            return notifications.keys.toList()
+        }
+
+        override suspend fun getAllOrdered(): List<Notification> {
+            loadedAll = true
+            return notifications.values.sortedByDescending { it.timestamp }
+        }
+
+        override suspend fun getPosted(taskIds: List<Long>) =
+            taskIds.filter { notifications.containsKey(it) }
+
+        override suspend fun count() = notifications.size
+
+        override suspend fun insertAll(notifications: List<Notification>) {
+            inserted.addAll(notifications)
+            notifications.forEach { this.notifications[it.taskId] = it }
+        }
+
+        override suspend fun delete(taskId: Long) {
+            notifications.remove(taskId)
+        }
+
+        override suspend fun deleteAll(taskIds: List<Long>) {
+            taskIds.forEach { notifications.remove(it) }
+        }
+
+        override suspend fun latestTimestamp() = notifications.values.maxOfOrNull { it.timestamp }
+    }
+}
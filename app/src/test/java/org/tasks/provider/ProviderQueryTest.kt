@@ -0,0 +1,40 @@
+package org.tasks.provider
+
+import org.junit.Test
+import org.tasks.provider.ProviderQuery.Companion.checkGrammar
+
+class ProviderQueryTest {
+    private val columns = setOf("_id", "title", "dueDate", "cdl_name", "order")
+
+    @Test
+    fun allowExposedColumns() {
+        checkGrammar("dueDate > ? AND (title LIKE '%a''b%' OR cdl_name IS NULL)", columns)
+        checkGrammar("`order` ASC, UPPER(title) COLLATE NOCASE DESC", columns)
+        checkGrammar("dueDate < (strftime('%s', 'now') * 1000) + 0.5", columns)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectOtherColumns() = checkGrammar("cda_password IS NOT NULL", columns)
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectQuotedOtherColumns() = checkGrammar("\"cda_password\" IS NOT NULL", columns)
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectSubquery() =
+        checkGrammar("_id IN (SELECT cda_id FROM caldav_accounts)", columns)
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectQualifiedNames() = checkGrammar("caldav_accounts.cda_name = 'a'", columns)
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectStatementSeparator() = checkGrammar("_id = 1; DROP TABLE tasks", columns)
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectComments() = checkGrammar("_id = 1 --", columns)
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectUnbalancedParentheses() = checkGrammar("_id = 1) OR (1 = 1", columns)
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectUnterminatedString() = checkGrammar("title = 'a", columns)
+}
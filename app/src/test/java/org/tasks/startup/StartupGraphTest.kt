@@ -0,0 +1,67 @@
+package org.tasks.startup
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.tasks.startup.StartupGraph.Companion.DEFAULT
+import org.tasks.startup.StartupGraph.Companion.NIGHT_MODE
+import org.tasks.startup.StartupGraph.Companion.RESET_SYNC_STATE
+import org.tasks.startup.StartupGraph.Companion.SETUP
+import org.tasks.startup.StartupGraph.Companion.UPGRADE
+import org.tasks.startup.StartupGraph.Stage
+import org.tasks.startup.StartupGraph.Step
+
+class StartupGraphTest {
+    @Test
+    fun firstFrameOnlyRunsCriticalSteps() {
+        // think twice before adding to this list, these steps delay the first frame
+        assertEquals(
+            setOf(SETUP, UPGRADE, RESET_SYNC_STATE, NIGHT_MODE),
+            DEFAULT.stage(Stage.FIRST_FRAME).toSet()
+        )
+    }
+
+    @Test
+    fun everyStepBelongsToAStage() {
+        assertEquals(
+            DEFAULT.steps.toSet(),
+            Stage.entries.flatMap { DEFAULT.stage(it) }.toSet()
+        )
+    }
+
+    @Test
+    fun dependenciesRunFirst() {
+        Stage.entries.forEach { stage ->
+            val steps = DEFAULT.stage(stage)
+            steps.forEachIndexed { index, step ->
+                step.dependsOn
+                    .filter { it.stage == stage }
+                    .forEach { assertTrue(steps.indexOf(it) < index) }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun firstFrameCantWaitForIdle() {
+        val idle = Step("idle", Stage.IDLE)
+        StartupGraph(listOf(idle, Step("first", Stage.FIRST_FRAME, listOf(idle))))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun idleCantWaitForBackground() {
+        val background = Step("background", Stage.BACKGROUND)
+        StartupGraph(listOf(background, Step("idle", Stage.IDLE, listOf(background))))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun dependencyMustBeInGraph() {
+        StartupGraph(listOf(Step("step", Stage.BACKGROUND, listOf(SETUP))))
+    }
+
+    @Test
+    fun backgroundCanWaitForIdle() {
+        val idle = Step("idle", Stage.IDLE)
+        val background = Step("background", Stage.BACKGROUND, listOf(idle))
+        assertEquals(listOf(background), StartupGraph(listOf(background, idle)).stage(Stage.BACKGROUND))
+    }
+}
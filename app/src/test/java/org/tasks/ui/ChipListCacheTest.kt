@@ -0,0 +1,73 @@
+package org.tasks.ui
+
+import com.todoroo.astrid.api.CaldavFilter
+import com.todoroo.astrid.api.GtasksFilter
+import com.todoroo.astrid.api.TagFilter
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.tasks.data.TaskContainer
+import org.tasks.data.entity.CaldavAccount
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.CaldavTask
+import org.tasks.data.entity.TagData
+import org.tasks.data.entity.Task
+import org.tasks.filters.MyTasksFilter
+import org.tasks.ui.ChipListCache.Chips
+import org.tasks.ui.ChipListCache.Snapshot
+
+class ChipListCacheTest {
+    private val calendar = CaldavCalendar(uuid = "list", name = "List")
+    private val work = TagFilter(TagData(remoteId = "work", name = "Work"))
+    private val home = TagFilter(TagData(remoteId = "home", name = "Home"))
+    private val snapshot = Snapshot(
+        lists = mapOf("list" to calendar),
+        tags = mapOf("work" to work, "home" to home),
+    )
+
+    @Test
+    fun resolveListAndSortedTags() {
+        val task = task(1, calendar = "list", tags = "work,home,missing")
+
+        assertEquals(
+            mapOf(1L to Chips(CaldavFilter(calendar), listOf(home, work))),
+            snapshot.getChips(listOf(task), MyTasksFilter("My Tasks"))
+        )
+    }
+
+    @Test
+    fun googleTaskUsesGtasksFilter() {
+        val task = task(1, calendar = "list", accountType = CaldavAccount.TYPE_GOOGLE_TASKS)
+
+        assertEquals(
+            GtasksFilter(calendar),
+            snapshot.getChips(listOf(task), MyTasksFilter("My Tasks"))[1]?.list
+        )
+    }
+
+    @Test
+    fun excludeTagBeingViewed() {
+        val task = task(1, tags = "work,home")
+
+        assertEquals(listOf(home), snapshot.getChips(listOf(task), work)[1]?.tags)
+    }
+
+    @Test
+    fun skipTasksWithoutChips() {
+        val tasks = listOf(task(1), task(2, calendar = "missing", tags = "missing"))
+
+        assertTrue(snapshot.getChips(tasks, MyTasksFilter("My Tasks")).isEmpty())
+    }
+
+    private fun task(
+        id: Long,
+        calendar: String? = null,
+        tags: String? = null,
+        accountType: Int = CaldavAccount.TYPE_LOCAL,
+    ) = TaskContainer(
+        task = Task(id = id),
+        caldavTask = calendar?.let { CaldavTask(task = id, calendar = it) },
+        accountType = accountType,
+        tagsString = tags,
+    )
+}
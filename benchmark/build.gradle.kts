@@ -0,0 +1,39 @@
+plugins {
+    alias(libs.plugins.kotlinJvm)
+    alias(libs.plugins.jmh)
+}
+
+repositories {
+    mavenCentral()
+    google()
+}
+
+kotlin {
+    jvmToolchain(17)
+}
+
+dependencies {
+    implementation(project(":data"))
+    implementation(libs.androidx.room)
+    implementation(libs.androidx.sqlite.bundled)
+    implementation(libs.kotlinx.coroutines.core)
+    testImplementation(libs.junit)
+}
+
+tasks.test {
+    systemProperty("daoSourceDir", rootProject.file("data/src/commonMain/kotlin/org/tasks/data/dao").absolutePath)
+    // ./gradlew :benchmark:test -PrecordQueryPlans to accept the current full table scans
+    systemProperty("recordQueryPlans", project.hasProperty("recordQueryPlans"))
+    systemProperty("queryPlanBaseline", file("src/test/resources/query-plan-baseline.txt").absolutePath)
+}
+
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    benchmarkMode.set(listOf("avgt"))
+    timeUnit.set("ms")
+    resultFormat.set("JSON")
+    // ./gradlew :benchmark:jmh -Pjmh.includes=TaskListQueryBenchmark
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.set(listOf(it)) }
+}
@@ -0,0 +1,33 @@
+package org.tasks.benchmark
+
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.tasks.data.db.Database
+
+@State(Scope.Benchmark)
+open class DatabaseState {
+    @Param("1000", "10000", "50000")
+    var taskCount: Int = 0
+
+    lateinit var dataset: SyntheticDataset
+    lateinit var database: Database
+    private lateinit var benchmarkDatabase: BenchmarkDatabase
+
+    @Setup(Level.Trial)
+    fun setup() = runBlocking {
+        benchmarkDatabase = BenchmarkDatabase()
+        database = benchmarkDatabase.database
+        dataset = SyntheticDataset(taskCount)
+        dataset.populate(database)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        benchmarkDatabase.close()
+    }
+}
@@ -0,0 +1,56 @@
+package org.tasks.benchmark
+
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import org.tasks.data.TaskListQueryNonRecursive
+import org.tasks.data.dao.TaskDao.TaskCriteria.activeAndVisible
+import org.tasks.data.entity.Tag
+import org.tasks.data.entity.Task
+import org.tasks.data.sql.Criterion
+import org.tasks.data.sql.Query
+import org.tasks.data.sql.QueryTemplate
+
+@State(Scope.Benchmark)
+open class LookupBenchmark : DatabaseState() {
+    private val searchSql = "%invoice%".let { matcher ->
+        QueryTemplate()
+            .where(
+                Criterion.and(
+                    activeAndVisible(),
+                    Criterion.or(
+                        Task.NOTES.like(matcher),
+                        Task.TITLE.like(matcher),
+                        Task.ID.`in`(Query.select(Tag.TASK).from(Tag.TABLE).where(Tag.NAME.like(matcher))),
+                    )
+                )
+            )
+            .toString()
+    }
+
+    @Benchmark
+    fun activeAlarms(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(database.alarmDao().getActiveAlarms())
+    }
+
+    @Benchmark
+    fun search(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(
+            database.taskDao().fetchTasks {
+                TaskListQueryNonRecursive.getNonRecursiveQuery(searchSql, BenchmarkPreferences())
+            }
+        )
+    }
+
+    @Benchmark
+    fun tagFilters(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(database.tagDataDao().getTagFilters())
+    }
+
+    @Benchmark
+    fun caldavFilters(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(database.caldavDao().getCaldavFilters(dataset.listUuids.first()))
+    }
+}
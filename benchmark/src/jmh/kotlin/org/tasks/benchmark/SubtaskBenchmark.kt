@@ -0,0 +1,30 @@
+package org.tasks.benchmark
+
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+
+@State(Scope.Benchmark)
+open class SubtaskBenchmark : DatabaseState() {
+    @Benchmark
+    fun getChildren(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(database.taskDao().getChildren(dataset.parentIds.take(100)))
+    }
+
+    @Benchmark
+    fun getParents(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(database.taskDao().getParents(dataset.taskIds.last()))
+    }
+
+    @Benchmark
+    fun updateParents() = runBlocking {
+        database.caldavDao().updateParents()
+    }
+
+    @Benchmark
+    fun updateParentsForList() = runBlocking {
+        database.caldavDao().updateParents(dataset.listUuids.first())
+    }
+}
@@ -0,0 +1,68 @@
+package org.tasks.benchmark
+
+import com.todoroo.astrid.core.SortHelper
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import org.tasks.data.TaskListQueryNonRecursive
+import org.tasks.data.TaskListQueryRecursive
+import org.tasks.data.dao.TaskDao.TaskCriteria.activeAndVisible
+import org.tasks.data.sql.QueryTemplate
+
+@State(Scope.Benchmark)
+open class TaskListQueryBenchmark : DatabaseState() {
+    // SORT_AUTO, SORT_ALPHA, SORT_DUE, SORT_START, SORT_IMPORTANCE, SORT_MODIFIED, SORT_CREATED, SORT_LIST
+    @Param("0", "1", "2", "8", "3", "4", "5", "9")
+    var sortMode: Int = 0
+
+    // GROUP_NONE, SORT_DUE, SORT_IMPORTANCE, SORT_LIST
+    @Param("-1", "2", "3", "9")
+    var groupMode: Int = 0
+
+    // SORT_MANUAL, SORT_DUE, SORT_ALPHA
+    @Param("11", "2", "1")
+    var subtaskMode: Int = 0
+
+    private val preferences: BenchmarkPreferences
+        get() = BenchmarkPreferences(
+            sortMode = sortMode,
+            groupMode = groupMode,
+            subtaskMode = subtaskMode,
+        )
+
+    private val filterSql = QueryTemplate().where(activeAndVisible()).toString()
+
+    @Benchmark
+    fun recursive(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(
+            database.taskDao().fetchTasks {
+                TaskListQueryRecursive.getRecursiveQuery(filterSql, preferences)
+            }
+        )
+    }
+
+    @Benchmark
+    fun recursiveList(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(
+            database.taskDao().fetchTasks {
+                TaskListQueryRecursive.getRecursiveListQuery(
+                    dataset.listUuids.first(),
+                    SortHelper.SORT_CALDAV,
+                    preferences,
+                )
+            }
+        )
+    }
+
+    @Benchmark
+    fun nonRecursive(blackhole: Blackhole) = runBlocking {
+        blackhole.consume(
+            database.taskDao().fetchTasks {
+                TaskListQueryNonRecursive.getNonRecursiveQuery(filterSql, preferences)
+            }
+        )
+    }
+}
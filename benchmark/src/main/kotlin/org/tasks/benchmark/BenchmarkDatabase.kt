@@ -0,0 +1,24 @@
+package org.tasks.benchmark
+
+import androidx.room.Room
+import androidx.sqlite.driver.bundled.BundledSQLiteDriver
+import kotlinx.coroutines.Dispatchers
+import org.tasks.data.db.Database
+import java.io.File
+
+class BenchmarkDatabase(
+    private val file: File = File.createTempFile("tasks-benchmark", ".db"),
+) : AutoCloseable {
+    val database: Database = Room
+        .databaseBuilder<Database>(name = file.absolutePath)
+        .setDriver(BundledSQLiteDriver())
+        .setQueryCoroutineContext(Dispatchers.IO)
+        .build()
+
+    override fun close() {
+        database.close()
+        file.delete()
+        File("${file.absolutePath}-wal").delete()
+        File("${file.absolutePath}-shm").delete()
+    }
+}
@@ -0,0 +1,21 @@
+package org.tasks.benchmark
+
+import com.todoroo.astrid.core.SortHelper
+import org.tasks.preferences.QueryPreferences
+
+data class BenchmarkPreferences(
+    override var sortMode: Int = SortHelper.SORT_AUTO,
+    override var groupMode: Int = SortHelper.GROUP_NONE,
+    override var completedMode: Int = SortHelper.SORT_COMPLETED,
+    override var subtaskMode: Int = SortHelper.SORT_MANUAL,
+    override var isManualSort: Boolean = false,
+    override var isAstridSort: Boolean = false,
+    override var sortAscending: Boolean = true,
+    override var groupAscending: Boolean = true,
+    override var completedAscending: Boolean = false,
+    override var subtaskAscending: Boolean = true,
+    override val showHidden: Boolean = false,
+    override val showCompleted: Boolean = false,
+    override val alwaysDisplayFullDate: Boolean = false,
+    override var completedTasksAtBottom: Boolean = true,
+) : QueryPreferences
@@ -0,0 +1,108 @@
+package org.tasks.benchmark
+
+import org.tasks.data.db.Database
+import org.tasks.data.db.withTransaction
+import org.tasks.data.entity.Alarm
+import org.tasks.data.entity.CaldavAccount
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.CaldavTask
+import org.tasks.data.entity.Tag
+import org.tasks.data.entity.TagData
+import org.tasks.data.entity.Task
+import java.util.UUID
+import kotlin.random.Random
+
+/**
+ * Populates a database with a reproducible set of tasks spread across CalDAV lists and tags,
+ * with a configurable fraction of subtasks and alarms. Subtasks are placed in their parent's list
+ * and reference it by remote id, so [org.tasks.data.dao.CaldavDao.updateParents] keeps the tree.
+ */
+class SyntheticDataset(
+    val taskCount: Int,
+    val listCount: Int = 20,
+    val tagCount: Int = 50,
+    val subtaskRatio: Double = 0.3,
+    val alarmRatio: Double = 0.2,
+    seed: Long = 42,
+) {
+    private val random = Random(seed)
+    private val now = 1_700_000_000_000L
+
+    val listUuids = List(listCount) { uuid() }
+    val taskIds = ArrayList<Long>(taskCount)
+    val parentIds = ArrayList<Long>()
+
+    suspend fun populate(database: Database) = database.withTransaction {
+        val caldavDao = database.caldavDao()
+        val taskDao = database.taskDao()
+        val tagDataDao = database.tagDataDao()
+        val account = uuid()
+        caldavDao.insert(CaldavAccount(uuid = account, name = "benchmark"))
+        listUuids.forEachIndexed { index, uuid ->
+            caldavDao.insert(CaldavCalendar(account = account, uuid = uuid, name = "List $index"))
+        }
+        val tags = List(tagCount) { index ->
+            TagData(name = "tag$index", remoteId = uuid()).also { tagDataDao.insert(it) }
+        }
+        val caldavTasks = ArrayList<CaldavTask>(taskCount)
+        val tagLinks = ArrayList<Tag>()
+        val alarms = ArrayList<Alarm>()
+        repeat(taskCount) { index ->
+            val parentIndex = if (taskIds.isNotEmpty() && random.nextDouble() < subtaskRatio) {
+                random.nextInt(taskIds.size)
+            } else {
+                null
+            }
+            val parent = parentIndex?.let { taskIds[it] } ?: 0L
+            val calendar = parentIndex?.let { caldavTasks[it].calendar }
+                ?: listUuids[random.nextInt(listCount)]
+            val task = Task(
+                title = "Task $index ${WORDS[random.nextInt(WORDS.size)]}",
+                notes = if (random.nextBoolean()) WORDS.shuffled(random).take(8).joinToString(" ") else null,
+                priority = random.nextInt(4),
+                dueDate = if (random.nextBoolean()) now + random.nextLong(-30, 60) * DAY else 0L,
+                hideUntil = if (random.nextInt(5) == 0) now + random.nextLong(1, 30) * DAY else 0L,
+                creationDate = now - random.nextLong(0, 365) * DAY,
+                modificationDate = now - random.nextLong(0, 30) * DAY,
+                completionDate = if (random.nextInt(4) == 0) now - random.nextLong(0, 30) * DAY else 0L,
+                remoteId = uuid(),
+                parent = parent,
+                order = index.toLong(),
+            )
+            val id = taskDao.insert(task)
+            taskIds.add(id)
+            if (parent > 0) {
+                parentIds.add(parent)
+            }
+            caldavTasks.add(
+                CaldavTask(
+                    task = id,
+                    calendar = calendar,
+                    remoteId = task.remoteId,
+                    obj = "${task.remoteId}.ics",
+                    remoteParent = parentIndex?.let { caldavTasks[it].remoteId },
+                )
+            )
+            repeat(random.nextInt(3)) {
+                val tag = tags[random.nextInt(tagCount)]
+                tagLinks.add(Tag(task = id, name = tag.name, tagUid = tag.remoteId, taskUid = task.remoteId))
+            }
+            if (random.nextDouble() < alarmRatio) {
+                alarms.add(Alarm(task = id, time = now + random.nextLong(0, 30) * DAY, type = Alarm.TYPE_DATE_TIME))
+            }
+        }
+        caldavDao.insert(caldavTasks)
+        database.tagDao().insert(tagLinks)
+        database.alarmDao().insert(alarms)
+    }
+
+    private fun uuid() = UUID(random.nextLong(), random.nextLong()).toString()
+
+    companion object {
+        private const val DAY = 86_400_000L
+        private val WORDS = listOf(
+            "groceries", "invoice", "meeting", "dentist", "report", "review", "laundry", "taxes",
+            "birthday", "flight", "garden", "backup", "email", "call", "renew", "plan",
+        )
+    }
+}
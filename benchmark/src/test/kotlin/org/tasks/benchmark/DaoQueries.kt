@@ -0,0 +1,70 @@
+package org.tasks.benchmark
+
+import java.io.File
+
+/**
+ * Extracts the SQL from every `@Query` annotation in the DAO sources. Room keeps these
+ * annotations out of the runtime classpath, so the sources are the only place to find them.
+ *
+ * String templates are replaced with `0` (they only ever reference numeric or string constants)
+ * and bind parameters are left in place so SQLite can plan them as unbound variables.
+ */
+object DaoQueries {
+    private val QUERY = Regex("""@Query\(""")
+    private val FUNCTION = Regex("""\bfun\s+(?:<[^>]*>\s*)?(?:[\w.]+\.)?(\w+)""")
+    private val TEMPLATE = Regex("""\$\{[^}]*}|\$\w+""")
+
+    fun parse(directory: File): Map<String, String> {
+        val queries = LinkedHashMap<String, String>()
+        directory
+            .listFiles { file -> file.extension == "kt" }!!
+            .sortedBy { it.name }
+            .forEach { file ->
+                val source = file.readText()
+                val dao = file.nameWithoutExtension
+                QUERY.findAll(source).forEach { match ->
+                    val (sql, end) = literals(source, match.range.last + 1)
+                    val function = FUNCTION.find(source, end)?.groupValues?.get(1)
+                        ?: throw IllegalStateException("No function after @Query in ${file.name}")
+                    val key = generateSequence(1) { it + 1 }
+                        .map { if (it == 1) "$dao.$function" else "$dao.$function#$it" }
+                        .first { !queries.containsKey(it) }
+                    queries[key] = sql.replace(TEMPLATE, "0")
+                }
+            }
+        return queries
+    }
+
+    private fun literals(source: String, start: Int): Pair<String, Int> {
+        val sql = StringBuilder()
+        var depth = 1
+        var i = start
+        while (depth > 0) {
+            when {
+                source.startsWith("\"\"\"", i) -> {
+                    val end = source.indexOf("\"\"\"", i + 3)
+                    sql.append(source, i + 3, end)
+                    i = end + 3
+                }
+                source[i] == '"' -> {
+                    i++
+                    while (source[i] != '"') {
+                        if (source[i] == '\\') {
+                            i++
+                        }
+                        sql.append(source[i++])
+                    }
+                    i++
+                }
+                else -> {
+                    when (source[i]) {
+                        '(' -> depth++
+                        ')' -> depth--
+                    }
+                    i++
+                }
+            }
+        }
+        return sql.toString() to i
+    }
+}
@@ -0,0 +1,140 @@
+package org.tasks.benchmark
+
+import androidx.room.useWriterConnection
+import com.todoroo.astrid.core.SortHelper
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.tasks.data.TaskListQueryNonRecursive
+import org.tasks.data.TaskListQueryRecursive
+import org.tasks.data.dao.TaskDao.TaskCriteria.activeAndVisible
+import org.tasks.data.db.Database
+import org.tasks.data.entity.Task
+import org.tasks.data.sql.Criterion
+import org.tasks.data.sql.QueryTemplate
+import java.io.File
+
+/**
+ * Runs EXPLAIN QUERY PLAN over every DAO query and every generated task list query, and fails
+ * when one of them picks up a full table scan of tasks or caldav_tasks that isn't listed in
+ * query-plan-baseline.txt.
+ */
+class QueryPlanTest {
+    private lateinit var benchmarkDatabase: BenchmarkDatabase
+    private val database: Database
+        get() = benchmarkDatabase.database
+
+    @Before
+    fun setUp() {
+        benchmarkDatabase = BenchmarkDatabase()
+    }
+
+    @After
+    fun tearDown() {
+        benchmarkDatabase.close()
+    }
+
+    @Test
+    fun noNewFullTableScans() = runBlocking {
+        val scans = sortedSetOf<String>()
+        DaoQueries.parse(File(System.getProperty("daoSourceDir"))).forEach { (key, sql) ->
+            explain(listOf(sql)).forEach { scans.add("$key: $it") }
+        }
+        taskListQueries().forEach { (key, queries) ->
+            explain(queries).forEach { scans.add("$key: $it") }
+        }
+        val baselineFile = File(System.getProperty("queryPlanBaseline"))
+        if (System.getProperty("recordQueryPlans").toBoolean()) {
+            baselineFile.writeText(scans.joinToString("\n", postfix = "\n"))
+            return@runBlocking
+        }
+        val baseline = baselineFile.readLines().filter { it.isNotBlank() }.toSet()
+        val unexpected = scans - baseline
+        assertTrue(
+            "New full table scans, add an index or run with -PrecordQueryPlans:\n" +
+                    unexpected.joinToString("\n"),
+            unexpected.isEmpty()
+        )
+    }
+
+    private suspend fun explain(queries: List<String>): List<String> =
+        database.useWriterConnection { connection ->
+            val last = queries.size - 1
+            queries.flatMapIndexed { index, sql ->
+                val plan = if (index == last || sql.startsWith("CREATE TEMPORARY TABLE")) {
+                    connection.usePrepared("EXPLAIN QUERY PLAN $sql") { statement ->
+                        buildList {
+                            while (statement.step()) {
+                                add(statement.getText(3))
+                            }
+                        }
+                    }
+                } else {
+                    emptyList()
+                }
+                if (index < last) {
+                    connection.usePrepared(sql) { it.step() }
+                }
+                plan.filter { FULL_SCAN.matches(it) }
+            }
+        }
+
+    private fun taskListQueries(): List<Pair<String, List<String>>> {
+        val filter = QueryTemplate()
+            .where(Criterion.and(activeAndVisible(), Task.PARENT.eq(0)))
+            .toString()
+        return preferences().flatMap { preferences ->
+            listOf(
+                "TaskListQueryRecursive" to
+                        TaskListQueryRecursive.getRecursiveQuery(filter, preferences),
+                "TaskListQueryRecursive.caldav" to
+                        TaskListQueryRecursive.getRecursiveListQuery("list", SortHelper.SORT_CALDAV, preferences),
+                "TaskListQueryRecursive.gtasks" to
+                        TaskListQueryRecursive.getRecursiveListQuery("list", SortHelper.SORT_GTASKS, preferences),
+                "TaskListQueryNonRecursive" to
+                        TaskListQueryNonRecursive.getNonRecursiveQuery(filter, preferences),
+            )
+        }
+    }
+
+    private fun preferences() = sequence {
+        for (sortMode in SORT_MODES) {
+            for (groupMode in GROUP_MODES) {
+                for (subtaskMode in SUBTASK_MODES) {
+                    for (manual in listOf(false, true)) {
+                        for (completedAtBottom in listOf(false, true)) {
+                            yield(
+                                BenchmarkPreferences(
+                                    sortMode = sortMode,
+                                    groupMode = groupMode,
+                                    subtaskMode = subtaskMode,
+                                    isManualSort = manual,
+                                    completedTasksAtBottom = completedAtBottom,
+                                )
+                            )
+                        }
+                    }
+                }
+            }
+        }
+    }.toList()
+
+    companion object {
+        private val FULL_SCAN = Regex("""SCAN (TABLE )?(tasks|caldav_tasks)( AS \w+)?""")
+
+        private val SORT_MODES = listOf(
+            SortHelper.SORT_AUTO,
+            SortHelper.SORT_ALPHA,
+            SortHelper.SORT_DUE,
+            SortHelper.SORT_START,
+            SortHelper.SORT_IMPORTANCE,
+            SortHelper.SORT_MODIFIED,
+            SortHelper.SORT_CREATED,
+            SortHelper.SORT_LIST,
+        )
+        private val GROUP_MODES = listOf(SortHelper.GROUP_NONE) + SORT_MODES
+        private val SUBTASK_MODES = listOf(SortHelper.SORT_MANUAL) + SORT_MODES
+    }
+}
@@ -2,6 +2,9 @@ plugins {
     id("com.google.devtools.ksp") version "1.9.24-1.0.20" apply false
     alias(libs.plugins.androidLibrary).apply(false)
     alias(libs.plugins.kotlinMultiplatform).apply(false)
+    alias(libs.plugins.kotlinJvm).apply(false)
+    alias(libs.plugins.room).apply(false)
+    alias(libs.plugins.jmh).apply(false)
 }
 
 buildscript {
@@ -1,6 +1,7 @@
 plugins {
     alias(libs.plugins.kotlinMultiplatform)
     alias(libs.plugins.androidLibrary)
+    alias(libs.plugins.room)
     id("com.google.devtools.ksp")
     id("kotlin-parcelize")
     kotlin("plugin.serialization") version "1.9.24"
@@ -21,6 +22,13 @@ kotlin {
             }
         }
     }
+    jvm {
+        compilations.all {
+            kotlinOptions {
+                jvmTarget = "17"
+            }
+        }
+    }
     sourceSets {
         val commonMain by getting {
             dependencies {
@@ -29,6 +37,11 @@ kotlin {
                 implementation(libs.kermit)
             }
         }
+        val jvmMain by getting {
+            dependencies {
+                implementation(libs.androidx.sqlite.bundled)
+            }
+        }
     }
 }
 android {
@@ -43,12 +56,6 @@ android {
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
         consumerProguardFiles("consumer-rules.pro")
-
-        ksp {
-            arg("room.schemaLocation", "$projectDir/schemas")
-            arg("room.incremental", "true")
-            arg("room.generateKotlin", "true")
-        }
     }
 
     buildTypes {
@@ -66,6 +73,16 @@ android {
     }
 }
 
+ksp {
+    arg("room.incremental", "true")
+    arg("room.generateKotlin", "true")
+}
+
+room {
+    schemaDirectory("$projectDir/schemas")
+}
+
 dependencies {
     add("kspAndroid", libs.androidx.room.compiler)
-}
\ No newline at end of file
+    add("kspJvm", libs.androidx.room.compiler)
+}
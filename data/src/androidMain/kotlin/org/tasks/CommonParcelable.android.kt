@@ -0,0 +1,7 @@
+package org.tasks
+
+actual typealias CommonParcelable = android.os.Parcelable
+
+actual typealias CommonParcelize = kotlinx.parcelize.Parcelize
+
+actual typealias CommonRawValue = kotlinx.parcelize.RawValue
@@ -0,0 +1,6 @@
+package org.tasks.data.db
+
+import androidx.room.withTransaction as roomTransaction
+
+actual suspend fun <T> Database.withTransaction(block: suspend () -> T): T =
+    roomTransaction(block)
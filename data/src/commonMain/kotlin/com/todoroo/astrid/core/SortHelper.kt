@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2012 Todoroo Inc
+ *
+ * See the file "LICENSE" for the full license governing this code.
+ */
+package com.todoroo.astrid.core
+
+import org.tasks.data.dao.APPLE_EPOCH
+import org.tasks.data.entity.CaldavCalendar
+import org.tasks.data.entity.Task
+import org.tasks.data.sql.Functions
+import org.tasks.data.sql.Order
+import org.tasks.data.sql.OrderType
+import org.tasks.db.QueryUtils.showCompleted
+import org.tasks.db.QueryUtils.showHidden
+import org.tasks.preferences.QueryPreferences
+import java.util.Locale
+
+/**
+ * Helpers for sorting a list of tasks
+ *
+ * @author Tim Su <tim@todoroo.com>
+ */
+object SortHelper {
+    const val GROUP_NONE = -1
+    const val SORT_AUTO = 0
+    const val SORT_ALPHA = 1
+    const val SORT_DUE = 2
+    const val SORT_IMPORTANCE = 3
+    const val SORT_MODIFIED = 4
+    const val SORT_CREATED = 5
+    const val SORT_GTASKS = 6
+    const val SORT_CALDAV = 7
+    const val SORT_START = 8
+    const val SORT_LIST = 9
+    const val SORT_COMPLETED = 10
+    const val SORT_MANUAL = 11
+
+    @JvmField
+    val CALDAV_ORDER_COLUMN =
+        String.format(Locale.US, "IFNULL(tasks.`order`, (tasks.created - %d) / 1000)", APPLE_EPOCH)
+
+    private const val ADJUSTED_DUE_DATE =
+        "(CASE WHEN (dueDate / 1000) % 60 > 0 THEN dueDate ELSE (dueDate + 43140000) END)"
+    private const val ADJUSTED_START_DATE =
+        "(CASE WHEN (hideUntil / 1000) % 60 > 0 THEN hideUntil ELSE (hideUntil + 86399000) END)"
+
+    private const val NO_DATE = 3538339200000L
+
+    private const val GROUP_DUE_DATE =
+        "((CASE WHEN (tasks.dueDate=0) THEN $NO_DATE ELSE tasks.dueDate END)+tasks.importance * 1000)"
+
+    private val SORT_DUE_DATE =
+        "((CASE WHEN (tasks.dueDate=0) THEN $NO_DATE ELSE ${ADJUSTED_DUE_DATE.replace("dueDate", "tasks.dueDate")} END)+tasks.importance * 1000)"
+
+    private const val GROUP_START_DATE =
+        "((CASE WHEN (tasks.hideUntil=0) THEN $NO_DATE ELSE tasks.hideUntil END)+tasks.importance * 1000)"
+
+    private val SORT_START_DATE =
+        "((CASE WHEN (tasks.hideUntil=0) THEN $NO_DATE ELSE ${ADJUSTED_START_DATE.replace("hideUntil", "tasks.hideUntil")} END)+tasks.importance * 1000)"
+
+    private val ORDER_TITLE = Order.asc(Functions.upper(Task.TITLE))
+    private val ORDER_LIST =
+        Order.asc(Functions.upper(CaldavCalendar.ORDER))
+            .addSecondaryExpression(Order.asc(CaldavCalendar.NAME))
+
+    /** Takes a SQL query, and if there isn't already an order, creates an order.  */
+    @JvmStatic
+    fun adjustQueryForFlagsAndSort(
+        preferences: QueryPreferences,
+        originalSql: String?,
+        sort: Int,
+    ): String {
+        // sort
+        var sql = originalSql ?: ""
+        if (!sql.uppercase().contains("ORDER BY")) {
+            var order = orderForSortType(sort)
+            if ((order.orderType == OrderType.ASC) != preferences.sortAscending) {
+                order = order.reverse()
+            }
+            sql += " ORDER BY $order"
+        }
+        return adjustQueryForFlags(preferences, sql)
+    }
+
+    @JvmStatic
+    fun adjustQueryForFlags(preferences: QueryPreferences, originalSql: String): String {
+        var adjustedSql = originalSql
+
+        // flags
+        if (preferences.showCompleted) {
+            adjustedSql = showCompleted(adjustedSql)
+        }
+        if (preferences.showHidden) {
+            adjustedSql = showHidden(adjustedSql)
+        }
+        return adjustedSql
+    }
+
+    private fun orderForSortType(sortType: Int): Order {
+        val order = when (sortType) {
+            SORT_ALPHA -> ORDER_TITLE
+            SORT_DUE -> Order.asc(
+                "(CASE WHEN (dueDate=0) THEN (strftime('%s','now')*1000)*2 ELSE $ADJUSTED_DUE_DATE END)+importance"
+            )
+            SORT_START -> Order.asc(
+                "(CASE WHEN (hideUntil=0) THEN (strftime('%s','now')*1000)*2 ELSE $ADJUSTED_START_DATE END)+importance"
+            )
+            SORT_IMPORTANCE -> Order.asc("importance")
+            SORT_MODIFIED -> Order.desc(Task.MODIFICATION_DATE)
+            SORT_CREATED -> Order.desc(Task.CREATION_DATE)
+            SORT_LIST -> ORDER_LIST
+            else -> Order.asc(
+                "(CASE WHEN (dueDate=0) " + // if no due date
+                        "THEN (strftime('%s','now')*1000)*2 " + // then now * 2
+                        "ELSE (" + ADJUSTED_DUE_DATE + ") END) " + // else due time
+                        // add slightly less than 2 days * importance to give due date priority over importance in case of tie
+                        "+ 172799999 * importance"
+            )
+        }
+        if (sortType != SORT_ALPHA) {
+            order.addSecondaryExpression(ORDER_TITLE)
+        }
+        return order
+    }
+
+    @JvmStatic
+    fun getSortGroup(sortType: Int): String? = when (sortType) {
+        SORT_DUE -> "tasks.dueDate"
+        SORT_START -> "tasks.hideUntil"
+        SORT_IMPORTANCE -> "tasks.importance"
+        SORT_MODIFIED -> "tasks.modified"
+        SORT_CREATED -> "tasks.created"
+        SORT_LIST -> "cdl_id"
+        else -> null
+    }
+
+    private fun sortGroup(column: String): String =
+        "datetime($column / 1000, 'unixepoch', 'localtime', 'start of day')"
+
+    @JvmStatic
+    fun orderSelectForSortTypeRecursive(sortType: Int, grouping: Boolean): String = when (sortType) {
+        GROUP_NONE -> "1"
+        SORT_ALPHA -> "UPPER(tasks.title)"
+        SORT_DUE -> if (grouping) sortGroup(GROUP_DUE_DATE) else SORT_DUE_DATE
+        SORT_START -> if (grouping) sortGroup(GROUP_START_DATE) else SORT_START_DATE
+        SORT_IMPORTANCE -> "tasks.importance"
+        SORT_MODIFIED -> if (grouping) sortGroup("tasks.modified") else "tasks.modified"
+        SORT_CREATED -> if (grouping) sortGroup("tasks.created") else "tasks.created"
+        SORT_GTASKS -> "tasks.`order`"
+        SORT_CALDAV -> CALDAV_ORDER_COLUMN
+        SORT_LIST -> "CASE WHEN cdl_order = -1 THEN cdl_name ELSE cdl_order END"
+        SORT_COMPLETED -> "tasks.completed"
+        else -> "(CASE WHEN (tasks.dueDate=0) " + // if no due date
+                "THEN (strftime('%s','now')*1000)*2 " + // then now * 2
+                "ELSE (" + ADJUSTED_DUE_DATE.replace("dueDate", "tasks.dueDate") + ") END) " + // else due time
+                // add slightly less than 2 days * importance to give due date priority over importance in case of tie
+                "+ 172799999 * tasks.importance"
+    }
+
+    @JvmStatic
+    fun orderForGroupTypeRecursive(groupMode: Int, ascending: Boolean): Order =
+        if (ascending) Order.asc("primary_group") else Order.desc("primary_group")
+
+    @JvmStatic
+    fun orderForSortTypeRecursive(
+        sortMode: Int,
+        primaryAscending: Boolean,
+        secondaryMode: Int,
+        secondaryAscending: Boolean,
+    ): Order {
+        val order = if (primaryAscending || sortMode == SORT_GTASKS || sortMode == SORT_CALDAV) {
+            Order.asc("primary_sort")
+        } else {
+            Order.desc("primary_sort")
+        }
+        order.addSecondaryExpression(
+            if (secondaryAscending || secondaryMode == SORT_GTASKS || secondaryMode == SORT_CALDAV) {
+                Order.asc("secondary_sort")
+            } else {
+                Order.desc("secondary_sort")
+            }
+        )
+        if (sortMode != SORT_ALPHA) {
+            order.addSecondaryExpression(Order.asc("sort_title"))
+        }
+        return order
+    }
+}
@@ -0,0 +1,3 @@
+package org.tasks.data
+
+internal expect val IS_DEBUG: Boolean
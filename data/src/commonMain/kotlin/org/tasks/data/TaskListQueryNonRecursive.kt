@@ -1,36 +1,42 @@
 package org.tasks.data
 
-import org.tasks.data.sql.Field.Companion.field
-import org.tasks.data.sql.Join
-import org.tasks.data.sql.Query
-import com.todoroo.astrid.api.AstridOrderingFilter
-import com.todoroo.astrid.api.Filter
-import com.todoroo.astrid.api.PermaSql
 import com.todoroo.astrid.core.SortHelper
+import org.tasks.data.TaskListQueryJoins.TASK_LIST_FIELDS
+import org.tasks.data.TaskListQueryJoins.TASK_LIST_JOINS
 import org.tasks.data.entity.Tag
 import org.tasks.data.entity.Task
-import org.tasks.filters.RecentlyModifiedFilter
+import org.tasks.data.sql.Field.Companion.field
+import org.tasks.data.sql.Join
+import org.tasks.data.sql.Query
 import org.tasks.preferences.QueryPreferences
 
-internal object TaskListQueryNonRecursive {
+object TaskListQueryNonRecursive {
     private const val TAGS_METADATA_JOIN = "for_tags"
 
     private val JOIN_TAGS = Task.ID.eq(field("$TAGS_METADATA_JOIN.task"))
     private val JOINS = """
         ${Join.left(Tag.TABLE.`as`(TAGS_METADATA_JOIN), JOIN_TAGS)}
-        ${TaskListQuery.JOINS}
+        $TASK_LIST_JOINS
     """.trimIndent()
     private val TAGS =
             field("group_concat(distinct($TAGS_METADATA_JOIN.tag_uid))")
                     .`as`("tags")
     private val FIELDS =
-        TaskListQuery.FIELDS.plus(listOf(
+        TASK_LIST_FIELDS.plus(listOf(
             TAGS,
             field("tasks.completed > 0").`as`("parentComplete")
         )).toTypedArray()
 
-    fun getNonRecursiveQuery(filter: Filter, preferences: QueryPreferences): MutableList<String> {
-        val joinedQuery = JOINS + if (filter is AstridOrderingFilter) filter.getSqlQuery() else filter.sql!!
+    /**
+     * @param filterSql filter criteria with PermaSql placeholders already replaced
+     * @param preserveOrder keep the filter's own ORDER BY instead of applying completed sorting
+     */
+    fun getNonRecursiveQuery(
+        filterSql: String,
+        preferences: QueryPreferences,
+        preserveOrder: Boolean = false,
+    ): MutableList<String> {
+        val joinedQuery = JOINS + filterSql
         val sortMode = preferences.sortMode
         val groupMode = preferences.groupMode
         val sortGroup = field(SortHelper.getSortGroup(groupMode) ?: "NULL").`as`("sortGroup")
@@ -43,7 +49,7 @@ internal object TaskListQueryNonRecursive {
             }
         val orderBy = "$completeAtBottom $completionSort"
         val groupedQuery = when {
-            filter is RecentlyModifiedFilter ->
+            preserveOrder ->
                 query.replace("ORDER BY", "GROUP BY ${Task.ID} ORDER BY")
             query.contains("ORDER BY") ->
                 query.replace("ORDER BY", "GROUP BY ${Task.ID} ORDER BY $orderBy")
@@ -54,7 +60,7 @@ internal object TaskListQueryNonRecursive {
         }
         return mutableListOf(
                 Query.select(*FIELDS.plus(sortGroup))
-                        .withQueryTemplate(PermaSql.replacePlaceholdersForQuery(groupedQuery))
+                        .withQueryTemplate(groupedQuery)
                         .from(Task.TABLE)
                         .toString())
     }
@@ -6,22 +6,20 @@ import org.tasks.data.sql.Field.Companion.field
 import org.tasks.data.sql.Join
 import org.tasks.data.sql.Query
 import org.tasks.data.sql.QueryTemplate
-import com.todoroo.astrid.api.CaldavFilter
-import com.todoroo.astrid.api.Filter
-import com.todoroo.astrid.api.GtasksFilter
-import com.todoroo.astrid.api.PermaSql
 import com.todoroo.astrid.core.SortHelper
+import org.tasks.data.TaskListQueryJoins.TASK_LIST_FIELDS
+import org.tasks.data.TaskListQueryJoins.TASK_LIST_JOINS
 import org.tasks.data.entity.Task
 import org.tasks.data.dao.TaskDao.TaskCriteria.activeAndVisible
 import org.tasks.data.entity.CaldavTask
 import org.tasks.data.entity.Tag
 import org.tasks.preferences.QueryPreferences
 
-internal object TaskListQueryRecursive {
+object TaskListQueryRecursive {
     private val RECURSIVE = Table("recursive_tasks")
     private val RECURSIVE_TASK = field("$RECURSIVE.task")
     private val FIELDS =
-            TaskListQuery.FIELDS.plus(listOf(
+            TASK_LIST_FIELDS.plus(listOf(
                     field("(${
                         Query.select(field("group_concat(distinct(tag_uid))")).from(Tag.TABLE).where(
                         Task.ID.eq(Tag.TASK))} GROUP BY ${Tag.TASK})").`as`("tags"),
@@ -35,38 +33,50 @@ internal object TaskListQueryRecursive {
     private val JOINS = """
         ${Join.inner(RECURSIVE, Task.ID.eq(RECURSIVE_TASK))}
         LEFT JOIN (SELECT parent, count(distinct recursive_tasks.task) AS children FROM recursive_tasks GROUP BY parent) AS recursive_children ON recursive_children.parent = tasks._id
-        ${TaskListQuery.JOINS}
+        $TASK_LIST_JOINS
     """.trimIndent()
     private val SUBTASK_QUERY =
             QueryTemplate()
                     .join(Join.inner(RECURSIVE, Task.PARENT.eq(RECURSIVE_TASK)))
                     .where(activeAndVisible())
 
+    /**
+     * @param filterSql filter criteria with PermaSql placeholders already replaced
+     */
     fun getRecursiveQuery(
-        filter: Filter,
+        filterSql: String,
+        preferences: QueryPreferences,
+    ): MutableList<String> = getRecursiveQuery(filterSql, null, preferences)
+
+    /**
+     * @param list uuid of the caldav or google task list
+     * @param manualSortMode [SortHelper.SORT_CALDAV] or [SortHelper.SORT_GTASKS]
+     */
+    fun getRecursiveListQuery(
+        list: String,
+        manualSortMode: Int,
+        preferences: QueryPreferences,
+    ): MutableList<String> = getRecursiveQuery(newCaldavQuery(list), manualSortMode, preferences)
+
+    private fun getRecursiveQuery(
+        parentQuery: String,
+        manualSortMode: Int?,
         preferences: QueryPreferences,
     ): MutableList<String> {
-        val parentQuery = when (filter) {
-            is CaldavFilter -> newCaldavQuery(filter.uuid)
-            is GtasksFilter -> newCaldavQuery(filter.list.uuid!!)
-            else -> PermaSql.replacePlaceholdersForQuery(filter.sql!!)
-        }
+        val isList = manualSortMode != null
         val manualSort = preferences.isManualSort
         val groupPreference = preferences.groupMode
         val groupMode = when {
-            (filter is GtasksFilter || filter is CaldavFilter) &&
-                    (manualSort || groupPreference == SortHelper.SORT_LIST) -> SortHelper.GROUP_NONE
+            isList && (manualSort || groupPreference == SortHelper.SORT_LIST) -> SortHelper.GROUP_NONE
             else -> groupPreference
         }
         val sortMode = when {
-            manualSort && filter is GtasksFilter -> SortHelper.SORT_GTASKS
-            manualSort && filter is CaldavFilter -> SortHelper.SORT_CALDAV
+            manualSort && isList -> manualSortMode!!
             else -> preferences.sortMode
         }
         val subtaskPreference = preferences.subtaskMode
         val subtaskMode = when {
-            manualSort && filter is GtasksFilter -> SortHelper.SORT_GTASKS
-            manualSort && filter is CaldavFilter -> SortHelper.SORT_CALDAV
+            manualSort && isList -> manualSortMode!!
             subtaskPreference == SortHelper.SORT_MANUAL -> SortHelper.SORT_CALDAV
             else -> subtaskPreference
         }
@@ -115,7 +125,7 @@ internal object TaskListQueryRecursive {
             "CREATE INDEX `r_tasks` ON `recursive_tasks` (`task`)",
             "CREATE INDEX `r_parents` ON `recursive_tasks` (`parent`)",
             Query.select(*FIELDS)
-                .withQueryTemplate(PermaSql.replacePlaceholdersForQuery("$JOINS WHERE recursive_tasks.hidden = 0"))
+                .withQueryTemplate("$JOINS WHERE recursive_tasks.hidden = 0")
                 .from(Task.TABLE)
                 .toString(),
         )
@@ -32,6 +32,9 @@ WHERE tasks._id = :taskId
     @Query("SELECT * FROM alarms WHERE task = :taskId")
     suspend fun getAlarms(taskId: Long): List<Alarm>
 
+    @Query("SELECT * FROM alarms WHERE task IN (:taskIds)")
+    suspend fun getAlarms(taskIds: List<Long>): List<Alarm>
+
     @Query("DELETE FROM alarms WHERE type = $TYPE_SNOOZE AND task IN (:taskIds)")
     suspend fun deleteSnoozed(taskIds: List<Long>)
 
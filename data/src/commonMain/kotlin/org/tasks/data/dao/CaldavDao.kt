@@ -14,6 +14,8 @@ import org.tasks.data.TaskContainer
 import org.tasks.data.db.DbUtils.dbchunk
 import org.tasks.data.db.SuspendDbUtils.chunkedMap
 import org.tasks.data.entity.CaldavAccount
+import org.tasks.data.entity.CaldavAccount.Companion.SERVER_MAILBOX_ORG
+import org.tasks.data.entity.CaldavAccount.Companion.SERVER_OPEN_XCHANGE
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_ETESYNC
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_GOOGLE_TASKS
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_LOCAL
@@ -29,7 +31,7 @@ const val APPLE_EPOCH = 978307200000L // 1/1/2001 GMT
 @Dao
 abstract class CaldavDao {
     @Query("SELECT COUNT(*) FROM caldav_lists WHERE cdl_account = :account")
-    abstract fun listCount(account: String): Int
+    abstract suspend fun listCount(account: String): Int
 
     @Query("SELECT * FROM caldav_lists")
     abstract fun subscribeToCalendars(): Flow<List<CaldavCalendar>>
@@ -247,6 +249,12 @@ SELECT EXISTS(SELECT 1
     @Query("SELECT cd_task FROM caldav_tasks WHERE cd_calendar = :calendar AND cd_remote_id IN (:remoteIds)")
     internal abstract suspend fun getTasksByRemoteIdInternal(calendar: String, remoteIds: List<String>): List<Long>
 
+    suspend fun getCaldavTasksByRemoteId(calendar: String, remoteIds: List<String>): List<CaldavTask> =
+            remoteIds.chunkedMap { getCaldavTasksByRemoteIdInternal(calendar, it) }
+
+    @Query("SELECT * FROM caldav_tasks WHERE cd_calendar = :calendar AND cd_remote_id IN (:remoteIds)")
+    internal abstract suspend fun getCaldavTasksByRemoteIdInternal(calendar: String, remoteIds: List<String>): List<CaldavTask>
+
     suspend fun getTasks(calendar: String, objects: List<String>): List<Long> =
             objects.chunkedMap { getTasksInternal(calendar, it) }
 
@@ -265,6 +273,19 @@ SELECT EXISTS(SELECT 1
             + " WHERE cdl_account = cda_uuid")
     abstract suspend fun getAccountForTask(task: Long): CaldavAccount?
 
+    suspend fun getTasksWithSuppressedRepeats(tasks: List<Long>): List<Long> =
+            tasks.chunkedMap { getTasksWithSuppressedRepeatsInternal(it) }
+
+    @Query("""
+SELECT DISTINCT cd_task
+FROM caldav_tasks
+         INNER JOIN caldav_lists ON cd_calendar = cdl_uuid
+         INNER JOIN caldav_accounts ON cdl_account = cda_uuid
+WHERE cd_task IN (:tasks)
+  AND cda_server_type IN ($SERVER_OPEN_XCHANGE, $SERVER_MAILBOX_ORG)
+""")
+    internal abstract suspend fun getTasksWithSuppressedRepeatsInternal(tasks: List<Long>): List<Long>
+
     @Query("SELECT DISTINCT cd_calendar FROM caldav_tasks WHERE cd_deleted = 0 AND cd_task IN (:tasks)")
     abstract suspend fun getCalendars(tasks: List<Long>): List<String>
 
@@ -58,7 +58,7 @@ WHERE recurring = 1
     }
 
     @Query("SELECT cd_task FROM caldav_tasks WHERE cd_calendar = :calendar AND cd_deleted = 0")
-    internal abstract suspend fun getActiveCaldavTasks(calendar: String): List<Long>
+    abstract suspend fun getActiveCaldavTasks(calendar: String): List<Long>
 
     @Delete
     internal abstract suspend fun deleteCaldavCalendar(caldavCalendar: CaldavCalendar)
@@ -0,0 +1,27 @@
+package org.tasks.data.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.Query
+import org.tasks.data.db.SuspendDbUtils.eachChunk
+import org.tasks.data.entity.FilePurge
+
+@Dao
+abstract class FilePurgeDao {
+    @Query("SELECT * FROM file_purge ORDER BY fp_id LIMIT :limit")
+    abstract suspend fun getQueued(limit: Int): List<FilePurge>
+
+    @Insert
+    internal abstract suspend fun insert(files: List<FilePurge>)
+
+    @Query("DELETE FROM file_purge WHERE fp_id IN (:ids)")
+    internal abstract suspend fun deleteInternal(ids: List<Long>)
+
+    suspend fun enqueue(uris: List<String>) {
+        if (uris.isNotEmpty()) {
+            insert(uris.map { FilePurge(uri = it) })
+        }
+    }
+
+    suspend fun remove(files: List<FilePurge>) = files.map { it.id }.eachChunk { deleteInternal(it) }
+}
@@ -6,6 +6,7 @@ import androidx.room.Insert
 import androidx.room.Query
 import androidx.room.Transaction
 import androidx.room.Update
+import org.tasks.data.db.SuspendDbUtils.chunkedMap
 import org.tasks.data.entity.Task
 import org.tasks.data.entity.CaldavAccount.Companion.TYPE_GOOGLE_TASKS
 import org.tasks.data.entity.CaldavTask
@@ -33,6 +34,10 @@ abstract class GoogleTaskDao {
     @Query("UPDATE tasks SET `order` = `order` + 1 WHERE parent = :parent AND `order` >= :position AND _id IN (SELECT cd_task FROM caldav_tasks WHERE cd_calendar = :listId)")
     internal abstract suspend fun shiftDown(listId: String, parent: Long, position: Long)
 
+    /** Makes room for [count] tasks inserted at the top, like [insertAndShift] does for one */
+    @Query("UPDATE tasks SET `order` = `order` + :count WHERE parent = :parent AND `order` >= 0 AND _id IN (SELECT cd_task FROM caldav_tasks WHERE cd_calendar = :listId)")
+    abstract suspend fun shiftDownBy(listId: String, parent: Long, count: Int)
+
     @Query("UPDATE tasks SET `order` = `order` - 1 WHERE parent = :parent AND `order` > :from AND `order` <= :to  AND _id IN (SELECT cd_task FROM caldav_tasks WHERE cd_calendar = :listId)")
     internal abstract suspend fun shiftUp(listId: String, parent: Long, from: Long, to: Long)
 
@@ -68,6 +73,12 @@ abstract class GoogleTaskDao {
     @Query("SELECT caldav_tasks.* FROM caldav_tasks INNER JOIN caldav_lists ON cdl_uuid = cd_calendar INNER JOIN caldav_accounts ON cda_uuid = cdl_account WHERE cd_task = :taskId AND cd_deleted = 0 AND cda_account_type = $TYPE_GOOGLE_TASKS LIMIT 1")
     abstract suspend fun getByTaskId(taskId: Long): CaldavTask?
 
+    suspend fun getByTaskIds(tasks: List<Long>): List<CaldavTask> =
+            tasks.chunkedMap { getByTaskIdsInternal(it) }
+
+    @Query("SELECT caldav_tasks.* FROM caldav_tasks INNER JOIN caldav_lists ON cdl_uuid = cd_calendar INNER JOIN caldav_accounts ON cda_uuid = cdl_account WHERE cd_task IN (:tasks) AND cd_deleted = 0 AND cda_account_type = $TYPE_GOOGLE_TASKS")
+    internal abstract suspend fun getByTaskIdsInternal(tasks: List<Long>): List<CaldavTask>
+
     @Update
     abstract suspend fun update(googleTask: CaldavTask)
 
@@ -69,6 +69,12 @@ interface LocationDao {
             + " WHERE geofences.task = :taskId")
     suspend fun getPlaceForTask(taskId: Long): Place?
 
+    @Query("SELECT DISTINCT places.*"
+            + " FROM places"
+            + " INNER JOIN geofences ON geofences.place = places.uid"
+            + " WHERE geofences.task IN (:taskIds)")
+    suspend fun getPlacesForTasks(taskIds: List<Long>): List<Place>
+
     @Query("SELECT geofences.*, places.* FROM geofences INNER JOIN places ON geofences.place = places.uid INNER JOIN tasks ON tasks._id = geofences.task WHERE tasks.deleted = 0 AND tasks.completed = 0")
     suspend fun getActiveGeofences(): List<Location>
 
@@ -84,6 +90,9 @@ interface LocationDao {
     @Insert
     suspend fun insert(location: Geofence): Long
 
+    @Insert
+    suspend fun insert(geofences: List<Geofence>)
+
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     suspend fun insert(place: Place): Long
 
@@ -99,6 +108,15 @@ interface LocationDao {
     @Query("SELECT * FROM geofences WHERE task = :taskId")
     suspend fun getGeofencesForTask(taskId: Long): List<Geofence>
 
+    @Query("SELECT * FROM geofences WHERE task IN (:tasks)")
+    suspend fun getGeofencesForTasks(tasks: List<Long>): List<Geofence>
+
+    @Query("SELECT DISTINCT places.* FROM places INNER JOIN geofences ON geofences.place = places.uid WHERE geofences.task IN (:tasks)")
+    suspend fun getPlacesForTasks(tasks: List<Long>): List<Place>
+
+    @Query("DELETE FROM geofences WHERE task IN (:tasks)")
+    suspend fun deleteGeofencesForTasks(tasks: List<Long>)
+
     @Query("SELECT * FROM places")
     suspend fun getPlaces(): List<Place>
 
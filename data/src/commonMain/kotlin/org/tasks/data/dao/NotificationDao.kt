@@ -14,6 +14,12 @@ interface NotificationDao {
     @Query("SELECT * FROM notification ORDER BY timestamp DESC")
     suspend fun getAllOrdered(): List<Notification>
 
+    @Query("SELECT task FROM notification WHERE task IN(:taskIds)")
+    suspend fun getPosted(taskIds: List<Long>): List<Long>
+
+    @Query("SELECT COUNT(*) FROM notification")
+    suspend fun count(): Int
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertAll(notifications: List<Notification>)
 
@@ -16,34 +16,34 @@ import org.tasks.data.entity.PrincipalAccess
 @Dao
 interface PrincipalDao {
     @Insert
-    fun insert(principal: Principal): Long
+    suspend fun insert(principal: Principal): Long
 
     @Insert
-    fun insert(access: PrincipalAccess): Long
+    suspend fun insert(access: PrincipalAccess): Long
 
     @Update
-    fun update(access: PrincipalAccess)
+    suspend fun update(access: PrincipalAccess)
 
     @Query("""
 DELETE
 FROM principal_access
 WHERE list = :list
   AND id NOT IN (:access)""")
-    fun deleteRemoved(list: Long, access: List<Long>)
+    suspend fun deleteRemoved(list: Long, access: List<Long>)
 
     @Delete
-    fun delete(access: PrincipalAccess)
+    suspend fun delete(access: PrincipalAccess)
 
     @Transaction
     @Query("SELECT * FROM principal_access")
-    fun getAll(): List<PrincipalWithAccess>
+    suspend fun getAll(): List<PrincipalWithAccess>
 
-    fun getOrCreatePrincipal(account: CaldavAccount, href: String, displayName: String? = null) =
+    suspend fun getOrCreatePrincipal(account: CaldavAccount, href: String, displayName: String? = null) =
         findPrincipal(account.id, href)
             ?: Principal(account = account.id, href = href, displayName = displayName)
                 .apply { id = insert(this) }
 
-    fun getOrCreateAccess(
+    suspend fun getOrCreateAccess(
         calendar: CaldavCalendar,
         principal: Principal,
         invite: Int,
@@ -65,10 +65,10 @@ WHERE list = :list
             ).apply { id = insert(this) }
 
     @Query("SELECT * FROM principals WHERE account = :account AND href = :href")
-    fun findPrincipal(account: Long, href: String): Principal?
+    suspend fun findPrincipal(account: Long, href: String): Principal?
 
     @Query("SELECT * FROM principal_access WHERE list = :list and principal = :principal")
-    fun findAccess(list: Long, principal: Long): PrincipalAccess?
+    suspend fun findAccess(list: Long, principal: Long): PrincipalAccess?
 
     @Transaction
     @Query("SELECT * FROM principal_access WHERE list = :id")
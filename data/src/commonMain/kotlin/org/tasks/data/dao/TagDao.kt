@@ -5,6 +5,7 @@ import androidx.room.Delete
 import androidx.room.Insert
 import androidx.room.Query
 import androidx.room.Transaction
+import org.tasks.data.db.SuspendDbUtils.chunkedMap
 import org.tasks.data.entity.Tag
 import org.tasks.data.entity.TagData
 import org.tasks.data.entity.Task
@@ -20,6 +21,13 @@ abstract class TagDao {
     @Insert
     abstract suspend fun insert(tags: Iterable<Tag>)
 
+    /** Tags of [tasks] named after their tag data, like [TagDataDao.getTagDataForTask] */
+    suspend fun getTagsForTasks(tasks: List<Long>): List<Tag> =
+            tasks.chunkedMap { getTagsForTasksInternal(it) }
+
+    @Query("SELECT tags._id, tags.task, tagdata.name, tagdata.remoteId AS tag_uid, tags.task_uid FROM tagdata INNER JOIN tags ON tags.tag_uid = tagdata.remoteId WHERE tags.task IN (:tasks) ORDER BY UPPER(tagdata.name) ASC")
+    internal abstract suspend fun getTagsForTasksInternal(tasks: List<Long>): List<Tag>
+
     @Query("DELETE FROM tags WHERE task = :taskId AND tag_uid in (:tagUids)")
     internal abstract suspend fun deleteTags(taskId: Long, tagUids: List<String>)
 
@@ -9,12 +9,21 @@ interface TaskAttachmentDao {
     @Query("SELECT * FROM attachment WHERE task = :task")
     suspend fun getAttachmentsForTask(task: Long): List<Attachment>
 
+    @Query("SELECT * FROM attachment WHERE task IN (:tasks)")
+    suspend fun getAttachmentsForTasks(tasks: List<Long>): List<Attachment>
+
     @Query("SELECT attachment_file.* FROM attachment_file INNER JOIN attachment ON attachment_file.file_uuid = attachment.file_uuid WHERE task = :task")
     suspend fun getAttachments(task: Long): List<TaskAttachment>
 
     @Query("SELECT * FROM attachment_file")
     suspend fun getAttachments(): List<TaskAttachment>
 
+    @Query("SELECT DISTINCT file_uuid FROM attachment WHERE task IN (:tasks)")
+    suspend fun getAttachmentUids(tasks: List<Long>): List<String>
+
+    @Query("SELECT * FROM attachment_file WHERE file_uuid IN (:uuids) AND NOT EXISTS (SELECT 1 FROM attachment WHERE attachment.file_uuid = attachment_file.file_uuid)")
+    suspend fun getUnreferenced(uuids: List<String>): List<TaskAttachment>
+
     @Query("SELECT * FROM attachment_file WHERE file_uuid = :remoteId")
     suspend fun getAttachment(remoteId: String): TaskAttachment?
 
@@ -34,5 +43,5 @@ interface TaskAttachmentDao {
     suspend fun update(attachment: TaskAttachment)
 
     @Delete
-    fun delete(value: List<TaskAttachment>)
+    suspend fun delete(value: List<TaskAttachment>)
 }
\ No newline at end of file
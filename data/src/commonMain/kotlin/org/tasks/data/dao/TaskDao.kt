@@ -4,16 +4,16 @@ import androidx.room.Dao
 import androidx.room.Insert
 import androidx.room.Query
 import androidx.room.RawQuery
+import androidx.room.RoomRawQuery
 import androidx.room.Update
-import androidx.room.withTransaction
-import androidx.sqlite.db.SimpleSQLiteQuery
 import co.touchlab.kermit.Logger
-import org.tasks.data.BuildConfig
+import org.tasks.data.IS_DEBUG
 import org.tasks.data.TaskContainer
 import org.tasks.data.UUIDHelper
 import org.tasks.data.db.Database
 import org.tasks.data.db.SuspendDbUtils.chunkedMap
 import org.tasks.data.db.SuspendDbUtils.eachChunk
+import org.tasks.data.db.withTransaction
 import org.tasks.data.entity.Alarm
 import org.tasks.data.entity.Task
 import org.tasks.data.sql.Criterion
@@ -109,28 +109,30 @@ FROM (
     abstract suspend fun clearCompletedCalendarEvents(): Int
 
     open suspend fun fetchTasks(callback: suspend () -> List<String>): List<TaskContainer> =
+            fetchTasks(callback().map { RoomRawQuery(it) })
+
+    open suspend fun fetchTasks(queries: List<RoomRawQuery>): List<TaskContainer> =
             database.withTransaction {
-                val start = if (BuildConfig.DEBUG) DateTimeUtils2.currentTimeMillis() else 0
-                val queries = callback()
+                val start = if (IS_DEBUG) DateTimeUtils2.currentTimeMillis() else 0
                 val last = queries.size - 1
                 for (i in 0 until last) {
-                    query(SimpleSQLiteQuery(queries[i]))
+                    query(queries[i])
                 }
-                val result = fetchTasks(SimpleSQLiteQuery(queries[last]))
+                val result = fetchTasks(queries[last])
                 Logger.v("TaskDao") {
-                    "${DateTimeUtils2.currentTimeMillis() - start}ms: ${queries.joinToString(";\n")}"
+                    "${DateTimeUtils2.currentTimeMillis() - start}ms: ${queries.joinToString(";\n") { it.sql }}"
                 }
                 result
             }
 
     @RawQuery
-    internal abstract suspend fun query(query: SimpleSQLiteQuery): Int
+    internal abstract suspend fun query(query: RoomRawQuery): Int
 
     @RawQuery
-    abstract suspend fun fetchTasks(query: SimpleSQLiteQuery): List<TaskContainer>
+    abstract suspend fun fetchTasks(query: RoomRawQuery): List<TaskContainer>
 
     @RawQuery
-    abstract suspend fun countRaw(query: SimpleSQLiteQuery): Int
+    abstract suspend fun countRaw(query: RoomRawQuery): Int
 
     suspend fun touch(ids: List<Long>, now: Long = DateTimeUtils2.currentTimeMillis()) =
         ids.eachChunk { internalTouch(it, now) }
@@ -150,8 +152,25 @@ FROM (
     @Query("UPDATE tasks SET lastNotified = :timestamp WHERE _id = :id")
     abstract suspend fun setLastNotified(id: Long, timestamp: Long)
 
+    /** Writes lastNotified for several tasks in one transaction, one update per distinct time */
+    suspend fun setLastNotified(timestamps: Map<Long, Long>) = database.withTransaction {
+        timestamps.entries
+            .groupBy({ it.value }, { it.key })
+            .forEach { (timestamp, ids) -> ids.eachChunk { setLastNotifiedInternal(it, timestamp) } }
+    }
+
+    @Query("UPDATE tasks SET lastNotified = :timestamp WHERE _id IN (:ids)")
+    internal abstract suspend fun setLastNotifiedInternal(ids: List<Long>, timestamp: Long)
+
     suspend fun getChildren(id: Long): List<Long> = getChildren(listOf(id))
 
+    /** Direct children of [parents], including deleted ones */
+    suspend fun fetchChildren(parents: List<Long>): List<Task> =
+            parents.chunkedMap(this::fetchChildrenInternal)
+
+    @Query("SELECT * FROM tasks WHERE parent IN (:parents)")
+    internal abstract suspend fun fetchChildrenInternal(parents: List<Long>): List<Task>
+
     @Query("""
 WITH RECURSIVE recursive_tasks (task) AS (
     SELECT _id
@@ -186,6 +205,9 @@ FROM recursive_tasks
     @Insert
     abstract suspend fun insert(task: Task): Long
 
+    @Insert
+    internal abstract suspend fun insert(tasks: List<Task>): List<Long>
+
     suspend fun update(task: Task, original: Task? = null): Boolean {
         if (!task.insignificantChange(original)) {
             task.modificationDate = DateTimeUtils2.currentTimeMillis()
@@ -193,6 +215,16 @@ FROM recursive_tasks
         return updateInternal(task) == 1
     }
 
+    suspend fun update(tasks: List<Task>, originals: Map<Long, Task>) {
+        val now = DateTimeUtils2.currentTimeMillis()
+        tasks.forEach { task ->
+            if (!task.insignificantChange(originals[task.id])) {
+                task.modificationDate = now
+            }
+        }
+        updateInternal(tasks)
+    }
+
     @Update
     internal abstract suspend fun updateInternal(task: Task): Int
 
@@ -207,7 +239,7 @@ FROM recursive_tasks
         if (Task.isUuidEmpty(task.remoteId)) {
             task.remoteId = UUIDHelper.newUUID()
         }
-        if (BuildConfig.DEBUG) {
+        if (IS_DEBUG) {
             require(task.remoteId?.isNotBlank() == true && task.remoteId != "0")
         }
         val insert = insert(task)
@@ -215,6 +247,19 @@ FROM recursive_tasks
         return task.id
     }
 
+    suspend fun createNew(tasks: List<Task>) {
+        tasks.forEach { task ->
+            task.id = Task.NO_ID
+            if (task.creationDate == 0L) {
+                task.creationDate = DateTimeUtils2.currentTimeMillis()
+            }
+            if (Task.isUuidEmpty(task.remoteId)) {
+                task.remoteId = UUIDHelper.newUUID()
+            }
+        }
+        insert(tasks).forEachIndexed { index, id -> tasks[index].id = id }
+    }
+
     @Query("""
 SELECT _id
 FROM tasks
@@ -0,0 +1,41 @@
+package org.tasks.data.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import org.tasks.data.db.SuspendDbUtils.eachChunk
+import org.tasks.data.entity.TaskListOrder
+
+@Dao
+abstract class TaskListOrderDao {
+    @Query("SELECT * FROM task_list_order WHERE tlo_list = :list ORDER BY tlo_order")
+    abstract suspend fun getOrder(list: Long): List<TaskListOrder>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract suspend fun insert(order: List<TaskListOrder>)
+
+    @Query("DELETE FROM task_list_order WHERE tlo_list = :list AND tlo_task IN (:tasks)")
+    internal abstract suspend fun deleteInternal(list: Long, tasks: List<String>)
+
+    @Query("DELETE FROM task_list_order WHERE tlo_list = :list")
+    abstract suspend fun clear(list: Long)
+
+    /** Writes only the rows that changed since the list was last loaded */
+    @Transaction
+    open suspend fun update(list: Long, removed: List<String>, changed: List<TaskListOrder>) {
+        removed.eachChunk { deleteInternal(list, it) }
+        if (changed.isNotEmpty()) {
+            insert(changed)
+        }
+    }
+
+    @Transaction
+    open suspend fun replace(list: Long, order: List<TaskListOrder>) {
+        clear(list)
+        if (order.isNotEmpty()) {
+            insert(order)
+        }
+    }
+}
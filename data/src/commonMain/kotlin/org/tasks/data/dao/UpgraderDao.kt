@@ -14,6 +14,17 @@ WHERE cd_deleted = 0
     """)
     suspend fun tasksWithVtodos(): List<CaldavTaskContainer>
 
+    @Query("""
+SELECT task.*, caldav_task.*
+FROM tasks AS task
+         INNER JOIN caldav_tasks AS caldav_task ON _id = cd_task
+WHERE cd_deleted = 0
+  AND _id > :after
+ORDER BY _id
+LIMIT :limit
+    """)
+    suspend fun tasksWithVtodos(after: Long, limit: Int): List<CaldavTaskContainer>
+
     @Query("""
 SELECT tasks._id
 FROM tasks
@@ -34,5 +45,5 @@ WHERE cd_deleted = 0
     suspend fun getOpenTasksForList(account: String, url: String): List<CaldavTaskContainer>
 
     @Query("UPDATE tasks SET hideUntil = :startDate WHERE _id = :task")
-    fun setStartDate(task: Long, startDate: Long)
+    suspend fun setStartDate(task: Long, startDate: Long)
 }
\ No newline at end of file
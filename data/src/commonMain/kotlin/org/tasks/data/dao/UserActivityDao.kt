@@ -31,6 +31,12 @@ abstract class UserActivityDao {
     @Query("SELECT * FROM userActivity")
     abstract suspend fun getComments(): List<UserActivity>
 
+    @Query("SELECT picture FROM userActivity INNER JOIN tasks ON target_id = tasks.remoteId WHERE tasks._id IN (:tasks) AND picture IS NOT NULL AND picture != ''")
+    abstract suspend fun getPictures(tasks: List<Long>): List<String>
+
+    @Query("DELETE FROM userActivity WHERE target_id IN (SELECT remoteId FROM tasks WHERE _id IN (:tasks))")
+    abstract suspend fun deleteComments(tasks: List<Long>)
+
     suspend fun createNew(item: UserActivity) {
         if (item.created == null || item.created == 0L) {
             item.created = currentTimeMillis()
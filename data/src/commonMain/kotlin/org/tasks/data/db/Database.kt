@@ -1,8 +1,10 @@
 package org.tasks.data.db
 
 import androidx.room.AutoMigration
+import androidx.room.ConstructedBy
 import androidx.room.Database
 import androidx.room.RoomDatabase
+import androidx.room.RoomDatabaseConstructor
 import org.tasks.data.entity.Task
 import org.tasks.data.entity.Alarm
 import org.tasks.data.dao.AlarmDao
@@ -13,6 +15,8 @@ import org.tasks.data.dao.CaldavDao
 import org.tasks.data.entity.CaldavTask
 import org.tasks.data.dao.ContentProviderDao
 import org.tasks.data.dao.DeletionDao
+import org.tasks.data.entity.FilePurge
+import org.tasks.data.dao.FilePurgeDao
 import org.tasks.data.entity.Filter
 import org.tasks.data.dao.FilterDao
 import org.tasks.data.entity.Geofence
@@ -33,7 +37,9 @@ import org.tasks.data.entity.TaskAttachment
 import org.tasks.data.dao.TaskAttachmentDao
 import org.tasks.data.dao.TaskDao
 import org.tasks.data.entity.TaskListMetadata
+import org.tasks.data.entity.TaskListOrder
 import org.tasks.data.dao.TaskListMetadataDao
+import org.tasks.data.dao.TaskListOrderDao
 import org.tasks.data.dao.UpgraderDao
 import org.tasks.data.entity.UserActivity
 import org.tasks.data.dao.UserActivityDao
@@ -57,18 +63,22 @@ import org.tasks.data.dao.UserActivityDao
         Principal::class,
         PrincipalAccess::class,
         Attachment::class,
+        TaskListOrder::class,
+        FilePurge::class,
     ],
     autoMigrations = [
         AutoMigration(from = 83, to = 84, spec = AutoMigrate83to84::class),
     ],
-    version = 88
+    version = 91
 )
+@ConstructedBy(DatabaseConstructor::class)
 abstract class Database : RoomDatabase() {
     abstract fun notificationDao(): NotificationDao
     abstract fun tagDataDao(): TagDataDao
     abstract fun userActivityDao(): UserActivityDao
     abstract fun taskAttachmentDao(): TaskAttachmentDao
     abstract fun taskListMetadataDao(): TaskListMetadataDao
+    abstract fun taskListOrderDao(): TaskListOrderDao
     abstract fun alarmDao(): AlarmDao
     abstract fun locationDao(): LocationDao
     abstract fun tagDao(): TagDao
@@ -78,6 +88,7 @@ abstract class Database : RoomDatabase() {
     abstract fun taskDao(): TaskDao
     abstract fun caldavDao(): CaldavDao
     abstract fun deletionDao(): DeletionDao
+    abstract fun filePurgeDao(): FilePurgeDao
     abstract fun contentProviderDao(): ContentProviderDao
     abstract fun upgraderDao(): UpgraderDao
     abstract fun principalDao(): PrincipalDao
@@ -94,4 +105,9 @@ abstract class Database : RoomDatabase() {
     companion object {
         const val NAME = "database"
     }
+}
+
+@Suppress("NO_ACTUAL_FOR_EXPECT")
+expect object DatabaseConstructor : RoomDatabaseConstructor<Database> {
+    override fun initialize(): Database
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package org.tasks.data.db
+
+/**
+ * Runs [block] in a transaction, joining the caller's transaction if there is one.
+ *
+ * On Android this is Room's withTransaction, the API the app uses. DAO helpers called from the
+ * app's transactions then join them instead of opening a second one.
+ */
+expect suspend fun <T> Database.withTransaction(block: suspend () -> T): T
@@ -1,18 +1,18 @@
 package org.tasks.data.entity
 
-import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
 import androidx.room.PrimaryKey
-import kotlinx.parcelize.Parcelize
 import kotlinx.serialization.Serializable
 import kotlinx.serialization.Transient
+import org.tasks.CommonParcelable
+import org.tasks.CommonParcelize
 import org.tasks.data.db.Table
 import org.tasks.time.printTimestamp
 import java.util.concurrent.TimeUnit
 
-@Parcelize
+@CommonParcelize
 @Serializable
 @Entity(
     tableName = Alarm.TABLE_NAME,
@@ -35,13 +35,13 @@ data class Alarm(
     val task: Long = 0,
     @ColumnInfo(name = "time")
     val time: Long = 0,
-    @ColumnInfo(name = "type", defaultValue = "0")
+    @ColumnInfo(name = "type", defaultValue = "0", index = true)
     val type: Int = 0,
     @ColumnInfo(name = "repeat", defaultValue = "0")
     val repeat: Int = 0,
     @ColumnInfo(name = "interval", defaultValue = "0")
     val interval: Long = 0,
-) : Parcelable {
+) : CommonParcelable {
     fun same(other: Alarm) =
         type == other.type &&
                 time == other.time &&
@@ -0,0 +1,19 @@
+package org.tasks.data.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * A file that is no longer referenced by any comment or attachment. Rows are written in the same
+ * transaction that removes the reference and deleted once the file is gone, so a file is not
+ * forgotten if the process dies before it is removed.
+ */
+@Entity(tableName = "file_purge")
+data class FilePurge(
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "fp_id")
+    val id: Long = 0,
+    @ColumnInfo(name = "fp_uri")
+    val uri: String,
+)
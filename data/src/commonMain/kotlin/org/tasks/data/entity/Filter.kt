@@ -1,16 +1,16 @@
 package org.tasks.data.entity
 
-import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.PrimaryKey
-import kotlinx.parcelize.Parcelize
 import kotlinx.serialization.Serializable
 import kotlinx.serialization.Transient
+import org.tasks.CommonParcelable
+import org.tasks.CommonParcelize
 import org.tasks.data.NO_ORDER
 
 @Serializable
-@Parcelize
+@CommonParcelize
 @Entity(tableName = "filters")
 data class Filter(
     @PrimaryKey(autoGenerate = true)
@@ -31,4 +31,4 @@ data class Filter(
     val icon: Int? = -1,
     @ColumnInfo(name = "f_order")
     val order: Int = NO_ORDER,
-) : Parcelable
+) : CommonParcelable
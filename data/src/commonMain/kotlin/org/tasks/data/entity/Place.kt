@@ -1,22 +1,23 @@
 package org.tasks.data.entity
 
-import android.location.Location
-import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.Index
 import androidx.room.PrimaryKey
-import kotlinx.parcelize.Parcelize
 import kotlinx.serialization.Serializable
 import kotlinx.serialization.Transient
+import org.tasks.CommonParcelable
+import org.tasks.CommonParcelize
 import org.tasks.data.NO_ORDER
 import org.tasks.data.UUIDHelper
 import org.tasks.data.db.Table
+import java.text.DecimalFormat
 import java.util.regex.Pattern
 import kotlin.math.abs
+import kotlin.math.floor
 
 @Serializable
-@Parcelize
+@CommonParcelize
 @Entity(
     tableName = Place.TABLE_NAME,
     indices = [
@@ -50,7 +51,7 @@ data class Place(
     val order: Int = NO_ORDER,
     @ColumnInfo(name = "radius", defaultValue = "250")
     val radius: Int = 250,
-) : java.io.Serializable, Parcelable {
+) : java.io.Serializable, CommonParcelable {
     val displayName: String
         get() {
             if (!name.isNullOrEmpty() && !COORDS.matcher(name!!).matches()) {
@@ -76,7 +77,7 @@ data class Place(
         private val pattern = Pattern.compile("(\\d+):(\\d+):(\\d+\\.\\d+)")
         private val COORDS = Pattern.compile("^\\d+°\\d+'\\d+\\.\\d+\"[NS] \\d+°\\d+'\\d+\\.\\d+\"[EW]$")
         private fun formatCoordinate(coordinates: Double, latitude: Boolean): String {
-            val output = Location.convert(abs(coordinates), Location.FORMAT_SECONDS)
+            val output = toSeconds(abs(coordinates))
             val matcher = pattern.matcher(output)
             return if (matcher.matches()) {
                 val direction = if (latitude) {
@@ -89,5 +90,14 @@ data class Place(
                 coordinates.toString()
             }
         }
+
+        // equivalent to android.location.Location.convert(coordinate, FORMAT_SECONDS)
+        private fun toSeconds(coordinate: Double): String {
+            val degrees = floor(coordinate).toInt()
+            val remainder = (coordinate - degrees) * 60.0
+            val minutes = floor(remainder).toInt()
+            val seconds = (remainder - minutes) * 60.0
+            return "$degrees:$minutes:${DecimalFormat("###.#####").format(seconds)}"
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package org.tasks.data.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import org.tasks.data.db.Table
+
+/**
+ * Position of a task in a manually sorted [TaskListMetadata] tree. [order] increases along the
+ * flattened tree, so a list query can sort by joining against this table. Positions are spaced
+ * apart, so moving a task only rewrites the rows that moved.
+ *
+ * Rows are keyed by task uuid, like the serialized trees they replace. Rows for tasks that no
+ * longer match the list are removed the next time the list is loaded.
+ */
+@Entity(
+    tableName = "task_list_order",
+    primaryKeys = ["tlo_list", "tlo_task"],
+    foreignKeys = [
+        ForeignKey(
+            entity = TaskListMetadata::class,
+            parentColumns = ["_id"],
+            childColumns = ["tlo_list"],
+            onDelete = ForeignKey.CASCADE,
+        ),
+    ],
+)
+data class TaskListOrder(
+    @ColumnInfo(name = "tlo_list")
+    val list: Long,
+    @ColumnInfo(name = "tlo_task")
+    val task: String,
+    @ColumnInfo(name = "tlo_parent")
+    val parent: String? = null,
+    @ColumnInfo(name = "tlo_order")
+    val order: Int,
+) {
+    companion object {
+        @JvmField val TABLE = Table("task_list_order")
+        @JvmField val LIST = TABLE.column("tlo_list")
+        @JvmField val TASK = TABLE.column("tlo_task")
+        @JvmField val ORDER = TABLE.column("tlo_order")
+    }
+}
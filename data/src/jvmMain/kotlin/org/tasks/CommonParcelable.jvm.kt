@@ -0,0 +1,11 @@
+package org.tasks
+
+actual interface CommonParcelable
+
+@Target(AnnotationTarget.CLASS)
+@Retention(AnnotationRetention.BINARY)
+actual annotation class CommonParcelize
+
+@Target(AnnotationTarget.TYPE)
+@Retention(AnnotationRetention.BINARY)
+actual annotation class CommonRawValue
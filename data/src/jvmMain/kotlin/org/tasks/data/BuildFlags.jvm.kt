@@ -0,0 +1,3 @@
+package org.tasks.data
+
+internal actual val IS_DEBUG: Boolean = false
@@ -0,0 +1,9 @@
+package org.tasks.data.db
+
+import androidx.room.immediateTransaction
+import androidx.room.useWriterConnection
+
+actual suspend fun <T> Database.withTransaction(block: suspend () -> T): T =
+    useWriterConnection { transactor ->
+        transactor.immediateTransaction { block() }
+    }
@@ -15,3 +15,4 @@ dependencyResolutionManagement {
 
 include("app")
 include("data")
+include("benchmark")